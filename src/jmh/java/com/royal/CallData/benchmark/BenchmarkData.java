@@ -0,0 +1,106 @@
+package com.royal.CallData.benchmark;
+
+import com.royal.CallData.CallDataApplication;
+import com.royal.CallData.dto.CdrGenerationRequest;
+import com.royal.CallData.dto.CdrGenerationResponse;
+import com.royal.CallData.entity.CdrRecord;
+import com.royal.CallData.service.CdrRecordService;
+import com.royal.CallData.service.SubscriberDirectory;
+import com.royal.CallData.util.UtilService;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Воспроизводимые наборы данных для бенчмарков.
+ * Все наборы строятся из фиксированного {@link #SEED} и фиксированной даты окончания периода,
+ * поэтому при одинаковом размере содержат одни и те же записи в любой версии приложения.
+ */
+final class BenchmarkData {
+
+    static final long SEED = 42;
+    static final LocalDateTime END_DATE = LocalDateTime.of(2025, 3, 23, 18, 0);
+    static final int MONTHS = 12;
+    static final int MIN_CALLS_PER_MONTH = 5;
+    static final int MAX_CALLS_PER_MONTH = 15;
+
+    /**
+     * Среднее количество звонков абонента за период генерации.
+     */
+    private static final int CALLS_PER_SUBSCRIBER = (MIN_CALLS_PER_MONTH + MAX_CALLS_PER_MONTH) / 2 * MONTHS;
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * Запускает приложение без веб-сервера с отдельной базой H2 в памяти.
+     *
+     * @param name Имя базы данных.
+     * @return Контекст приложения.
+     */
+    static ConfigurableApplicationContext startApplication(String name) {
+        // Аргументы командной строки, а не properties(): свойства по умолчанию не перекрывают application.properties
+        return new SpringApplicationBuilder(CallDataApplication.class)
+                .web(WebApplicationType.NONE)
+                .logStartupInfo(false)
+                .run("--spring.datasource.url=jdbc:h2:mem:" + name,
+                        "--spring.jpa.show-sql=false",
+                        "--spring.main.banner-mode=off",
+                        "--logging.level.root=WARN",
+                        "--report.output.directory=target/jmh-reports");
+    }
+
+    /**
+     * Запрос генерации, который создает около {@code records} CDR записей.
+     *
+     * @param records Требуемое количество записей.
+     * @return Запрос генерации с фиксированными seed и датой окончания.
+     */
+    static CdrGenerationRequest generationRequest(int records) {
+        return new CdrGenerationRequest(Math.max(2, records / CALLS_PER_SUBSCRIBER),
+                MIN_CALLS_PER_MONTH, MAX_CALLS_PER_MONTH, MONTHS, END_DATE, SEED);
+    }
+
+    /**
+     * Заполняет базу приложения CDR записями через генератор.
+     *
+     * @param context Контекст приложения.
+     * @param records Требуемое количество записей.
+     * @return Номера абонентов, участвующих в звонках.
+     */
+    static String[] populate(ConfigurableApplicationContext context, int records) {
+        CdrGenerationResponse response = context.getBean(CdrRecordService.class).generateCdrRecords(generationRequest(records));
+        System.out.println("Набор данных: " + response.getGeneratedRecords() + " CDR записей, "
+                + response.getSubscriberCount() + " абонентов");
+        return Arrays.stream(context.getBean(SubscriberDirectory.class).numbers())
+                .limit(response.getSubscriberCount())
+                .mapToObj(Long::toString)
+                .toArray(String[]::new);
+    }
+
+    /**
+     * Строит записи в памяти без базы данных.
+     *
+     * @param records Количество записей.
+     * @return Записи со случайными, но воспроизводимыми номерами и временем звонка за год до {@link #END_DATE}.
+     */
+    static List<CdrRecord> records(int records) {
+        SplittableRandom random = new SplittableRandom(SEED);
+        LocalDateTime startDate = END_DATE.minusMonths(MONTHS);
+        List<CdrRecord> result = new ArrayList<>(records);
+        for (int i = 0; i < records; i++) {
+            String caller = Long.toString(79100000000L + random.nextInt(100_000));
+            String receiver = Long.toString(79100000000L + random.nextInt(100_000));
+            LocalDateTime start = UtilService.randomDateBetween(startDate, END_DATE, random);
+            result.add(new CdrRecord(random.nextBoolean() ? "01" : "02", caller, receiver,
+                    start, start.plusSeconds(random.nextLong(10, 3600))));
+        }
+        return result;
+    }
+}
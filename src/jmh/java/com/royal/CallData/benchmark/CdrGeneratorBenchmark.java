@@ -0,0 +1,66 @@
+package com.royal.CallData.benchmark;
+
+import com.royal.CallData.dto.CdrGenerationResponse;
+import com.royal.CallData.service.CdrRecordService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Генерация и сохранение CDR записей в H2 тем же путем, что и {@code generateCdrRecordsForYear},
+ * но с фиксированными seed и датой окончания. Перед каждым запуском таблицы очищаются,
+ * поэтому каждый запуск создает одни и те же абоненты и записи.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class CdrGeneratorBenchmark {
+
+    @Param({"10000", "1000000", "10000000"})
+    private int records;
+
+    private ConfigurableApplicationContext context;
+    private CdrRecordService cdrRecordService;
+    private JdbcTemplate jdbcTemplate;
+
+    @Setup(Level.Trial)
+    public void startApplication() {
+        context = BenchmarkData.startApplication("generator" + records);
+        cdrRecordService = context.getBean(CdrRecordService.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+    }
+
+    @Setup(Level.Invocation)
+    public void clear() {
+        jdbcTemplate.execute("TRUNCATE TABLE cdr_record");
+        jdbcTemplate.execute("TRUNCATE TABLE daily_usage");
+        jdbcTemplate.update("DELETE FROM subscriber WHERE msisdn >= '79100000000'");
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication() {
+        context.close();
+    }
+
+    @Benchmark
+    public CdrGenerationResponse generate() {
+        return cdrRecordService.generateCdrRecords(BenchmarkData.generationRequest(records));
+    }
+}
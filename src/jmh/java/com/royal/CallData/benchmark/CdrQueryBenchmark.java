@@ -0,0 +1,133 @@
+package com.royal.CallData.benchmark;
+
+import com.royal.CallData.dto.ReportGenerationRequest;
+import com.royal.CallData.entity.CdrRecord;
+import com.royal.CallData.repository.CdrStore;
+import com.royal.CallData.service.CdrReportService;
+import com.royal.CallData.service.ReportStatus;
+import com.royal.CallData.service.ReportStatusRegistry;
+import com.royal.CallData.util.PageTokenUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Stream;
+
+/**
+ * Запросы к хранилищу CDR и формирование отчетов на наборе из {@code records} записей в H2.
+ * Набор заполняется генератором один раз на размер; абоненты перебираются по кругу в фиксированном порядке.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class CdrQueryBenchmark {
+
+    private static final int PAGE_SIZE = 100;
+
+    @Param({"10000", "1000000", "10000000"})
+    private int records;
+
+    private ConfigurableApplicationContext context;
+    private CdrStore cdrStore;
+    private CdrReportService cdrReportService;
+    private ReportStatusRegistry reportStatusRegistry;
+    private TransactionTemplate readOnlyTransaction;
+    private String[] msisdns;
+    private int nextSubscriber;
+    private long reportCounter;
+
+    @Setup(Level.Trial)
+    public void populate() {
+        context = BenchmarkData.startApplication("query" + records);
+        msisdns = BenchmarkData.populate(context, records);
+        cdrStore = context.getBean(CdrStore.class);
+        cdrReportService = context.getBean(CdrReportService.class);
+        reportStatusRegistry = context.getBean(ReportStatusRegistry.class);
+        readOnlyTransaction = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnlyTransaction.setReadOnly(true);
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication() {
+        context.close();
+    }
+
+    private String nextMsisdn() {
+        return msisdns[nextSubscriber++ % msisdns.length];
+    }
+
+    /**
+     * Записи абонента за последний месяц.
+     */
+    @Benchmark
+    public Long subscriberMonth() {
+        String msisdn = nextMsisdn();
+        return readOnlyTransaction.execute(status -> {
+            try (Stream<CdrRecord> stream = cdrStore.streamBySubscriberAndDateRange(msisdn,
+                    BenchmarkData.END_DATE.minusMonths(1), BenchmarkData.END_DATE)) {
+                return stream.count();
+            }
+        });
+    }
+
+    @Benchmark
+    public List<CdrRecord> firstPage() {
+        return cdrStore.findPageAfter(PageTokenUtil.FIRST_PAGE.startTime(), PageTokenUtil.FIRST_PAGE.id(), PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<CdrRecord> subscriberFirstPage() {
+        return cdrStore.findSubscriberPageAfter(nextMsisdn(), PageTokenUtil.FIRST_PAGE.startTime(),
+                PageTokenUtil.FIRST_PAGE.id(), PAGE_SIZE);
+    }
+
+    /**
+     * Потоковый отчет по всем записям абонента, как в {@code GET /api/cdr/report/{msisdn}}.
+     */
+    @Benchmark
+    public long streamedReport() throws IOException {
+        return cdrReportService.writeSubscriberReport(nextMsisdn(), OutputStream.nullOutputStream());
+    }
+
+    /**
+     * Файловый отчет абонента за год от запроса до готового файла, как в {@code POST /api/reports/generate}.
+     * Конец периода сдвигается на наносекунду в каждом запросе, чтобы отчет не брался из кэша результатов.
+     */
+    @Benchmark
+    public ReportStatus fileReport() throws IOException {
+        UUID requestId = cdrReportService.generateReport(new ReportGenerationRequest(nextMsisdn(),
+                BenchmarkData.END_DATE.minusMonths(BenchmarkData.MONTHS),
+                BenchmarkData.END_DATE.plusNanos(++reportCounter))).getRequestId();
+        ReportStatus status;
+        while ((status = reportStatusRegistry.get(requestId)).state() == ReportStatus.State.PROCESSING) {
+            LockSupport.parkNanos(50_000);
+        }
+        if (status.filePath() != null) {
+            Files.deleteIfExists(status.filePath());
+        }
+        return status;
+    }
+}
@@ -0,0 +1,86 @@
+package com.royal.CallData.benchmark;
+
+import com.royal.CallData.entity.CdrRecord;
+import com.royal.CallData.util.CdrRowEncoder;
+import com.royal.CallData.util.ColumnarReportWriter;
+import com.royal.CallData.util.UtilService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сериализация набора записей в строки отчета и колоночный формат, а также генерация случайного времени звонка.
+ * Время операции сериализации — время обработки всего набора из {@code records} записей.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class CdrSerializationBenchmark {
+
+    @Param({"10000", "1000000", "10000000"})
+    private int records;
+
+    private List<CdrRecord> dataset;
+    private SplittableRandom random;
+
+    @Setup
+    public void setUp() {
+        dataset = BenchmarkData.records(records);
+        random = new SplittableRandom(BenchmarkData.SEED);
+    }
+
+    @Benchmark
+    public void toCdrString(Blackhole blackhole) {
+        for (CdrRecord record : dataset) {
+            blackhole.consume(record.toCdrString());
+        }
+    }
+
+    @Benchmark
+    public void rowEncoder() throws IOException {
+        CdrRowEncoder encoder = new CdrRowEncoder();
+        Writer writer = Writer.nullWriter();
+        for (CdrRecord record : dataset) {
+            encoder.writeRow(record, writer);
+        }
+    }
+
+    @Benchmark
+    public void columnarWriter() throws IOException {
+        try (ColumnarReportWriter writer = new ColumnarReportWriter(OutputStream.nullOutputStream())) {
+            for (CdrRecord record : dataset) {
+                writer.write(record);
+            }
+        }
+    }
+
+    /**
+     * Одно случайное время звонка; набор данных не используется.
+     */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public LocalDateTime randomDateBetween() {
+        return UtilService.randomDateBetween(BenchmarkData.END_DATE.minusMonths(BenchmarkData.MONTHS),
+                BenchmarkData.END_DATE, random);
+    }
+}
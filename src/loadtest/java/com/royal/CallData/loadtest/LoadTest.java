@@ -0,0 +1,301 @@
+package com.royal.CallData.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.royal.CallData.CallDataApplication;
+import com.royal.CallData.dto.CdrGenerationRequest;
+import com.royal.CallData.dto.CdrGenerationResponse;
+import com.royal.CallData.dto.ReportGenerationResponse;
+import com.royal.CallData.service.CdrRecordService;
+import com.royal.CallData.service.SubscriberDirectory;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Нагрузочный тест HTTP API.
+ * <p>
+ * Запускает приложение на случайном порту localhost с отдельной базой H2, заполняет ее генератором
+ * с фиксированными seed и датой окончания периода и подает запросы по открытой модели: запросы отправляются
+ * с заданной частотой независимо от того, ответил ли сервер на предыдущие, каждый — в отдельном потоке клиента
+ * (виртуальном на Java 21+). Задержка считается от запланированного времени запроса.
+ * <p>
+ * Параметры ({@code --имя=значение}):
+ * <ul>
+ *     <li>{@code rate} — запросов в секунду, по умолчанию 50;</li>
+ *     <li>{@code duration} и {@code warmup} — длительность измерения и прогрева в секундах, по умолчанию 60 и 10;</li>
+ *     <li>{@code mix} — доли операций {@link Operation}, по умолчанию {@value #DEFAULT_MIX};</li>
+ *     <li>{@code records} — размер набора CDR записей, по умолчанию 100000;</li>
+ *     <li>{@code seed} — seed генератора данных и выбора запросов, по умолчанию 42;</li>
+ *     <li>{@code reports} — количество заранее сформированных отчетов для status и download, по умолчанию 20;</li>
+ *     <li>{@code poll-ms} — интервал опроса статуса в цикле, по умолчанию 50;</li>
+ *     <li>{@code result} — файл результатов в JSON, по умолчанию {@code target/loadtest-result.json}.</li>
+ * </ul>
+ * Остальные аргументы передаются приложению, например {@code --spring.threads.virtual.enabled=true}.
+ */
+public final class LoadTest {
+
+    static final String DEFAULT_MIX = "subscriber:40,status:30,download:10,generate:10,cycle:10";
+
+    private static final LocalDateTime END_DATE = LocalDateTime.of(2025, 3, 23, 18, 0);
+    private static final LocalDateTime START_DATE = END_DATE.minusMonths(12);
+    private static final int CALLS_PER_SUBSCRIBER = 120;
+    private static final Duration DRAIN_TIMEOUT = Duration.ofMinutes(2);
+
+    private final Map<String, String> options;
+    private final List<String> applicationArgs;
+    private final Map<Operation, OperationStats> stats = new EnumMap<>(Operation.class);
+    private final AtomicLong inFlight = new AtomicLong();
+    private final AtomicLong reportCounter = new AtomicLong();
+
+    private LoadTest(Map<String, String> options, List<String> applicationArgs) {
+        this.options = options;
+        this.applicationArgs = applicationArgs;
+        for (Operation operation : Operation.values()) {
+            stats.put(operation, new OperationStats());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new LinkedHashMap<>();
+        List<String> applicationArgs = new ArrayList<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            String name = arg.startsWith("--") && separator > 2 ? arg.substring(2, separator) : null;
+            if (name != null && List.of("rate", "duration", "warmup", "mix", "records", "seed", "reports",
+                    "poll-ms", "result").contains(name)) {
+                options.put(name, arg.substring(separator + 1));
+            } else {
+                applicationArgs.add(arg);
+            }
+        }
+        new LoadTest(options, applicationArgs).run();
+        System.exit(0);
+    }
+
+    private String option(String name, String defaultValue) {
+        return options.getOrDefault(name, defaultValue);
+    }
+
+    private void run() throws Exception {
+        int rate = Integer.parseInt(option("rate", "50"));
+        long durationSeconds = Long.parseLong(option("duration", "60"));
+        long warmupSeconds = Long.parseLong(option("warmup", "10"));
+        Map<Operation, Integer> mix = Operation.parseMix(option("mix", DEFAULT_MIX));
+        int records = Integer.parseInt(option("records", "100000"));
+        long seed = Long.parseLong(option("seed", "42"));
+        int reports = Integer.parseInt(option("reports", "20"));
+        Duration pollInterval = Duration.ofMillis(Long.parseLong(option("poll-ms", "50")));
+        Path resultFile = Path.of(option("result", "target/loadtest-result.json"));
+
+        SimpleAsyncTaskExecutor clients = new SimpleAsyncTaskExecutor("loadtest-");
+        clients.setVirtualThreads(Runtime.version().feature() >= 21);
+
+        try (ConfigurableApplicationContext context = startApplication()) {
+            String[] msisdns = populate(context, records, seed);
+            ObjectMapper objectMapper = context.getBean(ObjectMapper.class);
+            URI baseUri = URI.create("http://localhost:" + context.getEnvironment().getProperty("local.server.port"));
+            ReportClient client = new ReportClient(baseUri, objectMapper, clients);
+            UUID[] preparedReports = prepareReports(client, msisdns, reports, pollInterval);
+
+            System.out.printf(Locale.ROOT, "Нагрузка: %d запросов/с, прогрев %d с, измерение %d с, %s, клиенты: %s%n",
+                    rate, warmupSeconds, durationSeconds, mix,
+                    Runtime.version().feature() >= 21 ? "виртуальные потоки" : "платформенные потоки");
+            SplittableRandom random = new SplittableRandom(seed);
+            Operation[] schedule = weightedSchedule(mix);
+            long periodNanos = TimeUnit.SECONDS.toNanos(1) / rate;
+            long started = System.nanoTime();
+            long measureFrom = started + TimeUnit.SECONDS.toNanos(warmupSeconds);
+            long measureUntil = measureFrom + TimeUnit.SECONDS.toNanos(durationSeconds);
+            for (long i = 0; ; i++) {
+                long intended = started + i * periodNanos;
+                if (intended >= measureUntil) {
+                    break;
+                }
+                long delay;
+                while ((delay = intended - System.nanoTime()) > 0) {
+                    LockSupport.parkNanos(delay);
+                }
+                Operation operation = schedule[random.nextInt(schedule.length)];
+                String msisdn = msisdns[random.nextInt(msisdns.length)];
+                UUID reportId = preparedReports[random.nextInt(preparedReports.length)];
+                boolean measured = intended >= measureFrom;
+                inFlight.incrementAndGet();
+                clients.execute(() -> execute(client, operation, msisdn, reportId, pollInterval, intended, measured));
+            }
+            awaitInFlight();
+
+            printResults(durationSeconds);
+            writeResults(objectMapper, resultFile, rate, durationSeconds, mix, records, seed);
+        }
+    }
+
+    /**
+     * Запускает приложение. Свойства нагрузочного теста передаются аргументами командной строки,
+     * чтобы перекрыть application.properties; аргументы пользователя перекрывают их.
+     */
+    private ConfigurableApplicationContext startApplication() {
+        Map<String, String> properties = new LinkedHashMap<>();
+        properties.put("server.port", "0");
+        properties.put("spring.datasource.url", "jdbc:h2:mem:loadtest");
+        properties.put("spring.jpa.show-sql", "false");
+        properties.put("spring.main.banner-mode", "off");
+        properties.put("logging.level.root", "WARN");
+        properties.put("report.output.directory", "target/loadtest-reports");
+        List<String> args = new ArrayList<>();
+        properties.forEach((name, value) -> {
+            if (applicationArgs.stream().noneMatch(arg -> arg.startsWith("--" + name + "="))) {
+                args.add("--" + name + "=" + value);
+            }
+        });
+        args.addAll(applicationArgs);
+        return new SpringApplicationBuilder(CallDataApplication.class)
+                .logStartupInfo(false)
+                .run(args.toArray(String[]::new));
+    }
+
+    /**
+     * Заполняет базу CDR записями с фиксированными seed и датой окончания периода.
+     *
+     * @return Номера абонентов, участвующих в звонках.
+     */
+    private static String[] populate(ConfigurableApplicationContext context, int records, long seed) {
+        CdrGenerationResponse response = context.getBean(CdrRecordService.class).generateCdrRecords(
+                new CdrGenerationRequest(Math.max(2, records / CALLS_PER_SUBSCRIBER), 5, 15, 12, END_DATE, seed));
+        System.out.printf(Locale.ROOT, "Набор данных: %d CDR записей, %d абонентов%n",
+                response.getGeneratedRecords(), response.getSubscriberCount());
+        return Arrays.stream(context.getBean(SubscriberDirectory.class).numbers())
+                .limit(response.getSubscriberCount())
+                .mapToObj(Long::toString)
+                .toArray(String[]::new);
+    }
+
+    /**
+     * Формирует отчеты, которые запрашивают операции status и download.
+     */
+    private UUID[] prepareReports(ReportClient client, String[] msisdns, int count, Duration pollInterval)
+            throws IOException, InterruptedException {
+        UUID[] prepared = new UUID[Math.max(1, count)];
+        for (int i = 0; i < prepared.length; i++) {
+            ReportGenerationResponse response = client.awaitReport(msisdns[i % msisdns.length], START_DATE,
+                    END_DATE, pollInterval);
+            if (response == null || !"completed".equals(response.getStatus())) {
+                throw new IllegalStateException("Не удалось сформировать отчет для нагрузочного теста: " + response);
+            }
+            prepared[i] = response.getRequestId();
+        }
+        return prepared;
+    }
+
+    /**
+     * Операции, повторенные по весу, для выбора операции одним случайным индексом.
+     */
+    private static Operation[] weightedSchedule(Map<Operation, Integer> mix) {
+        List<Operation> schedule = new ArrayList<>();
+        mix.forEach((operation, weight) -> {
+            for (int i = 0; i < weight; i++) {
+                schedule.add(operation);
+            }
+        });
+        return schedule.toArray(Operation[]::new);
+    }
+
+    private void execute(ReportClient client, Operation operation, String msisdn, UUID reportId,
+                         Duration pollInterval, long intended, boolean measured) {
+        boolean success;
+        try {
+            success = switch (operation) {
+                case GENERATE -> client.generate(msisdn, START_DATE, nextEndDate()) != null;
+                case STATUS -> client.status(reportId) != null;
+                case DOWNLOAD -> client.download(reportId);
+                case SUBSCRIBER -> client.subscriberPage(msisdn);
+                case CYCLE -> client.cycle(msisdn, START_DATE, nextEndDate(), pollInterval);
+            };
+        } catch (IOException e) {
+            success = false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            success = false;
+        } finally {
+            inFlight.decrementAndGet();
+        }
+        if (measured) {
+            stats.get(operation).record(System.nanoTime() - intended, success);
+        }
+    }
+
+    /**
+     * Каждый запрос на генерацию получает свой конец периода, чтобы отчет не брался из кэша результатов.
+     */
+    private LocalDateTime nextEndDate() {
+        return END_DATE.plusSeconds(reportCounter.incrementAndGet());
+    }
+
+    private void awaitInFlight() {
+        long deadline = System.nanoTime() + DRAIN_TIMEOUT.toNanos();
+        while (inFlight.get() > 0 && System.nanoTime() < deadline) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(10));
+        }
+        if (inFlight.get() > 0) {
+            System.out.printf(Locale.ROOT, "Не дождались ответа на %d запросов за %d с%n",
+                    inFlight.get(), DRAIN_TIMEOUT.toSeconds());
+        }
+    }
+
+    private void printResults(double measuredSeconds) {
+        System.out.printf(Locale.ROOT, "%n%-11s %9s %7s %10s %10s %10s %10s %10s%n",
+                "Операция", "Запросов", "Ошибок", "Запр/с", "p50, мс", "p99, мс", "p999, мс", "max, мс");
+        stats.forEach((operation, operationStats) -> {
+            if (operationStats.count() == 0) {
+                return;
+            }
+            System.out.printf(Locale.ROOT, "%-11s %9d %7d %10.1f %10.2f %10.2f %10.2f %10.2f%n",
+                    operation.name().toLowerCase(Locale.ROOT), operationStats.count(), operationStats.errors(),
+                    operationStats.count() / measuredSeconds, operationStats.percentileMillis(50),
+                    operationStats.percentileMillis(99), operationStats.percentileMillis(99.9),
+                    operationStats.maxMillis());
+        });
+    }
+
+    private void writeResults(ObjectMapper objectMapper, Path resultFile, int rate, long durationSeconds,
+                              Map<Operation, Integer> mix, int records, long seed) throws IOException {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("rate", rate);
+        result.put("durationSeconds", durationSeconds);
+        result.put("mix", mix);
+        result.put("records", records);
+        result.put("seed", seed);
+        result.put("javaVersion", Runtime.version().toString());
+        Map<String, Object> operations = new LinkedHashMap<>();
+        stats.forEach((operation, operationStats) -> {
+            if (operationStats.count() > 0) {
+                operations.put(operation.name().toLowerCase(Locale.ROOT), operationStats.summary(durationSeconds));
+            }
+        });
+        result.put("operations", operations);
+        if (resultFile.getParent() != null) {
+            Files.createDirectories(resultFile.getParent());
+        }
+        objectMapper.copy().enable(SerializationFeature.INDENT_OUTPUT).writeValue(resultFile.toFile(), result);
+        System.out.println("Результаты сохранены в " + resultFile.toAbsolutePath());
+    }
+}
@@ -0,0 +1,57 @@
+package com.royal.CallData.loadtest;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Операции нагрузочного теста.
+ */
+enum Operation {
+    /**
+     * {@code POST /api/reports/generate} за год по случайному абоненту.
+     */
+    GENERATE,
+    /**
+     * {@code GET /api/reports/status/{id}} по заранее сформированному отчету.
+     */
+    STATUS,
+    /**
+     * {@code GET /api/reports/download/{id}} заранее сформированного отчета.
+     */
+    DOWNLOAD,
+    /**
+     * {@code GET /api/cdr/subscriber/{msisdn}}, первая страница.
+     */
+    SUBSCRIBER,
+    /**
+     * Полный цикл: генерация, опрос статуса до завершения и скачивание файла.
+     */
+    CYCLE;
+
+    /**
+     * Разбирает доли операций в виде {@code subscriber:50,status:30,cycle:5}.
+     *
+     * @param mix Доли операций; не указанные операции не выполняются.
+     * @return Вес каждой операции.
+     * @throws IllegalArgumentException если строка некорректна или сумма весов равна нулю.
+     */
+    static Map<Operation, Integer> parseMix(String mix) {
+        Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+        for (String part : mix.split(",")) {
+            String[] pair = part.trim().split(":");
+            if (pair.length != 2) {
+                throw new IllegalArgumentException("Ожидается операция:вес, получено: " + part);
+            }
+            int weight = Integer.parseInt(pair[1].trim());
+            if (weight < 0) {
+                throw new IllegalArgumentException("Вес операции не может быть отрицательным: " + part);
+            }
+            weights.put(Operation.valueOf(pair[0].trim().toUpperCase(Locale.ROOT)), weight);
+        }
+        if (weights.values().stream().mapToInt(Integer::intValue).sum() == 0) {
+            throw new IllegalArgumentException("Сумма весов операций должна быть больше нуля");
+        }
+        return weights;
+    }
+}
@@ -0,0 +1,68 @@
+package com.royal.CallData.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Задержки и ошибки одной операции. Задержка считается от запланированного времени запроса,
+ * а не от фактической отправки, поэтому очередь к серверу попадает в задержку, а не скрывается в ней.
+ */
+final class OperationStats {
+
+    private static final long MAX_LATENCY_NANOS = TimeUnit.MINUTES.toNanos(10);
+
+    private final Histogram latencies = new ConcurrentHistogram(MAX_LATENCY_NANOS, 3);
+    private final LongAdder errors = new LongAdder();
+
+    /**
+     * @param latencyNanos Время от запланированного начала запроса до получения ответа.
+     * @param success      {@code false}, если сервер вернул ошибку или запрос не выполнен.
+     */
+    void record(long latencyNanos, boolean success) {
+        latencies.recordValue(Math.min(latencyNanos, MAX_LATENCY_NANOS));
+        if (!success) {
+            errors.increment();
+        }
+    }
+
+    long count() {
+        return latencies.getTotalCount();
+    }
+
+    long errors() {
+        return errors.sum();
+    }
+
+    /**
+     * @param percentile Процентиль от 0 до 100.
+     * @return Задержка в миллисекундах.
+     */
+    double percentileMillis(double percentile) {
+        return latencies.getValueAtPercentile(percentile) / 1_000_000.0;
+    }
+
+    double maxMillis() {
+        return latencies.getMaxValue() / 1_000_000.0;
+    }
+
+    /**
+     * @param measuredSeconds Длительность измерения.
+     * @return Сводка для вывода в JSON.
+     */
+    Map<String, Object> summary(double measuredSeconds) {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("count", count());
+        summary.put("errors", errors());
+        summary.put("throughputPerSecond", count() / measuredSeconds);
+        summary.put("p50Millis", percentileMillis(50));
+        summary.put("p99Millis", percentileMillis(99));
+        summary.put("p999Millis", percentileMillis(99.9));
+        summary.put("maxMillis", maxMillis());
+        return summary;
+    }
+}
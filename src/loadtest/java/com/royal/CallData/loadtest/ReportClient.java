@@ -0,0 +1,130 @@
+package com.royal.CallData.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.royal.CallData.dto.ReportGenerationRequest;
+import com.royal.CallData.dto.ReportGenerationResponse;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+
+/**
+ * HTTP-клиент к API отчетов и CDR записей. Методы блокирующие и вызываются из потоков клиентов нагрузки.
+ */
+final class ReportClient {
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofMinutes(2);
+
+    private final URI baseUri;
+    private final ObjectMapper objectMapper;
+    private final HttpClient httpClient;
+
+    /**
+     * @param baseUri      Адрес приложения, например {@code http://localhost:8080}.
+     * @param objectMapper Сериализатор JSON приложения.
+     * @param executor     Исполнитель внутренних задач HTTP-клиента.
+     */
+    ReportClient(URI baseUri, ObjectMapper objectMapper, Executor executor) {
+        this.baseUri = baseUri;
+        this.objectMapper = objectMapper;
+        this.httpClient = HttpClient.newBuilder()
+                .executor(executor)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+    }
+
+    /**
+     * Запрашивает формирование отчета.
+     *
+     * @return Ответ сервиса или {@code null}, если сервер вернул не 200.
+     */
+    ReportGenerationResponse generate(String msisdn, LocalDateTime startDate, LocalDateTime endDate)
+            throws IOException, InterruptedException {
+        byte[] body = objectMapper.writeValueAsBytes(new ReportGenerationRequest(msisdn, startDate, endDate));
+        HttpRequest request = HttpRequest.newBuilder(baseUri.resolve("/api/reports/generate"))
+                .timeout(REQUEST_TIMEOUT)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+                .build();
+        return readReportResponse(httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray()));
+    }
+
+    /**
+     * @return Статус отчета или {@code null}, если сервер вернул не 200.
+     */
+    ReportGenerationResponse status(UUID requestId) throws IOException, InterruptedException {
+        HttpRequest request = get("/api/reports/status/" + requestId);
+        return readReportResponse(httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray()));
+    }
+
+    /**
+     * Скачивает файл отчета, не сохраняя его.
+     *
+     * @return {@code true}, если сервер вернул 200.
+     */
+    boolean download(UUID requestId) throws IOException, InterruptedException {
+        return httpClient.send(get("/api/reports/download/" + requestId), HttpResponse.BodyHandlers.discarding())
+                .statusCode() == 200;
+    }
+
+    /**
+     * Запрашивает первую страницу CDR записей абонента.
+     *
+     * @return {@code true}, если сервер вернул 200.
+     */
+    boolean subscriberPage(String msisdn) throws IOException, InterruptedException {
+        return httpClient.send(get("/api/cdr/subscriber/" + msisdn), HttpResponse.BodyHandlers.discarding())
+                .statusCode() == 200;
+    }
+
+    /**
+     * Формирует отчет и скачивает его: генерация, опрос статуса с интервалом {@code pollInterval}
+     * до завершения формирования и скачивание файла, если в отчете есть записи.
+     *
+     * @return {@code true}, если все запросы цикла выполнены успешно и отчет сформирован.
+     */
+    boolean cycle(String msisdn, LocalDateTime startDate, LocalDateTime endDate, Duration pollInterval)
+            throws IOException, InterruptedException {
+        ReportGenerationResponse response = awaitReport(msisdn, startDate, endDate, pollInterval);
+        if (response == null || !"completed".equals(response.getStatus())) {
+            return false;
+        }
+        return response.getFilePath() == null || download(response.getRequestId());
+    }
+
+    /**
+     * Формирует отчет и ждет завершения формирования.
+     *
+     * @return Итоговый статус отчета или {@code null}, если сервер вернул ошибку.
+     */
+    ReportGenerationResponse awaitReport(String msisdn, LocalDateTime startDate, LocalDateTime endDate,
+                                         Duration pollInterval) throws IOException, InterruptedException {
+        ReportGenerationResponse response = generate(msisdn, startDate, endDate);
+        if (response == null || response.getRequestId() == null) {
+            return null;
+        }
+        UUID requestId = response.getRequestId();
+        do {
+            Thread.sleep(pollInterval.toMillis());
+            response = status(requestId);
+        } while (response != null && "processing".equals(response.getStatus()));
+        return response;
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(baseUri.resolve(path)).timeout(REQUEST_TIMEOUT).GET().build();
+    }
+
+    private ReportGenerationResponse readReportResponse(HttpResponse<byte[]> response) throws IOException {
+        if (response.statusCode() != 200) {
+            return null;
+        }
+        return objectMapper.readValue(response.body(), ReportGenerationResponse.class);
+    }
+}
@@ -0,0 +1,53 @@
+package com.royal.CallData.config;
+
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Исполнитель, запускающий каждую задачу в отдельном виртуальном потоке.
+ * Количество одновременно выполняемых задач ограничено: при превышении лимита задача
+ * отклоняется с {@link TaskRejectedException}, как и в пуле платформенных потоков с заполненной очередью.
+ */
+class BoundedVirtualThreadExecutor implements Executor, AutoCloseable {
+
+    private final SimpleAsyncTaskExecutor delegate;
+    private final Semaphore jobPermits;
+
+    /**
+     * @param threadNamePrefix Префикс имени виртуальных потоков.
+     * @param maxJobs          Максимальное количество одновременно выполняемых задач.
+     */
+    BoundedVirtualThreadExecutor(String threadNamePrefix, int maxJobs) {
+        this.delegate = new SimpleAsyncTaskExecutor(threadNamePrefix);
+        this.delegate.setVirtualThreads(true);
+        this.delegate.setTaskTerminationTimeout(30_000);
+        this.jobPermits = new Semaphore(maxJobs);
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        if (!jobPermits.tryAcquire()) {
+            throw new TaskRejectedException("Превышен лимит одновременно выполняемых задач: " + task);
+        }
+        try {
+            delegate.execute(() -> {
+                try {
+                    task.run();
+                } finally {
+                    jobPermits.release();
+                }
+            });
+        } catch (RuntimeException e) {
+            jobPermits.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public void close() {
+        delegate.close();
+    }
+}
@@ -0,0 +1,109 @@
+package com.royal.CallData.config;
+
+import com.royal.CallData.repository.CdrStore;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Метрики времени вызовов хранилища CDR записей.
+ * Стандартная метрика {@code spring.data.repository.invocations} есть только у репозиториев Spring Data,
+ * поэтому бин {@link CdrStore} любого хранилища оборачивается прокси, которое пишет гистограмму
+ * {@code cdr.store.invocations} с тегами {@code store} (класс хранилища), {@code method} и {@code exception}
+ * для методов интерфейса {@link CdrStore}.
+ * Для методов, возвращающих {@link Stream}, время считается до закрытия потока, то есть включает чтение записей.
+ */
+@Configuration
+public class CdrStoreMetricsConfig {
+
+    /**
+     * Оборачивает бин хранилища CDR записей прокси, замеряющим время вызовов.
+     * Прокси наследует класс хранилища, поэтому бин по-прежнему можно внедрять по конкретному типу.
+     * Реестр метрик запрашивается при первой записи метрики, а не при создании постпроцессора,
+     * чтобы не создавать его раньше остальных бинов.
+     *
+     * @param meterRegistry Реестр метрик.
+     * @return Постпроцессор, оборачивающий хранилище CDR записей.
+     */
+    @Bean
+    public static BeanPostProcessor cdrStoreMetricsPostProcessor(ObjectProvider<MeterRegistry> meterRegistry) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof CdrStore)) {
+                    return bean;
+                }
+                ProxyFactory proxyFactory = new ProxyFactory(bean);
+                proxyFactory.setProxyTargetClass(true);
+                proxyFactory.addAdvice(new TimingInterceptor(meterRegistry,
+                        AopUtils.getTargetClass(bean).getSimpleName()));
+                return proxyFactory.getProxy();
+            }
+        };
+    }
+
+    private static final class TimingInterceptor implements MethodInterceptor {
+
+        private static final Set<String> TIMED_METHODS = Arrays.stream(CdrStore.class.getMethods())
+                .filter(method -> !method.isDefault())
+                .map(Method::getName)
+                .collect(Collectors.toUnmodifiableSet());
+
+        private final ObjectProvider<MeterRegistry> meterRegistry;
+        private final String store;
+        private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+        private TimingInterceptor(ObjectProvider<MeterRegistry> meterRegistry, String store) {
+            this.meterRegistry = meterRegistry;
+            this.store = store;
+        }
+
+        @Override
+        public Object invoke(MethodInvocation invocation) throws Throwable {
+            String method = invocation.getMethod().getName();
+            if (!TIMED_METHODS.contains(method)) {
+                return invocation.proceed();
+            }
+            long started = System.nanoTime();
+            Object result;
+            try {
+                result = invocation.proceed();
+            } catch (Throwable e) {
+                record(method, e.getClass().getSimpleName(), started);
+                throw e;
+            }
+            if (result instanceof Stream<?> stream) {
+                return stream.onClose(() -> record(method, "none", started));
+            }
+            record(method, "none", started);
+            return result;
+        }
+
+        private void record(String method, String exception, long started) {
+            timers.computeIfAbsent(method + '/' + exception, key -> Timer.builder("cdr.store.invocations")
+                            .description("Время вызовов хранилища CDR записей")
+                            .tag("store", store)
+                            .tag("method", method)
+                            .tag("exception", exception)
+                            .publishPercentileHistogram()
+                            .register(meterRegistry.getObject()))
+                    .record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        }
+    }
+}
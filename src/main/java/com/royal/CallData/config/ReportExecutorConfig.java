@@ -0,0 +1,126 @@
+package com.royal.CallData.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Конфигурация исполнителя для асинхронной генерации отчетов.
+ * Генерация отчета блокируется на JDBC и файловом вводе-выводе, поэтому выполняется
+ * в отдельном ограниченном исполнителе, а не в {@code ForkJoinPool.commonPool()}.
+ * При превышении лимитов новые задачи отклоняются, а не выполняются в вызывающем потоке.
+ * <p>
+ * По умолчанию используется пул платформенных потоков. При {@code spring.threads.virtual.enabled=true}
+ * на Java 21+ каждая задача выполняется в собственном виртуальном потоке (как и обработка HTTP-запросов),
+ * а количество одновременных обращений к БД ограничивается {@link #reportDbPermits}.
+ */
+@Configuration
+public class ReportExecutorConfig {
+
+    /**
+     * Создает пул платформенных потоков для задач генерации отчетов.
+     *
+     * @param coreSize      Базовое количество потоков.
+     * @param maxSize       Максимальное количество потоков.
+     * @param queueCapacity Размер очереди ожидающих задач.
+     * @return Исполнитель задач генерации отчетов.
+     */
+    @Bean(name = "reportTaskExecutor")
+    @ConditionalOnThreading(Threading.PLATFORM)
+    public ThreadPoolTaskExecutor reportTaskExecutor(@Value("${report.executor.core-size:2}") int coreSize,
+                                                     @Value("${report.executor.max-size:5}") int maxSize,
+                                                     @Value("${report.executor.queue-capacity:100}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(coreSize);
+        executor.setMaxPoolSize(maxSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("report-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+
+    /**
+     * Создает исполнитель, запускающий каждую задачу генерации отчета в виртуальном потоке.
+     *
+     * @param maxJobs Максимальное количество одновременно выполняемых задач.
+     * @return Исполнитель задач генерации отчетов.
+     */
+    @Bean(name = "reportTaskExecutor")
+    @ConditionalOnThreading(Threading.VIRTUAL)
+    public Executor virtualReportTaskExecutor(@Value("${report.executor.virtual.max-jobs:10000}") int maxJobs) {
+        return new BoundedVirtualThreadExecutor("report-vt-", maxJobs);
+    }
+
+    /**
+     * Создает пул платформенных потоков, в которых отчеты передаются клиенту потоковым HTTP-ответом.
+     *
+     * @param coreSize      Базовое количество потоков.
+     * @param maxSize       Максимальное количество потоков.
+     * @param queueCapacity Размер очереди ожидающих ответов.
+     * @return Исполнитель потоковых HTTP-ответов.
+     */
+    @Bean(name = "streamingTaskExecutor")
+    @ConditionalOnThreading(Threading.PLATFORM)
+    public ThreadPoolTaskExecutor streamingTaskExecutor(@Value("${report.streaming.core-size:4}") int coreSize,
+                                                        @Value("${report.streaming.max-size:16}") int maxSize,
+                                                        @Value("${report.streaming.queue-capacity:100}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(coreSize);
+        executor.setMaxPoolSize(maxSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("report-stream-");
+        return executor;
+    }
+
+    /**
+     * Создает исполнитель, передающий каждый потоковый HTTP-ответ в виртуальном потоке.
+     *
+     * @return Исполнитель потоковых HTTP-ответов.
+     */
+    @Bean(name = "streamingTaskExecutor")
+    @ConditionalOnThreading(Threading.VIRTUAL)
+    public AsyncTaskExecutor virtualStreamingTaskExecutor() {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("report-stream-vt-");
+        executor.setVirtualThreads(true);
+        return executor;
+    }
+
+    /**
+     * Ограничивает количество задач генерации отчетов, одновременно удерживающих соединение с БД,
+     * чтобы большое число задач не исчерпало пул соединений.
+     *
+     * @param maxConcurrency Максимальное количество одновременных обращений к БД.
+     * @return Семафор с разрешениями на обращение к БД.
+     */
+    @Bean(name = "reportDbPermits")
+    public Semaphore reportDbPermits(
+            @Value("${report.db.max-concurrency:${spring.datasource.hikari.maximum-pool-size:10}}") int maxConcurrency) {
+        return new Semaphore(maxConcurrency, true);
+    }
+
+    /**
+     * Ограничивает количество потоковых HTTP-ответов, одновременно удерживающих курсор и соединение с БД.
+     * Потоковый ответ держит соединение, пока клиент читает отчет (вплоть до {@code spring.mvc.async.request-timeout}),
+     * поэтому у него собственные разрешения: медленные клиенты не занимают разрешения задач генерации отчетов.
+     * Сумма {@code report.db.max-concurrency} и {@code report.streaming.db.max-concurrency} не должна превышать
+     * размер пула соединений, иначе задачи будут ждать соединение уже внутри транзакции.
+     *
+     * @param maxConcurrency Максимальное количество одновременных потоковых ответов, читающих из БД.
+     * @return Семафор с разрешениями на обращение к БД для потоковых ответов.
+     */
+    @Bean(name = "streamingDbPermits")
+    public Semaphore streamingDbPermits(@Value("${report.streaming.db.max-concurrency:2}") int maxConcurrency) {
+        return new Semaphore(maxConcurrency, true);
+    }
+}
@@ -0,0 +1,30 @@
+package com.royal.CallData.config;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Конфигурация асинхронной обработки запросов Spring MVC.
+ * Потоковые ответы ({@code StreamingResponseBody}) пишутся в отдельном ограниченном исполнителе,
+ * а не в создающем поток на каждый запрос {@code SimpleAsyncTaskExecutor} по умолчанию.
+ */
+@Configuration
+public class WebAsyncConfig implements WebMvcConfigurer {
+
+    private final AsyncTaskExecutor streamingTaskExecutor;
+
+    /**
+     * @param streamingTaskExecutor Исполнитель потоковых HTTP-ответов.
+     */
+    public WebAsyncConfig(@Qualifier("streamingTaskExecutor") AsyncTaskExecutor streamingTaskExecutor) {
+        this.streamingTaskExecutor = streamingTaskExecutor;
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(streamingTaskExecutor);
+    }
+}
@@ -1,17 +1,32 @@
 package com.royal.CallData.controller;
 
+import com.royal.CallData.dto.CdrGenerationRequest;
+import com.royal.CallData.dto.CdrGenerationResponse;
+import com.royal.CallData.dto.CdrIngestResponse;
+import com.royal.CallData.dto.CdrPageResponse;
 import com.royal.CallData.entity.CdrRecord;
-import com.royal.CallData.repository.CdrRecordRepository;
+import com.royal.CallData.repository.CdrStore;
+import com.royal.CallData.service.CdrIngestService;
 import com.royal.CallData.service.CdrRecordService;
+import com.royal.CallData.service.CdrReportService;
+import com.royal.CallData.service.DailyUsageService;
+import com.royal.CallData.util.PageTokenUtil;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 /**
@@ -23,82 +38,155 @@ import java.util.List;
 public class CdrController {
 
     private final CdrRecordService cdrRecordService;
-    private final CdrRecordRepository cdrRecordRepository;
+    private final CdrStore cdrStore;
+    private final CdrReportService cdrReportService;
+    private final DailyUsageService dailyUsageService;
+    private final CdrIngestService cdrIngestService;
     private final Logger LOGGER = LoggerFactory.getLogger(CdrController.class);
 
+    /**
+     * Запрос страницы записей, следующих за курсором.
+     */
+    @FunctionalInterface
+    private interface PageQuery {
+        List<CdrRecord> fetch(PageTokenUtil.Cursor cursor, int limit);
+    }
+
+    @Value("${cdr.page.default-size:100}")
+    private int defaultPageSize = 100;
+
+    @Value("${cdr.page.max-size:1000}")
+    private int maxPageSize = 1000;
+
     /**
      * Конструктор с внедрением зависимостей.
      *
      * @param cdrRecordService    Сервис для работы с CDR записями.
-     * @param cdrRecordRepository Репозиторий для доступа к CDR записям.
+     * @param cdrStore            Хранилище CDR записей.
+     * @param cdrReportService    Сервис для формирования отчетов CDR.
+     * @param dailyUsageService   Сервис суточных агрегатов звонков.
+     * @param cdrIngestService    Сервис загрузки CDR файлов.
      */
     @Autowired
-    public CdrController(CdrRecordService cdrRecordService, CdrRecordRepository cdrRecordRepository) {
+    public CdrController(CdrRecordService cdrRecordService, CdrStore cdrStore,
+                         CdrReportService cdrReportService, DailyUsageService dailyUsageService,
+                         CdrIngestService cdrIngestService) {
         this.cdrRecordService = cdrRecordService;
-        this.cdrRecordRepository = cdrRecordRepository;
+        this.cdrStore = cdrStore;
+        this.cdrReportService = cdrReportService;
+        this.dailyUsageService = dailyUsageService;
+        this.cdrIngestService = cdrIngestService;
     }
 
     /**
-     * Генерирует CDR записи за год.
+     * Генерирует CDR записи. Без тела запроса генерирует записи для существующих абонентов за год.
      *
-     * @return Ответ с подтверждением успешной генерации CDR записей.
+     * @param request Параметры генерации (необязательно).
+     * @return Ответ с количеством сгенерированных CDR записей.
      */
-    @Operation(summary = "Генерация CDR записей", description = "Генерирует CDR записи за год")
+    @Operation(summary = "Генерация CDR записей", description = "Генерирует CDR записи по заданным параметрам, по умолчанию за год")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "CDR записи успешно сгенерированы"),
+            @ApiResponse(responseCode = "400", description = "Неверные параметры генерации"),
             @ApiResponse(responseCode = "500", description = "Ошибка при генерации CDR записей")
     })
     @PostMapping("/generate")
-    public ResponseEntity<String> generateCdrRecords() {
-        LOGGER.info("Запрос на генерацию CDR записей");
-        cdrRecordService.generateCdrRecordsForYear();
-        LOGGER.info("CDR записи успешно сгенерированы");
-        return ResponseEntity.ok("CDR записи успешно сгенерированы");
+    public ResponseEntity<CdrGenerationResponse> generateCdrRecords(@RequestBody(required = false) CdrGenerationRequest request) {
+        LOGGER.info("Запрос на генерацию CDR записей: {}", request);
+        CdrGenerationResponse response = cdrRecordService.generateCdrRecords(
+                request != null ? request : new CdrGenerationRequest());
+        if ("error".equals(response.getStatus())) {
+            LOGGER.warn("CDR записи не сгенерированы: {}", response.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        }
+        LOGGER.info("CDR записи успешно сгенерированы: {}", response.getGeneratedRecords());
+        return ResponseEntity.ok(response);
     }
 
     /**
-     * Получает все CDR записи.
+     * Получает CDR записи постранично в порядке времени начала звонка.
      *
-     * @return Список всех CDR записей.
+     * @param size      Размер страницы.
+     * @param pageToken Токен страницы из предыдущего ответа; без токена возвращается первая страница.
+     * @return Страница CDR записей с токеном следующей страницы.
      */
-    @Operation(summary = "Получить все CDR записи", description = "Возвращает все CDR записи в системе")
+    @Operation(summary = "Получить CDR записи", description = "Возвращает CDR записи в системе постранично, " +
+            "для получения следующей страницы передайте nextPageToken из предыдущего ответа")
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "Список CDR записей успешно получен"),
+            @ApiResponse(responseCode = "200", description = "Страница CDR записей успешно получена"),
+            @ApiResponse(responseCode = "400", description = "Некорректный токен страницы"),
             @ApiResponse(responseCode = "500", description = "Ошибка при получении CDR записей")
     })
     @GetMapping
-    public ResponseEntity<List<CdrRecord>> getAllCdrRecords() {
-        LOGGER.info("Запрос на получение всех CDR записей");
-        List<CdrRecord> records = cdrRecordRepository.findAll();
-        LOGGER.info("Найдено {} CDR записей", records.size());
-        return ResponseEntity.ok(records);
+    public ResponseEntity<CdrPageResponse> getAllCdrRecords(@RequestParam(required = false) Integer size,
+                                                            @RequestParam(required = false) String pageToken) {
+        LOGGER.info("Запрос на получение CDR записей, размер страницы: {}", size);
+        return getPage(size, pageToken, (cursor, limit) ->
+                cdrStore.findPageAfter(cursor.startTime(), cursor.id(), limit));
     }
 
     /**
-     * Получает CDR записи по номеру абонента (MSISDN).
+     * Получает CDR записи по номеру абонента (MSISDN) постранично.
      *
-     * @param msisdn Номер абонента.
-     * @return Список CDR записей для указанного абонента.
+     * @param msisdn    Номер абонента.
+     * @param size      Размер страницы.
+     * @param pageToken Токен страницы из предыдущего ответа; без токена возвращается первая страница.
+     * @return Страница CDR записей для указанного абонента.
      */
-    @Operation(summary = "Получить CDR записи по MSISDN", description = "Возвращает CDR записи для указанного абонента по номеру MSISDN")
+    @Operation(summary = "Получить CDR записи по MSISDN", description = "Возвращает CDR записи для указанного абонента " +
+            "по номеру MSISDN постранично")
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "Список CDR записей для абонента успешно получен"),
-            @ApiResponse(responseCode = "404", description = "CDR записи для абонента не найдены"),
+            @ApiResponse(responseCode = "200", description = "Страница CDR записей для абонента успешно получена"),
+            @ApiResponse(responseCode = "400", description = "Некорректный токен страницы"),
             @ApiResponse(responseCode = "500", description = "Ошибка при получении CDR записей для абонента")
     })
     @GetMapping("/subscriber/{msisdn}")
-    public ResponseEntity<List<CdrRecord>> getCdrRecordsBySubscriber(@PathVariable String msisdn) {
-        LOGGER.info("Запрос на получение CDR записей для абонента: {}", msisdn);
-        List<CdrRecord> records = cdrRecordRepository.findAllBySubscriberMsisdn(msisdn);
-        LOGGER.info("Найдено {} CDR записей для абонента: {}", records.size(), msisdn);
-        return ResponseEntity.ok(records);
+    public ResponseEntity<CdrPageResponse> getCdrRecordsBySubscriber(@PathVariable String msisdn,
+                                                                     @RequestParam(required = false) Integer size,
+                                                                     @RequestParam(required = false) String pageToken) {
+        LOGGER.info("Запрос на получение CDR записей для абонента: {}, размер страницы: {}", msisdn, size);
+        return getPage(size, pageToken, (cursor, limit) ->
+                cdrStore.findSubscriberPageAfter(msisdn, cursor.startTime(), cursor.id(), limit));
     }
 
     /**
-     * Формирует CDR отчет для указанного абонента.
+     * Выбирает страницу записей после курсора из токена. Запрашивается на одну запись больше размера страницы,
+     * чтобы без отдельного запроса определить, есть ли следующая страница.
+     *
+     * @param size      Запрошенный размер страницы.
+     * @param pageToken Токен страницы.
+     * @param query     Запрос страницы по лимиту и курсору.
+     * @return Страница записей или 400, если токен поврежден.
+     */
+    private ResponseEntity<CdrPageResponse> getPage(Integer size, String pageToken,
+                                                    PageQuery query) {
+        int pageSize = size == null || size <= 0 ? defaultPageSize : Math.min(size, maxPageSize);
+        PageTokenUtil.Cursor cursor;
+        try {
+            cursor = PageTokenUtil.decode(pageToken);
+        } catch (IllegalArgumentException e) {
+            LOGGER.warn("Некорректный токен страницы: {}", pageToken);
+            return ResponseEntity.badRequest().build();
+        }
+
+        List<CdrRecord> records = query.fetch(cursor, pageSize + 1);
+        String nextPageToken = null;
+        if (records.size() > pageSize) {
+            records = records.subList(0, pageSize);
+            CdrRecord last = records.get(pageSize - 1);
+            nextPageToken = PageTokenUtil.encode(last.getStartTime(), last.getId());
+        }
+
+        LOGGER.info("Найдено {} CDR записей на странице", records.size());
+        return ResponseEntity.ok(new CdrPageResponse(records, nextPageToken));
+    }
+
+    /**
+     * Формирует CDR отчет для указанного абонента. Отчет передается потоковым ответом:
+     * строки пишутся клиенту по мере чтения из БД и не накапливаются в памяти.
      *
      * @param msisdn Номер абонента.
-     * @return Строковое представление CDR отчета или 404, если записи не найдены.
+     * @return Потоковый текстовый CDR отчет или 404, если записи не найдены.
      */
     @Operation(summary = "Получить CDR отчет", description = "Формирует CDR отчет для указанного абонента по номеру MSISDN")
     @ApiResponses(value = {
@@ -107,19 +195,84 @@ public class CdrController {
             @ApiResponse(responseCode = "500", description = "Ошибка при формировании CDR отчета")
     })
     @GetMapping("/report/{msisdn}")
-    public ResponseEntity<String> getCdrReport(@PathVariable String msisdn) {
+    public ResponseEntity<StreamingResponseBody> getCdrReport(@PathVariable String msisdn) {
         LOGGER.info("Запрос на получение CDR отчета для абонента: {}", msisdn);
-        List<CdrRecord> records = cdrRecordRepository.findAllBySubscriberMsisdn(msisdn);
 
-        if (records.isEmpty()) {
+        if (!cdrReportService.hasRecords(msisdn)) {
             LOGGER.warn("CDR записи для абонента {} не найдены", msisdn);
             return ResponseEntity.notFound().build();
         }
 
-        StringBuilder report = new StringBuilder();
-        records.forEach(record -> report.append(record.toCdrString()).append("\n"));
+        StreamingResponseBody body = out -> {
+            long written = cdrReportService.writeSubscriberReport(msisdn, out);
+            LOGGER.info("CDR отчет для абонента {} успешно сформирован: {} записей", msisdn, written);
+        };
+        return ResponseEntity.ok()
+                .contentType(new MediaType(MediaType.TEXT_PLAIN, StandardCharsets.UTF_8))
+                .body(body);
+    }
 
-        LOGGER.info("CDR отчет для абонента {} успешно сформирован", msisdn);
-        return ResponseEntity.ok(report.toString());
+    /**
+     * Перестраивает суточные агрегаты звонков по всем CDR записям.
+     * Нужен для заполнения агрегатов по данным, сохраненным до их появления, и для устранения расхождений.
+     *
+     * @return Сообщение с количеством строк агрегатов.
+     */
+    @Operation(summary = "Перестроение суточных агрегатов", description = "Пересчитывает суточные агрегаты звонков абонентов по всем CDR записям")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Агрегаты успешно перестроены"),
+            @ApiResponse(responseCode = "500", description = "Ошибка при перестроении агрегатов")
+    })
+    @PostMapping("/usage/rebuild")
+    public ResponseEntity<String> rebuildDailyUsage() {
+        LOGGER.info("Запрос на перестроение суточных агрегатов");
+        long rows = dailyUsageService.rebuild();
+        return ResponseEntity.ok("Суточные агрегаты перестроены: " + rows + " строк");
+    }
+
+    /**
+     * Загружает CDR записи из файла в формате строки отчета CDR ({@code .csv} или {@code .csv.gz}).
+     * Файл читается потоком из временного файла, в который его сохраняет контейнер, и в память целиком не загружается.
+     *
+     * @param file Файл с CDR записями.
+     * @return Результат загрузки с количеством сохраненных и отклоненных строк.
+     */
+    @Operation(summary = "Загрузка CDR файла", description = "Загружает CDR записи из файла коммутатора: " +
+            "строки callType,callerMsisdn,receiverMsisdn,startTime,endTime; некорректные строки пропускаются")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Файл загружен"),
+            @ApiResponse(responseCode = "400", description = "Файл не передан"),
+            @ApiResponse(responseCode = "500", description = "Ошибка чтения файла или сохранения записей")
+    })
+    @PostMapping(value = "/ingest", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<CdrIngestResponse> ingestCdrFile(@RequestParam("file") MultipartFile file) throws IOException {
+        LOGGER.info("Запрос на загрузку CDR файла: {}, {} байт", file.getOriginalFilename(), file.getSize());
+        if (file.isEmpty()) {
+            return ResponseEntity.badRequest().build();
+        }
+        String fileName = file.getOriginalFilename() != null ? file.getOriginalFilename() : file.getName();
+        CdrIngestResponse response;
+        try (InputStream in = file.getInputStream()) {
+            response = cdrIngestService.ingest(fileName, in);
+        }
+        if ("error".equals(response.getStatus())) {
+            return ResponseEntity.internalServerError().body(response);
+        }
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Возвращает результаты последних загрузок CDR файлов, включая файлы из каталога загрузки.
+     *
+     * @return Результаты загрузок, начиная с самой новой.
+     */
+    @Operation(summary = "Результаты загрузки CDR файлов", description = "Возвращает результаты последних загрузок " +
+            "CDR файлов: количество строк, скорость загрузки и ошибки разбора")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Результаты загрузок получены")
+    })
+    @GetMapping("/ingest/results")
+    public ResponseEntity<List<CdrIngestResponse>> getIngestResults() {
+        return ResponseEntity.ok(cdrIngestService.recentResults());
     }
-}
\ No newline at end of file
+}
@@ -1,23 +1,32 @@
 package com.royal.CallData.controller;
 
+import com.royal.CallData.dto.BatchReportRequest;
+import com.royal.CallData.dto.BatchReportResponse;
 import com.royal.CallData.dto.PeriodicReportRequest;
 import com.royal.CallData.dto.ReportGenerationRequest;
 import com.royal.CallData.dto.ReportGenerationResponse;
+import com.royal.CallData.service.CdrBatchReportService;
 import com.royal.CallData.service.CdrReportService;
+import com.royal.CallData.util.ReportCompression;
+import com.royal.CallData.util.ReportFileSender;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.io.FileSystemResource;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-import org.springframework.core.io.Resource;
 
-import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.UUID;
 
 /**
@@ -29,16 +38,20 @@ import java.util.UUID;
 public class ReportController {
 
     private final CdrReportService cdrReportService;
+    private final CdrBatchReportService cdrBatchReportService;
     private final Logger LOGGER = LoggerFactory.getLogger(ReportController.class);
+    private static final int DECOMPRESS_BUFFER_SIZE = 64 * 1024;
 
     /**
      * Конструктор с внедрением зависимостей.
      *
-     * @param cdrReportService Сервис для работы с отчетами CDR.
+     * @param cdrReportService      Сервис для работы с отчетами CDR.
+     * @param cdrBatchReportService Сервис для пакетной генерации отчетов CDR.
      */
     @Autowired
-    public ReportController(CdrReportService cdrReportService) {
+    public ReportController(CdrReportService cdrReportService, CdrBatchReportService cdrBatchReportService) {
         this.cdrReportService = cdrReportService;
+        this.cdrBatchReportService = cdrBatchReportService;
     }
 
     /**
@@ -51,12 +64,21 @@ public class ReportController {
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Отчет успешно сгенерирован"),
             @ApiResponse(responseCode = "400", description = "Неверный запрос"),
-            @ApiResponse(responseCode = "500", description = "Ошибка при генерации отчета")
+            @ApiResponse(responseCode = "500", description = "Ошибка при генерации отчета"),
+            @ApiResponse(responseCode = "503", description = "Очередь генерации отчетов переполнена")
     })
     @PostMapping("/generate")
     public ResponseEntity<ReportGenerationResponse> generateReport(@RequestBody ReportGenerationRequest request) {
         LOGGER.info("Запрос на генерацию отчета: {}", request);
         ReportGenerationResponse response = cdrReportService.generateReport(request);
+        if ("error".equals(response.getStatus())) {
+            LOGGER.warn("Некорректный запрос на генерацию отчета: {}", response.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        }
+        if ("rejected".equals(response.getStatus())) {
+            LOGGER.warn("Отчет с requestId {} отклонен: очередь генерации переполнена", response.getRequestId());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(response);
+        }
         LOGGER.info("Отчет с requestId {} успешно сгенерирован", response.getRequestId());
         return ResponseEntity.ok(response);
     }
@@ -76,6 +98,11 @@ public class ReportController {
     @GetMapping("/status/{requestId}")
     public ResponseEntity<ReportGenerationResponse> checkReportStatus(@PathVariable UUID requestId) {
         LOGGER.info("Запрос на проверку статуса отчета: {}", requestId);
+        if (!cdrReportService.reportExists(requestId)) {
+            LOGGER.warn("Отчет {} не найден", requestId);
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(new ReportGenerationResponse("error", requestId, "Отчет не найден", null));
+        }
         ReportGenerationResponse response = cdrReportService.getReportStatus(requestId);
         LOGGER.info("Статус отчета {}: {}", requestId, response.getStatus());
         return ResponseEntity.ok(response);
@@ -83,39 +110,64 @@ public class ReportController {
 
     /**
      * Позволяет скачать сгенерированный отчет.
+     * Поддерживаются условные запросы по {@code ETag}/{@code Last-Modified} и диапазоны байт ({@code Range}),
+     * файл передается без копирования через память приложения (см. {@link ReportFileSender}).
+     * Сжатый файл отчета отдается без перепаковки с заголовком {@code Content-Encoding}, если клиент принимает
+     * это сжатие, и распаковывается на лету в противном случае; диапазоны в этом случае не поддерживаются.
      *
      * @param requestId Уникальный идентификатор запроса отчета.
-     * @return Файл отчета или 404, если отчет не найден.
+     * @param request   HTTP-запрос с заголовками {@code Accept-Encoding}, {@code Range} и условными заголовками.
+     * @param response  HTTP-ответ, в который записывается файл, или 404, если отчет не найден.
+     * @throws IOException если файл отчета не удалось передать.
      */
-    @Operation(summary = "Скачивание отчета", description = "Позволяет скачать сгенерированный отчет по requestId.")
+    @Operation(summary = "Скачивание отчета", description = "Позволяет скачать сгенерированный отчет по requestId, " +
+            "целиком или по диапазонам байт.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Отчет успешно скачан"),
+            @ApiResponse(responseCode = "206", description = "Передана запрошенная часть отчета"),
+            @ApiResponse(responseCode = "304", description = "Отчет не изменился"),
             @ApiResponse(responseCode = "404", description = "Отчет не найден"),
+            @ApiResponse(responseCode = "416", description = "Запрошенный диапазон вне файла отчета"),
             @ApiResponse(responseCode = "500", description = "Ошибка при скачивании отчета")
     })
     @GetMapping("/download/{requestId}")
-    public ResponseEntity<Resource> downloadReport(@PathVariable UUID requestId) {
+    public void downloadReport(@PathVariable UUID requestId, HttpServletRequest request,
+                               HttpServletResponse response) throws IOException {
         LOGGER.info("Запрос на скачивание отчета: {}", requestId);
         ReportGenerationResponse status = cdrReportService.getReportStatus(requestId);
 
         if (!"completed".equals(status.getStatus()) || status.getFilePath() == null) {
             LOGGER.warn("Отчет {} не найден или не завершен", requestId);
-            return ResponseEntity.notFound().build();
+            response.setStatus(HttpStatus.NOT_FOUND.value());
+            return;
         }
 
-        File file = new File(status.getFilePath());
-        if (!file.exists()) {
+        Path file = Path.of(status.getFilePath());
+        if (!Files.isRegularFile(file)) {
             LOGGER.error("Файл отчета {} не существует по пути: {}", requestId, status.getFilePath());
-            return ResponseEntity.notFound().build();
+            response.setStatus(HttpStatus.NOT_FOUND.value());
+            return;
         }
 
         LOGGER.info("Отчет {} найден, начинается скачивание", requestId);
-        Resource resource = new FileSystemResource(file);
+        ReportCompression compression = ReportCompression.ofFileName(file.getFileName().toString());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename=\"" + compression.stripExtension(file.getFileName().toString()) + "\"");
+        if (compression == ReportCompression.NONE) {
+            ReportFileSender.send(file, null, request, response);
+            return;
+        }
 
-        return ResponseEntity.ok()
-                .contentType(MediaType.APPLICATION_OCTET_STREAM)
-                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + file.getName() + "\"")
-                .body(resource);
+        // Сжатый файл отдается как есть, если клиент принимает сжатие, иначе распаковывается на лету
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (compression.isAcceptedBy(request.getHeader(HttpHeaders.ACCEPT_ENCODING))) {
+            ReportFileSender.send(file, compression.contentEncoding(), request, response);
+            return;
+        }
+        response.setContentType(MediaType.APPLICATION_OCTET_STREAM_VALUE);
+        try (InputStream in = compression.decompress(Files.newInputStream(file), DECOMPRESS_BUFFER_SIZE)) {
+            in.transferTo(response.getOutputStream());
+        }
     }
 
     /**
@@ -128,13 +180,70 @@ public class ReportController {
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Периодический отчет успешно сгенерирован"),
             @ApiResponse(responseCode = "400", description = "Неверный запрос"),
-            @ApiResponse(responseCode = "500", description = "Ошибка при генерации отчетов")
+            @ApiResponse(responseCode = "500", description = "Ошибка при генерации отчетов"),
+            @ApiResponse(responseCode = "503", description = "Очередь генерации отчетов переполнена")
     })
     @PostMapping("/generate/periodic")
     public ResponseEntity<ReportGenerationResponse> generatePeriodicReport(@RequestBody PeriodicReportRequest request) {
         LOGGER.info("Запрос на генерацию периодического отчета: {}", request);
         ReportGenerationResponse response = cdrReportService.generatePeriodicReport(request);
+        if ("error".equals(response.getStatus())) {
+            LOGGER.warn("Некорректный запрос на генерацию периодического отчета: {}", response.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        }
+        if ("rejected".equals(response.getStatus())) {
+            LOGGER.warn("Периодический отчет с requestId {} отклонен: очередь генерации переполнена", response.getRequestId());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(response);
+        }
         LOGGER.info("Периодический отчет с requestId {} успешно сгенерирован", response.getRequestId());
         return ResponseEntity.ok(response);
     }
+
+    /**
+     * Генерирует отчеты сразу для группы абонентов за один период.
+     *
+     * @param request Список абонентов и период.
+     * @return Ответ с batchId и статусом генерации пакета.
+     */
+    @Operation(summary = "Генерация пакета отчетов",
+            description = "Формирует отдельный CSV-файл для каждого абонента из списка за общий период одним проходом по записям.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Формирование пакета отчетов начато"),
+            @ApiResponse(responseCode = "400", description = "Неверный запрос"),
+            @ApiResponse(responseCode = "503", description = "Очередь генерации отчетов переполнена")
+    })
+    @PostMapping("/generate/batch")
+    public ResponseEntity<BatchReportResponse> generateBatchReport(@RequestBody BatchReportRequest request) {
+        LOGGER.info("Запрос на генерацию пакета отчетов: {}", request);
+        BatchReportResponse response = cdrBatchReportService.generateBatchReport(request);
+        if ("error".equals(response.getStatus())) {
+            LOGGER.warn("Некорректный запрос на генерацию пакета отчетов: {}", response.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        }
+        if ("rejected".equals(response.getStatus())) {
+            LOGGER.warn("Пакет отчетов {} отклонен: очередь генерации переполнена", response.getBatchId());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(response);
+        }
+        LOGGER.info("Пакет отчетов {} принят в работу", response.getBatchId());
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Проверяет статус пакета отчетов по его batchId.
+     *
+     * @param batchId Уникальный идентификатор пакета.
+     * @return Текущий статус пакета.
+     */
+    @Operation(summary = "Проверка статуса пакета отчетов", description = "Проверяет статус пакета отчетов по уникальному batchId.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Статус пакета успешно получен"),
+            @ApiResponse(responseCode = "500", description = "Ошибка при проверке статуса пакета")
+    })
+    @GetMapping("/batch/{batchId}")
+    public ResponseEntity<BatchReportResponse> checkBatchStatus(@PathVariable UUID batchId) {
+        LOGGER.info("Запрос на проверку статуса пакета отчетов: {}", batchId);
+        BatchReportResponse response = cdrBatchReportService.getBatchStatus(batchId);
+        LOGGER.info("Статус пакета отчетов {}: {}", batchId, response.getStatus());
+        return ResponseEntity.ok(response);
+    }
 }
@@ -0,0 +1,92 @@
+package com.royal.CallData.controller;
+
+import com.royal.CallData.dto.UdrResponse;
+import com.royal.CallData.service.UdrService;
+import com.royal.CallData.util.MsisdnCodec;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.YearMonth;
+import java.util.List;
+
+/**
+ * Контроллер отчетов об использовании услуг (UDR).
+ * Возвращает итоги входящих и исходящих звонков за месяц, рассчитанные в БД, вместо выгрузки CDR записей.
+ */
+@RestController
+@RequestMapping("/api/udr")
+public class UdrController {
+
+    private final UdrService udrService;
+    private final Logger LOGGER = LoggerFactory.getLogger(UdrController.class);
+
+    /**
+     * Конструктор с внедрением зависимостей.
+     *
+     * @param udrService Сервис отчетов UDR.
+     */
+    @Autowired
+    public UdrController(UdrService udrService) {
+        this.udrService = udrService;
+    }
+
+    /**
+     * Получает UDR абонента за месяц.
+     *
+     * @param msisdn Номер абонента.
+     * @param month  Месяц в формате yyyy-MM.
+     * @return Итоги входящих и исходящих звонков абонента; 400 для некорректного номера,
+     * 404 для абонента, которого нет в справочнике.
+     */
+    @Operation(summary = "Получить UDR абонента", description = "Возвращает суммарную длительность входящих и исходящих " +
+            "звонков абонента за месяц")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "UDR абонента успешно получен"),
+            @ApiResponse(responseCode = "400", description = "Некорректный номер абонента или месяц"),
+            @ApiResponse(responseCode = "404", description = "Абонент не найден"),
+            @ApiResponse(responseCode = "500", description = "Ошибка при получении UDR")
+    })
+    @GetMapping("/{msisdn}")
+    public ResponseEntity<UdrResponse> getSubscriberUdr(@PathVariable String msisdn,
+                                                        @RequestParam @DateTimeFormat(pattern = "yyyy-MM") YearMonth month) {
+        LOGGER.info("Запрос на получение UDR абонента {} за {}", msisdn, month);
+
+        if (MsisdnCodec.parse(msisdn) <= MsisdnCodec.NONE) {
+            LOGGER.warn("Некорректный номер абонента: {}", msisdn);
+            return ResponseEntity.badRequest().build();
+        }
+        if (!udrService.hasSubscriber(msisdn)) {
+            LOGGER.warn("Абонент {} не найден", msisdn);
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(udrService.getSubscriberUdr(msisdn, month));
+    }
+
+    /**
+     * Получает UDR всех абонентов за месяц одним запросом к БД.
+     *
+     * @param month Месяц в формате yyyy-MM.
+     * @return Итоги абонентов, у которых были звонки за месяц.
+     */
+    @Operation(summary = "Получить UDR всех абонентов", description = "Возвращает суммарную длительность входящих и " +
+            "исходящих звонков за месяц для всех абонентов, у которых были звонки")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "UDR абонентов успешно получены"),
+            @ApiResponse(responseCode = "400", description = "Некорректный месяц"),
+            @ApiResponse(responseCode = "500", description = "Ошибка при получении UDR")
+    })
+    @GetMapping
+    public ResponseEntity<List<UdrResponse>> getAllUdr(@RequestParam @DateTimeFormat(pattern = "yyyy-MM") YearMonth month) {
+        LOGGER.info("Запрос на получение UDR всех абонентов за {}", month);
+        List<UdrResponse> udrs = udrService.getAllUdr(month);
+        LOGGER.info("Сформировано {} UDR", udrs.size());
+        return ResponseEntity.ok(udrs);
+    }
+}
@@ -0,0 +1,63 @@
+package com.royal.CallData.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * DTO для запроса на генерацию отчетов CDR сразу для группы абонентов за один период.
+ */
+
+public class BatchReportRequest {
+    @Schema(description = "Номера абонентов", example = "[\"79161234567\", \"79169876543\"]")
+    private List<String> msisdns;
+
+    @Schema(description = "Дата и время начала периода", example = "2025-03-01T10:00:00")
+    private LocalDateTime startDate;
+
+    @Schema(description = "Дата и время конца периода", example = "2025-03-23T18:00:00")
+    private LocalDateTime endDate;
+
+    public BatchReportRequest() {
+    }
+
+    public BatchReportRequest(List<String> msisdns, LocalDateTime startDate, LocalDateTime endDate) {
+        this.msisdns = msisdns;
+        this.startDate = startDate;
+        this.endDate = endDate;
+    }
+
+    public List<String> getMsisdns() {
+        return msisdns;
+    }
+
+    public void setMsisdns(List<String> msisdns) {
+        this.msisdns = msisdns;
+    }
+
+    public LocalDateTime getStartDate() {
+        return startDate;
+    }
+
+    public void setStartDate(LocalDateTime startDate) {
+        this.startDate = startDate;
+    }
+
+    public LocalDateTime getEndDate() {
+        return endDate;
+    }
+
+    public void setEndDate(LocalDateTime endDate) {
+        this.endDate = endDate;
+    }
+
+    @Override
+    public String toString() {
+        return "BatchReportRequest{" +
+                "msisdns=" + (msisdns != null ? msisdns.size() : 0) +
+                ", startDate=" + startDate +
+                ", endDate=" + endDate +
+                '}';
+    }
+}
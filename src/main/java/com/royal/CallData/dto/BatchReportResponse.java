@@ -0,0 +1,115 @@
+package com.royal.CallData.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.UUID;
+
+/**
+ * DTO для ответа на запрос на генерацию пакета отчетов и на запрос его статуса.
+ */
+
+public class BatchReportResponse {
+    @Schema(description = "Статус генерации пакета отчетов", example = "completed")
+    private String status;
+
+    @Schema(description = "Уникальный идентификатор пакета", example = "a3c3fbb0-7179-4fdb-b21b-05644a06f7f1")
+    private UUID batchId;
+
+    @Schema(description = "Сообщение о статусе пакета", example = "Отчеты созданы успешно")
+    private String message;
+
+    @Schema(description = "Количество абонентов в пакете", example = "20000")
+    private int subscriberCount;
+
+    @Schema(description = "Количество созданных файлов отчетов (абоненты без звонков за период файла не получают)", example = "19873")
+    private int reportCount;
+
+    @Schema(description = "Общее количество записанных строк", example = "1250000")
+    private long recordCount;
+
+    @Schema(description = "Каталог с файлами отчетов <msisdn>.csv", example = "reports/batch_a3c3fbb0-7179-4fdb-b21b-05644a06f7f1")
+    private String directory;
+
+    public BatchReportResponse() {
+    }
+
+    public BatchReportResponse(String status, UUID batchId, String message, int subscriberCount,
+                               int reportCount, long recordCount, String directory) {
+        this.status = status;
+        this.batchId = batchId;
+        this.message = message;
+        this.subscriberCount = subscriberCount;
+        this.reportCount = reportCount;
+        this.recordCount = recordCount;
+        this.directory = directory;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public UUID getBatchId() {
+        return batchId;
+    }
+
+    public void setBatchId(UUID batchId) {
+        this.batchId = batchId;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    public int getSubscriberCount() {
+        return subscriberCount;
+    }
+
+    public void setSubscriberCount(int subscriberCount) {
+        this.subscriberCount = subscriberCount;
+    }
+
+    public int getReportCount() {
+        return reportCount;
+    }
+
+    public void setReportCount(int reportCount) {
+        this.reportCount = reportCount;
+    }
+
+    public long getRecordCount() {
+        return recordCount;
+    }
+
+    public void setRecordCount(long recordCount) {
+        this.recordCount = recordCount;
+    }
+
+    public String getDirectory() {
+        return directory;
+    }
+
+    public void setDirectory(String directory) {
+        this.directory = directory;
+    }
+
+    @Override
+    public String toString() {
+        return "BatchReportResponse{" +
+                "status='" + status + '\'' +
+                ", batchId=" + batchId +
+                ", message='" + message + '\'' +
+                ", subscriberCount=" + subscriberCount +
+                ", reportCount=" + reportCount +
+                ", recordCount=" + recordCount +
+                ", directory='" + directory + '\'' +
+                '}';
+    }
+}
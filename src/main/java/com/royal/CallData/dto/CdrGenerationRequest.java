@@ -0,0 +1,104 @@
+package com.royal.CallData.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.time.LocalDateTime;
+
+/**
+ * DTO для запроса на генерацию синтетических CDR записей.
+ * Все параметры необязательны; при одинаковых {@code seed} и {@code endDate} генерация воспроизводима.
+ */
+
+public class CdrGenerationRequest {
+    @Schema(description = "Количество абонентов. Недостающие абоненты создаются автоматически, " +
+            "по умолчанию используются все существующие", example = "1000000")
+    private Integer subscriberCount;
+
+    @Schema(description = "Минимальное количество исходящих звонков абонента в месяц", example = "5")
+    private Integer minCallsPerMonth;
+
+    @Schema(description = "Максимальное количество исходящих звонков абонента в месяц", example = "15")
+    private Integer maxCallsPerMonth;
+
+    @Schema(description = "Длительность периода генерации в месяцах", example = "12")
+    private Integer months;
+
+    @Schema(description = "Дата и время окончания периода генерации, по умолчанию текущий момент", example = "2025-03-23T18:00:00")
+    private LocalDateTime endDate;
+
+    @Schema(description = "Начальное значение генератора случайных чисел", example = "42")
+    private Long seed;
+
+    public CdrGenerationRequest() {
+    }
+
+    public CdrGenerationRequest(Integer subscriberCount, Integer minCallsPerMonth, Integer maxCallsPerMonth,
+                                Integer months, LocalDateTime endDate, Long seed) {
+        this.subscriberCount = subscriberCount;
+        this.minCallsPerMonth = minCallsPerMonth;
+        this.maxCallsPerMonth = maxCallsPerMonth;
+        this.months = months;
+        this.endDate = endDate;
+        this.seed = seed;
+    }
+
+    public Integer getSubscriberCount() {
+        return subscriberCount;
+    }
+
+    public void setSubscriberCount(Integer subscriberCount) {
+        this.subscriberCount = subscriberCount;
+    }
+
+    public Integer getMinCallsPerMonth() {
+        return minCallsPerMonth;
+    }
+
+    public void setMinCallsPerMonth(Integer minCallsPerMonth) {
+        this.minCallsPerMonth = minCallsPerMonth;
+    }
+
+    public Integer getMaxCallsPerMonth() {
+        return maxCallsPerMonth;
+    }
+
+    public void setMaxCallsPerMonth(Integer maxCallsPerMonth) {
+        this.maxCallsPerMonth = maxCallsPerMonth;
+    }
+
+    public Integer getMonths() {
+        return months;
+    }
+
+    public void setMonths(Integer months) {
+        this.months = months;
+    }
+
+    public LocalDateTime getEndDate() {
+        return endDate;
+    }
+
+    public void setEndDate(LocalDateTime endDate) {
+        this.endDate = endDate;
+    }
+
+    public Long getSeed() {
+        return seed;
+    }
+
+    public void setSeed(Long seed) {
+        this.seed = seed;
+    }
+
+    @Override
+    public String toString() {
+        return "CdrGenerationRequest{" +
+                "subscriberCount=" + subscriberCount +
+                ", minCallsPerMonth=" + minCallsPerMonth +
+                ", maxCallsPerMonth=" + maxCallsPerMonth +
+                ", months=" + months +
+                ", endDate=" + endDate +
+                ", seed=" + seed +
+                '}';
+    }
+}
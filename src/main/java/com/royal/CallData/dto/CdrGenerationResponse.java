@@ -0,0 +1,86 @@
+package com.royal.CallData.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+/**
+ * DTO для ответа на запрос на генерацию CDR записей.
+ */
+
+public class CdrGenerationResponse {
+    @Schema(description = "Статус генерации", example = "success")
+    private String status;
+
+    @Schema(description = "Сообщение о результате генерации", example = "CDR записи успешно сгенерированы")
+    private String message;
+
+    @Schema(description = "Количество абонентов, участвовавших в генерации", example = "10")
+    private int subscriberCount;
+
+    @Schema(description = "Количество сгенерированных CDR записей", example = "1200")
+    private long generatedRecords;
+
+    @Schema(description = "Начальное значение генератора, с которым можно повторить генерацию", example = "42")
+    private Long seed;
+
+    public CdrGenerationResponse() {
+    }
+
+    public CdrGenerationResponse(String status, String message, int subscriberCount, long generatedRecords, Long seed) {
+        this.status = status;
+        this.message = message;
+        this.subscriberCount = subscriberCount;
+        this.generatedRecords = generatedRecords;
+        this.seed = seed;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    public int getSubscriberCount() {
+        return subscriberCount;
+    }
+
+    public void setSubscriberCount(int subscriberCount) {
+        this.subscriberCount = subscriberCount;
+    }
+
+    public long getGeneratedRecords() {
+        return generatedRecords;
+    }
+
+    public void setGeneratedRecords(long generatedRecords) {
+        this.generatedRecords = generatedRecords;
+    }
+
+    public Long getSeed() {
+        return seed;
+    }
+
+    public void setSeed(Long seed) {
+        this.seed = seed;
+    }
+
+    @Override
+    public String toString() {
+        return "CdrGenerationResponse{" +
+                "status='" + status + '\'' +
+                ", message='" + message + '\'' +
+                ", subscriberCount=" + subscriberCount +
+                ", generatedRecords=" + generatedRecords +
+                ", seed=" + seed +
+                '}';
+    }
+}
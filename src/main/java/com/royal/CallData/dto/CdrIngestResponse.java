@@ -0,0 +1,142 @@
+package com.royal.CallData.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+/**
+ * DTO с результатом загрузки файла CDR.
+ */
+
+public class CdrIngestResponse {
+    @Schema(description = "Статус загрузки: success или error", example = "success")
+    private String status;
+
+    @Schema(description = "Сообщение о результате загрузки", example = "Файл загружен")
+    private String message;
+
+    @Schema(description = "Имя загруженного файла", example = "switch-2025-03-01.csv")
+    private String fileName;
+
+    @Schema(description = "Количество прочитанных строк (без пустых строк и заголовка)", example = "1000000")
+    private long totalRows;
+
+    @Schema(description = "Количество сохраненных записей", example = "999998")
+    private long importedRows;
+
+    @Schema(description = "Количество отклоненных строк", example = "2")
+    private long rejectedRows;
+
+    @Schema(description = "Время загрузки в миллисекундах", example = "5400")
+    private long elapsedMillis;
+
+    @Schema(description = "Скорость загрузки, сохраненных записей в секунду", example = "185185")
+    private long rowsPerSecond;
+
+    @Schema(description = "Первые ошибки разбора в виде \"строка N: причина\"",
+            example = "[\"строка 17: тип звонка должен быть 01 или 02\"]")
+    private List<String> errors;
+
+    public CdrIngestResponse() {
+    }
+
+    public CdrIngestResponse(String status, String message, String fileName, long totalRows, long importedRows,
+                             long rejectedRows, long elapsedMillis, long rowsPerSecond, List<String> errors) {
+        this.status = status;
+        this.message = message;
+        this.fileName = fileName;
+        this.totalRows = totalRows;
+        this.importedRows = importedRows;
+        this.rejectedRows = rejectedRows;
+        this.elapsedMillis = elapsedMillis;
+        this.rowsPerSecond = rowsPerSecond;
+        this.errors = errors;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public void setFileName(String fileName) {
+        this.fileName = fileName;
+    }
+
+    public long getTotalRows() {
+        return totalRows;
+    }
+
+    public void setTotalRows(long totalRows) {
+        this.totalRows = totalRows;
+    }
+
+    public long getImportedRows() {
+        return importedRows;
+    }
+
+    public void setImportedRows(long importedRows) {
+        this.importedRows = importedRows;
+    }
+
+    public long getRejectedRows() {
+        return rejectedRows;
+    }
+
+    public void setRejectedRows(long rejectedRows) {
+        this.rejectedRows = rejectedRows;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public void setElapsedMillis(long elapsedMillis) {
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public long getRowsPerSecond() {
+        return rowsPerSecond;
+    }
+
+    public void setRowsPerSecond(long rowsPerSecond) {
+        this.rowsPerSecond = rowsPerSecond;
+    }
+
+    public List<String> getErrors() {
+        return errors;
+    }
+
+    public void setErrors(List<String> errors) {
+        this.errors = errors;
+    }
+
+    @Override
+    public String toString() {
+        return "CdrIngestResponse{" +
+                "status='" + status + '\'' +
+                ", message='" + message + '\'' +
+                ", fileName='" + fileName + '\'' +
+                ", totalRows=" + totalRows +
+                ", importedRows=" + importedRows +
+                ", rejectedRows=" + rejectedRows +
+                ", elapsedMillis=" + elapsedMillis +
+                ", rowsPerSecond=" + rowsPerSecond +
+                ", errors=" + errors +
+                '}';
+    }
+}
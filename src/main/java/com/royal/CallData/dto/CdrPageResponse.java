@@ -0,0 +1,50 @@
+package com.royal.CallData.dto;
+
+import com.royal.CallData.entity.CdrRecord;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+/**
+ * DTO для страницы CDR записей при постраничной (курсорной) выборке.
+ */
+
+public class CdrPageResponse {
+    @Schema(description = "CDR записи страницы, упорядоченные по времени начала звонка")
+    private List<CdrRecord> records;
+
+    @Schema(description = "Токен следующей страницы или null, если страница последняя", example = "MjAyNS0wMy0yM1QxNDozMHw0Mg")
+    private String nextPageToken;
+
+    public CdrPageResponse() {
+    }
+
+    public CdrPageResponse(List<CdrRecord> records, String nextPageToken) {
+        this.records = records;
+        this.nextPageToken = nextPageToken;
+    }
+
+    public List<CdrRecord> getRecords() {
+        return records;
+    }
+
+    public void setRecords(List<CdrRecord> records) {
+        this.records = records;
+    }
+
+    public String getNextPageToken() {
+        return nextPageToken;
+    }
+
+    public void setNextPageToken(String nextPageToken) {
+        this.nextPageToken = nextPageToken;
+    }
+
+    @Override
+    public String toString() {
+        return "CdrPageResponse{" +
+                "records=" + records.size() +
+                ", nextPageToken='" + nextPageToken + '\'' +
+                '}';
+    }
+}
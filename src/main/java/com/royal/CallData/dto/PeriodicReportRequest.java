@@ -13,6 +13,9 @@ public class PeriodicReportRequest {
     @Schema(description = "Период для отчета, например: '6months', '3months', '1month'", example = "6months")
     private String period;
 
+    @Schema(description = "Формат файла отчета: csv (по умолчанию) или columnar", example = "csv")
+    private String format;
+
     public PeriodicReportRequest() {
     }
 
@@ -21,6 +24,12 @@ public class PeriodicReportRequest {
         this.period = period;
     }
 
+    public PeriodicReportRequest(String msisdn, String period, String format) {
+        this.msisdn = msisdn;
+        this.period = period;
+        this.format = format;
+    }
+
     public String getMsisdn() {
         return msisdn;
     }
@@ -37,11 +46,20 @@ public class PeriodicReportRequest {
         this.period = period;
     }
 
+    public String getFormat() {
+        return format;
+    }
+
+    public void setFormat(String format) {
+        this.format = format;
+    }
+
     @Override
     public String toString() {
         return "PeriodicReportRequest{" +
                 "msisdn='" + msisdn + '\'' +
                 ", period='" + period + '\'' +
+                ", format='" + format + '\'' +
                 '}';
     }
 }
\ No newline at end of file
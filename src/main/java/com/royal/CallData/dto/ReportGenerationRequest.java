@@ -18,6 +18,9 @@ public class ReportGenerationRequest {
     @Schema(description = "Дата и время конца периода", example = "2025-03-23T18:00:00")
     private LocalDateTime endDate;
 
+    @Schema(description = "Формат файла отчета: csv (по умолчанию) или columnar", example = "csv")
+    private String format;
+
     public ReportGenerationRequest() {
     }
 
@@ -27,6 +30,13 @@ public class ReportGenerationRequest {
         this.endDate = endDate;
     }
 
+    public ReportGenerationRequest(String msisdn, LocalDateTime startDate, LocalDateTime endDate, String format) {
+        this.msisdn = msisdn;
+        this.startDate = startDate;
+        this.endDate = endDate;
+        this.format = format;
+    }
+
     public String getMsisdn() {
         return msisdn;
     }
@@ -51,12 +61,21 @@ public class ReportGenerationRequest {
         this.endDate = endDate;
     }
 
+    public String getFormat() {
+        return format;
+    }
+
+    public void setFormat(String format) {
+        this.format = format;
+    }
+
     @Override
     public String toString() {
         return "ReportGenerationRequest{" +
                 "msisdn='" + msisdn + '\'' +
                 ", startDate=" + startDate +
                 ", endDate=" + endDate +
+                ", format='" + format + '\'' +
                 '}';
     }
 }
\ No newline at end of file
@@ -0,0 +1,126 @@
+package com.royal.CallData.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+/**
+ * DTO отчета об использовании услуг (UDR): итоги входящих и исходящих звонков абонента за месяц.
+ */
+
+public class UdrResponse {
+    @Schema(description = "Номер MSISDN абонента", example = "79001234567")
+    private String msisdn;
+
+    @Schema(description = "Месяц отчета в формате yyyy-MM", example = "2025-03")
+    private String month;
+
+    @Schema(description = "Количество входящих звонков", example = "42")
+    private long incomingCallCount;
+
+    @Schema(description = "Суммарная длительность входящих звонков в секундах", example = "11115")
+    private long incomingSeconds;
+
+    @Schema(description = "Суммарная длительность входящих звонков в формате HH:mm:ss", example = "03:05:15")
+    private String incomingTotalTime;
+
+    @Schema(description = "Количество исходящих звонков", example = "37")
+    private long outgoingCallCount;
+
+    @Schema(description = "Суммарная длительность исходящих звонков в секундах", example = "9302")
+    private long outgoingSeconds;
+
+    @Schema(description = "Суммарная длительность исходящих звонков в формате HH:mm:ss", example = "02:35:02")
+    private String outgoingTotalTime;
+
+    public UdrResponse() {
+    }
+
+    public UdrResponse(String msisdn, String month, long incomingCallCount, long incomingSeconds, String incomingTotalTime,
+                       long outgoingCallCount, long outgoingSeconds, String outgoingTotalTime) {
+        this.msisdn = msisdn;
+        this.month = month;
+        this.incomingCallCount = incomingCallCount;
+        this.incomingSeconds = incomingSeconds;
+        this.incomingTotalTime = incomingTotalTime;
+        this.outgoingCallCount = outgoingCallCount;
+        this.outgoingSeconds = outgoingSeconds;
+        this.outgoingTotalTime = outgoingTotalTime;
+    }
+
+    public String getMsisdn() {
+        return msisdn;
+    }
+
+    public void setMsisdn(String msisdn) {
+        this.msisdn = msisdn;
+    }
+
+    public String getMonth() {
+        return month;
+    }
+
+    public void setMonth(String month) {
+        this.month = month;
+    }
+
+    public long getIncomingCallCount() {
+        return incomingCallCount;
+    }
+
+    public void setIncomingCallCount(long incomingCallCount) {
+        this.incomingCallCount = incomingCallCount;
+    }
+
+    public long getIncomingSeconds() {
+        return incomingSeconds;
+    }
+
+    public void setIncomingSeconds(long incomingSeconds) {
+        this.incomingSeconds = incomingSeconds;
+    }
+
+    public String getIncomingTotalTime() {
+        return incomingTotalTime;
+    }
+
+    public void setIncomingTotalTime(String incomingTotalTime) {
+        this.incomingTotalTime = incomingTotalTime;
+    }
+
+    public long getOutgoingCallCount() {
+        return outgoingCallCount;
+    }
+
+    public void setOutgoingCallCount(long outgoingCallCount) {
+        this.outgoingCallCount = outgoingCallCount;
+    }
+
+    public long getOutgoingSeconds() {
+        return outgoingSeconds;
+    }
+
+    public void setOutgoingSeconds(long outgoingSeconds) {
+        this.outgoingSeconds = outgoingSeconds;
+    }
+
+    public String getOutgoingTotalTime() {
+        return outgoingTotalTime;
+    }
+
+    public void setOutgoingTotalTime(String outgoingTotalTime) {
+        this.outgoingTotalTime = outgoingTotalTime;
+    }
+
+    @Override
+    public String toString() {
+        return "UdrResponse{" +
+                "msisdn='" + msisdn + '\'' +
+                ", month='" + month + '\'' +
+                ", incomingCallCount=" + incomingCallCount +
+                ", incomingSeconds=" + incomingSeconds +
+                ", incomingTotalTime='" + incomingTotalTime + '\'' +
+                ", outgoingCallCount=" + outgoingCallCount +
+                ", outgoingSeconds=" + outgoingSeconds +
+                ", outgoingTotalTime='" + outgoingTotalTime + '\'' +
+                '}';
+    }
+}
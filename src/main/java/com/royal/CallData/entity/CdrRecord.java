@@ -1,32 +1,47 @@
 package com.royal.CallData.entity;
 
+import com.royal.CallData.util.CdrRowEncoder;
+import com.royal.CallData.util.MsisdnCodec;
 import io.swagger.v3.oas.annotations.media.Schema;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Id;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
 
 import java.time.LocalDateTime;
 
 /**
  * Сущность, представляющая запись CDR (Call Data Record), содержащую информацию о звонке.
+ * Составные индексы по номеру абонента и времени начала звонка позволяют выбирать
+ * записи абонента за период диапазонным сканированием индекса, уже упорядоченным по времени.
+ * Номера хранятся числами ({@link MsisdnCodec}) в столбцах {@code BIGINT}; методы доступа с суффиксом
+ * {@code Msisdn} работают со строковым видом номера, {@link #callerNumber()} и {@link #receiverNumber()} — с числовым.
  */
 
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_cdr_caller_start", columnList = "callerMsisdn, startTime"),
+        @Index(name = "idx_cdr_receiver_start", columnList = "receiverMsisdn, startTime"),
+        @Index(name = "idx_cdr_start_id", columnList = "startTime, id")
+})
 public class CdrRecord {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "cdr_record_seq")
+    @SequenceGenerator(name = "cdr_record_seq", sequenceName = "cdr_record_seq", allocationSize = 500)
     @Schema(description = "Уникальный идентификатор CDR записи", example = "1")
     private Long id;
 
     @Schema(description = "Тип звонка (01 - исходящий, 02 - входящий)", example = "01")
     private String callType; // 01 - исходящие, 02 - входящие
 
-    @Schema(description = "Номер звонящего абонента", example = "+79161234567")
-    private String callerMsisdn; // Номер звонящего
+    @Schema(description = "Номер звонящего абонента", example = "79161234567")
+    private Long callerMsisdn; // Номер звонящего
 
-    @Schema(description = "Номер принимающего абонента", example = "+79161234568")
-    private String receiverMsisdn; // Номер принимающего
+    @Schema(description = "Номер принимающего абонента", example = "79161234568")
+    private Long receiverMsisdn; // Номер принимающего
 
     @Schema(description = "Время начала звонка", example = "2025-03-23T14:30:00")
     private LocalDateTime startTime; // Время начала звонка
@@ -39,9 +54,18 @@ public class CdrRecord {
 
     public CdrRecord(String callType, String callerMsisdn, String receiverMsisdn,
                      LocalDateTime startTime, LocalDateTime endTime) {
+        this(callType, MsisdnCodec.encode(callerMsisdn), MsisdnCodec.encode(receiverMsisdn), startTime, endTime);
+    }
+
+    /**
+     * @param callerNumber   Номер звонящего в числовом виде, {@link MsisdnCodec#NONE} — нет номера.
+     * @param receiverNumber Номер принимающего в числовом виде, {@link MsisdnCodec#NONE} — нет номера.
+     */
+    public CdrRecord(String callType, long callerNumber, long receiverNumber,
+                     LocalDateTime startTime, LocalDateTime endTime) {
         this.callType = callType;
-        this.callerMsisdn = callerMsisdn;
-        this.receiverMsisdn = receiverMsisdn;
+        this.callerMsisdn = callerNumber == MsisdnCodec.NONE ? null : callerNumber;
+        this.receiverMsisdn = receiverNumber == MsisdnCodec.NONE ? null : receiverNumber;
         this.startTime = startTime;
         this.endTime = endTime;
     }
@@ -63,19 +87,35 @@ public class CdrRecord {
     }
 
     public String getCallerMsisdn() {
-        return callerMsisdn;
+        return MsisdnCodec.format(callerMsisdn);
     }
 
     public void setCallerMsisdn(String callerMsisdn) {
-        this.callerMsisdn = callerMsisdn;
+        long number = MsisdnCodec.encode(callerMsisdn);
+        this.callerMsisdn = number == MsisdnCodec.NONE ? null : number;
     }
 
     public String getReceiverMsisdn() {
-        return receiverMsisdn;
+        return MsisdnCodec.format(receiverMsisdn);
     }
 
     public void setReceiverMsisdn(String receiverMsisdn) {
-        this.receiverMsisdn = receiverMsisdn;
+        long number = MsisdnCodec.encode(receiverMsisdn);
+        this.receiverMsisdn = number == MsisdnCodec.NONE ? null : number;
+    }
+
+    /**
+     * @return Номер звонящего в числовом виде или {@link MsisdnCodec#NONE}.
+     */
+    public long callerNumber() {
+        return callerMsisdn == null ? MsisdnCodec.NONE : callerMsisdn;
+    }
+
+    /**
+     * @return Номер принимающего в числовом виде или {@link MsisdnCodec#NONE}.
+     */
+    public long receiverNumber() {
+        return receiverMsisdn == null ? MsisdnCodec.NONE : receiverMsisdn;
     }
 
     public LocalDateTime getStartTime() {
@@ -108,11 +148,6 @@ public class CdrRecord {
 
     // Метод для преобразования CDR записи в формат строки отчета
     public String toCdrString() {
-        return String.format("%s,%s,%s,%s,%s",
-                callType,
-                callerMsisdn,
-                receiverMsisdn,
-                startTime.toString(),
-                endTime.toString());
+        return CdrRowEncoder.toCdrString(this);
     }
 }
\ No newline at end of file
@@ -0,0 +1,73 @@
+package com.royal.CallData.entity;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.persistence.EmbeddedId;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+/**
+ * Суточный агрегат звонков абонента: количество звонков и их суммарная длительность
+ * за один день в одном направлении. Звонок учитывается как исходящий ("01") у звонящего
+ * и как входящий ("02") у принимающего абонента.
+ * Агрегаты обновляются при сохранении CDR записей, поэтому итоги за период считаются
+ * по числу дней, а не по числу звонков.
+ */
+
+@Entity
+@Table(indexes = {
+        @Index(name = "idx_daily_usage_msisdn_day", columnList = "msisdn, usageDay")
+})
+public class DailyUsage {
+    @EmbeddedId
+    @Schema(description = "Абонент, день и направление звонков")
+    private DailyUsageId id;
+
+    @Schema(description = "Количество звонков", example = "12")
+    private long callCount;
+
+    @Schema(description = "Суммарная длительность звонков в секундах", example = "5400")
+    private long totalDurationSeconds;
+
+    public DailyUsage() {
+    }
+
+    public DailyUsage(DailyUsageId id, long callCount, long totalDurationSeconds) {
+        this.id = id;
+        this.callCount = callCount;
+        this.totalDurationSeconds = totalDurationSeconds;
+    }
+
+    public DailyUsageId getId() {
+        return id;
+    }
+
+    public void setId(DailyUsageId id) {
+        this.id = id;
+    }
+
+    public long getCallCount() {
+        return callCount;
+    }
+
+    public void setCallCount(long callCount) {
+        this.callCount = callCount;
+    }
+
+    public long getTotalDurationSeconds() {
+        return totalDurationSeconds;
+    }
+
+    public void setTotalDurationSeconds(long totalDurationSeconds) {
+        this.totalDurationSeconds = totalDurationSeconds;
+    }
+
+    @Override
+    public String toString() {
+        return "DailyUsage{" +
+                "id=" + id +
+                ", callCount=" + callCount +
+                ", totalDurationSeconds=" + totalDurationSeconds +
+                '}';
+    }
+}
@@ -0,0 +1,88 @@
+package com.royal.CallData.entity;
+
+import com.royal.CallData.util.MsisdnCodec;
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.Objects;
+
+/**
+ * Составной ключ суточного агрегата: абонент, день и направление звонков.
+ * Номер абонента хранится числом ({@link MsisdnCodec}).
+ */
+
+@Embeddable
+public class DailyUsageId implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private long msisdn;
+
+    private LocalDate usageDay;
+
+    @Column(length = 2)
+    private String callType;
+
+    public DailyUsageId() {
+    }
+
+    public DailyUsageId(String msisdn, LocalDate usageDay, String callType) {
+        this(MsisdnCodec.encode(msisdn), usageDay, callType);
+    }
+
+    /**
+     * @param number Номер абонента в числовом виде.
+     */
+    public DailyUsageId(long number, LocalDate usageDay, String callType) {
+        this.msisdn = number;
+        this.usageDay = usageDay;
+        this.callType = callType;
+    }
+
+    public String getMsisdn() {
+        return MsisdnCodec.format(msisdn);
+    }
+
+    /**
+     * @return Номер абонента в числовом виде.
+     */
+    public long number() {
+        return msisdn;
+    }
+
+    public LocalDate getUsageDay() {
+        return usageDay;
+    }
+
+    public String getCallType() {
+        return callType;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof DailyUsageId other)) {
+            return false;
+        }
+        return msisdn == other.msisdn
+                && Objects.equals(usageDay, other.usageDay)
+                && Objects.equals(callType, other.callType);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(msisdn, usageDay, callType);
+    }
+
+    @Override
+    public String toString() {
+        return "DailyUsageId{" +
+                "msisdn=" + msisdn +
+                ", usageDay=" + usageDay +
+                ", callType='" + callType + '\'' +
+                '}';
+    }
+}
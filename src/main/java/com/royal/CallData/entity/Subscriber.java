@@ -1,30 +1,41 @@
 package com.royal.CallData.entity;
 
+import com.royal.CallData.util.MsisdnCodec;
 import io.swagger.v3.oas.annotations.media.Schema;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Id;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
+import jakarta.persistence.SequenceGenerator;
 
 /**
  * Сущность, представляющая абонента с уникальным номером MSISDN.
+ * Номер хранится числом ({@link MsisdnCodec}), {@link #getMsisdn()} возвращает его строковый вид.
  */
 
 @Entity
 public class Subscriber {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "subscriber_seq")
+    @SequenceGenerator(name = "subscriber_seq", sequenceName = "subscriber_seq", allocationSize = 500)
     @Schema(description = "Уникальный идентификатор абонента", example = "1")
     private Long id;
 
-    @Schema(description = "Номер MSISDN абонента", example = "+79161234567")
-    private String msisdn;
+    @Schema(description = "Номер MSISDN абонента", example = "79161234567")
+    private Long msisdn;
 
     public Subscriber() {
     }
 
     public Subscriber(String msisdn) {
-        this.msisdn = msisdn;
+        setMsisdn(msisdn);
+    }
+
+    /**
+     * @param number Номер абонента в числовом виде.
+     */
+    public Subscriber(long number) {
+        this.msisdn = number;
     }
 
     public Long getId() {
@@ -36,11 +47,19 @@ public class Subscriber {
     }
 
     public String getMsisdn() {
-        return msisdn;
+        return MsisdnCodec.format(msisdn);
     }
 
     public void setMsisdn(String msisdn) {
-        this.msisdn = msisdn;
+        long number = MsisdnCodec.encode(msisdn);
+        this.msisdn = number == MsisdnCodec.NONE ? null : number;
+    }
+
+    /**
+     * @return Номер абонента в числовом виде или {@link MsisdnCodec#NONE}.
+     */
+    public long number() {
+        return msisdn == null ? MsisdnCodec.NONE : msisdn;
     }
 
     @Override
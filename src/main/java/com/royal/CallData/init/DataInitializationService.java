@@ -2,6 +2,7 @@ package com.royal.CallData.init;
 
 import com.royal.CallData.entity.Subscriber;
 import com.royal.CallData.repository.SubscriberRepository;
+import com.royal.CallData.service.SubscriberDirectory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -13,27 +14,30 @@ import java.util.List;
 
 /**
  * Сервис для инициализации данных при запуске приложения.
- * Создает набор абонентов и сохраняет их в базе данных.
+ * Создает набор абонентов, сохраняет их в базе данных и загружает справочник абонентов.
  */
 @Component
 public class DataInitializationService implements CommandLineRunner {
 
     private final SubscriberRepository subscriberRepository;
+    private final SubscriberDirectory subscriberDirectory;
     private final Logger LOGGER = LoggerFactory.getLogger(DataInitializationService.class);
 
     /**
      * Конструктор для инициализации сервисов.
      *
      * @param subscriberRepository Репозиторий для работы с абонентами.
+     * @param subscriberDirectory  Справочник абонентов в памяти.
      */
     @Autowired
-    public DataInitializationService(SubscriberRepository subscriberRepository) {
+    public DataInitializationService(SubscriberRepository subscriberRepository, SubscriberDirectory subscriberDirectory) {
         this.subscriberRepository = subscriberRepository;
+        this.subscriberDirectory = subscriberDirectory;
     }
 
     /**
      * Метод, который выполняется при старте приложения.
-     * Создает список абонентов и сохраняет их в базе данных.
+     * Создает список абонентов, сохраняет их в базе данных и загружает справочник абонентов.
      *
      * @param args Параметры командной строки (не используются).
      */
@@ -54,5 +58,6 @@ public class DataInitializationService implements CommandLineRunner {
 
         subscriberRepository.saveAll(subscribers);
         System.out.println("Создано " + subscribers.size() + " абонентов");
+        subscriberDirectory.reload();
     }
 }
@@ -1,13 +1,18 @@
 package com.royal.CallData.repository;
 
 import com.royal.CallData.entity.CdrRecord;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * Репозиторий для работы с сущностью CdrRecord.
@@ -16,29 +21,168 @@ import java.util.List;
 @Repository
 public interface CdrRecordRepository extends JpaRepository<CdrRecord, Long> {
 
+    /**
+     * Выборка всех записей абонента в виде двух сканирований индексов, объединенных через UNION ALL.
+     */
+    String SUBSCRIBER_QUERY =
+            "SELECT * FROM cdr_record WHERE caller_msisdn = :msisdn " +
+            "UNION ALL " +
+            "SELECT * FROM cdr_record WHERE receiver_msisdn = :msisdn " +
+            "AND (caller_msisdn IS NULL OR caller_msisdn <> :msisdn) " +
+            "ORDER BY start_time";
+
+    /**
+     * Выборка записей абонента за период в виде двух диапазонных сканирований индексов
+     * (по callerMsisdn и по receiverMsisdn), объединенных через UNION ALL.
+     */
+    String SUBSCRIBER_DATE_RANGE_QUERY =
+            "SELECT * FROM cdr_record WHERE caller_msisdn = :msisdn " +
+            "AND start_time >= :startDate AND start_time <= :endDate " +
+            "UNION ALL " +
+            "SELECT * FROM cdr_record WHERE receiver_msisdn = :msisdn " +
+            "AND (caller_msisdn IS NULL OR caller_msisdn <> :msisdn) " +
+            "AND start_time >= :startDate AND start_time <= :endDate " +
+            "ORDER BY start_time";
+
+    /**
+     * Страница записей абонента после курсора (startTime, id). Каждая ветка объединения
+     * начинает диапазонное сканирование своего индекса сразу с позиции курсора и ограничена размером страницы,
+     * поэтому стоимость дальних страниц не отличается от стоимости первой.
+     */
+    String SUBSCRIBER_PAGE_QUERY =
+            "(SELECT * FROM cdr_record WHERE caller_msisdn = :msisdn " +
+            "AND start_time >= :startTime AND (start_time > :startTime OR id > :id) " +
+            "ORDER BY start_time, id LIMIT :limit) " +
+            "UNION ALL " +
+            "(SELECT * FROM cdr_record WHERE receiver_msisdn = :msisdn " +
+            "AND (caller_msisdn IS NULL OR caller_msisdn <> :msisdn) " +
+            "AND start_time >= :startTime AND (start_time > :startTime OR id > :id) " +
+            "ORDER BY start_time, id LIMIT :limit) " +
+            "ORDER BY start_time, id LIMIT :limit";
+
     /**
      * Находит все записи о звонках для абонента, по его номеру (callerMsisdn или receiverMsisdn).
      * Результаты сортируются по времени начала звонка.
+     * Условие OR заменено объединением двух выборок, каждая из которых использует свой составной индекс;
+     * вторая выборка исключает записи, уже попавшие в первую.
      *
-     * @param msisdn Номер абонента для поиска.
+     * @param msisdn Номер абонента в числовом виде.
      * @return Список записей о звонках, соответствующих абоненту.
      */
-    @Query("SELECT c FROM CdrRecord c WHERE c.callerMsisdn = :msisdn OR c.receiverMsisdn = :msisdn ORDER BY c.startTime")
-    List<CdrRecord> findAllBySubscriberMsisdn(@Param("msisdn") String msisdn);
+    @Query(value = SUBSCRIBER_QUERY, nativeQuery = true)
+    List<CdrRecord> findAllBySubscriberMsisdn(@Param("msisdn") long msisdn);
+
+    /**
+     * Потоково читает все записи о звонках абонента в порядке времени начала звонка.
+     * Метод должен вызываться внутри транзакции, а полученный поток — закрываться после использования.
+     *
+     * @param msisdn Номер абонента в числовом виде.
+     * @return Поток записей о звонках абонента.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query(value = SUBSCRIBER_QUERY, nativeQuery = true)
+    Stream<CdrRecord> streamAllBySubscriberMsisdn(@Param("msisdn") long msisdn);
+
+    /**
+     * Проверяет, есть ли записи, в которых абонент указан как звонящий.
+     *
+     * @param callerMsisdn Номер абонента.
+     * @return {@code true}, если такие записи есть.
+     */
+    boolean existsByCallerMsisdn(Long callerMsisdn);
+
+    /**
+     * Проверяет, есть ли записи, в которых абонент указан как принимающий.
+     *
+     * @param receiverMsisdn Номер абонента.
+     * @return {@code true}, если такие записи есть.
+     */
+    boolean existsByReceiverMsisdn(Long receiverMsisdn);
 
 
     /**
      * Находит записи о звонках для абонента в заданном временном интервале.
      * Результаты сортируются по времени начала звонка.
      *
-     * @param msisdn    Номер абонента для поиска.
+     * @param msisdn    Номер абонента в числовом виде.
      * @param startDate Дата начала интервала.
      * @param endDate   Дата окончания интервала.
      * @return Список записей о звонках, соответствующих абоненту и времени.
      */
-    @Query("SELECT c FROM CdrRecord c WHERE (c.callerMsisdn = :msisdn OR c.receiverMsisdn = :msisdn) " +
-            "AND c.startTime >= :startDate AND c.startTime <= :endDate ORDER BY c.startTime")
-    List<CdrRecord> findBySubscriberAndDateRange(@Param("msisdn") String msisdn,
+    @Query(value = SUBSCRIBER_DATE_RANGE_QUERY, nativeQuery = true)
+    List<CdrRecord> findBySubscriberAndDateRange(@Param("msisdn") long msisdn,
                                                  @Param("startDate") LocalDateTime startDate,
                                                  @Param("endDate") LocalDateTime endDate);
+
+    /**
+     * Потоково читает записи о звонках для абонента в заданном временном интервале.
+     * В отличие от {@link #findBySubscriberAndDateRange}, записи не загружаются в память целиком,
+     * а выбираются из курсора порциями по {@code fetchSize} строк.
+     * Метод должен вызываться внутри транзакции, а полученный поток — закрываться после использования.
+     *
+     * @param msisdn    Номер абонента в числовом виде.
+     * @param startDate Дата начала интервала.
+     * @param endDate   Дата окончания интервала.
+     * @return Поток записей о звонках, отсортированных по времени начала звонка.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query(value = SUBSCRIBER_DATE_RANGE_QUERY, nativeQuery = true)
+    Stream<CdrRecord> streamBySubscriberAndDateRange(@Param("msisdn") long msisdn,
+                                                     @Param("startDate") LocalDateTime startDate,
+                                                     @Param("endDate") LocalDateTime endDate);
+
+    /**
+     * Потоково читает все записи о звонках за период в порядке времени начала звонка
+     * одним диапазонным сканированием индекса по (startTime, id).
+     * Используется пакетными отчетами, которые распределяют записи по абонентам за один проход.
+     * Метод должен вызываться внутри транзакции, а полученный поток — закрываться после использования.
+     *
+     * @param startDate Дата начала интервала.
+     * @param endDate   Дата окончания интервала.
+     * @return Поток записей о звонках, отсортированных по времени начала звонка и идентификатору.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT c FROM CdrRecord c WHERE c.startTime >= :startDate AND c.startTime <= :endDate " +
+            "ORDER BY c.startTime, c.id")
+    Stream<CdrRecord> streamByDateRange(@Param("startDate") LocalDateTime startDate,
+                                        @Param("endDate") LocalDateTime endDate);
+
+    /**
+     * Возвращает страницу записей о звонках, следующих за курсором (startTime, id) в порядке времени начала звонка.
+     * Условие {@code startTime >= :startTime} позволяет начать сканирование индекса сразу с позиции курсора.
+     *
+     * @param startTime Время начала звонка последней записи предыдущей страницы.
+     * @param id        Идентификатор последней записи предыдущей страницы.
+     * @param limit     Максимальное количество записей на странице.
+     * @return Список записей, отсортированных по времени начала звонка и идентификатору.
+     */
+    @Query("SELECT c FROM CdrRecord c WHERE c.startTime >= :startTime " +
+            "AND (c.startTime > :startTime OR c.id > :id) ORDER BY c.startTime, c.id")
+    List<CdrRecord> findPageAfter(@Param("startTime") LocalDateTime startTime,
+                                  @Param("id") long id,
+                                  Limit limit);
+
+    /**
+     * Возвращает страницу записей о звонках абонента, следующих за курсором (startTime, id).
+     *
+     * @param msisdn    Номер абонента в числовом виде.
+     * @param startTime Время начала звонка последней записи предыдущей страницы.
+     * @param id        Идентификатор последней записи предыдущей страницы.
+     * @param limit     Максимальное количество записей на странице.
+     * @return Список записей, отсортированных по времени начала звонка и идентификатору.
+     */
+    @Query(value = SUBSCRIBER_PAGE_QUERY, nativeQuery = true)
+    List<CdrRecord> findSubscriberPageAfter(@Param("msisdn") long msisdn,
+                                            @Param("startTime") LocalDateTime startTime,
+                                            @Param("id") long id,
+                                            @Param("limit") int limit);
 }
@@ -0,0 +1,91 @@
+package com.royal.CallData.repository;
+
+import com.royal.CallData.entity.CdrRecord;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Хранилище CDR записей, через которое сервисы сохраняют и читают звонки.
+ * Реализация выбирается свойством {@code cdr.storage.engine}:
+ * <ul>
+ *     <li>{@code jpa} (по умолчанию) — таблица {@code cdr_record} через {@link CdrRecordRepository} ({@link JpaCdrStore});</li>
+ *     <li>{@code partitioned} — отдельная таблица на каждый месяц времени начала звонка ({@link PartitionedCdrStore});</li>
+ *     <li>{@code log} — сегментированный журнал в отображаемых в память файлах ({@link LogCdrStore}).</li>
+ * </ul>
+ * Записи, возвращаемые потоками и страницами, не отслеживаются контекстом персистентности.
+ * Потоки следует читать внутри транзакции (этого требует реализация на JPA) и закрывать после использования.
+ */
+public interface CdrStore {
+
+    /**
+     * Сохраняет записи и присваивает им идентификаторы.
+     *
+     * @param records Записи для сохранения.
+     */
+    void saveAll(List<CdrRecord> records);
+
+    /**
+     * Потоково читает записи абонента (звонящего или принимающего) за период в порядке времени начала звонка.
+     *
+     * @param msisdn    Номер абонента.
+     * @param startDate Дата начала интервала (включительно).
+     * @param endDate   Дата окончания интервала (включительно).
+     * @return Поток записей, отсортированных по времени начала звонка.
+     */
+    Stream<CdrRecord> streamBySubscriberAndDateRange(String msisdn, LocalDateTime startDate, LocalDateTime endDate);
+
+    /**
+     * Потоково читает все записи абонента в порядке времени начала звонка.
+     *
+     * @param msisdn Номер абонента.
+     * @return Поток записей, отсортированных по времени начала звонка.
+     */
+    Stream<CdrRecord> streamAllBySubscriberMsisdn(String msisdn);
+
+    /**
+     * Потоково читает все записи за период в порядке времени начала звонка и идентификатора.
+     *
+     * @param startDate Дата начала интервала (включительно).
+     * @param endDate   Дата окончания интервала (включительно).
+     * @return Поток записей, отсортированных по (startTime, id).
+     */
+    Stream<CdrRecord> streamByDateRange(LocalDateTime startDate, LocalDateTime endDate);
+
+    /**
+     * Проверяет, есть ли записи, в которых абонент указан как звонящий или принимающий.
+     *
+     * @param msisdn Номер абонента.
+     * @return {@code true}, если такие записи есть.
+     */
+    boolean existsBySubscriber(String msisdn);
+
+    /**
+     * Возвращает страницу записей, следующих за курсором (startTime, id).
+     *
+     * @param startTime Время начала звонка последней записи предыдущей страницы.
+     * @param id        Идентификатор последней записи предыдущей страницы.
+     * @param limit     Максимальное количество записей на странице.
+     * @return Список записей, отсортированных по времени начала звонка и идентификатору.
+     */
+    List<CdrRecord> findPageAfter(LocalDateTime startTime, long id, int limit);
+
+    /**
+     * Возвращает страницу записей абонента, следующих за курсором (startTime, id).
+     *
+     * @param msisdn    Номер абонента.
+     * @param startTime Время начала звонка последней записи предыдущей страницы.
+     * @param id        Идентификатор последней записи предыдущей страницы.
+     * @param limit     Максимальное количество записей на странице.
+     * @return Список записей, отсортированных по времени начала звонка и идентификатору.
+     */
+    List<CdrRecord> findSubscriberPageAfter(String msisdn, LocalDateTime startTime, long id, int limit);
+
+    /**
+     * @return {@code true}, если записи лежат в таблице {@code cdr_record} и могут обрабатываться SQL-запросами.
+     */
+    default boolean inDatabase() {
+        return false;
+    }
+}
@@ -0,0 +1,77 @@
+package com.royal.CallData.repository;
+
+import com.royal.CallData.entity.DailyUsage;
+import com.royal.CallData.entity.DailyUsageId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Репозиторий для работы с суточными агрегатами звонков абонентов.
+ */
+@Repository
+public interface DailyUsageRepository extends JpaRepository<DailyUsage, DailyUsageId> {
+
+    /**
+     * Итоги по направлениям: входящие ("02") и исходящие ("01") звонки сворачиваются в одной строке на абонента.
+     */
+    String TOTALS_COLUMNS =
+            "SUM(CASE WHEN d.id.callType = '02' THEN d.callCount ELSE 0 END) AS incomingCallCount, " +
+            "SUM(CASE WHEN d.id.callType = '02' THEN d.totalDurationSeconds ELSE 0 END) AS incomingSeconds, " +
+            "SUM(CASE WHEN d.id.callType = '01' THEN d.callCount ELSE 0 END) AS outgoingCallCount, " +
+            "SUM(CASE WHEN d.id.callType = '01' THEN d.totalDurationSeconds ELSE 0 END) AS outgoingSeconds";
+
+    /**
+     * Находит суточные агрегаты абонента за период по индексу (msisdn, usageDay).
+     *
+     * @param msisdn Номер абонента в числовом виде.
+     * @param from   Первый день периода.
+     * @param to     Последний день периода.
+     * @return Агрегаты абонента за период.
+     */
+    List<DailyUsage> findByIdMsisdnAndIdUsageDayBetween(long msisdn, LocalDate from, LocalDate to);
+
+    /**
+     * Итоги звонков абонента за период, свернутые из суточных агрегатов.
+     */
+    interface UsageTotals {
+        long getMsisdn();
+
+        long getIncomingCallCount();
+
+        long getIncomingSeconds();
+
+        long getOutgoingCallCount();
+
+        long getOutgoingSeconds();
+    }
+
+    /**
+     * Считает итоги входящих и исходящих звонков абонента за период одной группировкой в БД.
+     * Стоимость запроса пропорциональна числу дней периода, а не числу звонков.
+     *
+     * @param msisdn Номер абонента в числовом виде.
+     * @param from   Первый день периода.
+     * @param to     Последний день периода.
+     * @return Итоги абонента или {@code null}, если за период у него нет звонков.
+     */
+    @Query("SELECT d.id.msisdn AS msisdn, " + TOTALS_COLUMNS + " FROM DailyUsage d " +
+            "WHERE d.id.msisdn = :msisdn AND d.id.usageDay BETWEEN :from AND :to GROUP BY d.id.msisdn")
+    UsageTotals sumByMsisdn(@Param("msisdn") long msisdn, @Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    /**
+     * Считает итоги входящих и исходящих звонков всех абонентов за период одним запросом с группировкой в БД.
+     * Абоненты без звонков за период в результат не попадают.
+     *
+     * @param from Первый день периода.
+     * @param to   Последний день периода.
+     * @return Итоги абонентов, упорядоченные по номеру.
+     */
+    @Query("SELECT d.id.msisdn AS msisdn, " + TOTALS_COLUMNS + " FROM DailyUsage d " +
+            "WHERE d.id.usageDay BETWEEN :from AND :to GROUP BY d.id.msisdn ORDER BY d.id.msisdn")
+    List<UsageTotals> sumAllByPeriod(@Param("from") LocalDate from, @Param("to") LocalDate to);
+}
@@ -0,0 +1,84 @@
+package com.royal.CallData.repository;
+
+import com.royal.CallData.entity.CdrRecord;
+import com.royal.CallData.util.MsisdnCodec;
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Хранилище CDR записей в таблице {@code cdr_record}, используется по умолчанию.
+ * Все операции делегируются {@link CdrRecordRepository}; записи потоков отсоединяются от контекста
+ * персистентности сразу после чтения, поэтому он не разрастается на больших выборках.
+ * Номер абонента преобразуется в числовой вид ({@link MsisdnCodec}) один раз на запрос.
+ */
+@Repository
+@ConditionalOnProperty(name = "cdr.storage.engine", havingValue = "jpa", matchIfMissing = true)
+public class JpaCdrStore implements CdrStore {
+
+    private final CdrRecordRepository cdrRecordRepository;
+    private final EntityManager entityManager;
+
+    /**
+     * Конструктор с внедрением зависимостей.
+     *
+     * @param cdrRecordRepository Репозиторий для работы с записями CDR.
+     * @param entityManager       Менеджер сущностей для отсоединения прочитанных записей.
+     */
+    @Autowired
+    public JpaCdrStore(CdrRecordRepository cdrRecordRepository, EntityManager entityManager) {
+        this.cdrRecordRepository = cdrRecordRepository;
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public void saveAll(List<CdrRecord> records) {
+        cdrRecordRepository.saveAll(records);
+    }
+
+    @Override
+    public Stream<CdrRecord> streamBySubscriberAndDateRange(String msisdn, LocalDateTime startDate, LocalDateTime endDate) {
+        return detached(cdrRecordRepository.streamBySubscriberAndDateRange(MsisdnCodec.parse(msisdn), startDate, endDate));
+    }
+
+    @Override
+    public Stream<CdrRecord> streamAllBySubscriberMsisdn(String msisdn) {
+        return detached(cdrRecordRepository.streamAllBySubscriberMsisdn(MsisdnCodec.parse(msisdn)));
+    }
+
+    @Override
+    public Stream<CdrRecord> streamByDateRange(LocalDateTime startDate, LocalDateTime endDate) {
+        return detached(cdrRecordRepository.streamByDateRange(startDate, endDate));
+    }
+
+    @Override
+    public boolean existsBySubscriber(String msisdn) {
+        long number = MsisdnCodec.parse(msisdn);
+        return cdrRecordRepository.existsByCallerMsisdn(number) || cdrRecordRepository.existsByReceiverMsisdn(number);
+    }
+
+    @Override
+    public List<CdrRecord> findPageAfter(LocalDateTime startTime, long id, int limit) {
+        return cdrRecordRepository.findPageAfter(startTime, id, Limit.of(limit));
+    }
+
+    @Override
+    public List<CdrRecord> findSubscriberPageAfter(String msisdn, LocalDateTime startTime, long id, int limit) {
+        return cdrRecordRepository.findSubscriberPageAfter(MsisdnCodec.parse(msisdn), startTime, id, limit);
+    }
+
+    @Override
+    public boolean inDatabase() {
+        return true;
+    }
+
+    private Stream<CdrRecord> detached(Stream<CdrRecord> records) {
+        return records.peek(entityManager::detach);
+    }
+}
@@ -0,0 +1,454 @@
+package com.royal.CallData.repository;
+
+import com.royal.CallData.entity.CdrRecord;
+import com.royal.CallData.util.CallTypeCodec;
+import com.royal.CallData.util.MsisdnCodec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * Хранилище CDR записей в виде журнала только для дозаписи, включается свойством {@code cdr.storage.engine=log}.
+ * <p>
+ * Журнал состоит из сегментов {@code cdr-00000000.seg}, {@code cdr-00000001.seg}, ... в каталоге
+ * {@code cdr.storage.log.directory}. Сегмент — файл на {@code cdr.storage.log.segment-records} записей
+ * фиксированной длины ({@value #RECORD_SIZE} байт), целиком отображенный в память; запись пишется копированием
+ * в отображенную память без SQL, транзакций и сериализации сущностей:
+ * <pre>
+ * 0  long  номер звонящего (0 — нет значения)
+ * 8  long  номер принимающего (0 — нет значения)
+ * 16 long  время начала, секунды эпохи UTC
+ * 24 long  время окончания, секунды эпохи UTC ({@link Long#MIN_VALUE} — нет значения)
+ * 32 byte  тип звонка (числовое значение, 0 — нет значения)
+ * 39 byte  признак записанной записи (1), выставляется последним
+ * </pre>
+ * Идентификатор записи — ее порядковый номер в журнале плюс один, поэтому он не хранится, а положение записи
+ * вычисляется по идентификатору. MSISDN хранятся в числовом виде записи ({@link MsisdnCodec});
+ * время хранится с точностью до секунды.
+ * <p>
+ * Индексы хранятся в памяти и перестраиваются по журналу при запуске: общий индекс по (время начала, id)
+ * и индекс каждого абонента по тому же ключу, в который запись попадает и как звонящего, и как принимающего.
+ * Индекс содержит только номера записей, время начала читается из журнала. Записи, пришедшие не по порядку времени,
+ * дописываются в конец индекса и вливаются в упорядоченную часть при первом чтении.
+ * <p>
+ * Хранилище не транзакционно: записи видны сразу после {@link #saveAll}. Отображенные страницы сбрасываются на диск
+ * операционной системой, заполненный сегмент и последний сегмент при остановке — явно, поэтому после аварийного
+ * завершения процесса записи сохраняются, а после сбоя питания могут быть потеряны последние из них.
+ */
+@Repository
+@ConditionalOnProperty(name = "cdr.storage.engine", havingValue = "log")
+public class LogCdrStore implements CdrStore, Closeable {
+
+    static final int RECORD_SIZE = 40;
+    private static final int CALLER_OFFSET = 0;
+    private static final int RECEIVER_OFFSET = 8;
+    private static final int START_OFFSET = 16;
+    private static final int END_OFFSET = 24;
+    private static final int CALL_TYPE_OFFSET = 32;
+    private static final int COMMITTED_OFFSET = 39;
+    private static final byte COMMITTED = 1;
+    private static final long NO_END = Long.MIN_VALUE;
+
+    private final Logger LOGGER = LoggerFactory.getLogger(LogCdrStore.class);
+    private final Path directory;
+    private final int segmentRecords;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final TimeIndex timeIndex = new TimeIndex();
+    private final Map<Long, TimeIndex> subscriberIndexes = new HashMap<>();
+    private volatile MappedByteBuffer[] segments = new MappedByteBuffer[0];
+    private int size;
+
+    /**
+     * Открывает журнал и восстанавливает индексы по уже записанным сегментам.
+     *
+     * @param directory      Каталог сегментов журнала.
+     * @param segmentRecords Количество записей в сегменте.
+     * @throws IOException если сегменты не удалось открыть или они повреждены.
+     */
+    @Autowired
+    public LogCdrStore(@Value("${cdr.storage.log.directory:cdr-log}") String directory,
+                       @Value("${cdr.storage.log.segment-records:1048576}") int segmentRecords) throws IOException {
+        this(Paths.get(directory), segmentRecords);
+    }
+
+    LogCdrStore(Path directory, int segmentRecords) throws IOException {
+        if (segmentRecords <= 0 || segmentRecords > Integer.MAX_VALUE / RECORD_SIZE) {
+            throw new IllegalArgumentException("Количество записей в сегменте должно быть от 1 до "
+                    + Integer.MAX_VALUE / RECORD_SIZE + ": " + segmentRecords);
+        }
+        this.directory = directory;
+        this.segmentRecords = segmentRecords;
+        recover();
+    }
+
+    /**
+     * Отображает существующие сегменты в память и индексирует записанные в них записи.
+     * Незаполненным может быть только последний сегмент; его хвост без признака записи считается свободным.
+     */
+    private void recover() throws IOException {
+        long started = System.nanoTime();
+        Files.createDirectories(directory);
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "cdr-*.seg")) {
+            stream.forEach(files::add);
+        }
+        files.sort(null);
+
+        for (int i = 0; i < files.size(); i++) {
+            if (!files.get(i).equals(segmentPath(i))) {
+                throw new IOException("Пропущен сегмент журнала CDR: " + segmentPath(i));
+            }
+            if (Files.size(files.get(i)) != (long) segmentRecords * RECORD_SIZE) {
+                throw new IOException("Размер сегмента " + files.get(i)
+                        + " не соответствует cdr.storage.log.segment-records=" + segmentRecords);
+            }
+            if (i > 0 && size < (long) i * segmentRecords) {
+                throw new IOException("Сегмент журнала CDR не заполнен, но за ним есть следующие: " + files.get(i - 1));
+            }
+            MappedByteBuffer segment = mapSegment(i);
+            int offset = 0;
+            while (offset < segmentRecords && segment.get(offset * RECORD_SIZE + COMMITTED_OFFSET) == COMMITTED) {
+                index(size++, segment.getLong(offset * RECORD_SIZE + CALLER_OFFSET),
+                        segment.getLong(offset * RECORD_SIZE + RECEIVER_OFFSET));
+                offset++;
+            }
+        }
+        LOGGER.info("Журнал CDR открыт: {} записей в {} сегментах, {} абонентов, {} мс",
+                size, segments.length, subscriberIndexes.size(), (System.nanoTime() - started) / 1_000_000);
+    }
+
+    private Path segmentPath(int segment) {
+        return directory.resolve(String.format("cdr-%08d.seg", segment));
+    }
+
+    private MappedByteBuffer mapSegment(int segment) throws IOException {
+        try (FileChannel channel = FileChannel.open(segmentPath(segment),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, (long) segmentRecords * RECORD_SIZE);
+            MappedByteBuffer[] extended = Arrays.copyOf(segments, segment + 1);
+            extended[segment] = buffer;
+            segments = extended;
+            return buffer;
+        }
+    }
+
+    /**
+     * Дописывает записи в журнал и присваивает им идентификаторы.
+     * Записи проверяются до начала записи, поэтому некорректная запись не оставляет в журнале часть пачки.
+     *
+     * @param records Записи для сохранения.
+     * @throws IllegalArgumentException если у записи нет времени начала или тип звонка не число.
+     * @throws UncheckedIOException если не удалось создать сегмент.
+     */
+    @Override
+    public void saveAll(List<CdrRecord> records) {
+        long[] encoded = new long[records.size() * 5];
+        for (int i = 0; i < records.size(); i++) {
+            CdrRecord record = records.get(i);
+            if (record.getStartTime() == null) {
+                throw new IllegalArgumentException("Журнал CDR требует время начала звонка: " + record);
+            }
+            encoded[i * 5] = record.callerNumber();
+            encoded[i * 5 + 1] = record.receiverNumber();
+            encoded[i * 5 + 2] = epochSecond(record.getStartTime());
+            encoded[i * 5 + 3] = record.getEndTime() == null ? NO_END : epochSecond(record.getEndTime());
+            encoded[i * 5 + 4] = CallTypeCodec.encode(record.getCallType());
+        }
+
+        lock.lock();
+        try {
+            for (int i = 0; i < records.size(); i++) {
+                if (size == Integer.MAX_VALUE) {
+                    throw new IllegalStateException("Журнал CDR заполнен");
+                }
+                int seq = size;
+                int segmentIndex = seq / segmentRecords;
+                MappedByteBuffer segment = segmentIndex < segments.length ? segments[segmentIndex] : mapSegment(segmentIndex);
+                int offset = (seq % segmentRecords) * RECORD_SIZE;
+                segment.putLong(offset + CALLER_OFFSET, encoded[i * 5]);
+                segment.putLong(offset + RECEIVER_OFFSET, encoded[i * 5 + 1]);
+                segment.putLong(offset + START_OFFSET, encoded[i * 5 + 2]);
+                segment.putLong(offset + END_OFFSET, encoded[i * 5 + 3]);
+                segment.put(offset + CALL_TYPE_OFFSET, (byte) encoded[i * 5 + 4]);
+                segment.put(offset + COMMITTED_OFFSET, COMMITTED);
+                if (offset + RECORD_SIZE == segmentRecords * RECORD_SIZE) {
+                    segment.force();
+                }
+
+                index(seq, encoded[i * 5], encoded[i * 5 + 1]);
+                size++;
+                records.get(i).setId(seq + 1L);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось создать сегмент журнала CDR", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void index(int seq, long caller, long receiver) {
+        timeIndex.add(seq);
+        if (caller != 0) {
+            subscriberIndexes.computeIfAbsent(caller, key -> new TimeIndex()).add(seq);
+        }
+        if (receiver != 0 && receiver != caller) {
+            subscriberIndexes.computeIfAbsent(receiver, key -> new TimeIndex()).add(seq);
+        }
+    }
+
+    @Override
+    public Stream<CdrRecord> streamBySubscriberAndDateRange(String msisdn, LocalDateTime startDate, LocalDateTime endDate) {
+        return Arrays.stream(subscriberRange(msisdn, startDate, endDate)).mapToObj(this::read);
+    }
+
+    @Override
+    public Stream<CdrRecord> streamAllBySubscriberMsisdn(String msisdn) {
+        return streamBySubscriberAndDateRange(msisdn, LocalDateTime.MIN, LocalDateTime.MAX);
+    }
+
+    @Override
+    public Stream<CdrRecord> streamByDateRange(LocalDateTime startDate, LocalDateTime endDate) {
+        int[] seqs;
+        lock.lock();
+        try {
+            seqs = timeIndex.range(startDate, endDate);
+        } finally {
+            lock.unlock();
+        }
+        return Arrays.stream(seqs).mapToObj(this::read);
+    }
+
+    @Override
+    public boolean existsBySubscriber(String msisdn) {
+        long key = MsisdnCodec.parse(msisdn);
+        lock.lock();
+        try {
+            return subscriberIndexes.containsKey(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public List<CdrRecord> findPageAfter(LocalDateTime startTime, long id, int limit) {
+        int[] seqs;
+        lock.lock();
+        try {
+            seqs = timeIndex.pageAfter(startTime, id, limit);
+        } finally {
+            lock.unlock();
+        }
+        return Arrays.stream(seqs).mapToObj(this::read).toList();
+    }
+
+    @Override
+    public List<CdrRecord> findSubscriberPageAfter(String msisdn, LocalDateTime startTime, long id, int limit) {
+        int[] seqs;
+        lock.lock();
+        try {
+            TimeIndex index = subscriberIndexes.get(MsisdnCodec.parse(msisdn));
+            seqs = index != null ? index.pageAfter(startTime, id, limit) : new int[0];
+        } finally {
+            lock.unlock();
+        }
+        return Arrays.stream(seqs).mapToObj(this::read).toList();
+    }
+
+    /**
+     * Выбирает номера записей абонента за период; сами записи читаются из журнала уже без блокировки.
+     */
+    private int[] subscriberRange(String msisdn, LocalDateTime startDate, LocalDateTime endDate) {
+        lock.lock();
+        try {
+            TimeIndex index = subscriberIndexes.get(MsisdnCodec.parse(msisdn));
+            return index != null ? index.range(startDate, endDate) : new int[0];
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return Количество записей в журнале.
+     */
+    public int size() {
+        lock.lock();
+        try {
+            return size;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Сбрасывает на диск последний сегмент. Отображения освобождаются сборщиком мусора.
+     */
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            if (segments.length > 0) {
+                segments[segments.length - 1].force();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private CdrRecord read(int seq) {
+        MappedByteBuffer segment = segments[seq / segmentRecords];
+        int offset = (seq % segmentRecords) * RECORD_SIZE;
+        long end = segment.getLong(offset + END_OFFSET);
+        CdrRecord record = new CdrRecord(
+                CallTypeCodec.decode(segment.get(offset + CALL_TYPE_OFFSET)),
+                segment.getLong(offset + CALLER_OFFSET),
+                segment.getLong(offset + RECEIVER_OFFSET),
+                LocalDateTime.ofEpochSecond(segment.getLong(offset + START_OFFSET), 0, ZoneOffset.UTC),
+                end == NO_END ? null : LocalDateTime.ofEpochSecond(end, 0, ZoneOffset.UTC));
+        record.setId(seq + 1L);
+        return record;
+    }
+
+    private long startOf(int seq) {
+        return segments[seq / segmentRecords].getLong((seq % segmentRecords) * RECORD_SIZE + START_OFFSET);
+    }
+
+    private static long epochSecond(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    /**
+     * Индекс номеров записей, упорядоченный по (время начала, номер записи).
+     * Номера добавляются по возрастанию, поэтому запись, время начала которой не меньше времени последней,
+     * продлевает упорядоченную часть; остальные накапливаются в хвосте, который сортируется и сливается
+     * с упорядоченной частью при следующем чтении. Все методы вызываются под блокировкой хранилища.
+     */
+    private final class TimeIndex {
+        private int[] seqs = new int[4];
+        private int size;
+        private int sortedSize;
+
+        void add(int seq) {
+            if (size == seqs.length) {
+                seqs = Arrays.copyOf(seqs, size * 2);
+            }
+            seqs[size++] = seq;
+            if (sortedSize == size - 1 && (size == 1 || startOf(seqs[size - 2]) <= startOf(seq))) {
+                sortedSize = size;
+            }
+        }
+
+        /**
+         * @return Номера записей со временем начала в интервале [startDate, endDate].
+         */
+        int[] range(LocalDateTime startDate, LocalDateTime endDate) {
+            ensureSorted();
+            // Записи хранятся с точностью до секунды: дробная часть начала интервала округляется вверх
+            long from = epochSecond(startDate) + (startDate.getNano() > 0 ? 1 : 0);
+            int first = firstGreater(from, -1);
+            int last = firstGreater(epochSecond(endDate), Long.MAX_VALUE);
+            return first < last ? Arrays.copyOfRange(seqs, first, last) : new int[0];
+        }
+
+        /**
+         * @return До {@code limit} номеров записей, следующих за курсором (startTime, id).
+         */
+        int[] pageAfter(LocalDateTime startTime, long id, int limit) {
+            ensureSorted();
+            long afterSeq = startTime.getNano() > 0 ? Long.MAX_VALUE : (id <= 0 ? -1 : id - 1);
+            int first = firstGreater(epochSecond(startTime), afterSeq);
+            return Arrays.copyOfRange(seqs, first, Math.min(size, first + Math.max(limit, 0)));
+        }
+
+        /**
+         * @return Позиция первого элемента, ключ которого больше (second, seq).
+         */
+        private int firstGreater(long second, long seq) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                long start = startOf(seqs[mid]);
+                if (start < second || (start == second && seqs[mid] <= seq)) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        private void ensureSorted() {
+            if (sortedSize == size) {
+                return;
+            }
+            int[] tail = sort(Arrays.copyOfRange(seqs, sortedSize, size));
+            int[] merged = new int[seqs.length];
+            merge(seqs, 0, sortedSize, tail, 0, tail.length, merged, 0);
+            seqs = merged;
+            sortedSize = size;
+        }
+
+        /**
+         * Сортировка слиянием снизу вверх; возвращает упорядоченный массив (исходный или вспомогательный).
+         */
+        private int[] sort(int[] values) {
+            int[] buffer = new int[values.length];
+            for (int width = 1; width < values.length; width *= 2) {
+                for (int from = 0; from < values.length; from += 2 * width) {
+                    int middle = Math.min(from + width, values.length);
+                    int to = Math.min(from + 2 * width, values.length);
+                    merge(values, from, middle, values, middle, to, buffer, from);
+                }
+                int[] swap = values;
+                values = buffer;
+                buffer = swap;
+            }
+            return values;
+        }
+
+        private void merge(int[] left, int leftFrom, int leftTo, int[] right, int rightFrom, int rightTo,
+                           int[] target, int targetFrom) {
+            int i = leftFrom;
+            int j = rightFrom;
+            int k = targetFrom;
+            while (i < leftTo && j < rightTo) {
+                long leftStart = startOf(left[i]);
+                long rightStart = startOf(right[j]);
+                if (leftStart < rightStart || (leftStart == rightStart && left[i] < right[j])) {
+                    target[k++] = left[i++];
+                } else {
+                    target[k++] = right[j++];
+                }
+            }
+            while (i < leftTo) {
+                target[k++] = left[i++];
+            }
+            while (j < rightTo) {
+                target[k++] = right[j++];
+            }
+        }
+    }
+}
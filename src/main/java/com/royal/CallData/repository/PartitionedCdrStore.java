@@ -0,0 +1,409 @@
+package com.royal.CallData.repository;
+
+import com.royal.CallData.entity.CdrRecord;
+import com.royal.CallData.util.MsisdnCodec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Хранилище CDR записей, разбитое по месяцам времени начала звонка, включается свойством
+ * {@code cdr.storage.engine=partitioned}.
+ * <p>
+ * Записи каждого месяца лежат в отдельной таблице {@code cdr_record_yyyymm} с теми же столбцами и индексами,
+ * что и {@code cdr_record}; таблица создается при первой записи за месяц. Выборки за период обращаются только
+ * к таблицам месяцев, пересекающихся с периодом, поэтому отчет за неделю не затрагивает историю за год.
+ * Месяцы не пересекаются по времени, поэтому записи, прочитанные из таблиц по порядку месяцев,
+ * уже упорядочены по времени начала звонка без общей сортировки.
+ * <p>
+ * Старые месяцы удаляются целиком командой {@code DROP TABLE} ({@link #dropPartitionsBefore}), время которой
+ * не зависит от количества записей; при {@code cdr.storage.partitioned.retention-months > 0} это выполняется
+ * по расписанию. Суточные агрегаты удаленных месяцев сохраняются до перестроения.
+ * <p>
+ * Таблицы создаются и удаляются в отдельной транзакции, так как DDL в H2 фиксирует текущую транзакцию.
+ * Идентификаторы выдаются последовательностью {@code cdr_partition_seq} блоками по {@value #ID_BLOCK_SIZE}.
+ */
+@Repository
+@ConditionalOnProperty(name = "cdr.storage.engine", havingValue = "partitioned")
+public class PartitionedCdrStore implements CdrStore {
+
+    static final String TABLE_PREFIX = "cdr_record_";
+    private static final Pattern TABLE_NAME = Pattern.compile("CDR_RECORD_(\\d{4})(\\d{2})", Pattern.CASE_INSENSITIVE);
+    private static final int ID_BLOCK_SIZE = 1000;
+    private static final int FETCH_SIZE = 1000;
+    private static final String COLUMNS = "id, call_type, caller_msisdn, receiver_msisdn, start_time, end_time";
+
+    private static final RowMapper<CdrRecord> ROW_MAPPER = (rs, rowNum) -> {
+        Timestamp start = rs.getTimestamp("start_time");
+        Timestamp end = rs.getTimestamp("end_time");
+        CdrRecord record = new CdrRecord(rs.getString("call_type"), rs.getLong("caller_msisdn"),
+                rs.getLong("receiver_msisdn"), start != null ? start.toLocalDateTime() : null,
+                end != null ? end.toLocalDateTime() : null);
+        record.setId(rs.getLong("id"));
+        return record;
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate ddlTransaction;
+    private final NavigableSet<YearMonth> partitions = new ConcurrentSkipListSet<>();
+    private final Object partitionLock = new Object();
+    private final Logger LOGGER = LoggerFactory.getLogger(PartitionedCdrStore.class);
+    private final int retentionMonths;
+    private long nextId;
+    private long idLimit;
+
+    /**
+     * Конструктор с внедрением зависимостей. Находит уже существующие таблицы месяцев.
+     *
+     * @param dataSource         Источник соединений; запросы выполняются в текущей транзакции.
+     * @param transactionManager Менеджер транзакций для создания и удаления таблиц.
+     * @param retentionMonths    Сколько последних месяцев хранить (0 — хранить все).
+     */
+    @Autowired
+    public PartitionedCdrStore(DataSource dataSource, PlatformTransactionManager transactionManager,
+                               @Value("${cdr.storage.partitioned.retention-months:0}") int retentionMonths) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(FETCH_SIZE);
+        this.ddlTransaction = new TransactionTemplate(transactionManager);
+        this.ddlTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.retentionMonths = retentionMonths;
+
+        jdbcTemplate.execute("CREATE SEQUENCE IF NOT EXISTS cdr_partition_seq START WITH 1 INCREMENT BY " + ID_BLOCK_SIZE);
+        for (String table : jdbcTemplate.queryForList(
+                "SELECT table_name FROM information_schema.tables WHERE table_schema = SCHEMA()", String.class)) {
+            Matcher matcher = TABLE_NAME.matcher(table);
+            if (matcher.matches()) {
+                partitions.add(YearMonth.of(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2))));
+            }
+        }
+        LOGGER.info("Найдено {} месячных таблиц CDR записей", partitions.size());
+    }
+
+    /**
+     * Раскладывает записи по таблицам месяцев их времени начала и вставляет пакетом в каждую таблицу.
+     *
+     * @throws IllegalArgumentException если у записи нет времени начала или год вне диапазона 1–9999;
+     *                                  в этом случае ни одна запись пачки не сохраняется.
+     */
+    @Override
+    public void saveAll(List<CdrRecord> records) {
+        Map<YearMonth, List<CdrRecord>> byMonth = new TreeMap<>();
+        for (CdrRecord record : records) {
+            byMonth.computeIfAbsent(partitionOf(record.getStartTime()), month -> new ArrayList<>()).add(record);
+        }
+        byMonth.keySet().forEach(this::ensurePartition);
+        for (CdrRecord record : records) {
+            record.setId(nextId());
+        }
+        byMonth.forEach((month, monthRecords) -> jdbcTemplate.batchUpdate(
+                "INSERT INTO " + tableName(month) + " (" + COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?)",
+                monthRecords, monthRecords.size(), (ps, record) -> {
+                    ps.setLong(1, record.getId());
+                    ps.setString(2, record.getCallType());
+                    setMsisdn(ps, 3, record.callerNumber());
+                    setMsisdn(ps, 4, record.receiverNumber());
+                    ps.setTimestamp(5, Timestamp.valueOf(record.getStartTime()));
+                    ps.setTimestamp(6, record.getEndTime() != null ? Timestamp.valueOf(record.getEndTime()) : null);
+                }));
+    }
+
+    @Override
+    public Stream<CdrRecord> streamBySubscriberAndDateRange(String msisdn, LocalDateTime startDate, LocalDateTime endDate) {
+        long number = MsisdnCodec.parse(msisdn);
+        return concat(partitionsFor(startDate, endDate), month -> jdbcTemplate.queryForStream(
+                subscriberQuery(tableName(month), "AND start_time >= ? AND start_time <= ? ")
+                        + "ORDER BY start_time, id", ROW_MAPPER,
+                number, from(month, startDate), to(month, endDate),
+                number, number, from(month, startDate), to(month, endDate)));
+    }
+
+    @Override
+    public Stream<CdrRecord> streamAllBySubscriberMsisdn(String msisdn) {
+        long number = MsisdnCodec.parse(msisdn);
+        return concat(new ArrayList<>(partitions), month -> jdbcTemplate.queryForStream(
+                subscriberQuery(tableName(month), "") + "ORDER BY start_time, id", ROW_MAPPER,
+                number, number, number));
+    }
+
+    @Override
+    public Stream<CdrRecord> streamByDateRange(LocalDateTime startDate, LocalDateTime endDate) {
+        return concat(partitionsFor(startDate, endDate), month -> jdbcTemplate.queryForStream(
+                "SELECT " + COLUMNS + " FROM " + tableName(month) + " WHERE start_time >= ? AND start_time <= ? "
+                        + "ORDER BY start_time, id", ROW_MAPPER, from(month, startDate), to(month, endDate)));
+    }
+
+    @Override
+    public boolean existsBySubscriber(String msisdn) {
+        long number = MsisdnCodec.parse(msisdn);
+        for (YearMonth month : partitions.descendingSet()) {
+            String table = tableName(month);
+            if (!jdbcTemplate.queryForList("SELECT 1 FROM " + table + " WHERE caller_msisdn = ? UNION ALL "
+                    + "SELECT 1 FROM " + table + " WHERE receiver_msisdn = ? LIMIT 1", Integer.class, number, number).isEmpty()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Читает таблицы месяцев, начиная с месяца курсора, пока страница не заполнится.
+     * Условие курсора нужно только в таблице его месяца, следующие месяцы читаются с начала.
+     */
+    @Override
+    public List<CdrRecord> findPageAfter(LocalDateTime startTime, long id, int limit) {
+        List<CdrRecord> page = new ArrayList<>();
+        YearMonth cursorMonth = YearMonth.from(startTime);
+        for (YearMonth month : partitions.tailSet(cursorMonth, true)) {
+            String sql = "SELECT " + COLUMNS + " FROM " + tableName(month);
+            int remaining = limit - page.size();
+            if (month.equals(cursorMonth)) {
+                page.addAll(jdbcTemplate.query(sql + " WHERE start_time >= ? AND (start_time > ? OR id > ?) "
+                        + "ORDER BY start_time, id LIMIT ?", ROW_MAPPER, startTime, startTime, id, remaining));
+            } else {
+                page.addAll(jdbcTemplate.query(sql + " ORDER BY start_time, id LIMIT ?", ROW_MAPPER, remaining));
+            }
+            if (page.size() >= limit) {
+                break;
+            }
+        }
+        return page;
+    }
+
+    @Override
+    public List<CdrRecord> findSubscriberPageAfter(String msisdn, LocalDateTime startTime, long id, int limit) {
+        long number = MsisdnCodec.parse(msisdn);
+        List<CdrRecord> page = new ArrayList<>();
+        YearMonth cursorMonth = YearMonth.from(startTime);
+        for (YearMonth month : partitions.tailSet(cursorMonth, true)) {
+            String table = tableName(month);
+            int remaining = limit - page.size();
+            if (month.equals(cursorMonth)) {
+                String cursor = "AND start_time >= ? AND (start_time > ? OR id > ?) ";
+                page.addAll(jdbcTemplate.query("(" + subscriberBranch(table, true, cursor) + "LIMIT ?) UNION ALL ("
+                                + subscriberBranch(table, false, cursor) + "LIMIT ?) ORDER BY start_time, id LIMIT ?",
+                        ROW_MAPPER, number, startTime, startTime, id, remaining,
+                        number, number, startTime, startTime, id, remaining, remaining));
+            } else {
+                page.addAll(jdbcTemplate.query(subscriberQuery(table, "") + "ORDER BY start_time, id LIMIT ?",
+                        ROW_MAPPER, number, number, number, remaining));
+            }
+            if (page.size() >= limit) {
+                break;
+            }
+        }
+        return page;
+    }
+
+    /**
+     * Удаляет таблицы месяцев раньше указанного вместе с их записями.
+     * Потоки, читающие удаляемый месяц в этот момент, завершатся ошибкой.
+     *
+     * @param month Первый сохраняемый месяц.
+     * @return Количество удаленных таблиц.
+     */
+    public int dropPartitionsBefore(YearMonth month) {
+        int dropped = 0;
+        synchronized (partitionLock) {
+            for (YearMonth old : new ArrayList<>(partitions.headSet(month, false))) {
+                partitions.remove(old);
+                ddlTransaction.executeWithoutResult(status -> jdbcTemplate.execute("DROP TABLE IF EXISTS " + tableName(old)));
+                dropped++;
+            }
+        }
+        if (dropped > 0) {
+            LOGGER.info("Удалено {} месячных таблиц CDR записей раньше {}", dropped, month);
+        }
+        return dropped;
+    }
+
+    /**
+     * Удаляет месяцы старше {@code cdr.storage.partitioned.retention-months}, если срок хранения задан.
+     */
+    @Scheduled(cron = "${cdr.storage.partitioned.retention-cron:0 0 3 * * *}")
+    public void dropExpiredPartitions() {
+        if (retentionMonths > 0) {
+            dropPartitionsBefore(YearMonth.now().minusMonths(retentionMonths - 1));
+        }
+    }
+
+    /**
+     * @return Существующие месяцы, пересекающиеся с периодом, в порядке возрастания.
+     */
+    List<YearMonth> partitionsFor(LocalDateTime startDate, LocalDateTime endDate) {
+        if (endDate.isBefore(startDate)) {
+            return List.of();
+        }
+        return new ArrayList<>(partitions.subSet(YearMonth.from(startDate), true, YearMonth.from(endDate), true));
+    }
+
+    static String tableName(YearMonth month) {
+        return String.format("%s%04d%02d", TABLE_PREFIX, month.getYear(), month.getMonthValue());
+    }
+
+    private static YearMonth partitionOf(LocalDateTime startTime) {
+        if (startTime == null) {
+            throw new IllegalArgumentException("Запись без времени начала звонка не может быть сохранена");
+        }
+        if (startTime.getYear() < 1 || startTime.getYear() > 9999) {
+            throw new IllegalArgumentException("Год начала звонка вне диапазона 1–9999: " + startTime);
+        }
+        return YearMonth.from(startTime);
+    }
+
+    /**
+     * Сужает начало периода до начала месяца, чтобы в запрос не попадали границы вне диапазона TIMESTAMP.
+     */
+    private static LocalDateTime from(YearMonth month, LocalDateTime startDate) {
+        LocalDateTime monthStart = month.atDay(1).atStartOfDay();
+        return startDate.isAfter(monthStart) ? startDate : monthStart;
+    }
+
+    private static LocalDateTime to(YearMonth month, LocalDateTime endDate) {
+        LocalDateTime monthEnd = month.atEndOfMonth().atTime(23, 59, 59, 999_999_999);
+        return endDate.isBefore(monthEnd) ? endDate : monthEnd;
+    }
+
+    private static void setMsisdn(PreparedStatement ps, int index, long number) throws SQLException {
+        if (number == MsisdnCodec.NONE) {
+            ps.setNull(index, Types.BIGINT);
+        } else {
+            ps.setLong(index, number);
+        }
+    }
+
+    /**
+     * Выборка записей абонента из таблицы месяца в виде двух сканирований индексов, объединенных через UNION ALL;
+     * параметры: msisdn и параметры условия для первой ветки, затем msisdn, msisdn и параметры условия для второй.
+     */
+    private static String subscriberQuery(String table, String condition) {
+        return subscriberBranch(table, true, condition) + "UNION ALL " + subscriberBranch(table, false, condition);
+    }
+
+    private static String subscriberBranch(String table, boolean caller, String condition) {
+        return caller
+                ? "SELECT " + COLUMNS + " FROM " + table + " WHERE caller_msisdn = ? " + condition
+                : "SELECT " + COLUMNS + " FROM " + table + " WHERE receiver_msisdn = ? "
+                + "AND (caller_msisdn IS NULL OR caller_msisdn <> ?) " + condition;
+    }
+
+    /**
+     * Создает таблицу месяца и ее индексы, если ее еще нет.
+     */
+    private void ensurePartition(YearMonth month) {
+        if (partitions.contains(month)) {
+            return;
+        }
+        synchronized (partitionLock) {
+            if (partitions.contains(month)) {
+                return;
+            }
+            String table = tableName(month);
+            ddlTransaction.executeWithoutResult(status -> {
+                jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + table + " (id BIGINT PRIMARY KEY, "
+                        + "call_type VARCHAR(255), caller_msisdn BIGINT, receiver_msisdn BIGINT, "
+                        + "start_time TIMESTAMP(6) NOT NULL, end_time TIMESTAMP(6))");
+                jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_" + table + "_caller_start ON " + table
+                        + " (caller_msisdn, start_time)");
+                jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_" + table + "_receiver_start ON " + table
+                        + " (receiver_msisdn, start_time)");
+                jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_" + table + "_start_id ON " + table
+                        + " (start_time, id)");
+            });
+            partitions.add(month);
+            LOGGER.info("Создана таблица CDR записей {}", table);
+        }
+    }
+
+    private synchronized long nextId() {
+        if (nextId == idLimit) {
+            Long blockStart = jdbcTemplate.queryForObject("SELECT NEXT VALUE FOR cdr_partition_seq", Long.class);
+            nextId = blockStart;
+            idLimit = blockStart + ID_BLOCK_SIZE;
+        }
+        return nextId++;
+    }
+
+    /**
+     * Последовательно читает потоки месяцев: поток следующего месяца открывается только после того,
+     * как прочитан и закрыт предыдущий, поэтому одновременно открыт не более чем один курсор.
+     */
+    private static Stream<CdrRecord> concat(List<YearMonth> months, Function<YearMonth, Stream<CdrRecord>> query) {
+        PartitionIterator iterator = new PartitionIterator(months.iterator(), query);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator,
+                Spliterator.ORDERED | Spliterator.NONNULL), false).onClose(iterator::close);
+    }
+
+    private static final class PartitionIterator implements Iterator<CdrRecord> {
+
+        private final Iterator<YearMonth> months;
+        private final Function<YearMonth, Stream<CdrRecord>> query;
+        private Stream<CdrRecord> current;
+        private Iterator<CdrRecord> records;
+
+        private PartitionIterator(Iterator<YearMonth> months, Function<YearMonth, Stream<CdrRecord>> query) {
+            this.months = months;
+            this.query = query;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (records == null || !records.hasNext()) {
+                close();
+                if (!months.hasNext()) {
+                    return false;
+                }
+                current = query.apply(months.next());
+                records = current.iterator();
+            }
+            return true;
+        }
+
+        @Override
+        public CdrRecord next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return records.next();
+        }
+
+        private void close() {
+            if (current != null) {
+                current.close();
+                current = null;
+                records = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.royal.CallData.service;
+
+import com.royal.CallData.dto.BatchReportRequest;
+import com.royal.CallData.dto.BatchReportResponse;
+
+import java.util.UUID;
+
+/**
+ * Сервис для пакетной генерации отчетов по данным CDR.
+ * Формирует отчеты сразу для группы абонентов за один период одним проходом по записям.
+ */
+public interface CdrBatchReportService {
+
+    /**
+     * Запускает генерацию пакета отчетов по списку абонентов за общий период.
+     *
+     * @param request Запрос на генерацию пакета отчетов.
+     * @return Ответ с идентификатором пакета и статусом запуска.
+     */
+    BatchReportResponse generateBatchReport(BatchReportRequest request);
+
+    /**
+     * Получает статус генерации пакета отчетов.
+     *
+     * @param batchId Уникальный идентификатор пакета.
+     * @return Ответ с текущим статусом пакета.
+     */
+    BatchReportResponse getBatchStatus(UUID batchId);
+}
@@ -0,0 +1,390 @@
+package com.royal.CallData.service;
+
+import com.royal.CallData.dto.BatchReportRequest;
+import com.royal.CallData.dto.BatchReportResponse;
+import com.royal.CallData.entity.CdrRecord;
+import com.royal.CallData.repository.CdrStore;
+import com.royal.CallData.util.CdrRowEncoder;
+import com.royal.CallData.util.ExpiringCache;
+import com.royal.CallData.util.MsisdnCodec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.CharArrayWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Stream;
+
+/**
+ * Реализация пакетной генерации отчетов CDR.
+ * Вместо отдельного запроса на каждого абонента записи за период читаются одним упорядоченным проходом
+ * по индексу времени начала звонка и распределяются по файлам {@code <msisdn>.csv} в каталоге
+ * {@code batch_<batchId>}. Строки каждого абонента накапливаются в небольшом буфере и дописываются в файл
+ * порциями, поэтому одновременно открыт не более одного файла, а объем памяти ограничен.
+ * Статус пакета хранится в {@link ReportStatusRegistry} вместе со статусами обычных отчетов,
+ * и каталог пакета удаляется вместе с истекшим статусом. Пакет с номерами, которых нет
+ * в {@link SubscriberDirectory}, отклоняется до обращения к БД.
+ */
+@Service
+public class CdrBatchReportServiceImpl implements CdrBatchReportService {
+
+    private static final String REJECTED_MESSAGE = "Очередь формирования отчетов переполнена, повторите запрос позже";
+    private static final int MAX_LISTED_UNKNOWN = 10;
+
+    private final CdrStore cdrStore;
+    private final SubscriberDirectory subscriberDirectory;
+    private final TransactionTemplate readOnlyTransactionTemplate;
+    private final Executor reportExecutor;
+    private final Semaphore reportDbPermits;
+    private final ReportStatusRegistry reportStatusRegistry;
+    private final ReportMetrics reportMetrics;
+    private final ExpiringCache<UUID, BatchSummary> batchSummaries;
+    private final Logger LOGGER = LoggerFactory.getLogger(CdrBatchReportServiceImpl.class);
+
+    @Value("${report.batch.max-subscribers:100000}")
+    private int maxSubscribers = 100_000;
+
+    @Value("${report.batch.subscriber-buffer-size:8192}")
+    private int subscriberBufferSize = 8192;
+
+    @Value("${report.batch.max-buffered-chars:8388608}")
+    private long maxBufferedChars = 8L * 1024 * 1024;
+
+    /**
+     * Итоги пакета, которых нет в статусе отчета.
+     */
+    private record BatchSummary(int subscriberCount, int reportCount, long recordCount) {
+    }
+
+    /**
+     * Конструктор с внедрением зависимостей.
+     *
+     * @param cdrStore             Хранилище записей CDR.
+     * @param subscriberDirectory  Справочник абонентов для проверки номеров без обращения к БД.
+     * @param transactionManager   Менеджер транзакций, в рамках которых читается курсор с записями.
+     * @param reportExecutor       Ограниченный исполнитель для асинхронной генерации отчетов.
+     * @param reportDbPermits      Семафор, ограничивающий число задач, одновременно работающих с БД.
+     * @param reportStatusRegistry Реестр статусов и файлов отчетов.
+     * @param reportMetrics        Метрики задач формирования отчетов; пакет учитывается как одна задача.
+     * @param ttlSeconds           Время хранения итогов пакета, совпадает со временем хранения статусов.
+     * @param maxEntries           Максимальное количество хранимых итогов пакетов.
+     */
+    @Autowired
+    public CdrBatchReportServiceImpl(CdrStore cdrStore,
+                                     SubscriberDirectory subscriberDirectory,
+                                     PlatformTransactionManager transactionManager,
+                                     @Qualifier("reportTaskExecutor") Executor reportExecutor,
+                                     @Qualifier("reportDbPermits") Semaphore reportDbPermits,
+                                     ReportStatusRegistry reportStatusRegistry,
+                                     ReportMetrics reportMetrics,
+                                     @Value("${report.status.ttl-seconds:3600}") long ttlSeconds,
+                                     @Value("${report.status.max-entries:100000}") int maxEntries) {
+        this.cdrStore = cdrStore;
+        this.subscriberDirectory = subscriberDirectory;
+        this.reportExecutor = reportExecutor;
+        this.reportDbPermits = reportDbPermits;
+        this.reportStatusRegistry = reportStatusRegistry;
+        this.reportMetrics = reportMetrics;
+        this.batchSummaries = new ExpiringCache<>(ttlSeconds * 1000, maxEntries);
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate.setReadOnly(true);
+    }
+
+    /**
+     * Запускает асинхронную генерацию пакета отчетов.
+     * Повторяющиеся и пустые номера в списке отбрасываются; если хотя бы одного абонента нет
+     * в справочнике, пакет отклоняется.
+     *
+     * @param request Запрос на генерацию пакета отчетов.
+     * @return Ответ с идентификатором пакета и статусом запуска.
+     */
+    @Override
+    public BatchReportResponse generateBatchReport(BatchReportRequest request) {
+        LOGGER.info("Получен запрос на генерацию пакета отчетов: {}", request);
+
+        if (request.getMsisdns() == null || request.getMsisdns().isEmpty()) {
+            return error(null, "Требуется список MSISDN");
+        }
+
+        if (request.getStartDate() == null || request.getEndDate() == null) {
+            return error(null, "Обязательны даты начала и окончания");
+        }
+
+        if (request.getEndDate().isBefore(request.getStartDate())) {
+            return error(null, "Дата окончания не может быть раньше даты начала");
+        }
+
+        Set<String> msisdns = new LinkedHashSet<>();
+        for (String msisdn : request.getMsisdns()) {
+            if (msisdn != null && !msisdn.trim().isEmpty()) {
+                msisdns.add(msisdn.trim());
+            }
+        }
+        if (msisdns.isEmpty()) {
+            return error(null, "Требуется список MSISDN");
+        }
+        if (msisdns.size() > maxSubscribers) {
+            return error(null, "Количество абонентов в пакете не должно превышать " + maxSubscribers);
+        }
+        List<String> unknown = msisdns.stream()
+                .filter(msisdn -> !subscriberDirectory.contains(msisdn))
+                .toList();
+        if (!unknown.isEmpty()) {
+            return error(null, "Абоненты не найдены (" + unknown.size() + "): "
+                    + String.join(", ", unknown.subList(0, Math.min(unknown.size(), MAX_LISTED_UNKNOWN))));
+        }
+
+        UUID batchId = UUID.randomUUID();
+        reportStatusRegistry.put(batchId, ReportStatus.processing().ofBatch());
+        batchSummaries.put(batchId, new BatchSummary(msisdns.size(), 0, 0));
+
+        reportMetrics.jobSubmitted();
+        try {
+            CompletableFuture.runAsync(() -> generateBatch(batchId, msisdns, request.getStartDate(), request.getEndDate()),
+                    reportExecutor);
+        } catch (RejectedExecutionException e) {
+            reportMetrics.jobRejected();
+            LOGGER.warn("Очередь генерации отчетов переполнена, пакет {} отклонен", batchId);
+            reportStatusRegistry.put(batchId, ReportStatus.rejected().ofBatch());
+            return new BatchReportResponse("rejected", batchId, REJECTED_MESSAGE, msisdns.size(), 0, 0, null);
+        }
+
+        LOGGER.info("Запущена асинхронная генерация пакета отчетов {} для {} абонентов", batchId, msisdns.size());
+        return new BatchReportResponse("success", batchId, "Начато формирование пакета отчетов", msisdns.size(), 0, 0, null);
+    }
+
+    /**
+     * Формирует файлы пакета одним проходом по записям за период.
+     * Итог задачи и длительность ожидания доступа к БД учитываются в {@link ReportMetrics}.
+     *
+     * @param batchId   Идентификатор пакета.
+     * @param msisdns   Номера абонентов пакета.
+     * @param startDate Дата начала периода.
+     * @param endDate   Дата окончания периода.
+     */
+    private void generateBatch(UUID batchId, Set<String> msisdns, LocalDateTime startDate, LocalDateTime endDate) {
+        LOGGER.info("Начало формирования пакета отчетов {}", batchId);
+        reportMetrics.jobStarted();
+        ReportStatus.State outcome = ReportStatus.State.ERROR;
+        Path directory = reportStatusRegistry.reportsDirectory().resolve("batch_" + batchId);
+
+        try {
+            Files.createDirectories(directory);
+            BatchFanOut fanOut = new BatchFanOut(batchId, directory, msisdns);
+
+            long waitStarted = System.nanoTime();
+            reportDbPermits.acquire();
+            reportMetrics.recordPhase(ReportMetrics.Phase.DB_WAIT, waitStarted);
+            try {
+                readOnlyTransactionTemplate.executeWithoutResult(status -> {
+                    try (Stream<CdrRecord> records = cdrStore.streamByDateRange(startDate, endDate)) {
+                        Iterator<CdrRecord> iterator = records.iterator();
+                        while (iterator.hasNext()) {
+                            fanOut.accept(iterator.next());
+                        }
+                        fanOut.flushAll();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } finally {
+                reportDbPermits.release();
+            }
+
+            batchSummaries.put(batchId, new BatchSummary(msisdns.size(), fanOut.reportCount(), fanOut.recordCount()));
+            if (fanOut.reportCount() == 0) {
+                Files.deleteIfExists(directory);
+                LOGGER.info("Пакет отчетов {} пуст, записи не найдены", batchId);
+                reportStatusRegistry.put(batchId, ReportStatus.completedEmpty().ofBatch());
+                outcome = ReportStatus.State.COMPLETED_EMPTY;
+                return;
+            }
+
+            LOGGER.info("Пакет отчетов {} успешно создан: {} ({} файлов, {} строк)",
+                    batchId, directory, fanOut.reportCount(), fanOut.recordCount());
+            reportStatusRegistry.put(batchId, ReportStatus.completed(directory).ofBatch());
+            outcome = ReportStatus.State.COMPLETED;
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            LOGGER.warn("Формирование пакета отчетов {} прервано", batchId);
+            reportStatusRegistry.put(batchId, ReportStatus.error("Формирование пакета отчетов прервано").ofBatch());
+        } catch (Exception e) {
+            LOGGER.error("Ошибка при формировании пакета отчетов {}", batchId, e);
+            reportStatusRegistry.put(batchId, ReportStatus.error(e.getMessage()).ofBatch());
+        } finally {
+            reportMetrics.jobFinished(outcome);
+        }
+    }
+
+    /**
+     * Распределяет строки отчета по файлам абонентов пакета.
+     * Запись попадает в отчет звонящего и в отчет принимающего абонента, если они входят в пакет.
+     * Буфер абонента сбрасывается в файл при заполнении, а все буферы — при превышении общего объема;
+     * сброшенный буфер освобождается, а общий объем считается по емкости буферов, поэтому память пакета
+     * ограничена {@code report.batch.max-buffered-chars} независимо от количества абонентов.
+     * Абоненты пакета сопоставляются с записями по числовому номеру ({@link MsisdnCodec}) без преобразования
+     * номеров записей в строки.
+     */
+    private final class BatchFanOut {
+
+        private final UUID batchId;
+        private final Path directory;
+        private final Map<Long, String> msisdns = new HashMap<>();
+        private final Map<Long, RowBuffer> buffers = new HashMap<>();
+        private final Set<Long> reported = new HashSet<>();
+        private final CdrRowEncoder encoder = new CdrRowEncoder();
+        private long bufferedChars;
+        private long recordCount;
+
+        BatchFanOut(UUID batchId, Path directory, Set<String> msisdns) {
+            this.batchId = batchId;
+            this.directory = directory;
+            for (String msisdn : msisdns) {
+                long number = MsisdnCodec.parse(msisdn);
+                // Номер, который нельзя представить числом, не встречается в записях
+                if (number > MsisdnCodec.NONE) {
+                    this.msisdns.put(number, msisdn);
+                }
+            }
+        }
+
+        void accept(CdrRecord record) throws IOException {
+            long caller = record.callerNumber();
+            long receiver = record.receiverNumber();
+            if (caller != MsisdnCodec.NONE && msisdns.containsKey(caller)) {
+                append(caller, record);
+            }
+            if (receiver != MsisdnCodec.NONE && receiver != caller && msisdns.containsKey(receiver)) {
+                append(receiver, record);
+            }
+        }
+
+        private void append(long msisdn, CdrRecord record) throws IOException {
+            RowBuffer buffer = buffers.get(msisdn);
+            if (buffer == null) {
+                buffer = new RowBuffer();
+                buffers.put(msisdn, buffer);
+                reported.add(msisdn);
+                bufferedChars += buffer.capacity();
+            }
+            int before = buffer.capacity();
+            encoder.writeRow(record, buffer);
+            bufferedChars += buffer.capacity() - before;
+            recordCount++;
+
+            if (buffer.size() >= subscriberBufferSize) {
+                write(msisdn, buffer);
+                buffers.remove(msisdn);
+                bufferedChars -= buffer.capacity();
+            }
+            if (bufferedChars > maxBufferedChars) {
+                flushAll();
+                // Долгий пакет продлевает свой статус, чтобы его каталог не был принят за устаревший
+                reportStatusRegistry.put(batchId, ReportStatus.processing().ofBatch());
+            }
+        }
+
+        /**
+         * Дописывает все буферы в файлы и освобождает их.
+         */
+        void flushAll() throws IOException {
+            for (Map.Entry<Long, RowBuffer> entry : buffers.entrySet()) {
+                write(entry.getKey(), entry.getValue());
+            }
+            buffers.clear();
+            bufferedChars = 0;
+        }
+
+        private void write(long msisdn, RowBuffer buffer) throws IOException {
+            try (Writer writer = Files.newBufferedWriter(directory.resolve(msisdns.get(msisdn) + ".csv"), StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                buffer.writeTo(writer);
+            }
+        }
+
+        int reportCount() {
+            return reported.size();
+        }
+
+        long recordCount() {
+            return recordCount;
+        }
+    }
+
+    /**
+     * Буфер строк абонента с доступом к размеру выделенного массива: объем памяти пакета учитывается
+     * по емкости буферов, а не по количеству записанных символов.
+     */
+    private static final class RowBuffer extends CharArrayWriter {
+
+        private static final int INITIAL_CAPACITY = 256;
+
+        RowBuffer() {
+            super(INITIAL_CAPACITY);
+        }
+
+        int capacity() {
+            return buf.length;
+        }
+    }
+
+    /**
+     * Возвращает статус пакета отчетов по его идентификатору.
+     *
+     * @param batchId Уникальный идентификатор пакета.
+     * @return Ответ с информацией о статусе пакета.
+     */
+    @Override
+    public BatchReportResponse getBatchStatus(UUID batchId) {
+        LOGGER.info("Запрос статуса пакета отчетов с ID: {}", batchId);
+
+        ReportStatus status = reportStatusRegistry.get(batchId);
+        BatchSummary summary = batchSummaries.get(batchId);
+        if (status == null || status.kind() != ReportStatus.Kind.BATCH || summary == null) {
+            return error(batchId, "Пакет отчетов не найден");
+        }
+
+        return switch (status.state()) {
+            case PROCESSING -> response("processing", batchId, "Выполняется формирование пакета отчетов", summary, null);
+            case COMPLETED_EMPTY -> response("completed", batchId, "Пакет сформирован, но записи не найдены", summary, null);
+            case COMPLETED -> response("completed", batchId, "Отчеты созданы успешно", summary, status.filePath().toString());
+            case REJECTED -> response("rejected", batchId, REJECTED_MESSAGE, summary, null);
+            case ERROR -> response("error", batchId, status.message(), summary, null);
+        };
+    }
+
+    private static BatchReportResponse response(String status, UUID batchId, String message,
+                                                BatchSummary summary, String directory) {
+        return new BatchReportResponse(status, batchId, message,
+                summary.subscriberCount(), summary.reportCount(), summary.recordCount(), directory);
+    }
+
+    private static BatchReportResponse error(UUID batchId, String message) {
+        return new BatchReportResponse("error", batchId, message, 0, 0, 0, null);
+    }
+}
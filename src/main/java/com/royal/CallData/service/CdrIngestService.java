@@ -0,0 +1,32 @@
+package com.royal.CallData.service;
+
+import com.royal.CallData.dto.CdrIngestResponse;
+
+import java.io.InputStream;
+import java.util.List;
+
+/**
+ * Сервис загрузки CDR записей из файлов коммутаторов.
+ * Файлы в формате строки отчета CDR принимаются через HTTP или из каталога, который периодически просматривается.
+ */
+public interface CdrIngestService {
+
+    /**
+     * Загружает CDR записи из потока. Файлы с расширением {@code .gz} распаковываются на лету.
+     *
+     * @param fileName Имя файла, используется в результате и для определения сжатия.
+     * @param input    Поток с содержимым файла; не закрывается.
+     * @return Результат загрузки: количество сохраненных и отклоненных строк и скорость загрузки.
+     */
+    CdrIngestResponse ingest(String fileName, InputStream input);
+
+    /**
+     * Загружает готовые файлы из каталога загрузки и переносит их в подкаталог обработанных или ошибочных.
+     */
+    void scanDirectory();
+
+    /**
+     * @return Результаты последних загрузок, начиная с самой новой.
+     */
+    List<CdrIngestResponse> recentResults();
+}
@@ -0,0 +1,337 @@
+package com.royal.CallData.service;
+
+import com.royal.CallData.dto.CdrIngestResponse;
+import com.royal.CallData.entity.CdrRecord;
+import com.royal.CallData.entity.Subscriber;
+import com.royal.CallData.repository.CdrStore;
+import com.royal.CallData.repository.SubscriberRepository;
+import com.royal.CallData.util.CdrCsvReader;
+import com.royal.CallData.util.ReportCompression;
+import jakarta.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+/**
+ * Реализация сервиса загрузки CDR файлов.
+ * Файл разбирается одним потоком через {@link CdrCsvReader}, корректные записи собираются в пачки
+ * по {@code cdr.ingest.batch-size} и сохраняются параллельно пулом из {@code cdr.ingest.parallelism} потоков,
+ * каждая пачка — в отдельной транзакции. Число пачек в работе ограничено удвоенным размером пула,
+ * поэтому чтение ждет сохранения, и в памяти одновременно находится лишь несколько пачек
+ * независимо от размера файла. Номера из записей, которых еще нет среди абонентов, сохраняются
+ * как новые абоненты в транзакции пачки и после ее фиксации попадают в {@link SubscriberDirectory},
+ * поэтому по загруженным номерам сразу можно формировать отчеты.
+ * <p>
+ * Если задан {@code cdr.ingest.watch.directory}, каталог периодически просматривается, и файлы
+ * {@code *.csv} и {@code *.csv.gz}, которые не изменялись {@code cdr.ingest.watch.settle-ms} миллисекунд,
+ * загружаются по порядку имен и переносятся в подкаталог {@code processed} или {@code failed}.
+ */
+@Service
+public class CdrIngestServiceImpl implements CdrIngestService {
+
+    static final String PROCESSED_DIRECTORY = "processed";
+    static final String FAILED_DIRECTORY = "failed";
+
+    private static final int MAX_ERRORS = 10;
+    private static final int MAX_RESULTS = 100;
+
+    private final CdrStore cdrStore;
+    private final DailyUsageService dailyUsageService;
+    private final SubscriberRepository subscriberRepository;
+    private final SubscriberDirectory subscriberDirectory;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final Deque<CdrIngestResponse> results = new ConcurrentLinkedDeque<>();
+    private final Logger LOGGER = LoggerFactory.getLogger(CdrIngestServiceImpl.class);
+
+    @Value("${cdr.ingest.batch-size:5000}")
+    private int batchSize = 5000;
+
+    @Value("${cdr.ingest.parallelism:0}")
+    private int parallelism = 0;
+
+    @Value("${cdr.ingest.read-buffer-size:65536}")
+    private int readBufferSize = 65536;
+
+    @Value("${cdr.ingest.watch.directory:}")
+    private String watchDirectory = "";
+
+    @Value("${cdr.ingest.watch.settle-ms:5000}")
+    private long settleMillis = 5000;
+
+    @Autowired
+    public CdrIngestServiceImpl(CdrStore cdrStore,
+                                DailyUsageService dailyUsageService,
+                                SubscriberRepository subscriberRepository,
+                                SubscriberDirectory subscriberDirectory,
+                                PlatformTransactionManager transactionManager,
+                                EntityManager entityManager) {
+        this.cdrStore = cdrStore;
+        this.dailyUsageService = dailyUsageService;
+        this.subscriberRepository = subscriberRepository;
+        this.subscriberDirectory = subscriberDirectory;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Загружает CDR записи из потока.
+     * Отклоненные строки не прерывают загрузку; загрузка прерывается при ошибке чтения или сохранения,
+     * при этом уже сохраненные пачки остаются в БД.
+     *
+     * @param fileName Имя файла.
+     * @param input    Поток с содержимым файла.
+     * @return Результат загрузки.
+     */
+    @Override
+    public CdrIngestResponse ingest(String fileName, InputStream input) {
+        long started = System.nanoTime();
+        int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        IngestJob job = new IngestJob(executor, new Semaphore(threads * 2));
+        String failureMessage = null;
+        try {
+            InputStream in = ReportCompression.ofFileName(fileName).decompress(input, readBufferSize);
+            new CdrCsvReader(readBufferSize).read(in, job);
+            job.flush();
+        } catch (IOException e) {
+            failureMessage = "Ошибка чтения файла: " + e.getMessage();
+        } catch (IngestAbortedException e) {
+            // Причина сохранена в job.failure
+        } finally {
+            executor.shutdown();
+            awaitTermination(executor);
+        }
+        if (failureMessage == null && job.failure.get() != null) {
+            failureMessage = "Ошибка сохранения записей: " + job.failure.get().getMessage();
+        }
+
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+        long imported = job.imported.get();
+        long totalRows = job.accepted + job.rejected;
+        long rowsPerSecond = imported * 1000 / Math.max(elapsedMillis, 1);
+        CdrIngestResponse response = failureMessage == null
+                ? new CdrIngestResponse("success", "Файл загружен", fileName, totalRows, imported,
+                job.rejected, elapsedMillis, rowsPerSecond, job.errors)
+                : new CdrIngestResponse("error", failureMessage, fileName, totalRows, imported,
+                job.rejected, elapsedMillis, rowsPerSecond, job.errors);
+
+        if (failureMessage == null) {
+            LOGGER.info("Файл {} загружен: строк {}, сохранено {}, отклонено {}, {} мс, {} записей/с",
+                    fileName, totalRows, imported, job.rejected, elapsedMillis, rowsPerSecond);
+        } else {
+            LOGGER.error("Загрузка файла {} прервана: {}. Сохранено {} записей", fileName, failureMessage, imported,
+                    job.failure.get());
+        }
+        results.addFirst(response);
+        while (results.size() > MAX_RESULTS) {
+            results.pollLast();
+        }
+        return response;
+    }
+
+    /**
+     * Загружает файлы из каталога {@code cdr.ingest.watch.directory}, если он задан.
+     * Файл переносится в {@code processed}, если загрузка завершилась успешно, иначе в {@code failed},
+     * чтобы частично загруженный файл не загружался повторно.
+     */
+    @Scheduled(fixedDelayString = "${cdr.ingest.watch.interval-ms:10000}",
+            initialDelayString = "${cdr.ingest.watch.interval-ms:10000}")
+    @Override
+    public void scanDirectory() {
+        if (watchDirectory == null || watchDirectory.isBlank()) {
+            return;
+        }
+        Path directory = Paths.get(watchDirectory);
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        long settledBefore = System.currentTimeMillis() - settleMillis;
+        List<Path> files;
+        try (Stream<Path> entries = Files.list(directory)) {
+            files = entries.filter(Files::isRegularFile)
+                    .filter(file -> isCdrFile(file.getFileName().toString()))
+                    .filter(file -> lastModified(file) < settledBefore)
+                    .sorted()
+                    .toList();
+        } catch (IOException e) {
+            LOGGER.error("Не удалось прочитать каталог загрузки {}", directory, e);
+            return;
+        }
+
+        for (Path file : files) {
+            String fileName = file.getFileName().toString();
+            boolean success;
+            try (InputStream in = Files.newInputStream(file)) {
+                success = "success".equals(ingest(fileName, in).getStatus());
+            } catch (IOException e) {
+                LOGGER.error("Не удалось открыть файл {}", file, e);
+                success = false;
+            }
+            try {
+                Path target = Files.createDirectories(directory.resolve(success ? PROCESSED_DIRECTORY : FAILED_DIRECTORY));
+                Files.move(file, target.resolve(fileName), StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException e) {
+                LOGGER.error("Не удалось перенести загруженный файл {}, загрузка каталога остановлена", file, e);
+                return;
+            }
+        }
+    }
+
+    @Override
+    public List<CdrIngestResponse> recentResults() {
+        return new ArrayList<>(results);
+    }
+
+    private static boolean isCdrFile(String fileName) {
+        return fileName.endsWith(".csv") || fileName.endsWith(".csv" + ReportCompression.GZIP.extension());
+    }
+
+    private static long lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file).toMillis();
+        } catch (IOException e) {
+            return Long.MAX_VALUE;
+        }
+    }
+
+    private void awaitTermination(ExecutorService executor) {
+        try {
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Сохраняет пачку записей в отдельной транзакции, учитывает ее в суточных агрегатах
+     * и сохраняет в той же транзакции абонентов с новыми номерами.
+     */
+    private void saveBatch(List<CdrRecord> batch) {
+        transactionTemplate.executeWithoutResult(status -> {
+            dailyUsageService.recordSaved(batch);
+            cdrStore.saveAll(batch);
+            Set<Long> numbers = new HashSet<>();
+            for (CdrRecord record : batch) {
+                numbers.add(record.callerNumber());
+                numbers.add(record.receiverNumber());
+            }
+            List<Subscriber> created = subscriberDirectory.reserveNew(numbers);
+            if (!created.isEmpty()) {
+                subscriberRepository.saveAll(created);
+            }
+            entityManager.flush();
+            entityManager.clear();
+        });
+    }
+
+    /**
+     * Состояние загрузки одного файла: текущая пачка, счетчики и первая ошибка сохранения.
+     * Методы получателя вызываются только потоком чтения.
+     */
+    private final class IngestJob implements CdrCsvReader.RowHandler {
+
+        private final ExecutorService executor;
+        private final Semaphore inFlight;
+        private final AtomicLong imported = new AtomicLong();
+        private final AtomicReference<Throwable> failure = new AtomicReference<>();
+        private final List<String> errors = new ArrayList<>();
+        private List<CdrRecord> batch = new ArrayList<>(batchSize);
+        private long accepted;
+        private long rejected;
+
+        private IngestJob(ExecutorService executor, Semaphore inFlight) {
+            this.executor = executor;
+            this.inFlight = inFlight;
+        }
+
+        @Override
+        public void accept(CdrRecord record) {
+            accepted++;
+            batch.add(record);
+            if (batch.size() >= batchSize) {
+                flush();
+            }
+        }
+
+        @Override
+        public void reject(long lineNumber, String reason) {
+            rejected++;
+            if (errors.size() < MAX_ERRORS) {
+                errors.add("строка " + lineNumber + ": " + reason);
+            }
+        }
+
+        /**
+         * Отправляет накопленную пачку на сохранение, ожидая, пока в работе станет меньше пачек.
+         *
+         * @throws IngestAbortedException если сохранение одной из предыдущих пачек завершилось ошибкой.
+         */
+        private void flush() {
+            if (failure.get() != null) {
+                throw new IngestAbortedException();
+            }
+            if (batch.isEmpty()) {
+                return;
+            }
+            List<CdrRecord> toSave = batch;
+            batch = new ArrayList<>(batchSize);
+            try {
+                inFlight.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failure.compareAndSet(null, e);
+                throw new IngestAbortedException();
+            }
+            executor.execute(() -> {
+                try {
+                    if (failure.get() == null) {
+                        saveBatch(toSave);
+                        imported.addAndGet(toSave.size());
+                    }
+                } catch (RuntimeException e) {
+                    failure.compareAndSet(null, e);
+                } finally {
+                    inFlight.release();
+                }
+            });
+        }
+    }
+
+    /**
+     * Прерывает чтение файла после ошибки сохранения.
+     */
+    private static final class IngestAbortedException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        private IngestAbortedException() {
+            super(null, null, false, false);
+        }
+    }
+}
@@ -1,5 +1,8 @@
 package com.royal.CallData.service;
 
+import com.royal.CallData.dto.CdrGenerationRequest;
+import com.royal.CallData.dto.CdrGenerationResponse;
+
 /**
  * Сервис для работы с CDR (Call Data Record) записями.
  * Предоставляет методы для генерации CDR записей.
@@ -11,4 +14,13 @@ public interface CdrRecordService {
      * Метод создает записи для всех звонков за последний год.
      */
     void generateCdrRecordsForYear();
+
+    /**
+     * Генерирует CDR записи по заданным параметрам: количеству абонентов, звонков в месяц,
+     * длительности периода и начальному значению генератора случайных чисел.
+     *
+     * @param request Параметры генерации.
+     * @return Результат генерации с количеством записей и использованным seed.
+     */
+    CdrGenerationResponse generateCdrRecords(CdrGenerationRequest request);
 }
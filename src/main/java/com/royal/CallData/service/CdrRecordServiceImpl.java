@@ -1,88 +1,265 @@
 package com.royal.CallData.service;
 
+import com.royal.CallData.dto.CdrGenerationRequest;
+import com.royal.CallData.dto.CdrGenerationResponse;
 import com.royal.CallData.entity.CdrRecord;
 import com.royal.CallData.entity.Subscriber;
-import com.royal.CallData.repository.CdrRecordRepository;
+import com.royal.CallData.repository.CdrStore;
 import com.royal.CallData.repository.SubscriberRepository;
 import com.royal.CallData.util.UtilService;
+import jakarta.persistence.EntityManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Random;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
 
 /**
  * Реализация сервиса для работы с CDR (Call Data Record) записями.
- * Этот класс генерирует CDR записи для подписчиков за последний год.
+ * Этот класс генерирует CDR записи для подписчиков за заданный период (по умолчанию за последний год).
+ * Абоненты делятся на порции, которые генерируются параллельно и сохраняются сразу после формирования.
  */
 @Service
 public class CdrRecordServiceImpl implements CdrRecordService {
 
+    private static final int DEFAULT_MIN_CALLS_PER_MONTH = 5;
+    private static final int DEFAULT_MAX_CALLS_PER_MONTH = 15;
+    private static final int DEFAULT_MONTHS = 12;
+    private static final long SYNTHETIC_MSISDN_BASE = 79100000000L;
+
     private final SubscriberRepository subscriberRepository;
-    private final CdrRecordRepository cdrRecordRepository;
+    private final SubscriberDirectory subscriberDirectory;
+    private final CdrStore cdrStore;
+    private final DailyUsageService dailyUsageService;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
     private final Logger LOGGER = LoggerFactory.getLogger(CdrRecordServiceImpl.class);
-    private final Random random = new Random();
+
+    @Value("${cdr.persistence.batch-size:1000}")
+    private int batchSize = 1000;
+
+    @Value("${cdr.generation.chunk-subscribers:1000}")
+    private int chunkSubscribers = 1000;
+
+    @Value("${cdr.generation.parallelism:0}")
+    private int parallelism = 0;
 
     @Autowired
     public CdrRecordServiceImpl(SubscriberRepository subscriberRepository,
-                                CdrRecordRepository cdrRecordRepository) {
+                                SubscriberDirectory subscriberDirectory,
+                                CdrStore cdrStore,
+                                DailyUsageService dailyUsageService,
+                                PlatformTransactionManager transactionManager,
+                                EntityManager entityManager) {
         this.subscriberRepository = subscriberRepository;
-        this.cdrRecordRepository = cdrRecordRepository;
+        this.subscriberDirectory = subscriberDirectory;
+        this.cdrStore = cdrStore;
+        this.dailyUsageService = dailyUsageService;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
     }
 
     /**
-     * Генерирует CDR записи для абонентов за последний год.
-     * Создаются случайные записи о звонках между абонентами в случайное время.
+     * Генерирует CDR записи для существующих абонентов за последний год.
      * Генерируется от 5 до 15 звонков на каждого абонента в месяц.
      * Каждый звонок имеет случайную продолжительность от 10 секунд до 1 часа.
      */
+    @Override
     public void generateCdrRecordsForYear() {
-        LOGGER.info("Начало генерации CDR записей за один год");
-        List<Subscriber> subscribers = subscriberRepository.findAll();
-        if (subscribers.isEmpty()) {
+        generateCdrRecords(new CdrGenerationRequest());
+    }
+
+    /**
+     * Генерирует CDR записи по заданным параметрам.
+     * Для каждой порции абонентов из корневого генератора последовательно выделяется собственный
+     * {@link SplittableRandom}, поэтому результат зависит только от параметров запроса и не зависит
+     * от порядка выполнения порций в потоках.
+     *
+     * @param request Параметры генерации.
+     * @return Результат генерации.
+     */
+    @Override
+    public CdrGenerationResponse generateCdrRecords(CdrGenerationRequest request) {
+        int minCalls = request.getMinCallsPerMonth() != null ? request.getMinCallsPerMonth() : DEFAULT_MIN_CALLS_PER_MONTH;
+        int maxCalls = request.getMaxCallsPerMonth() != null ? request.getMaxCallsPerMonth() : DEFAULT_MAX_CALLS_PER_MONTH;
+        int months = request.getMonths() != null ? request.getMonths() : DEFAULT_MONTHS;
+        long seed = request.getSeed() != null ? request.getSeed() : ThreadLocalRandom.current().nextLong();
+
+        if (minCalls < 0 || maxCalls < minCalls) {
+            return new CdrGenerationResponse("error", "Некорректное количество звонков в месяц", 0, 0, null);
+        }
+        if (months <= 0) {
+            return new CdrGenerationResponse("error", "Период генерации должен быть не меньше одного месяца", 0, 0, null);
+        }
+        if (request.getSubscriberCount() != null && request.getSubscriberCount() < 2) {
+            return new CdrGenerationResponse("error", "Для генерации звонков требуется не менее двух абонентов", 0, 0, null);
+        }
+
+        LOGGER.info("Начало генерации CDR записей: {}, seed={}", request, seed);
+        long[] msisdns = prepareSubscribers(request.getSubscriberCount());
+        if (msisdns.length < 2) {
             LOGGER.warn("Абонентов не найдено. Пожалуйста, сначала инициализируйте подписчиков.");
-            return;
+            return new CdrGenerationResponse("error", "Абоненты не найдены", msisdns.length, 0, seed);
+        }
+
+        LocalDateTime endDate = request.getEndDate() != null ? request.getEndDate() : LocalDateTime.now();
+        LocalDateTime startDate = endDate.minusMonths(months);
+
+        SplittableRandom rootRandom = new SplittableRandom(seed);
+        int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        long totalRecords = 0;
+        try {
+            List<Future<Integer>> chunks = new ArrayList<>();
+            for (int from = 0; from < msisdns.length; from += chunkSubscribers) {
+                int chunkFrom = from;
+                int chunkTo = Math.min(from + chunkSubscribers, msisdns.length);
+                SplittableRandom chunkRandom = rootRandom.split();
+                chunks.add(executor.submit(() -> generateChunk(msisdns, chunkFrom, chunkTo,
+                        startDate, endDate, months, minCalls, maxCalls, chunkRandom)));
+            }
+            for (Future<Integer> chunk : chunks) {
+                totalRecords += chunk.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Генерация CDR записей прервана", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Ошибка при генерации CDR записей", e.getCause());
+        } finally {
+            executor.shutdownNow();
         }
 
-        LocalDateTime startDate = LocalDateTime.now().minusYears(1);
-        LocalDateTime endDate = LocalDateTime.now();
+        LOGGER.info("Генерация завершена. Всего сгенерировано {} CDR записей.", totalRecords);
+        return new CdrGenerationResponse("success", "CDR записи успешно сгенерированы", msisdns.length, totalRecords, seed);
+    }
 
+    /**
+     * Возвращает номера абонентов, участвующих в генерации, из справочника абонентов без обращения к БД.
+     * Если запрошено больше абонентов, чем существует, недостающие создаются с синтетическими номерами
+     * и добавляются в справочник после фиксации транзакции своей пачки.
+     *
+     * @param subscriberCount Требуемое количество абонентов или {@code null} для всех существующих.
+     * @return Номера абонентов в числовом виде.
+     */
+    private long[] prepareSubscribers(Integer subscriberCount) {
+        long[] existing = subscriberDirectory.numbers();
+        if (subscriberCount == null) {
+            return existing;
+        }
+        if (subscriberCount <= existing.length) {
+            return Arrays.copyOf(existing, subscriberCount);
+        }
+
+        Set<Long> known = new HashSet<>();
+        for (long number : existing) {
+            known.add(number);
+        }
+        List<Subscriber> created = new ArrayList<>(subscriberCount - existing.length);
+        for (long candidate = SYNTHETIC_MSISDN_BASE; known.size() + created.size() < subscriberCount; candidate++) {
+            if (!known.contains(candidate)) {
+                created.add(new Subscriber(candidate));
+            }
+        }
+        saveInBatches(created, batch -> {
+            subscriberRepository.saveAll(batch);
+            subscriberDirectory.registerAfterCommit(new ArrayList<>(batch));
+        });
+        LOGGER.info("Создано {} синтетических абонентов", created.size());
+
+        long[] msisdns = Arrays.copyOf(existing, subscriberCount);
+        int index = existing.length;
+        for (Subscriber subscriber : created) {
+            msisdns[index++] = subscriber.number();
+        }
+        return msisdns;
+    }
+
+    /**
+     * Генерирует и сохраняет звонки для порции абонентов {@code [from, to)}.
+     * Создаются случайные записи о звонках между абонентами в случайное время.
+     * Каждая сохраненная пачка учитывается в суточных агрегатах после фиксации ее транзакции.
+     * Каждый звонок имеет случайную продолжительность от 10 секунд до 1 часа.
+     *
+     * @return Количество сгенерированных записей.
+     */
+    private int generateChunk(long[] msisdns, int from, int to, LocalDateTime startDate, LocalDateTime endDate,
+                              int months, int minCalls, int maxCalls, SplittableRandom random) {
         List<CdrRecord> cdrRecords = new ArrayList<>();
-        int totalCalls = subscribers.size() * random.nextInt(5, 15) * 12;
-
-        LOGGER.info("Будет сгенерировано {} звонков", totalCalls);
-
-        for (int i = 0; i < totalCalls; i++) {
-            Subscriber caller = subscribers.get(random.nextInt(subscribers.size()));
-            Subscriber receiver;
-            do {
-                receiver = subscribers.get(random.nextInt(subscribers.size()));
-            } while (receiver.getMsisdn().equals(caller.getMsisdn()));
-
-            LocalDateTime callStartTime = UtilService.randomDateBetween(startDate, endDate);
-            long callDurationInSeconds = random.nextLong(10, 60 * 60);
-            LocalDateTime callEndTime = callStartTime.plus(callDurationInSeconds, ChronoUnit.SECONDS);
-            String callType = random.nextBoolean() ? "01" : "02";
-
-            CdrRecord cdrRecord = new CdrRecord(
-                    callType,
-                    callType.equals("01") ? caller.getMsisdn() : receiver.getMsisdn(),
-                    callType.equals("01") ? receiver.getMsisdn() : caller.getMsisdn(),
-                    callStartTime,
-                    callEndTime
-            );
-
-            cdrRecords.add(cdrRecord);
-            LOGGER.debug("Создана запись: {}", cdrRecord);
+        for (int callerIndex = from; callerIndex < to; callerIndex++) {
+            long caller = msisdns[callerIndex];
+            for (int month = 0; month < months; month++) {
+                LocalDateTime monthStart = startDate.plusMonths(month);
+                LocalDateTime monthEnd = month == months - 1 ? endDate : startDate.plusMonths(month + 1);
+                int calls = random.nextInt(minCalls, maxCalls + 1);
+
+                for (int i = 0; i < calls; i++) {
+                    int receiverIndex = random.nextInt(msisdns.length - 1);
+                    if (receiverIndex >= callerIndex) {
+                        receiverIndex++;
+                    }
+                    long receiver = msisdns[receiverIndex];
+
+                    LocalDateTime callStartTime = UtilService.randomDateBetween(monthStart, monthEnd, random);
+                    long callDurationInSeconds = random.nextLong(10, 60 * 60);
+                    LocalDateTime callEndTime = callStartTime.plus(callDurationInSeconds, ChronoUnit.SECONDS);
+                    String callType = random.nextBoolean() ? "01" : "02";
+
+                    CdrRecord cdrRecord = new CdrRecord(
+                            callType,
+                            callType.equals("01") ? caller : receiver,
+                            callType.equals("01") ? receiver : caller,
+                            callStartTime,
+                            callEndTime
+                    );
+                    cdrRecords.add(cdrRecord);
+                }
+            }
         }
 
-        cdrRecords.sort((c1, c2) -> c1.getStartTime().compareTo(c2.getStartTime()));
-        cdrRecordRepository.saveAll(cdrRecords);
-        LOGGER.info("Генерация завершена. Всего сгенерировано {} CDR записей.", cdrRecords.size());
+        cdrRecords.sort(Comparator.comparing(CdrRecord::getStartTime));
+        saveInBatches(cdrRecords, batch -> {
+            dailyUsageService.recordSaved(batch);
+            cdrStore.saveAll(batch);
+        });
+        LOGGER.debug("Порция абонентов [{}, {}) сохранена: {} CDR записей", from, to, cdrRecords.size());
+        return cdrRecords.size();
+    }
+
+    /**
+     * Сохраняет сущности пачками по {@code batchSize} штук, каждую в отдельной транзакции.
+     * После каждой пачки контекст персистентности сбрасывается в БД и очищается,
+     * поэтому он не разрастается при генерации большого количества записей.
+     *
+     * @param entities Сущности для сохранения.
+     * @param saver    Метод репозитория, сохраняющий пачку.
+     */
+    private <T> void saveInBatches(List<T> entities, Consumer<List<T>> saver) {
+        for (int from = 0; from < entities.size(); from += batchSize) {
+            List<T> batch = entities.subList(from, Math.min(from + batchSize, entities.size()));
+            transactionTemplate.executeWithoutResult(status -> {
+                saver.accept(batch);
+                entityManager.flush();
+                entityManager.clear();
+            });
+        }
     }
 }
@@ -4,6 +4,8 @@ import com.royal.CallData.dto.PeriodicReportRequest;
 import com.royal.CallData.dto.ReportGenerationRequest;
 import com.royal.CallData.dto.ReportGenerationResponse;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.UUID;
 
 /**
@@ -35,4 +37,32 @@ public interface CdrReportService {
      * @return Ответ с текущим статусом отчета.
      */
     ReportGenerationResponse getReportStatus(UUID requestId);
+
+    /**
+     * Проверяет, известен ли отчет по абоненту с таким идентификатором.
+     * Идентификаторы пакетов отчетов здесь не считаются.
+     *
+     * @param requestId Уникальный идентификатор запроса на генерацию отчета.
+     * @return {@code true}, если статус отчета есть в реестре.
+     */
+    boolean reportExists(UUID requestId);
+
+    /**
+     * Проверяет, есть ли у абонента записи о звонках.
+     *
+     * @param msisdn Номер абонента.
+     * @return {@code true}, если записи есть.
+     */
+    boolean hasRecords(String msisdn);
+
+    /**
+     * Пишет все записи абонента в формате строк отчета CDR в переданный поток,
+     * читая их из БД порциями, без накопления отчета в памяти.
+     *
+     * @param msisdn Номер абонента.
+     * @param out    Поток, в который пишется отчет.
+     * @return Количество записанных строк.
+     * @throws IOException если запись в поток не удалась.
+     */
+    long writeSubscriberReport(String msisdn, OutputStream out) throws IOException;
 }
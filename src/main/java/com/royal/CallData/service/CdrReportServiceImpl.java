@@ -4,69 +4,118 @@ import com.royal.CallData.dto.PeriodicReportRequest;
 import com.royal.CallData.dto.ReportGenerationRequest;
 import com.royal.CallData.dto.ReportGenerationResponse;
 import com.royal.CallData.entity.CdrRecord;
-import com.royal.CallData.repository.CdrRecordRepository;
+import com.royal.CallData.repository.CdrStore;
+import com.royal.CallData.util.CdrRowEncoder;
+import com.royal.CallData.util.ColumnarReportWriter;
+import com.royal.CallData.util.ReportCompression;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.io.File;
-import java.io.FileWriter;
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.time.LocalDateTime;
-import java.util.List;
+import java.util.Iterator;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Stream;
 
 /**
- * Сервис для генерации отчетов по записям CDR (Call Detail Record) в формате CSV.
+ * Сервис для генерации отчетов по записям CDR (Call Detail Record) в формате CSV
+ * или в бинарном колоночном формате ({@link ReportFormat}).
  * Отчеты могут быть сгенерированы по конкретному пользователю (MSISDN) и диапазону дат,
  * а также по периодическим запросам (например, за 1 неделю, 1 месяц, 3 месяца или 6 месяцев).
- * Этот сервис выполняет генерацию отчетов асинхронно и отслеживает статус их выполнения.
- * Статус может быть "PROCESSING" (в процессе), "COMPLETED" (успешно завершен),
- * "COMPLETED_EMPTY" (пустой отчет) или "ERROR" (ошибка при генерации).
+ * Этот сервис выполняет генерацию отчетов асинхронно и отслеживает статус их выполнения
+ * в {@link ReportStatusRegistry}. Статус может быть "PROCESSING" (в процессе), "COMPLETED" (успешно завершен),
+ * "COMPLETED_EMPTY" (пустой отчет), "ERROR" (ошибка при генерации)
+ * или "REJECTED" (задача отклонена из-за переполнения очереди генерации).
+ * Одинаковые запросы, пришедшие во время формирования отчета или вскоре после него,
+ * получают идентификатор уже существующего отчета через {@link ReportResultCache}.
+ * Номер абонента проверяется по {@link SubscriberDirectory} до обращения к БД: запрос по неизвестному
+ * номеру отклоняется сразу, а не завершается пустым отчетом после полного чтения.
  */
 @Service
 public class CdrReportServiceImpl implements CdrReportService {
 
-    private final CdrRecordRepository cdrRecordRepository;
+    private final CdrStore cdrStore;
+    private final SubscriberDirectory subscriberDirectory;
+    private final TransactionTemplate readOnlyTransactionTemplate;
+    private final Executor reportExecutor;
+    private final Semaphore reportDbPermits;
+    private final Semaphore streamingDbPermits;
+    private final ReportResultCache reportResultCache;
+    private final ReportStatusRegistry reportStatusRegistry;
+    private final ReportMetrics reportMetrics;
     private final Logger LOGGER = LoggerFactory.getLogger(CdrReportServiceImpl.class);
-    private final ConcurrentHashMap<UUID, String> reportStatusMap = new ConcurrentHashMap<>();
-    private final String REPORTS_DIRECTORY = "reports";
+    private static final String REJECTED_MESSAGE = "Очередь формирования отчетов переполнена, повторите запрос позже";
+    private static final String UNKNOWN_SUBSCRIBER_MESSAGE = "Абонент не найден";
+
+    @Value("${report.output.buffer-size:65536}")
+    private int writeBufferSize = 64 * 1024;
+
+    @Value("${report.output.compression:none}")
+    private ReportCompression compression = ReportCompression.NONE;
 
     /**
-     * Конструктор, инициализирующий сервис и создающий директорию для отчетов, если она не существует.
+     * Конструктор с внедрением зависимостей.
      *
-     * @param cdrRecordRepository Репозиторий для работы с записями CDR.
+     * @param cdrStore            Хранилище записей CDR.
+     * @param subscriberDirectory Справочник абонентов для проверки номера без обращения к БД.
+     * @param transactionManager  Менеджер транзакций, в рамках которых читается курсор с записями.
+     * @param reportExecutor      Ограниченный исполнитель для асинхронной генерации отчетов.
+     * @param reportDbPermits     Семафор, ограничивающий число задач, одновременно работающих с БД.
+     * @param streamingDbPermits  Семафор, ограничивающий число потоковых ответов, одновременно работающих с БД.
+     * @param reportResultCache   Кэш результатов для объединения одинаковых запросов.
+     * @param reportStatusRegistry Реестр статусов и файлов отчетов.
+     * @param reportMetrics       Метрики формирования отчетов.
      */
     @Autowired
-    public CdrReportServiceImpl(CdrRecordRepository cdrRecordRepository) {
-        this.cdrRecordRepository = cdrRecordRepository;
-        // Создание директории для отчетов при инициализации сервиса
-        createReportsDirectory();
-    }
-
-    /**
-     * Создает директорию для отчетов, если она не существует.
-     */
-    private void createReportsDirectory() {
-        Path path = Paths.get(REPORTS_DIRECTORY);
-        if (!Files.exists(path)) {
-            try {
-                Files.createDirectories(path);
-                LOGGER.info("Созданный каталог отчетов: {}", path.toAbsolutePath());
-            } catch (IOException e) {
-                LOGGER.error("Не удалось создать каталог отчетов", e);
-            }
-        }
+    public CdrReportServiceImpl(CdrStore cdrStore,
+                                SubscriberDirectory subscriberDirectory,
+                                PlatformTransactionManager transactionManager,
+                                @Qualifier("reportTaskExecutor") Executor reportExecutor,
+                                @Qualifier("reportDbPermits") Semaphore reportDbPermits,
+                                @Qualifier("streamingDbPermits") Semaphore streamingDbPermits,
+                                ReportResultCache reportResultCache,
+                                ReportStatusRegistry reportStatusRegistry,
+                                ReportMetrics reportMetrics) {
+        this.cdrStore = cdrStore;
+        this.subscriberDirectory = subscriberDirectory;
+        this.reportExecutor = reportExecutor;
+        this.reportDbPermits = reportDbPermits;
+        this.streamingDbPermits = streamingDbPermits;
+        this.reportResultCache = reportResultCache;
+        this.reportStatusRegistry = reportStatusRegistry;
+        this.reportMetrics = reportMetrics;
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate.setReadOnly(true);
     }
 
     /**
      * Генерирует отчет по запросу. Запуск отчета происходит асинхронно.
+     * Если отчет с теми же параметрами уже формируется или готов, новый не запускается,
+     * а возвращается идентификатор существующего. Запрос по номеру, которого нет в справочнике абонентов,
+     * отклоняется.
      *
      * @param request Запрос на генерацию отчета.
      * @return Ответ с информацией о статусе запроса.
@@ -79,6 +128,10 @@ public class CdrReportServiceImpl implements CdrReportService {
             return new ReportGenerationResponse("error", null, "Требуется MSISDN", null);
         }
 
+        if (!subscriberDirectory.contains(request.getMsisdn())) {
+            return new ReportGenerationResponse("error", null, UNKNOWN_SUBSCRIBER_MESSAGE + ": " + request.getMsisdn(), null);
+        }
+
         if (request.getStartDate() == null || request.getEndDate() == null) {
             return new ReportGenerationResponse("error", null, "Обязательны даты начала и окончания", null);
         }
@@ -87,13 +140,34 @@ public class CdrReportServiceImpl implements CdrReportService {
             return new ReportGenerationResponse("error", null, "Дата окончания не может быть раньше даты начала", null);
         }
 
-        UUID requestId = UUID.randomUUID();
+        if (ReportFormat.fromRequest(request.getFormat()) == null) {
+            return new ReportGenerationResponse("error", null,
+                    "Неподдерживаемый формат отчета. Допустимые значения: csv, columnar", null);
+        }
 
-        LOGGER.info("Запущена асинхронная генерация отчета с ID: {}", requestId);
+        ReportResultCache.Key cacheKey = cacheKey(request);
+        UUID candidateId = UUID.randomUUID();
+        UUID requestId = reportResultCache.getOrRegister(cacheKey, this::isReusable, candidateId);
+        if (!requestId.equals(candidateId)) {
+            LOGGER.info("Запрос объединен с существующим отчетом {}", requestId);
+            return new ReportGenerationResponse("success", requestId, "Отчет по этому запросу уже сформирован или формируется", null);
+        }
+
+        // Статус выставляется до постановки задачи, чтобы быстрый отчет не был перезаписан статусом PROCESSING
+        reportStatusRegistry.put(requestId, ReportStatus.processing());
 
-        CompletableFuture.runAsync(() -> generateReportFile(request, requestId));
+        reportMetrics.jobSubmitted();
+        try {
+            CompletableFuture.runAsync(() -> generateReportFile(request, requestId), reportExecutor);
+        } catch (RejectedExecutionException e) {
+            reportMetrics.jobRejected();
+            LOGGER.warn("Очередь генерации отчетов переполнена, отчет {} отклонен", requestId);
+            reportStatusRegistry.put(requestId, ReportStatus.rejected());
+            reportResultCache.invalidate(cacheKey, requestId);
+            return new ReportGenerationResponse("rejected", requestId, REJECTED_MESSAGE, null);
+        }
 
-        reportStatusMap.put(requestId, "PROCESSING");
+        LOGGER.info("Запущена асинхронная генерация отчета с ID: {}", requestId);
 
         return new ReportGenerationResponse(
                 "success",
@@ -103,47 +177,229 @@ public class CdrReportServiceImpl implements CdrReportService {
         );
     }
 
+    private static ReportResultCache.Key cacheKey(ReportGenerationRequest request) {
+        return new ReportResultCache.Key(request.getMsisdn(), request.getStartDate(), request.getEndDate(),
+                ReportFormat.fromRequest(request.getFormat()));
+    }
+
+    /**
+     * Проверяет, можно ли вернуть отчет повторному запросу: он еще формируется, пуст
+     * или его файл по-прежнему существует. Отчеты с ошибкой и отклоненные формируются заново.
+     *
+     * @param requestId Идентификатор отчета.
+     * @return {@code true}, если отчет можно переиспользовать.
+     */
+    private boolean isReusable(UUID requestId) {
+        ReportStatus status = reportStatusRegistry.get(requestId);
+        if (status == null) {
+            return false;
+        }
+        return switch (status.state()) {
+            case PROCESSING, COMPLETED_EMPTY -> true;
+            case COMPLETED -> Files.exists(status.filePath());
+            case ERROR, REJECTED -> false;
+        };
+    }
+
     /**
      * Генерирует файл отчета по заданным параметрам.
      * Выполняется асинхронно для предотвращения блокировки основного потока.
+     * Записи читаются из хранилища ({@link CdrStore}) потоком и сразу пишутся в файл через буферизированный канал,
+     * поэтому потребление памяти не зависит от размера отчета.
+     * Итог задачи и длительность ожидания доступа к БД учитываются в {@link ReportMetrics}.
      *
      * @param request   Запрос на генерацию отчета.
      * @param requestId Уникальный идентификатор запроса.
      */
     private void generateReportFile(ReportGenerationRequest request, UUID requestId) {
         LOGGER.info("Начало формирования отчета {} для MSISDN: {}", requestId, request.getMsisdn());
+        reportMetrics.jobStarted();
+        ReportStatus.State outcome = ReportStatus.State.ERROR;
 
         try {
-            // Получение данных из БД
-            List<CdrRecord> records = cdrRecordRepository.findBySubscriberAndDateRange(
-                    request.getMsisdn(),
-                    request.getStartDate(),
-                    request.getEndDate()
-            );
-
-            if (records.isEmpty()) {
+            // Формирование имени файла
+            ReportFormat format = ReportFormat.fromRequest(request.getFormat());
+            String fileName = request.getMsisdn() + "_" + requestId.toString() + format.extension()
+                    + (format == ReportFormat.CSV ? compression.extension() : "");
+            Path filePath = reportStatusRegistry.reportsDirectory().resolve(fileName);
+
+            // Потоковое чтение записей с записью в файл; курсор БД удерживает соединение до конца записи
+            Long recordCount;
+            long waitStarted = System.nanoTime();
+            reportDbPermits.acquire();
+            reportMetrics.recordPhase(ReportMetrics.Phase.DB_WAIT, waitStarted);
+            try {
+                recordCount = readOnlyTransactionTemplate.execute(status -> writeReportRows(request, format, filePath));
+            } finally {
+                reportDbPermits.release();
+            }
+
+            if (recordCount == null || recordCount == 0) {
                 LOGGER.info("Отчет {} пуст, записи не найдены", requestId);
-                reportStatusMap.put(requestId, "COMPLETED_EMPTY");
+                reportStatusRegistry.put(requestId, ReportStatus.completedEmpty());
+                outcome = ReportStatus.State.COMPLETED_EMPTY;
                 return;
             }
 
-            // Формирование имени файла
-            String fileName = request.getMsisdn() + "_" + requestId.toString() + ".csv";
-            String filePath = REPORTS_DIRECTORY + File.separator + fileName;
+            LOGGER.info("Отчет {} успешно создан: {} ({} записей)", requestId, filePath, recordCount);
+            reportStatusRegistry.put(requestId, ReportStatus.completed(filePath));
+            outcome = ReportStatus.State.COMPLETED;
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            LOGGER.warn("Формирование отчета {} прервано", requestId);
+            reportStatusRegistry.put(requestId, ReportStatus.error("Формирование отчета прервано"));
+            reportResultCache.invalidate(cacheKey(request), requestId);
+        } catch (Exception e) {
+            LOGGER.error("Ошибка при формировании отчета {}", requestId, e);
+            reportStatusRegistry.put(requestId, ReportStatus.error(e.getMessage()));
+            reportResultCache.invalidate(cacheKey(request), requestId);
+        } finally {
+            reportMetrics.jobFinished(outcome);
+        }
+    }
+
+    /**
+     * Записывает строки отчета в файл по мере чтения их из курсора.
+     * Файл создается только при наличии хотя бы одной записи. CSV сжимается при записи,
+     * если задан {@code report.output.compression}; колоночный формат компактен сам по себе и не сжимается,
+     * чтобы читатель мог переходить к блокам по индексу.
+     * Время до первой записи учитывается как этап запроса, остальное время — как этап записи файла.
+     *
+     * @param request  Запрос на генерацию отчета.
+     * @param format   Формат файла отчета.
+     * @param filePath Путь к файлу отчета.
+     * @return Количество записанных строк.
+     */
+    private long writeReportRows(ReportGenerationRequest request, ReportFormat format, Path filePath) {
+        long queryStarted = System.nanoTime();
+        try (Stream<CdrRecord> records = cdrStore.streamBySubscriberAndDateRange(
+                request.getMsisdn(),
+                request.getStartDate(),
+                request.getEndDate())) {
+
+            Iterator<CdrRecord> iterator = records.iterator();
+            boolean empty = !iterator.hasNext();
+            reportMetrics.recordPhase(ReportMetrics.Phase.QUERY, queryStarted);
+            if (empty) {
+                return 0;
+            }
 
-            // Запись данных в файл
-            try (FileWriter writer = new FileWriter(filePath)) {
-                for (CdrRecord record : records) {
-                    writer.write(record.toCdrString() + "\n");
+            long writeStarted = System.nanoTime();
+            long count;
+            FileChannel channel = FileChannel.open(filePath,
+                    StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+            if (format == ReportFormat.COLUMNAR) {
+                try (ColumnarReportWriter writer = new ColumnarReportWriter(
+                        new BufferedOutputStream(Channels.newOutputStream(channel), writeBufferSize))) {
+                    count = writeColumnar(iterator, writer);
+                }
+            } else {
+                try (OutputStream file = Channels.newOutputStream(channel);
+                     Writer writer = new BufferedWriter(new OutputStreamWriter(
+                             compression.compress(file, writeBufferSize), StandardCharsets.UTF_8), writeBufferSize)) {
+                    count = writeRows(iterator, writer, false);
                 }
             }
+            reportMetrics.recordPhase(ReportMetrics.Phase.WRITE, writeStarted);
+            reportMetrics.fileWritten(count, Files.size(filePath));
+            return count;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
 
-            LOGGER.info("Отчет {} успешно создан: {}", requestId, filePath);
-            reportStatusMap.put(requestId, "COMPLETED:" + filePath);
+    /**
+     * Пишет записи в формате строки отчета CDR, по одной на строку, через {@link CdrRowEncoder}.
+     *
+     * @param records       Записи, упорядоченные по времени начала звонка.
+     * @param writer        Буферизированный приемник строк отчета.
+     * @param flushFirstRow Сбросить буфер после первой строки, чтобы получатель сразу получил начало отчета.
+     * @return Количество записанных строк.
+     * @throws IOException если запись не удалась.
+     */
+    private long writeRows(Iterator<CdrRecord> records, Writer writer, boolean flushFirstRow) throws IOException {
+        CdrRowEncoder encoder = new CdrRowEncoder();
+        long count = 0;
+        while (records.hasNext()) {
+            encoder.writeRow(records.next(), writer);
+            if (count++ == 0 && flushFirstRow) {
+                writer.flush();
+            }
+        }
+        return count;
+    }
 
-        } catch (Exception e) {
-            LOGGER.error("Ошибка при формировании отчета {}", requestId, e);
-            reportStatusMap.put(requestId, "ERROR:" + e.getMessage());
+    /**
+     * Пишет записи в колоночный файл.
+     *
+     * @param records Записи, упорядоченные по времени начала звонка.
+     * @param writer  Писатель колоночного формата.
+     * @return Количество записанных строк.
+     * @throws IOException если запись не удалась.
+     */
+    private long writeColumnar(Iterator<CdrRecord> records, ColumnarReportWriter writer) throws IOException {
+        long count = 0;
+        while (records.hasNext()) {
+            writer.write(records.next());
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Проверяет, есть ли у абонента записи о звонках. Для неизвестного абонента БД не запрашивается.
+     *
+     * @param msisdn Номер абонента.
+     * @return {@code true}, если записи есть.
+     */
+    @Override
+    public boolean hasRecords(String msisdn) {
+        return subscriberDirectory.contains(msisdn) && cdrStore.existsBySubscriber(msisdn);
+    }
+
+    /**
+     * Пишет все записи абонента в поток по мере чтения их из курсора БД.
+     * Первая строка отправляется сразу, чтобы клиент получил начало ответа, не дожидаясь заполнения буфера.
+     * Поток вывода не закрывается.
+     * <p>
+     * Курсор, транзакция и соединение с БД удерживаются, пока клиент не дочитает ответ, то есть время удержания
+     * определяется скоростью клиента и ограничено только {@code spring.mvc.async.request-timeout}. Поэтому ответ
+     * занимает разрешение {@code streamingDbPermits}, а не разрешения задач генерации отчетов: медленные клиенты
+     * ограничивают только число одновременных потоковых ответов. Выгрузка в файл с последующим
+     * скачиванием ({@link #generateReport}) держит соединение лишь на время чтения из БД.
+     *
+     * @param msisdn Номер абонента.
+     * @param out    Поток, в который пишется отчет.
+     * @return Количество записанных строк.
+     * @throws IOException если запись в поток не удалась или ожидание доступа к БД было прервано.
+     */
+    @Override
+    public long writeSubscriberReport(String msisdn, OutputStream out) throws IOException {
+        try {
+            streamingDbPermits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Ожидание доступа к БД прервано");
+        }
+        try {
+            Long count = readOnlyTransactionTemplate.execute(status -> {
+                try (Stream<CdrRecord> records = cdrStore.streamAllBySubscriberMsisdn(msisdn)) {
+                    Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), writeBufferSize);
+                    long written = writeRows(records.iterator(), writer, true);
+                    writer.flush();
+                    return written;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            long written = count != null ? count : 0;
+            reportMetrics.streamWritten(written);
+            return written;
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            streamingDbPermits.release();
         }
     }
 
@@ -165,8 +421,9 @@ public class CdrReportServiceImpl implements CdrReportService {
             return new ReportGenerationResponse("error", null, "Требуется указать период", null);
         }
 
-        // Определяем даты на основе указанного периода
-        LocalDateTime endDate = LocalDateTime.now();
+        // Определяем даты на основе указанного периода; конец периода округляется,
+        // чтобы близкие по времени запросы совпадали и попадали в кэш результатов
+        LocalDateTime endDate = reportResultCache.alignToPeriodicWindow(LocalDateTime.now());
         LocalDateTime startDate;
 
         switch (request.getPeriod().toLowerCase()) {
@@ -188,39 +445,39 @@ public class CdrReportServiceImpl implements CdrReportService {
         }
 
         ReportGenerationRequest standardRequest = new ReportGenerationRequest(
-                request.getMsisdn(), startDate, endDate);
+                request.getMsisdn(), startDate, endDate, request.getFormat());
 
         return generateReport(standardRequest);
     }
 
     /**
      * Возвращает статус отчета по его уникальному идентификатору.
+     * Пакеты отчетов хранятся в том же реестре, но через этот метод не видны.
      *
      * @param requestId Уникальный идентификатор запроса.
      * @return Ответ с информацией о статусе отчета.
      */
+    @Override
+    public boolean reportExists(UUID requestId) {
+        ReportStatus status = reportStatusRegistry.get(requestId);
+        return status != null && status.kind() == ReportStatus.Kind.SINGLE;
+    }
+
     @Override
     public ReportGenerationResponse getReportStatus(UUID requestId) {
         LOGGER.info("Запрос статуса отчета с ID: {}", requestId);
 
-        if (!reportStatusMap.containsKey(requestId)) {
+        ReportStatus status = reportStatusRegistry.get(requestId);
+        if (status == null || status.kind() != ReportStatus.Kind.SINGLE) {
             return new ReportGenerationResponse("error", requestId, "Отчет не найден", null);
         }
 
-        String status = reportStatusMap.get(requestId);
-
-        if (status.startsWith("PROCESSING")) {
-            return new ReportGenerationResponse("processing", requestId, "Выполняется формирование отчета", null);
-        } else if (status.startsWith("COMPLETED_EMPTY")) {
-            return new ReportGenerationResponse("completed", requestId, "Отчет сгенерирован, но записи не найдены", null);
-        } else if (status.startsWith("COMPLETED:")) {
-            String filePath = status.substring("COMPLETED:".length());
-            return new ReportGenerationResponse("completed", requestId, "Отчет создан успешно", filePath);
-        } else if (status.startsWith("ERROR:")) {
-            String errorMessage = status.substring("ERROR:".length());
-            return new ReportGenerationResponse("error", requestId, errorMessage, null);
-        }
-
-        return new ReportGenerationResponse("unknown", requestId, "Неизвестный статус", null);
+        return switch (status.state()) {
+            case PROCESSING -> new ReportGenerationResponse("processing", requestId, "Выполняется формирование отчета", null);
+            case COMPLETED_EMPTY -> new ReportGenerationResponse("completed", requestId, "Отчет сгенерирован, но записи не найдены", null);
+            case COMPLETED -> new ReportGenerationResponse("completed", requestId, "Отчет создан успешно", status.filePath().toString());
+            case REJECTED -> new ReportGenerationResponse("rejected", requestId, REJECTED_MESSAGE, null);
+            case ERROR -> new ReportGenerationResponse("error", requestId, status.message(), null);
+        };
     }
 }
\ No newline at end of file
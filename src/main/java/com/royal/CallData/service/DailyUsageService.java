@@ -0,0 +1,29 @@
+package com.royal.CallData.service;
+
+import com.royal.CallData.entity.CdrRecord;
+
+import java.util.Collection;
+
+/**
+ * Сервис суточных агрегатов звонков абонентов.
+ * Поддерживает агрегаты в актуальном состоянии при сохранении CDR записей и позволяет перестроить их целиком.
+ */
+public interface DailyUsageService {
+
+    /**
+     * Учитывает CDR записи в суточных агрегатах.
+     * Если вызов выполняется внутри транзакции, агрегаты обновляются после ее фиксации. Вызывается в транзакции
+     * до сохранения записей, чтобы перестроение агрегатов не учло записи пачки еще раз: хранилища вне БД
+     * делают записи видимыми сразу, не дожидаясь фиксации.
+     *
+     * @param records Записи, сохраняемые в текущей транзакции.
+     */
+    void recordSaved(Collection<CdrRecord> records);
+
+    /**
+     * Перестраивает суточные агрегаты по всем CDR записям хранилища.
+     *
+     * @return Количество строк агрегатов после перестроения.
+     */
+    long rebuild();
+}
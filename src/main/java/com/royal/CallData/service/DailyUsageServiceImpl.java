@@ -0,0 +1,285 @@
+package com.royal.CallData.service;
+
+import com.royal.CallData.entity.CdrRecord;
+import com.royal.CallData.entity.DailyUsageId;
+import com.royal.CallData.repository.CdrStore;
+import com.royal.CallData.util.MsisdnCodec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * Реализация сервиса суточных агрегатов звонков.
+ * Записи пачки сначала сворачиваются в памяти по ключу (msisdn, день, направление),
+ * затем изменения применяются к таблице {@code daily_usage} пакетом UPDATE по первичному ключу,
+ * а ключи, которых еще нет в таблице, добавляются пакетом INSERT.
+ * Звонок учитывается как исходящий ("01") у звонящего и как входящий ("02") у принимающего абонента,
+ * длительность — целое число секунд между началом и окончанием звонка.
+ * <p>
+ * Пачки CDR записей сохраняются параллельно, а агрегаты одного абонента и дня затрагиваются разными пачками,
+ * поэтому изменения зафиксированных пачек складываются в очередь, а применяет их один поток за раз
+ * в собственной транзакции, сворачивая все накопленные изменения в один пакет. Поток, зафиксировавший пачку,
+ * не ждет, пока агрегаты обновляет другой: его изменения применит текущий обработчик очереди.
+ * Последовательное применение гарантирует, что между UPDATE и INSERT строку с тем же ключом никто не добавит.
+ * MERGE ... USING не подошел: H2 выполняет его полным просмотром таблицы агрегатов на каждую строку.
+ * <p>
+ * Транзакция пачки держит блокировку чтения {@code snapshotLock} от учета записей до фиксации и постановки
+ * изменений в очередь, а перестроение берет блокировку записи. Поэтому на момент перестроения каждая пачка
+ * либо уже зафиксирована и ее изменения стоят в очереди (они отбрасываются — записи учтены перестроением),
+ * либо еще не начала сохранение записей и будет учтена приращением после перестроения.
+ * Перестроение выполняется SQL-запросом по таблице {@code cdr_record}, а если записи хранятся вне БД
+ * ({@link CdrStore#inDatabase()}), — сворачиванием всех записей хранилища в памяти.
+ * <p>
+ * После фиксации пачки также сбрасывается кэш результатов отчетов ({@link ReportResultCache#dataChanged()}),
+ * чтобы повторный запрос отчета за период с новыми записями сформировал его заново.
+ */
+@Service
+public class DailyUsageServiceImpl implements DailyUsageService {
+
+    static final String OUTGOING = "01";
+    static final String INCOMING = "02";
+
+    private static final String UPDATE_SQL =
+            "UPDATE daily_usage SET call_count = call_count + ?, total_duration_seconds = total_duration_seconds + ? " +
+            "WHERE msisdn = ? AND usage_day = ? AND call_type = ?";
+
+    private static final String INSERT_SQL =
+            "INSERT INTO daily_usage (call_count, total_duration_seconds, msisdn, usage_day, call_type) " +
+            "VALUES (?, ?, ?, ?, ?)";
+
+    private static final String REBUILD_SQL =
+            "INSERT INTO daily_usage (msisdn, usage_day, call_type, call_count, total_duration_seconds) " +
+            "SELECT caller_msisdn, CAST(start_time AS DATE), '" + OUTGOING + "', COUNT(*), " +
+            "COALESCE(SUM(DATEDIFF(SECOND, start_time, end_time)), 0) " +
+            "FROM cdr_record WHERE caller_msisdn IS NOT NULL AND start_time IS NOT NULL " +
+            "GROUP BY caller_msisdn, CAST(start_time AS DATE) " +
+            "UNION ALL " +
+            "SELECT receiver_msisdn, CAST(start_time AS DATE), '" + INCOMING + "', COUNT(*), " +
+            "COALESCE(SUM(DATEDIFF(SECOND, start_time, end_time)), 0) " +
+            "FROM cdr_record WHERE receiver_msisdn IS NOT NULL AND start_time IS NOT NULL " +
+            "GROUP BY receiver_msisdn, CAST(start_time AS DATE)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final CdrStore cdrStore;
+    private final TransactionTemplate transactionTemplate;
+    private final ReportResultCache reportResultCache;
+    private final ReentrantLock rollupLock = new ReentrantLock();
+    private final ReentrantReadWriteLock snapshotLock = new ReentrantReadWriteLock();
+    private final Queue<Map<DailyUsageId, long[]>> pending = new ConcurrentLinkedQueue<>();
+    private final Logger LOGGER = LoggerFactory.getLogger(DailyUsageServiceImpl.class);
+
+    /**
+     * Конструктор с внедрением зависимостей.
+     *
+     * @param jdbcTemplate       Шаблон JDBC для пакетных обновлений агрегатов.
+     * @param cdrStore           Хранилище CDR записей, по которым перестраиваются агрегаты.
+     * @param transactionManager Менеджер транзакций; агрегаты обновляются в отдельной транзакции.
+     * @param reportResultCache  Кэш результатов отчетов, сбрасываемый после сохранения записей.
+     */
+    @Autowired
+    public DailyUsageServiceImpl(JdbcTemplate jdbcTemplate, CdrStore cdrStore, PlatformTransactionManager transactionManager,
+                                 ReportResultCache reportResultCache) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.cdrStore = cdrStore;
+        this.reportResultCache = reportResultCache;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Сворачивает записи в изменения агрегатов и применяет их после фиксации текущей транзакции,
+     * чтобы откаченные записи не попадали в агрегаты. Вне транзакции изменения применяются сразу.
+     * До завершения транзакции перестроение агрегатов не начнется.
+     *
+     * @param records Записи, сохраняемые в текущей транзакции.
+     */
+    @Override
+    public void recordSaved(Collection<CdrRecord> records) {
+        Map<DailyUsageId, long[]> deltas = aggregate(records);
+        if (deltas.isEmpty()) {
+            return;
+        }
+        Lock readLock = snapshotLock.readLock();
+        readLock.lock();
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            try {
+                pending.add(deltas);
+            } finally {
+                readLock.unlock();
+            }
+            reportResultCache.dataChanged();
+            applyPending();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            private boolean locked = true;
+
+            @Override
+            public void afterCommit() {
+                try {
+                    pending.add(deltas);
+                } finally {
+                    unlock();
+                }
+                reportResultCache.dataChanged();
+                applyPending();
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                unlock();
+            }
+
+            private void unlock() {
+                if (locked) {
+                    locked = false;
+                    readLock.unlock();
+                }
+            }
+        });
+    }
+
+    /**
+     * Сворачивает записи по ключу (msisdn, день, направление).
+     *
+     * @return Изменения агрегатов: количество звонков и суммарная длительность.
+     */
+    private static Map<DailyUsageId, long[]> aggregate(Iterable<CdrRecord> records) {
+        Map<DailyUsageId, long[]> deltas = new HashMap<>();
+        for (CdrRecord record : records) {
+            if (record.getStartTime() == null) {
+                continue;
+            }
+            long duration = record.getEndTime() != null
+                    ? Duration.between(record.getStartTime(), record.getEndTime()).getSeconds() : 0;
+            if (record.callerNumber() != MsisdnCodec.NONE) {
+                add(deltas, new DailyUsageId(record.callerNumber(), record.getStartTime().toLocalDate(), OUTGOING), duration);
+            }
+            if (record.receiverNumber() != MsisdnCodec.NONE) {
+                add(deltas, new DailyUsageId(record.receiverNumber(), record.getStartTime().toLocalDate(), INCOMING), duration);
+            }
+        }
+        return deltas;
+    }
+
+    private static void add(Map<DailyUsageId, long[]> deltas, DailyUsageId id, long duration) {
+        long[] delta = deltas.computeIfAbsent(id, key -> new long[2]);
+        delta[0]++;
+        delta[1] += duration;
+    }
+
+    private static List<Object[]> toBatch(Map<DailyUsageId, long[]> deltas) {
+        List<Object[]> batch = new ArrayList<>(deltas.size());
+        deltas.forEach((id, delta) -> batch.add(new Object[]{
+                delta[0], delta[1], id.number(), Date.valueOf(id.getUsageDay()), id.getCallType()}));
+        return batch;
+    }
+
+    /**
+     * Применяет накопленные изменения, если их не применяет другой поток. Поток, не получивший блокировку,
+     * не ждет: его изменения уже в очереди, и их заберет текущий обработчик, который после снятия блокировки
+     * проверяет очередь еще раз.
+     */
+    private void applyPending() {
+        while (!pending.isEmpty() && rollupLock.tryLock()) {
+            try {
+                Map<DailyUsageId, long[]> merged = new HashMap<>();
+                Map<DailyUsageId, long[]> deltas;
+                while ((deltas = pending.poll()) != null) {
+                    deltas.forEach((id, delta) -> merged.merge(id, delta, (left, right) -> {
+                        left[0] += right[0];
+                        left[1] += right[1];
+                        return left;
+                    }));
+                }
+                if (!merged.isEmpty()) {
+                    apply(merged);
+                }
+            } finally {
+                rollupLock.unlock();
+            }
+        }
+    }
+
+    private void apply(Map<DailyUsageId, long[]> deltas) {
+        List<Object[]> batch = toBatch(deltas);
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                int[] updated = jdbcTemplate.batchUpdate(UPDATE_SQL, batch);
+                List<Object[]> missing = new ArrayList<>();
+                for (int i = 0; i < updated.length; i++) {
+                    if (updated[i] == 0) {
+                        missing.add(batch.get(i));
+                    }
+                }
+                if (!missing.isEmpty()) {
+                    jdbcTemplate.batchUpdate(INSERT_SQL, missing);
+                }
+            });
+        } catch (DataAccessException e) {
+            // Записи CDR уже сохранены, поэтому ошибка не откатывает их; расхождение устраняется перестроением
+            LOGGER.error("Не удалось обновить суточные агрегаты ({} строк), требуется перестроение", batch.size(), e);
+        }
+    }
+
+    /**
+     * Перестраивает агрегаты одним запросом INSERT ... SELECT с группировкой в БД
+     * или, для хранилища вне БД, одним проходом по всем записям хранилища.
+     * Перестроение дожидается завершения транзакций, уже учитывающих записи, а новые транзакции ждут его окончания;
+     * изменения, накопленные до перестроения, отбрасываются, так как их записи уже учтены запросом.
+     * Перестроение рассчитано на заполнение агрегатов по уже накопленным данным, во время массовой загрузки CDR
+     * его лучше не запускать: загрузка на это время останавливается.
+     *
+     * @return Количество строк агрегатов после перестроения.
+     */
+    @Override
+    public long rebuild() {
+        rollupLock.lock();
+        snapshotLock.writeLock().lock();
+        try {
+            pending.clear();
+            long started = System.nanoTime();
+            Integer rows = transactionTemplate.execute(status -> {
+                jdbcTemplate.update("DELETE FROM daily_usage");
+                if (cdrStore.inDatabase()) {
+                    return jdbcTemplate.update(REBUILD_SQL);
+                }
+                Map<DailyUsageId, long[]> totals;
+                try (Stream<CdrRecord> records = cdrStore.streamByDateRange(LocalDateTime.MIN, LocalDateTime.MAX)) {
+                    totals = aggregate(records::iterator);
+                }
+                jdbcTemplate.batchUpdate(INSERT_SQL, toBatch(totals));
+                return totals.size();
+            });
+            LOGGER.info("Суточные агрегаты перестроены: {} строк за {} мс", rows, (System.nanoTime() - started) / 1_000_000);
+            return rows != null ? rows : 0;
+        } finally {
+            snapshotLock.writeLock().unlock();
+            rollupLock.unlock();
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.royal.CallData.service;
+
+import java.util.Locale;
+
+/**
+ * Формат файла отчета.
+ */
+public enum ReportFormat {
+    /** Текстовые строки {@code callType,callerMsisdn,receiverMsisdn,startTime,endTime}. */
+    CSV(".csv"),
+    /** Бинарный колоночный формат, см. {@link com.royal.CallData.util.ColumnarReportWriter}. */
+    COLUMNAR(".cdrc");
+
+    private final String extension;
+
+    ReportFormat(String extension) {
+        this.extension = extension;
+    }
+
+    /**
+     * @return Расширение файла отчета.
+     */
+    public String extension() {
+        return extension;
+    }
+
+    /**
+     * Определяет формат по значению из запроса; без значения используется CSV.
+     *
+     * @param value Значение поля {@code format} запроса.
+     * @return Формат или {@code null}, если значение не поддерживается.
+     */
+    public static ReportFormat fromRequest(String value) {
+        if (value == null || value.isBlank()) {
+            return CSV;
+        }
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.royal.CallData.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Метрики формирования отчетов, публикуются через Actuator ({@code /actuator/metrics}, {@code /actuator/prometheus}).
+ * Задачи учитываются и для отчетов по абоненту, и для пакетов отчетов:
+ * <ul>
+ *     <li>{@code report.jobs.queued}, {@code report.jobs.active} — задачи, ожидающие исполнителя, и выполняемые задачи;</li>
+ *     <li>{@code report.jobs} с тегом {@code outcome} — завершенные задачи по итоговому статусу;</li>
+ *     <li>{@code report.phase} с тегом {@code phase} — гистограммы длительности этапов задачи: ожидание доступа к БД
+ *     ({@code db_wait}), запрос до первой записи ({@code query}) и запись файла ({@code write});</li>
+ *     <li>{@code report.rows.written} с тегом {@code target} ({@code file} или {@code stream})
+ *     и {@code report.bytes.written} — записанные строки и байты файлов, скорость — через {@code rate()}.</li>
+ * </ul>
+ */
+@Component
+public class ReportMetrics {
+
+    /**
+     * Этапы формирования файла отчета.
+     */
+    public enum Phase {
+        DB_WAIT("db_wait"),
+        QUERY("query"),
+        WRITE("write");
+
+        private final String tag;
+
+        Phase(String tag) {
+            this.tag = tag;
+        }
+    }
+
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicInteger active = new AtomicInteger();
+    private final Map<Phase, Timer> phaseTimers = new EnumMap<>(Phase.class);
+    private final Map<ReportStatus.State, Counter> outcomes = new EnumMap<>(ReportStatus.State.class);
+    private final Counter fileRows;
+    private final Counter streamRows;
+    private final Counter fileBytes;
+
+    /**
+     * Конструктор с внедрением зависимостей. Регистрирует все метрики отчетов.
+     *
+     * @param registry Реестр метрик.
+     */
+    @Autowired
+    public ReportMetrics(MeterRegistry registry) {
+        Gauge.builder("report.jobs.queued", queued, AtomicInteger::get)
+                .description("Задачи формирования отчетов, ожидающие исполнителя")
+                .register(registry);
+        Gauge.builder("report.jobs.active", active, AtomicInteger::get)
+                .description("Выполняемые задачи формирования отчетов")
+                .register(registry);
+        for (Phase phase : Phase.values()) {
+            phaseTimers.put(phase, Timer.builder("report.phase")
+                    .description("Длительность этапа формирования файла отчета")
+                    .tag("phase", phase.tag)
+                    .publishPercentileHistogram()
+                    .register(registry));
+        }
+        for (ReportStatus.State state : ReportStatus.State.values()) {
+            if (state != ReportStatus.State.PROCESSING) {
+                outcomes.put(state, Counter.builder("report.jobs")
+                        .description("Завершенные задачи формирования отчетов")
+                        .tag("outcome", state.name())
+                        .register(registry));
+            }
+        }
+        fileRows = Counter.builder("report.rows.written").tag("target", "file")
+                .description("Строки, записанные в отчеты").register(registry);
+        streamRows = Counter.builder("report.rows.written").tag("target", "stream")
+                .description("Строки, записанные в отчеты").register(registry);
+        fileBytes = Counter.builder("report.bytes.written").baseUnit("bytes")
+                .description("Размер записанных файлов отчетов").register(registry);
+    }
+
+    /**
+     * Задача передана исполнителю.
+     */
+    public void jobSubmitted() {
+        queued.incrementAndGet();
+    }
+
+    /**
+     * Исполнитель отклонил задачу.
+     */
+    public void jobRejected() {
+        queued.decrementAndGet();
+        outcomes.get(ReportStatus.State.REJECTED).increment();
+    }
+
+    /**
+     * Исполнитель начал выполнение задачи.
+     */
+    public void jobStarted() {
+        queued.decrementAndGet();
+        active.incrementAndGet();
+    }
+
+    /**
+     * Задача завершена.
+     *
+     * @param outcome Итоговый статус отчета.
+     */
+    public void jobFinished(ReportStatus.State outcome) {
+        active.decrementAndGet();
+        outcomes.get(outcome).increment();
+    }
+
+    /**
+     * Учитывает длительность этапа.
+     *
+     * @param phase        Этап.
+     * @param startedNanos Значение {@link System#nanoTime()} в начале этапа.
+     */
+    public void recordPhase(Phase phase, long startedNanos) {
+        phaseTimers.get(phase).record(System.nanoTime() - startedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Учитывает записанный файл отчета.
+     *
+     * @param rows  Количество строк.
+     * @param bytes Размер файла.
+     */
+    public void fileWritten(long rows, long bytes) {
+        fileRows.increment(rows);
+        fileBytes.increment(bytes);
+    }
+
+    /**
+     * Учитывает отчет, переданный потоковым HTTP-ответом.
+     *
+     * @param rows Количество строк.
+     */
+    public void streamWritten(long rows) {
+        streamRows.increment(rows);
+    }
+}
@@ -0,0 +1,101 @@
+package com.royal.CallData.service;
+
+import com.royal.CallData.util.ExpiringCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * Кэш результатов генерации отчетов.
+ * Сопоставляет параметры запроса {@code (msisdn, startDate, endDate)} идентификатору уже запущенного
+ * или завершенного отчета, чтобы одинаковые запросы не формировали отчет повторно.
+ * Записи живут не дольше заданного времени, а при превышении максимального размера
+ * вытесняются давно не запрашивавшиеся.
+ * <p>
+ * Каждая запись помнит версию данных CDR, при которой был запущен отчет. Версия увеличивается после фиксации
+ * каждой порции сохраненных CDR записей ({@link #dataChanged()}), и записи прежних версий не переиспользуются:
+ * отчет, запущенный до загрузки новых записей, мог их не увидеть.
+ */
+@Component
+public class ReportResultCache {
+
+    /**
+     * Параметры отчета, по которым совпадающие запросы считаются одинаковыми.
+     */
+    public record Key(String msisdn, LocalDateTime startDate, LocalDateTime endDate, ReportFormat format) {
+    }
+
+    private record Entry(UUID requestId, long dataVersion) {
+    }
+
+    private final ExpiringCache<Key, Entry> cache;
+    private final long periodicWindowSeconds;
+    private final AtomicLong dataVersion = new AtomicLong();
+
+    /**
+     * @param ttlSeconds            Время жизни записи кэша в секундах.
+     * @param maxEntries            Максимальное количество записей кэша.
+     * @param periodicWindowSeconds Шаг, до которого округляется конец периода периодических отчетов.
+     */
+    public ReportResultCache(@Value("${report.cache.ttl-seconds:600}") long ttlSeconds,
+                             @Value("${report.cache.max-entries:10000}") int maxEntries,
+                             @Value("${report.cache.periodic-window-seconds:60}") long periodicWindowSeconds) {
+        this.cache = new ExpiringCache<>(ttlSeconds * 1000, maxEntries);
+        this.periodicWindowSeconds = periodicWindowSeconds;
+    }
+
+    /**
+     * Возвращает идентификатор отчета для параметров запроса.
+     * Если в кэше есть отчет, запущенный при текущей версии данных и который можно переиспользовать,
+     * возвращается его идентификатор; иначе с параметрами связывается новый идентификатор. Проверка и регистрация выполняются атомарно,
+     * поэтому из одновременных одинаковых запросов новый отчет запускает только один.
+     *
+     * @param key       Параметры отчета.
+     * @param reusable  Проверка, что отчет с найденным идентификатором еще можно переиспользовать.
+     * @param candidate Идентификатор нового отчета; вызывается под блокировкой кэша.
+     * @return Идентификатор найденного отчета или {@code candidate}.
+     */
+    public UUID getOrRegister(Key key, Predicate<UUID> reusable, UUID candidate) {
+        long version = dataVersion.get();
+        return cache.compute(key, (k, cached) -> cached != null && cached.dataVersion() == version
+                && reusable.test(cached.requestId()) ? cached : new Entry(candidate, version)).requestId();
+    }
+
+    /**
+     * Удаляет запись, если она все еще указывает на отчет с данным идентификатором.
+     * Используется для отчетов, завершившихся ошибкой или отклоненных, чтобы повторный запрос запустил их заново.
+     *
+     * @param key       Параметры отчета.
+     * @param requestId Идентификатор отчета.
+     */
+    public void invalidate(Key key, UUID requestId) {
+        cache.compute(key, (k, cached) -> cached != null && cached.requestId().equals(requestId) ? null : cached);
+    }
+
+    /**
+     * Отмечает, что CDR записи изменились: отчеты, запущенные до этого, больше не переиспользуются.
+     */
+    public void dataChanged() {
+        dataVersion.incrementAndGet();
+    }
+
+    /**
+     * Округляет момент времени вниз до шага периодических отчетов,
+     * чтобы запросы одного периода, пришедшие с разницей в несколько секунд, имели одинаковые параметры.
+     *
+     * @param time Момент времени.
+     * @return Начало шага, в который попадает {@code time}.
+     */
+    public LocalDateTime alignToPeriodicWindow(LocalDateTime time) {
+        if (periodicWindowSeconds <= 0) {
+            return time;
+        }
+        long epochSecond = time.toEpochSecond(ZoneOffset.UTC);
+        return LocalDateTime.ofEpochSecond(epochSecond - Math.floorMod(epochSecond, periodicWindowSeconds), 0, ZoneOffset.UTC);
+    }
+}
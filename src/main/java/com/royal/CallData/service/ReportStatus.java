@@ -0,0 +1,71 @@
+package com.royal.CallData.service;
+
+import java.nio.file.Path;
+
+/**
+ * Состояние формирования отчета.
+ *
+ * @param state    Этап формирования.
+ * @param filePath Путь к файлу отчета; задан только для {@link State#COMPLETED}.
+ * @param message  Текст ошибки; задан только для {@link State#ERROR}.
+ * @param kind     Вид отчета: одиночный или пакетный; у пакета путь указывает на каталог.
+ */
+public record ReportStatus(State state, Path filePath, String message, Kind kind) {
+
+    /**
+     * Этапы формирования отчета.
+     */
+    public enum State {
+        /** Отчет формируется. */
+        PROCESSING,
+        /** Отчет сформирован и записан в файл. */
+        COMPLETED,
+        /** Отчет сформирован, но записи не найдены. */
+        COMPLETED_EMPTY,
+        /** При формировании отчета произошла ошибка. */
+        ERROR,
+        /** Задача отклонена из-за переполнения очереди генерации. */
+        REJECTED
+    }
+
+    /**
+     * Виды отчетов, статусы которых хранятся в общем реестре.
+     */
+    public enum Kind {
+        /** Отчет по одному абоненту, путь указывает на файл. */
+        SINGLE,
+        /** Пакет отчетов, путь указывает на каталог. */
+        BATCH
+    }
+
+    private static final ReportStatus PROCESSING = new ReportStatus(State.PROCESSING, null, null, Kind.SINGLE);
+    private static final ReportStatus COMPLETED_EMPTY = new ReportStatus(State.COMPLETED_EMPTY, null, null, Kind.SINGLE);
+    private static final ReportStatus REJECTED = new ReportStatus(State.REJECTED, null, null, Kind.SINGLE);
+
+    public static ReportStatus processing() {
+        return PROCESSING;
+    }
+
+    public static ReportStatus completed(Path filePath) {
+        return new ReportStatus(State.COMPLETED, filePath, null, Kind.SINGLE);
+    }
+
+    public static ReportStatus completedEmpty() {
+        return COMPLETED_EMPTY;
+    }
+
+    public static ReportStatus error(String message) {
+        return new ReportStatus(State.ERROR, null, message, Kind.SINGLE);
+    }
+
+    public static ReportStatus rejected() {
+        return REJECTED;
+    }
+
+    /**
+     * @return Тот же статус для пакета отчетов.
+     */
+    public ReportStatus ofBatch() {
+        return new ReportStatus(state, filePath, message, Kind.BATCH);
+    }
+}
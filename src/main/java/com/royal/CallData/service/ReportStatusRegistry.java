@@ -0,0 +1,193 @@
+package com.royal.CallData.service;
+
+import com.royal.CallData.util.ExpiringCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Comparator;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.LongSupplier;
+import java.util.stream.Stream;
+
+/**
+ * Реестр статусов отчетов и их файлов.
+ * Статус хранится ограниченное время после последнего обновления, количество статусов ограничено сверху.
+ * Файлы отчетов, статусы которых истекли или были вытеснены, удаляются фоновой задачей порциями,
+ * а файлы, оставшиеся от предыдущих запусков, удаляются после истечения времени жизни.
+ * Путь в статусе может указывать и на каталог (например, каталог пакетного отчета) — он удаляется целиком.
+ */
+@Component
+public class ReportStatusRegistry {
+
+    private final Logger LOGGER = LoggerFactory.getLogger(ReportStatusRegistry.class);
+    private final Path reportsDirectory;
+    private final long ttlMillis;
+    private final int sweepBatchSize;
+    private final LongSupplier clock;
+    private final ExpiringCache<UUID, ReportStatus> statuses;
+    private final ConcurrentLinkedQueue<Path> expiredFiles = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Конструктор, инициализирующий реестр и создающий директорию для отчетов, если она не существует.
+     *
+     * @param reportsDirectory Директория файлов отчетов.
+     * @param ttlSeconds       Время жизни статуса и файла отчета после последнего обновления статуса.
+     * @param maxEntries       Максимальное количество хранимых статусов.
+     * @param sweepBatchSize   Максимальное количество файлов, удаляемых за один проход очистки.
+     */
+    @Autowired
+    public ReportStatusRegistry(@Value("${report.output.directory:reports}") String reportsDirectory,
+                                @Value("${report.status.ttl-seconds:3600}") long ttlSeconds,
+                                @Value("${report.status.max-entries:100000}") int maxEntries,
+                                @Value("${report.status.sweep-batch-size:500}") int sweepBatchSize) {
+        this(Paths.get(reportsDirectory), ttlSeconds * 1000, maxEntries, sweepBatchSize, System::currentTimeMillis);
+    }
+
+    ReportStatusRegistry(Path reportsDirectory, long ttlMillis, int maxEntries, int sweepBatchSize, LongSupplier clock) {
+        this.reportsDirectory = reportsDirectory;
+        this.ttlMillis = ttlMillis;
+        this.sweepBatchSize = sweepBatchSize;
+        this.clock = clock;
+        this.statuses = new ExpiringCache<>(ttlMillis, maxEntries, clock, (requestId, status) -> {
+            if (status.filePath() != null) {
+                expiredFiles.add(status.filePath());
+            }
+        });
+        createReportsDirectory();
+    }
+
+    /**
+     * Создает директорию для отчетов, если она не существует.
+     */
+    private void createReportsDirectory() {
+        if (!Files.exists(reportsDirectory)) {
+            try {
+                Files.createDirectories(reportsDirectory);
+                LOGGER.info("Созданный каталог отчетов: {}", reportsDirectory.toAbsolutePath());
+            } catch (IOException e) {
+                LOGGER.error("Не удалось создать каталог отчетов", e);
+            }
+        }
+    }
+
+    /**
+     * @return Директория файлов отчетов.
+     */
+    public Path reportsDirectory() {
+        return reportsDirectory;
+    }
+
+    /**
+     * Сохраняет статус отчета; время жизни статуса отсчитывается заново.
+     *
+     * @param requestId Идентификатор отчета.
+     * @param status    Статус.
+     */
+    public void put(UUID requestId, ReportStatus status) {
+        statuses.put(requestId, status);
+    }
+
+    /**
+     * @param requestId Идентификатор отчета.
+     * @return Статус отчета или {@code null}, если отчет неизвестен или его статус истек.
+     */
+    public ReportStatus get(UUID requestId) {
+        return statuses.get(requestId);
+    }
+
+    /**
+     * Удаляет истекшие статусы и порцию файлов отчетов, которые им принадлежали.
+     * Если в порции осталось место, удаляются также устаревшие файлы без статуса,
+     * например оставшиеся от предыдущего запуска приложения.
+     *
+     * @return Количество удаленных файлов.
+     */
+    @Scheduled(fixedDelayString = "${report.status.sweep-interval-ms:60000}",
+            initialDelayString = "${report.status.sweep-interval-ms:60000}")
+    public int sweep() {
+        statuses.evictExpired();
+
+        int deleted = 0;
+        Path file;
+        while (deleted < sweepBatchSize && (file = expiredFiles.poll()) != null) {
+            if (deleteFile(file)) {
+                deleted++;
+            }
+        }
+        if (deleted < sweepBatchSize) {
+            deleted += deleteOrphanFiles(sweepBatchSize - deleted);
+        }
+        if (deleted > 0) {
+            LOGGER.info("Удалено {} устаревших файлов отчетов", deleted);
+        }
+        return deleted;
+    }
+
+    /**
+     * Удаляет файлы {@code <msisdn>_<requestId>.*} и каталоги {@code batch_<batchId>}, у которых нет
+     * действующего статуса и которые не изменялись дольше времени жизни статуса. Файлы с другими именами не трогаются.
+     */
+    private int deleteOrphanFiles(int limit) {
+        long threshold = clock.getAsLong() - ttlMillis;
+        int deleted = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(reportsDirectory)) {
+            for (Path file : files) {
+                if (deleted >= limit) {
+                    break;
+                }
+                UUID requestId = requestIdOf(file);
+                if (requestId != null && !statuses.containsKey(requestId)
+                        && Files.getLastModifiedTime(file).toMillis() < threshold && deleteFile(file)) {
+                    deleted++;
+                }
+            }
+        } catch (IOException e) {
+            LOGGER.warn("Не удалось просмотреть каталог отчетов {}", reportsDirectory, e);
+        }
+        return deleted;
+    }
+
+    private static UUID requestIdOf(Path file) {
+        String name = file.getFileName().toString();
+        int from = name.lastIndexOf('_') + 1;
+        int to = name.indexOf('.', from);
+        if (from == 0) {
+            return null;
+        }
+        if (to < 0) {
+            to = name.length();
+        }
+        try {
+            return UUID.fromString(name.substring(from, to));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private boolean deleteFile(Path file) {
+        try {
+            if (Files.isDirectory(file)) {
+                try (Stream<Path> tree = Files.walk(file)) {
+                    for (Path path : (Iterable<Path>) tree.sorted(Comparator.reverseOrder())::iterator) {
+                        Files.deleteIfExists(path);
+                    }
+                }
+                return true;
+            }
+            return Files.deleteIfExists(file);
+        } catch (IOException e) {
+            LOGGER.warn("Не удалось удалить файл отчета {}", file, e);
+            return false;
+        }
+    }
+}
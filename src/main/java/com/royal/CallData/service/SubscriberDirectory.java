@@ -0,0 +1,165 @@
+package com.royal.CallData.service;
+
+import com.royal.CallData.entity.Subscriber;
+import com.royal.CallData.repository.SubscriberRepository;
+import com.royal.CallData.util.MsisdnCodec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Справочник абонентов в памяти.
+ * Номера хранятся в числовом виде ({@link MsisdnCodec}) в хеш-множестве, поэтому проверка существования
+ * абонента выполняется за O(1) без обращения к БД, и в массиве в порядке добавления для генератора CDR.
+ * <p>
+ * Справочник загружается при запуске ({@link #reload()}) и дополняется новыми абонентами только после
+ * фиксации транзакции, в которой они сохранены ({@link #registerAfterCommit(List)}), поэтому в нем нет
+ * номеров, отсутствующих в БД. Номера, которые сохраняются в еще не зафиксированных транзакциях,
+ * зарезервированы ({@link #reserveNew(Collection)}), чтобы параллельные пачки загрузки не создали
+ * одного абонента дважды.
+ */
+@Component
+public class SubscriberDirectory {
+
+    private final SubscriberRepository subscriberRepository;
+    private final Logger LOGGER = LoggerFactory.getLogger(SubscriberDirectory.class);
+    private volatile Set<Long> index = ConcurrentHashMap.newKeySet();
+    private long[] numbers = new long[0];
+    private int size;
+    private final Set<Long> pending = new HashSet<>();
+
+    @Autowired
+    public SubscriberDirectory(SubscriberRepository subscriberRepository) {
+        this.subscriberRepository = subscriberRepository;
+    }
+
+    /**
+     * Загружает справочник заново из БД.
+     */
+    public synchronized void reload() {
+        List<Subscriber> subscribers = subscriberRepository.findAll();
+        Set<Long> loaded = ConcurrentHashMap.newKeySet(subscribers.size());
+        long[] loadedNumbers = new long[subscribers.size()];
+        int loadedSize = 0;
+        for (Subscriber subscriber : subscribers) {
+            if (loaded.add(subscriber.number())) {
+                loadedNumbers[loadedSize++] = subscriber.number();
+            }
+        }
+        numbers = loadedNumbers;
+        size = loadedSize;
+        index = loaded;
+        LOGGER.info("Справочник абонентов загружен: {} абонентов", loadedSize);
+    }
+
+    /**
+     * Добавляет сохраненных абонентов в справочник. Уже известные номера пропускаются.
+     * Используется для абонентов, запись которых уже зафиксирована.
+     *
+     * @param subscribers Сохраненные абоненты.
+     */
+    public synchronized void register(Collection<Subscriber> subscribers) {
+        if (numbers.length - size < subscribers.size()) {
+            numbers = Arrays.copyOf(numbers, Math.max(size + subscribers.size(), numbers.length * 2));
+        }
+        for (Subscriber subscriber : subscribers) {
+            pending.remove(subscriber.number());
+            if (index.add(subscriber.number())) {
+                numbers[size++] = subscriber.number();
+            }
+        }
+    }
+
+    /**
+     * Добавляет абонентов в справочник после фиксации текущей транзакции; при откате они не добавляются.
+     * Вне транзакции абоненты добавляются сразу.
+     *
+     * @param subscribers Абоненты, сохраняемые в текущей транзакции.
+     */
+    public void registerAfterCommit(List<Subscriber> subscribers) {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            register(subscribers);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    register(subscribers);
+                } else {
+                    release(subscribers);
+                }
+            }
+        });
+    }
+
+    /**
+     * Отбирает номера, которых нет в справочнике и которые не сохраняются другой транзакцией, и резервирует их
+     * до завершения текущей транзакции. Для возвращенных абонентов вызывающий должен сохранить их
+     * в текущей транзакции: после фиксации они добавляются в справочник, при откате резерв снимается.
+     *
+     * @param numbers Номера в числовом виде; {@link MsisdnCodec#NONE} пропускается.
+     * @return Новые абоненты для сохранения.
+     * @throws IllegalStateException если нет активной транзакции.
+     */
+    public List<Subscriber> reserveNew(Collection<Long> numbers) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Резервирование номеров абонентов требует активной транзакции");
+        }
+        List<Subscriber> created = new ArrayList<>();
+        synchronized (this) {
+            for (Long number : numbers) {
+                if (number != MsisdnCodec.NONE && !index.contains(number) && pending.add(number)) {
+                    created.add(new Subscriber(number));
+                }
+            }
+        }
+        registerAfterCommit(created);
+        return created;
+    }
+
+    private synchronized void release(Collection<Subscriber> subscribers) {
+        for (Subscriber subscriber : subscribers) {
+            pending.remove(subscriber.number());
+        }
+    }
+
+    /**
+     * Проверяет, известен ли абонент.
+     *
+     * @param msisdn Номер абонента в строковом виде.
+     * @return {@code true}, если абонент есть в справочнике.
+     */
+    public boolean contains(String msisdn) {
+        long number = MsisdnCodec.parse(msisdn);
+        return number > MsisdnCodec.NONE && index.contains(number);
+    }
+
+    /**
+     * @return Номера всех абонентов в порядке добавления.
+     */
+    public synchronized long[] numbers() {
+        return Arrays.copyOf(numbers, size);
+    }
+
+    /**
+     * @return Количество абонентов в справочнике.
+     */
+    public synchronized int size() {
+        return size;
+    }
+}
@@ -0,0 +1,39 @@
+package com.royal.CallData.service;
+
+import com.royal.CallData.dto.UdrResponse;
+
+import java.time.YearMonth;
+import java.util.List;
+
+/**
+ * Сервис отчетов об использовании услуг (UDR).
+ * Считает итоги входящих и исходящих звонков абонентов за месяц агрегацией в БД, без выгрузки CDR записей.
+ */
+public interface UdrService {
+
+    /**
+     * Считает итоги звонков абонента за месяц.
+     *
+     * @param msisdn Номер абонента.
+     * @param month  Месяц.
+     * @return UDR абонента; если звонков за месяц не было, итоги нулевые.
+     * @throws IllegalArgumentException если абонента нет в справочнике.
+     */
+    UdrResponse getSubscriberUdr(String msisdn, YearMonth month);
+
+    /**
+     * Проверяет, известен ли абонент. БД не запрашивается.
+     *
+     * @param msisdn Номер абонента.
+     * @return {@code true}, если абонент есть в справочнике.
+     */
+    boolean hasSubscriber(String msisdn);
+
+    /**
+     * Считает итоги звонков всех абонентов за месяц одним запросом.
+     *
+     * @param month Месяц.
+     * @return UDR абонентов, у которых были звонки за месяц, упорядоченные по номеру.
+     */
+    List<UdrResponse> getAllUdr(YearMonth month);
+}
@@ -0,0 +1,81 @@
+package com.royal.CallData.service;
+
+import com.royal.CallData.dto.UdrResponse;
+import com.royal.CallData.repository.DailyUsageRepository;
+import com.royal.CallData.repository.DailyUsageRepository.UsageTotals;
+import com.royal.CallData.util.MsisdnCodec;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.YearMonth;
+import java.util.List;
+
+/**
+ * Реализация сервиса UDR.
+ * Итоги сворачиваются группировкой из суточных агрегатов {@code daily_usage}, поэтому стоимость запроса
+ * за месяц пропорциональна числу дней с звонками, а не числу CDR записей.
+ */
+@Service
+public class UdrServiceImpl implements UdrService {
+
+    private final DailyUsageRepository dailyUsageRepository;
+    private final SubscriberDirectory subscriberDirectory;
+
+    /**
+     * Конструктор с внедрением зависимостей.
+     *
+     * @param dailyUsageRepository Репозиторий суточных агрегатов звонков.
+     * @param subscriberDirectory  Справочник абонентов.
+     */
+    @Autowired
+    public UdrServiceImpl(DailyUsageRepository dailyUsageRepository, SubscriberDirectory subscriberDirectory) {
+        this.dailyUsageRepository = dailyUsageRepository;
+        this.subscriberDirectory = subscriberDirectory;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public UdrResponse getSubscriberUdr(String msisdn, YearMonth month) {
+        if (!subscriberDirectory.contains(msisdn)) {
+            throw new IllegalArgumentException("Абонент не найден: " + msisdn);
+        }
+        UsageTotals totals = dailyUsageRepository.sumByMsisdn(MsisdnCodec.parse(msisdn), month.atDay(1), month.atEndOfMonth());
+        if (totals == null) {
+            return toUdr(msisdn, month, 0, 0, 0, 0);
+        }
+        return toUdr(totals, month);
+    }
+
+    @Override
+    public boolean hasSubscriber(String msisdn) {
+        return subscriberDirectory.contains(msisdn);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<UdrResponse> getAllUdr(YearMonth month) {
+        return dailyUsageRepository.sumAllByPeriod(month.atDay(1), month.atEndOfMonth()).stream()
+                .map(totals -> toUdr(totals, month))
+                .toList();
+    }
+
+    private static UdrResponse toUdr(UsageTotals totals, YearMonth month) {
+        return toUdr(MsisdnCodec.format(totals.getMsisdn()), month, totals.getIncomingCallCount(), totals.getIncomingSeconds(),
+                totals.getOutgoingCallCount(), totals.getOutgoingSeconds());
+    }
+
+    private static UdrResponse toUdr(String msisdn, YearMonth month, long incomingCallCount, long incomingSeconds,
+                                     long outgoingCallCount, long outgoingSeconds) {
+        return new UdrResponse(msisdn, month.toString(),
+                incomingCallCount, incomingSeconds, formatDuration(incomingSeconds),
+                outgoingCallCount, outgoingSeconds, formatDuration(outgoingSeconds));
+    }
+
+    /**
+     * Форматирует длительность как HH:mm:ss; часы не ограничены 24.
+     */
+    static String formatDuration(long seconds) {
+        return String.format("%02d:%02d:%02d", seconds / 3600, seconds / 60 % 60, seconds % 60);
+    }
+}
@@ -0,0 +1,59 @@
+package com.royal.CallData.util;
+
+/**
+ * Однобайтовое представление типа звонка для бинарных форматов: журнала CDR записей и колоночных отчетов.
+ * <p>
+ * Тип звонка — число от 1 до {@value Byte#MAX_VALUE} в виде строки из двух и более цифр ({@code "01"}, {@code "02"}),
+ * хранится своим значением {@code byte}; {@value #NONE} обозначает отсутствие типа. Раскодированные строки
+ * заранее созданы для всех значений, поэтому чтение записей не создает новых строк типа звонка.
+ */
+public final class CallTypeCodec {
+
+    /**
+     * Нет типа звонка ({@code null} в строковом виде).
+     */
+    public static final byte NONE = 0;
+
+    private static final String[] DECODED = new String[Byte.MAX_VALUE + 1];
+
+    static {
+        for (int value = 1; value <= Byte.MAX_VALUE; value++) {
+            DECODED[value] = String.format("%02d", value);
+        }
+    }
+
+    private CallTypeCodec() {
+    }
+
+    /**
+     * @param callType Тип звонка в строковом виде.
+     * @return Тип звонка в виде байта или {@link #NONE} для {@code null}.
+     * @throws IllegalArgumentException если тип звонка не число от 1 до {@value Byte#MAX_VALUE}.
+     */
+    public static byte encode(String callType) {
+        if (callType == null) {
+            return NONE;
+        }
+        try {
+            int value = Integer.parseInt(callType);
+            if (value > 0 && value <= Byte.MAX_VALUE) {
+                return (byte) value;
+            }
+        } catch (NumberFormatException ignored) {
+            // сообщение об ошибке ниже
+        }
+        throw new IllegalArgumentException("Тип звонка должен быть числом от 1 до " + Byte.MAX_VALUE + ": " + callType);
+    }
+
+    /**
+     * @param callType Тип звонка в виде байта.
+     * @return Тип звонка в строковом виде, не короче двух цифр, или {@code null} для {@link #NONE}.
+     * @throws IllegalArgumentException если значение отрицательное.
+     */
+    public static String decode(byte callType) {
+        if (callType < 0) {
+            throw new IllegalArgumentException("Некорректный тип звонка: " + callType);
+        }
+        return DECODED[callType];
+    }
+}
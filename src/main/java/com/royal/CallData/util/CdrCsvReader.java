@@ -0,0 +1,293 @@
+package com.royal.CallData.util;
+
+import com.royal.CallData.entity.CdrRecord;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+
+/**
+ * Потоковый разбор файлов CDR в формате строки отчета ({@link CdrRowEncoder}, {@link CdrRecord#toCdrString()}):
+ * {@code callType,callerMsisdn,receiverMsisdn,startTime,endTime}, время — в виде {@link LocalDateTime#toString()}.
+ * <p>
+ * Файл читается блоками в переиспользуемый буфер, строки разбираются прямо из байтов без промежуточных строк;
+ * строка, разорванная границей блока, копируется в отдельный переиспользуемый буфер. Номера сразу
+ * собираются в числовой вид ({@link MsisdnCodec}). Строки длиннее
+ * {@link #MAX_LINE_LENGTH} байт отклоняются без накопления в памяти, поэтому объем памяти не зависит
+ * от размера файла и длины строк в нем.
+ * <p>
+ * Строка принимается, если тип звонка "01" или "02", номера состоят из 1–15 цифр без ведущего нуля,
+ * оба времени заданы и время окончания не раньше времени начала. Пустые строки и заголовок
+ * {@code callType,...} в первой строке пропускаются. Переводы строк {@code \n} и {@code \r\n}.
+ * <p>
+ * Экземпляр не потокобезопасен.
+ */
+public final class CdrCsvReader {
+
+    /**
+     * Максимальная длина строки в байтах.
+     */
+    public static final int MAX_LINE_LENGTH = 1024;
+
+    private static final int FIELD_COUNT = 5;
+    private static final int MAX_MSISDN_DIGITS = 15;
+    private static final byte[] HEADER = "callType".getBytes(StandardCharsets.US_ASCII);
+
+    private final byte[] buffer;
+    private final byte[] line = new byte[MAX_LINE_LENGTH];
+    private final int[] fieldStarts = new int[FIELD_COUNT];
+    private final int[] fieldEnds = new int[FIELD_COUNT];
+
+    /**
+     * Получатель результатов разбора.
+     */
+    public interface RowHandler {
+
+        /**
+         * Принимает корректную строку.
+         *
+         * @param record Запись, собранная из строки.
+         */
+        void accept(CdrRecord record);
+
+        /**
+         * Сообщает об отклоненной строке.
+         *
+         * @param lineNumber Номер строки в файле, начиная с 1.
+         * @param reason     Причина отклонения.
+         */
+        void reject(long lineNumber, String reason);
+    }
+
+    public CdrCsvReader() {
+        this(64 * 1024);
+    }
+
+    /**
+     * @param bufferSize Размер буфера чтения в байтах.
+     */
+    public CdrCsvReader(int bufferSize) {
+        this.buffer = new byte[bufferSize];
+    }
+
+    /**
+     * Читает поток до конца и передает каждую непустую строку получателю.
+     * Поток не закрывается.
+     *
+     * @param in      Поток с содержимым файла.
+     * @param handler Получатель записей и отклоненных строк.
+     * @return Количество прочитанных непустых строк (без заголовка).
+     * @throws IOException если чтение не удалось.
+     */
+    public long read(InputStream in, RowHandler handler) throws IOException {
+        long lineNumber = 0;
+        long rows = 0;
+        int lineLength = 0;
+        boolean overflow = false;
+        int read;
+        while ((read = in.read(buffer)) > 0) {
+            int start = 0;
+            for (int i = 0; i < read; i++) {
+                if (buffer[i] != '\n') {
+                    continue;
+                }
+                lineNumber++;
+                if (overflow) {
+                    rows++;
+                    handler.reject(lineNumber, "строка длиннее " + MAX_LINE_LENGTH + " байт");
+                } else if (lineLength > 0) {
+                    if (append(buffer, start, i - start, lineLength) < 0) {
+                        rows++;
+                        handler.reject(lineNumber, "строка длиннее " + MAX_LINE_LENGTH + " байт");
+                    } else if (handleLine(line, 0, lineLength + i - start, lineNumber, handler)) {
+                        rows++;
+                    }
+                } else if (handleLine(buffer, start, i - start, lineNumber, handler)) {
+                    rows++;
+                }
+                lineLength = 0;
+                overflow = false;
+                start = i + 1;
+            }
+            // Хвост блока без перевода строки — начало следующей строки
+            if (start < read && !overflow) {
+                int appended = append(buffer, start, read - start, lineLength);
+                if (appended < 0) {
+                    overflow = true;
+                } else {
+                    lineLength = appended;
+                }
+            }
+        }
+        if (overflow || lineLength > 0) {
+            lineNumber++;
+            if (overflow) {
+                rows++;
+                handler.reject(lineNumber, "строка длиннее " + MAX_LINE_LENGTH + " байт");
+            } else if (handleLine(line, 0, lineLength, lineNumber, handler)) {
+                rows++;
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Дописывает часть строки в буфер строки.
+     *
+     * @return Новая длина строки или {@code -1}, если строка не помещается в буфер.
+     */
+    private int append(byte[] source, int offset, int length, int lineLength) {
+        if (lineLength + length > line.length) {
+            return -1;
+        }
+        System.arraycopy(source, offset, line, lineLength, length);
+        return lineLength + length;
+    }
+
+    /**
+     * Разбирает строку и передает результат получателю.
+     *
+     * @return {@code false}, если строка пустая или является заголовком.
+     */
+    private boolean handleLine(byte[] bytes, int offset, int length, long lineNumber, RowHandler handler) {
+        if (length > 0 && bytes[offset + length - 1] == '\r') {
+            length--;
+        }
+        if (length == 0 || (lineNumber == 1 && startsWith(bytes, offset, length, HEADER))) {
+            return false;
+        }
+        if (length > MAX_LINE_LENGTH) {
+            handler.reject(lineNumber, "строка длиннее " + MAX_LINE_LENGTH + " байт");
+            return true;
+        }
+        CdrRecord record;
+        try {
+            record = parse(bytes, offset, length);
+        } catch (IllegalArgumentException | DateTimeException e) {
+            handler.reject(lineNumber, e.getMessage());
+            return true;
+        }
+        handler.accept(record);
+        return true;
+    }
+
+    private CdrRecord parse(byte[] bytes, int offset, int length) {
+        int field = 0;
+        fieldStarts[0] = offset;
+        for (int i = offset; i < offset + length; i++) {
+            if (bytes[i] == ',') {
+                if (field == FIELD_COUNT - 1) {
+                    throw new IllegalArgumentException("больше " + FIELD_COUNT + " полей");
+                }
+                fieldEnds[field++] = i;
+                fieldStarts[field] = i + 1;
+            }
+        }
+        if (field != FIELD_COUNT - 1) {
+            throw new IllegalArgumentException("ожидается " + FIELD_COUNT + " полей через запятую");
+        }
+        fieldEnds[field] = offset + length;
+
+        String callType = callType(bytes, fieldStarts[0], fieldEnds[0]);
+        long caller = msisdn(bytes, fieldStarts[1], fieldEnds[1], "номер звонящего");
+        long receiver = msisdn(bytes, fieldStarts[2], fieldEnds[2], "номер принимающего");
+        LocalDateTime startTime = timestamp(bytes, fieldStarts[3], fieldEnds[3], "время начала");
+        LocalDateTime endTime = timestamp(bytes, fieldStarts[4], fieldEnds[4], "время окончания");
+        if (endTime.isBefore(startTime)) {
+            throw new IllegalArgumentException("время окончания раньше времени начала");
+        }
+        return new CdrRecord(callType, caller, receiver, startTime, endTime);
+    }
+
+    private static String callType(byte[] bytes, int start, int end) {
+        if (end - start == 2 && bytes[start] == '0') {
+            if (bytes[start + 1] == '1') {
+                return "01";
+            }
+            if (bytes[start + 1] == '2') {
+                return "02";
+            }
+        }
+        throw new IllegalArgumentException("тип звонка должен быть 01 или 02");
+    }
+
+    private static long msisdn(byte[] bytes, int start, int end, String name) {
+        if (end - start < 1 || end - start > MAX_MSISDN_DIGITS) {
+            throw new IllegalArgumentException(name + " должен содержать от 1 до " + MAX_MSISDN_DIGITS + " цифр");
+        }
+        long value = 0;
+        for (int i = start; i < end; i++) {
+            int digit = bytes[i] - '0';
+            if (digit < 0 || digit > 9) {
+                throw new IllegalArgumentException(name + " должен состоять из цифр");
+            }
+            value = value * 10 + digit;
+        }
+        if (bytes[start] == '0') {
+            throw new IllegalArgumentException(name + " не должен начинаться с нуля");
+        }
+        return value;
+    }
+
+    /**
+     * Разбирает время в формате {@link LocalDateTime#toString()}: {@code uuuu-MM-dd'T'HH:mm[:ss[.n]]},
+     * дробная часть из 1–9 цифр.
+     */
+    private static LocalDateTime timestamp(byte[] bytes, int start, int end, String name) {
+        int length = end - start;
+        if (length < 16 || bytes[start + 4] != '-' || bytes[start + 7] != '-' || bytes[start + 10] != 'T'
+                || bytes[start + 13] != ':') {
+            throw new IllegalArgumentException(name + " должно быть в формате yyyy-MM-ddTHH:mm[:ss[.n]]");
+        }
+        int year = digits(bytes, start, 4, name);
+        int month = digits(bytes, start + 5, 2, name);
+        int day = digits(bytes, start + 8, 2, name);
+        int hour = digits(bytes, start + 11, 2, name);
+        int minute = digits(bytes, start + 14, 2, name);
+        int second = 0;
+        int nano = 0;
+        if (length > 16) {
+            if (length < 19 || bytes[start + 16] != ':') {
+                throw new IllegalArgumentException(name + " должно быть в формате yyyy-MM-ddTHH:mm[:ss[.n]]");
+            }
+            second = digits(bytes, start + 17, 2, name);
+            if (length > 19) {
+                int fraction = length - 20;
+                if (bytes[start + 19] != '.' || fraction < 1 || fraction > 9) {
+                    throw new IllegalArgumentException(name + ": некорректная дробная часть секунд");
+                }
+                nano = digits(bytes, start + 20, fraction, name);
+                for (int i = fraction; i < 9; i++) {
+                    nano *= 10;
+                }
+            }
+        }
+        return LocalDateTime.of(year, month, day, hour, minute, second, nano);
+    }
+
+    private static int digits(byte[] bytes, int start, int count, String name) {
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            int digit = bytes[i] - '0';
+            if (digit < 0 || digit > 9) {
+                throw new IllegalArgumentException(name + " должно быть в формате yyyy-MM-ddTHH:mm[:ss[.n]]");
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    private static boolean startsWith(byte[] bytes, int offset, int length, byte[] prefix) {
+        if (length < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (bytes[offset + i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,156 @@
+package com.royal.CallData.util;
+
+import com.royal.CallData.entity.CdrRecord;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.time.LocalDateTime;
+
+/**
+ * Кодировщик строк отчета CDR без промежуточных строк.
+ * Строка формируется в переиспользуемом буфере символов, а время форматируется вручную
+ * в том же виде, что и {@link LocalDateTime#toString()}, поэтому результат побайтно совпадает
+ * с форматом {@code callType,callerMsisdn,receiverMsisdn,startTime,endTime}. Номера пишутся цифрами
+ * прямо из числового вида ({@link CdrRecord#callerNumber()}), без преобразования в строку.
+ * <p>
+ * Экземпляр не потокобезопасен: каждая задача формирования отчета использует собственный кодировщик.
+ */
+public final class CdrRowEncoder {
+
+    private static final int TIMESTAMP_MAX_LENGTH = 35;
+    private static final int MSISDN_MAX_LENGTH = 19;
+    private static final String NULL = "null";
+
+    private char[] buffer = new char[128];
+
+    /**
+     * Формирует строку отчета для записи, как это делает {@link CdrRecord#toCdrString()}.
+     *
+     * @param record Запись CDR.
+     * @return Строка отчета без перевода строки.
+     */
+    public static String toCdrString(CdrRecord record) {
+        CdrRowEncoder encoder = new CdrRowEncoder();
+        int length = encoder.encode(record);
+        return new String(encoder.buffer, 0, length);
+    }
+
+    /**
+     * Пишет строку отчета для записи, завершенную переводом строки, одним вызовом {@link Writer#write(char[], int, int)}.
+     *
+     * @param record Запись CDR.
+     * @param writer Приемник строк отчета.
+     * @throws IOException если запись не удалась.
+     */
+    public void writeRow(CdrRecord record, Writer writer) throws IOException {
+        int length = encode(record);
+        buffer[length++] = '\n';
+        writer.write(buffer, 0, length);
+    }
+
+    /**
+     * Кодирует запись в буфер.
+     *
+     * @param record Запись CDR.
+     * @return Длина строки отчета в буфере.
+     */
+    private int encode(CdrRecord record) {
+        String callType = String.valueOf(record.getCallType());
+        LocalDateTime startTime = record.getStartTime();
+        LocalDateTime endTime = record.getEndTime();
+
+        ensureCapacity(callType.length() + 2 * MSISDN_MAX_LENGTH + 2 * TIMESTAMP_MAX_LENGTH + 5);
+
+        int pos = putString(callType, 0);
+        buffer[pos++] = ',';
+        pos = putMsisdn(record.callerNumber(), pos);
+        buffer[pos++] = ',';
+        pos = putMsisdn(record.receiverNumber(), pos);
+        buffer[pos++] = ',';
+        pos = putTimestamp(startTime, pos);
+        buffer[pos++] = ',';
+        return putTimestamp(endTime, pos);
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (buffer.length < capacity) {
+            buffer = new char[Math.max(capacity, buffer.length * 2)];
+        }
+    }
+
+    private int putString(String value, int pos) {
+        value.getChars(0, value.length(), buffer, pos);
+        return pos + value.length();
+    }
+
+    /**
+     * Пишет номер цифрами или {@code null}, если номера нет, как {@link String#valueOf(Object)} для строкового вида.
+     */
+    private int putMsisdn(long number, int pos) {
+        if (number == MsisdnCodec.NONE) {
+            return putString(NULL, pos);
+        }
+        int end = pos + digitCount(number);
+        for (int i = end - 1; i >= pos; i--) {
+            buffer[i] = (char) ('0' + number % 10);
+            number /= 10;
+        }
+        return end;
+    }
+
+    private static int digitCount(long number) {
+        int count = 1;
+        while (number >= 10) {
+            number /= 10;
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Форматирует время так же, как {@link LocalDateTime#toString()}: {@code uuuu-MM-dd'T'HH:mm},
+     * секунды выводятся только если секунды или наносекунды ненулевые, дробная часть — группами по три цифры.
+     */
+    private int putTimestamp(LocalDateTime value, int pos) {
+        int year = value.getYear();
+        if (year < 0 || year > 9999) {
+            // Редкий случай годов вне четырехзначного диапазона форматируется стандартно
+            return putString(value.toString(), pos);
+        }
+        pos = putDigits(year, 4, pos);
+        buffer[pos++] = '-';
+        pos = putDigits(value.getMonthValue(), 2, pos);
+        buffer[pos++] = '-';
+        pos = putDigits(value.getDayOfMonth(), 2, pos);
+        buffer[pos++] = 'T';
+        pos = putDigits(value.getHour(), 2, pos);
+        buffer[pos++] = ':';
+        pos = putDigits(value.getMinute(), 2, pos);
+
+        int second = value.getSecond();
+        int nano = value.getNano();
+        if (second > 0 || nano > 0) {
+            buffer[pos++] = ':';
+            pos = putDigits(second, 2, pos);
+            if (nano > 0) {
+                buffer[pos++] = '.';
+                if (nano % 1_000_000 == 0) {
+                    pos = putDigits(nano / 1_000_000, 3, pos);
+                } else if (nano % 1000 == 0) {
+                    pos = putDigits(nano / 1000, 6, pos);
+                } else {
+                    pos = putDigits(nano, 9, pos);
+                }
+            }
+        }
+        return pos;
+    }
+
+    private int putDigits(int value, int width, int pos) {
+        for (int i = pos + width - 1; i >= pos; i--) {
+            buffer[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+        return pos + width;
+    }
+}
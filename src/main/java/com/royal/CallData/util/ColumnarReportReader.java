@@ -0,0 +1,297 @@
+package com.royal.CallData.util;
+
+import com.royal.CallData.entity.CdrRecord;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Чтение отчета CDR в колоночном формате, записанного {@link ColumnarReportWriter}.
+ * При открытии читаются только словарь MSISDN и индекс блоков в конце файла; блоки читаются по запросу,
+ * поэтому по индексу можно пропустить блоки вне нужного интервала времени, не читая их.
+ * <pre>{@code
+ * try (ColumnarReportReader reader = ColumnarReportReader.open(path)) {
+ *     for (int i = 0; i < reader.blockCount(); i++) {
+ *         ColumnarReportReader.Block block = reader.readBlock(i);
+ *         for (int row = 0; row < block.rowCount(); row++) {
+ *             long duration = block.endEpochSecond(row) - block.startEpochSecond(row);
+ *         }
+ *     }
+ * }
+ * }</pre>
+ * Экземпляр не потокобезопасен.
+ */
+public final class ColumnarReportReader implements Closeable {
+
+    private static final int TRAILER_SIZE = Long.BYTES + ColumnarReportWriter.MAGIC.length;
+    private static final int BLOCK_HEADER_SIZE = Integer.BYTES * (1 + ColumnarReportWriter.COLUMN_COUNT);
+
+    private final FileChannel channel;
+    private final String[] dictionary;
+    private final List<BlockInfo> blocks;
+
+    /**
+     * Описание блока из индекса файла.
+     *
+     * @param offset         Смещение блока от начала файла.
+     * @param rowCount       Количество записей в блоке.
+     * @param minStartSecond Минимальное время начала звонка в блоке, секунды эпохи UTC.
+     * @param maxStartSecond Максимальное время начала звонка в блоке, секунды эпохи UTC.
+     */
+    public record BlockInfo(long offset, int rowCount, long minStartSecond, long maxStartSecond) {
+    }
+
+    private ColumnarReportReader(FileChannel channel, String[] dictionary, List<BlockInfo> blocks) {
+        this.channel = channel;
+        this.dictionary = dictionary;
+        this.blocks = blocks;
+    }
+
+    /**
+     * Открывает файл и читает словарь и индекс блоков.
+     *
+     * @param file Файл отчета в колоночном формате.
+     * @return Читатель отчета.
+     * @throws IOException если файл не удалось прочитать или он не в колоночном формате.
+     */
+    public static ColumnarReportReader open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            ByteBuffer header = read(channel, 0, ColumnarReportWriter.MAGIC.length + 1);
+            checkMagic(header);
+            if (header.get() != ColumnarReportWriter.VERSION) {
+                throw new IOException("Неподдерживаемая версия колоночного формата: " + file);
+            }
+
+            ByteBuffer trailer = read(channel, size - TRAILER_SIZE, TRAILER_SIZE);
+            long footerOffset = trailer.getLong();
+            checkMagic(trailer);
+            ByteBuffer footer = read(channel, footerOffset, (int) (size - TRAILER_SIZE - footerOffset));
+
+            String[] dictionary = new String[footer.getInt()];
+            for (int i = 0; i < dictionary.length; i++) {
+                byte[] bytes = new byte[(int) readVarLong(footer)];
+                footer.get(bytes);
+                dictionary[i] = new String(bytes, StandardCharsets.UTF_8);
+            }
+            int blockCount = footer.getInt();
+            List<BlockInfo> blocks = new ArrayList<>(blockCount);
+            for (int i = 0; i < blockCount; i++) {
+                blocks.add(new BlockInfo(footer.getLong(), footer.getInt(), footer.getLong(), footer.getLong()));
+            }
+            return new ColumnarReportReader(channel, dictionary, List.copyOf(blocks));
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e instanceof IOException io ? io : new IOException("Поврежденный файл колоночного отчета: " + file, e);
+        }
+    }
+
+    /**
+     * @return Словарь MSISDN файла; номер {@code i} в столбцах соответствует элементу {@code i - 1}.
+     */
+    public List<String> dictionary() {
+        return Arrays.asList(dictionary);
+    }
+
+    /**
+     * @return Индекс блоков файла.
+     */
+    public List<BlockInfo> blocks() {
+        return blocks;
+    }
+
+    public int blockCount() {
+        return blocks.size();
+    }
+
+    /**
+     * @return Общее количество записей в файле.
+     */
+    public long rowCount() {
+        return blocks.stream().mapToLong(BlockInfo::rowCount).sum();
+    }
+
+    /**
+     * Читает и декодирует блок.
+     *
+     * @param index Номер блока.
+     * @return Столбцы блока.
+     * @throws IOException если блок не удалось прочитать.
+     */
+    public Block readBlock(int index) throws IOException {
+        BlockInfo info = blocks.get(index);
+        ByteBuffer header = read(channel, info.offset(), BLOCK_HEADER_SIZE);
+        int rows = header.getInt();
+        int dataSize = 0;
+        int[] columnSizes = new int[ColumnarReportWriter.COLUMN_COUNT];
+        for (int i = 0; i < columnSizes.length; i++) {
+            columnSizes[i] = header.getInt();
+            dataSize += columnSizes[i];
+        }
+        ByteBuffer data = read(channel, info.offset() + BLOCK_HEADER_SIZE, dataSize);
+
+        byte[] callTypes = new byte[rows];
+        data.get(callTypes);
+        int[] callers = new int[rows];
+        int[] receivers = new int[rows];
+        long[] starts = new long[rows];
+        long[] ends = new long[rows];
+        for (int i = 0; i < rows; i++) {
+            callers[i] = (int) readVarLong(data);
+        }
+        for (int i = 0; i < rows; i++) {
+            receivers[i] = (int) readVarLong(data);
+        }
+        long previous = 0;
+        for (int i = 0; i < rows; i++) {
+            previous += unzigzag(readVarLong(data));
+            starts[i] = previous;
+        }
+        for (int i = 0; i < rows; i++) {
+            long duration = readVarLong(data);
+            ends[i] = duration == 0 ? Long.MIN_VALUE : starts[i] + unzigzag(duration - 1);
+        }
+        return new Block(dictionary, callTypes, callers, receivers, starts, ends);
+    }
+
+    /**
+     * Читает все записи файла в виде сущностей CDR. Удобно для небольших отчетов и проверок;
+     * для анализа больших файлов следует работать со столбцами блоков напрямую.
+     *
+     * @return Записи в порядке записи в файл.
+     * @throws IOException если файл не удалось прочитать.
+     */
+    public List<CdrRecord> readRecords() throws IOException {
+        List<CdrRecord> records = new ArrayList<>((int) rowCount());
+        for (int i = 0; i < blocks.size(); i++) {
+            Block block = readBlock(i);
+            for (int row = 0; row < block.rowCount(); row++) {
+                records.add(block.toRecord(row));
+            }
+        }
+        return records;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private static ByteBuffer read(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException("Файл колоночного отчета обрезан");
+            }
+        }
+        return buffer.flip();
+    }
+
+    private static void checkMagic(ByteBuffer buffer) throws IOException {
+        byte[] magic = new byte[ColumnarReportWriter.MAGIC.length];
+        buffer.get(magic);
+        if (!Arrays.equals(magic, ColumnarReportWriter.MAGIC)) {
+            throw new IOException("Файл не в колоночном формате отчета");
+        }
+    }
+
+    private static long readVarLong(ByteBuffer buffer) {
+        long value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * Декодированные столбцы блока.
+     */
+    public static final class Block {
+        private final String[] dictionary;
+        private final byte[] callTypes;
+        private final int[] callers;
+        private final int[] receivers;
+        private final long[] starts;
+        private final long[] ends;
+
+        private Block(String[] dictionary, byte[] callTypes, int[] callers, int[] receivers, long[] starts, long[] ends) {
+            this.dictionary = dictionary;
+            this.callTypes = callTypes;
+            this.callers = callers;
+            this.receivers = receivers;
+            this.starts = starts;
+            this.ends = ends;
+        }
+
+        public int rowCount() {
+            return starts.length;
+        }
+
+        /**
+         * @return Числовой тип звонка ({@code 1} для "01"), {@code 0}, если тип не задан.
+         */
+        public byte callType(int row) {
+            return callTypes[row];
+        }
+
+        /**
+         * @return Номер звонящего в словаре или {@code 0}, если номер не задан.
+         */
+        public int callerId(int row) {
+            return callers[row];
+        }
+
+        /**
+         * @return Номер принимающего абонента в словаре или {@code 0}, если номер не задан.
+         */
+        public int receiverId(int row) {
+            return receivers[row];
+        }
+
+        public String msisdn(int id) {
+            return id == 0 ? null : dictionary[id - 1];
+        }
+
+        public long startEpochSecond(int row) {
+            return starts[row];
+        }
+
+        /**
+         * @return Время окончания в секундах эпохи UTC или {@link Long#MIN_VALUE}, если оно не задано.
+         */
+        public long endEpochSecond(int row) {
+            return ends[row];
+        }
+
+        /**
+         * Собирает сущность CDR из строки блока; тип звонка восстанавливается в двухзначном виде ("01").
+         */
+        public CdrRecord toRecord(int row) {
+            return new CdrRecord(
+                    CallTypeCodec.decode(callTypes[row]),
+                    msisdn(callers[row]),
+                    msisdn(receivers[row]),
+                    LocalDateTime.ofEpochSecond(starts[row], 0, ZoneOffset.UTC),
+                    ends[row] == Long.MIN_VALUE ? null : LocalDateTime.ofEpochSecond(ends[row], 0, ZoneOffset.UTC));
+        }
+    }
+}
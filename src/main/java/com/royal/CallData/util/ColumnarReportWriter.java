@@ -0,0 +1,261 @@
+package com.royal.CallData.util;
+
+import com.royal.CallData.entity.CdrRecord;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Запись отчета CDR в бинарном колоночном формате, который читается {@link ColumnarReportReader}.
+ * <p>
+ * Записи накапливаются в блоки фиксированного размера, в блоке каждый столбец хранится отдельно:
+ * <ul>
+ *     <li>тип звонка — один байт на запись (числовое значение {@code callType}, 0 — нет значения);</li>
+ *     <li>номера звонящего и принимающего — varint-номера в словаре MSISDN (0 — нет значения);</li>
+ *     <li>время начала — секунды эпохи UTC, разностное кодирование относительно предыдущей записи (zigzag varint);</li>
+ *     <li>время окончания — длительность звонка в секундах (zigzag varint + 1, 0 — нет значения).</li>
+ * </ul>
+ * Словарь MSISDN и индекс блоков (смещение, число записей, минимальное и максимальное время начала)
+ * пишутся в конце файла, за ними — смещение этого индекса и сигнатура. Поэтому файл пишется потоком,
+ * без возврата к уже записанным данным, а читатель может пропускать блоки и столбцы.
+ * <p>
+ * Экземпляр не потокобезопасен: каждая задача формирования отчета использует собственный писатель.
+ */
+public final class ColumnarReportWriter implements Closeable {
+
+    static final byte[] MAGIC = {'C', 'D', 'R', 'C'};
+    static final byte VERSION = 1;
+    static final int COLUMN_COUNT = 5;
+    static final int DEFAULT_BLOCK_ROWS = 32 * 1024;
+
+    private final OutputStream out;
+    private final int blockRows;
+    private final Map<Long, Integer> dictionary = new HashMap<>();
+    private final List<Long> dictionaryValues = new ArrayList<>();
+    private final List<long[]> blockIndex = new ArrayList<>();
+
+    private final byte[] callTypes;
+    private final int[] callers;
+    private final int[] receivers;
+    private final long[] starts;
+    private final long[] durations;
+    private final VarIntBuffer[] columns = new VarIntBuffer[COLUMN_COUNT];
+    private final byte[] scratch = new byte[8];
+    private int rows;
+    private long position;
+    private boolean closed;
+
+    /**
+     * @param out Поток записи файла; закрывается вместе с писателем.
+     * @throws IOException если не удалось записать заголовок.
+     */
+    public ColumnarReportWriter(OutputStream out) throws IOException {
+        this(out, DEFAULT_BLOCK_ROWS);
+    }
+
+    /**
+     * @param out       Поток записи файла; закрывается вместе с писателем.
+     * @param blockRows Количество записей в блоке.
+     * @throws IOException если не удалось записать заголовок.
+     */
+    public ColumnarReportWriter(OutputStream out, int blockRows) throws IOException {
+        this.out = out;
+        this.blockRows = blockRows;
+        this.callTypes = new byte[blockRows];
+        this.callers = new int[blockRows];
+        this.receivers = new int[blockRows];
+        this.starts = new long[blockRows];
+        this.durations = new long[blockRows];
+        for (int i = 0; i < COLUMN_COUNT; i++) {
+            columns[i] = new VarIntBuffer();
+        }
+        write(MAGIC, MAGIC.length);
+        scratch[0] = VERSION;
+        write(scratch, 1);
+    }
+
+    /**
+     * Добавляет запись в текущий блок; заполненный блок сразу пишется в поток.
+     *
+     * @param record Запись CDR с заданным временем начала.
+     * @throws IOException              если запись не удалась.
+     * @throws IllegalArgumentException если у записи нет времени начала или тип звонка не числовой.
+     */
+    public void write(CdrRecord record) throws IOException {
+        if (record.getStartTime() == null) {
+            throw new IllegalArgumentException("Колоночный формат требует время начала звонка: " + record);
+        }
+        long start = epochSecond(record.getStartTime());
+        callTypes[rows] = CallTypeCodec.encode(record.getCallType());
+        callers[rows] = idOf(record.callerNumber());
+        receivers[rows] = idOf(record.receiverNumber());
+        starts[rows] = start;
+        durations[rows] = record.getEndTime() == null ? 0 : zigzag(epochSecond(record.getEndTime()) - start) + 1;
+        if (++rows == blockRows) {
+            flushBlock();
+        }
+    }
+
+    /**
+     * Дописывает неполный блок, словарь и индекс блоков и закрывает поток.
+     *
+     * @throws IOException если запись не удалась.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            flushBlock();
+            long footerOffset = position;
+            VarIntBuffer footer = new VarIntBuffer();
+            footer.writeInt(dictionaryValues.size());
+            for (long msisdn : dictionaryValues) {
+                byte[] bytes = Long.toString(msisdn).getBytes(StandardCharsets.UTF_8);
+                footer.writeVarLong(bytes.length);
+                footer.writeBytes(bytes);
+            }
+            footer.writeInt(blockIndex.size());
+            for (long[] block : blockIndex) {
+                footer.writeLong(block[0]);
+                footer.writeInt((int) block[1]);
+                footer.writeLong(block[2]);
+                footer.writeLong(block[3]);
+            }
+            footer.writeLong(footerOffset);
+            footer.writeBytes(MAGIC);
+            write(footer.data, footer.size);
+        } finally {
+            out.close();
+        }
+    }
+
+    private void flushBlock() throws IOException {
+        if (rows == 0) {
+            return;
+        }
+        for (VarIntBuffer column : columns) {
+            column.reset();
+        }
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        long previous = 0;
+        for (int i = 0; i < rows; i++) {
+            columns[0].writeByte(callTypes[i]);
+            columns[1].writeVarLong(callers[i]);
+            columns[2].writeVarLong(receivers[i]);
+            columns[3].writeVarLong(zigzag(starts[i] - previous));
+            columns[4].writeVarLong(durations[i]);
+            previous = starts[i];
+            min = Math.min(min, starts[i]);
+            max = Math.max(max, starts[i]);
+        }
+        blockIndex.add(new long[]{position, rows, min, max});
+
+        writeInt(rows);
+        for (VarIntBuffer column : columns) {
+            writeInt(column.size);
+        }
+        for (VarIntBuffer column : columns) {
+            write(column.data, column.size);
+        }
+        rows = 0;
+    }
+
+    private int idOf(long msisdn) {
+        if (msisdn == MsisdnCodec.NONE) {
+            return 0;
+        }
+        Integer id = dictionary.get(msisdn);
+        if (id == null) {
+            dictionaryValues.add(msisdn);
+            id = dictionaryValues.size();
+            dictionary.put(msisdn, id);
+        }
+        return id;
+    }
+
+    static long epochSecond(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private void writeInt(int value) throws IOException {
+        scratch[0] = (byte) (value >>> 24);
+        scratch[1] = (byte) (value >>> 16);
+        scratch[2] = (byte) (value >>> 8);
+        scratch[3] = (byte) value;
+        write(scratch, 4);
+    }
+
+    private void write(byte[] bytes, int length) throws IOException {
+        out.write(bytes, 0, length);
+        position += length;
+    }
+
+    /**
+     * Растущий буфер столбца с записью чисел переменной длины (7 бит на байт) и чисел фиксированной длины.
+     */
+    private static final class VarIntBuffer {
+        private byte[] data = new byte[1024];
+        private int size;
+
+        void reset() {
+            size = 0;
+        }
+
+        void writeByte(int value) {
+            ensure(1);
+            data[size++] = (byte) value;
+        }
+
+        void writeVarLong(long value) {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                data[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            data[size++] = (byte) value;
+        }
+
+        void writeInt(int value) {
+            ensure(4);
+            for (int shift = 24; shift >= 0; shift -= 8) {
+                data[size++] = (byte) (value >>> shift);
+            }
+        }
+
+        void writeLong(long value) {
+            ensure(8);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                data[size++] = (byte) (value >>> shift);
+            }
+        }
+
+        void writeBytes(byte[] bytes) {
+            ensure(bytes.length);
+            System.arraycopy(bytes, 0, data, size, bytes.length);
+            size += bytes.length;
+        }
+
+        private void ensure(int extra) {
+            if (size + extra > data.length) {
+                data = Arrays.copyOf(data, Math.max(data.length * 2, size + extra));
+            }
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package com.royal.CallData.util;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.LongSupplier;
+
+/**
+ * Потокобезопасный кэш с ограничением по времени жизни записей и по их количеству.
+ * При превышении максимального размера вытесняется запись, к которой дольше всего не обращались;
+ * просроченные записи не возвращаются и удаляются при обращении или при вызове {@link #evictExpired()}.
+ * {@link #containsKey(Object)} проверяет запись, не считаясь обращением: не меняет порядок вытеснения
+ * и не удаляет просроченные записи.
+ * О вытеснении и истечении записей можно узнать через слушатель; он вызывается под блокировкой кэша,
+ * поэтому должен быть быстрым.
+ *
+ * @param <K> Тип ключа.
+ * @param <V> Тип значения.
+ */
+public class ExpiringCache<K, V> {
+
+    private final long ttlMillis;
+    private final int maxEntries;
+    private final LongSupplier clock;
+    private final BiConsumer<K, V> evictionListener;
+    private final LinkedHashMap<K, Entry<V>> entries;
+
+    private record Entry<V>(V value, long expiresAt) {
+    }
+
+    /**
+     * @param ttlMillis  Время жизни записи в миллисекундах.
+     * @param maxEntries Максимальное количество записей.
+     */
+    public ExpiringCache(long ttlMillis, int maxEntries) {
+        this(ttlMillis, maxEntries, System::currentTimeMillis);
+    }
+
+    /**
+     * @param ttlMillis  Время жизни записи в миллисекундах.
+     * @param maxEntries Максимальное количество записей.
+     * @param clock      Источник текущего времени в миллисекундах.
+     */
+    public ExpiringCache(long ttlMillis, int maxEntries, LongSupplier clock) {
+        this(ttlMillis, maxEntries, clock, (key, value) -> {
+        });
+    }
+
+    /**
+     * @param ttlMillis        Время жизни записи в миллисекундах.
+     * @param maxEntries       Максимальное количество записей.
+     * @param clock            Источник текущего времени в миллисекундах.
+     * @param evictionListener Вызывается для записей, удаленных из-за истечения времени жизни или переполнения.
+     */
+    public ExpiringCache(long ttlMillis, int maxEntries, LongSupplier clock, BiConsumer<K, V> evictionListener) {
+        this.ttlMillis = ttlMillis;
+        this.maxEntries = maxEntries;
+        this.clock = clock;
+        this.evictionListener = evictionListener;
+        // Порядок вставки; обращение переносит запись в конец вручную, чтобы containsKey не менял порядок
+        this.entries = new LinkedHashMap<>(16, 0.75f, false) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                if (size() > ExpiringCache.this.maxEntries) {
+                    ExpiringCache.this.evictionListener.accept(eldest.getKey(), eldest.getValue().value());
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Возвращает значение по ключу, если запись существует и не просрочена.
+     *
+     * @param key Ключ.
+     * @return Значение или {@code null}.
+     */
+    public synchronized V get(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expiresAt() <= clock.getAsLong()) {
+            entries.remove(key);
+            evictionListener.accept(key, entry.value());
+            return null;
+        }
+        entries.remove(key);
+        entries.put(key, entry);
+        return entry.value();
+    }
+
+    /**
+     * Проверяет, есть ли непросроченная запись, не считая проверку обращением к записи.
+     *
+     * @param key Ключ.
+     * @return {@code true}, если запись существует и не просрочена.
+     */
+    public synchronized boolean containsKey(K key) {
+        Entry<V> entry = entries.get(key);
+        return entry != null && entry.expiresAt() > clock.getAsLong();
+    }
+
+    /**
+     * Сохраняет значение; время жизни отсчитывается с момента сохранения.
+     *
+     * @param key   Ключ.
+     * @param value Значение.
+     */
+    public synchronized void put(K key, V value) {
+        entries.remove(key);
+        entries.put(key, new Entry<>(value, clock.getAsLong() + ttlMillis));
+    }
+
+    /**
+     * Атомарно вычисляет новое значение по текущему (непросроченному) значению ключа.
+     * Если функция возвращает то же значение, время жизни записи не продлевается;
+     * если возвращает {@code null}, запись удаляется.
+     *
+     * @param key      Ключ.
+     * @param function Функция от ключа и текущего значения (или {@code null}).
+     * @return Новое значение.
+     */
+    public synchronized V compute(K key, BiFunction<K, V, V> function) {
+        V current = get(key);
+        V updated = function.apply(key, current);
+        if (updated == null) {
+            entries.remove(key);
+        } else if (updated != current) {
+            put(key, updated);
+        }
+        return updated;
+    }
+
+    /**
+     * Удаляет запись, только если она связана с указанным значением.
+     *
+     * @param key   Ключ.
+     * @param value Ожидаемое значение.
+     * @return {@code true}, если запись была удалена.
+     */
+    public synchronized boolean remove(K key, V value) {
+        Entry<V> entry = entries.get(key);
+        if (entry != null && entry.value().equals(value)) {
+            entries.remove(key);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Удаляет все просроченные записи.
+     *
+     * @return Количество удаленных записей.
+     */
+    public synchronized int evictExpired() {
+        long now = clock.getAsLong();
+        int removed = 0;
+        Iterator<Map.Entry<K, Entry<V>>> iterator = entries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<K, Entry<V>> entry = iterator.next();
+            if (entry.getValue().expiresAt() <= now) {
+                iterator.remove();
+                evictionListener.accept(entry.getKey(), entry.getValue().value());
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * @return Количество записей, включая еще не удаленные просроченные.
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+}
@@ -0,0 +1,66 @@
+package com.royal.CallData.util;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Утилита для кодирования курсора постраничной выборки CDR записей.
+ * Курсор содержит время начала звонка и идентификатор последней записи страницы
+ * и передается клиенту в виде непрозрачной строки (Base64 URL без дополнения).
+ */
+public class PageTokenUtil {
+
+    /**
+     * Курсор, с которого начинается первая страница: раньше любой записи.
+     */
+    public static final Cursor FIRST_PAGE = new Cursor(LocalDateTime.of(1, 1, 1, 0, 0), Long.MIN_VALUE);
+
+    private static final char SEPARATOR = '|';
+
+    /**
+     * Позиция в упорядоченной по (startTime, id) выборке.
+     *
+     * @param startTime Время начала звонка.
+     * @param id        Идентификатор записи.
+     */
+    public record Cursor(LocalDateTime startTime, long id) {
+    }
+
+    /**
+     * Кодирует курсор в токен следующей страницы.
+     *
+     * @param startTime Время начала звонка последней записи страницы.
+     * @param id        Идентификатор последней записи страницы.
+     * @return Непрозрачный токен.
+     */
+    public static String encode(LocalDateTime startTime, long id) {
+        String value = startTime.toString() + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Декодирует токен страницы. Пустой токен соответствует первой странице.
+     *
+     * @param token Токен, полученный клиентом с предыдущей страницей.
+     * @return Курсор, после которого начинается страница.
+     * @throws IllegalArgumentException если токен поврежден.
+     */
+    public static Cursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return FIRST_PAGE;
+        }
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = value.lastIndexOf(SEPARATOR);
+            if (separator < 0) {
+                throw new IllegalArgumentException("Некорректный токен страницы");
+            }
+            return new Cursor(LocalDateTime.parse(value.substring(0, separator)),
+                    Long.parseLong(value.substring(separator + 1)));
+        } catch (DateTimeParseException | NumberFormatException e) {
+            throw new IllegalArgumentException("Некорректный токен страницы", e);
+        }
+    }
+}
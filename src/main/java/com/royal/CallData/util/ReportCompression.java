@@ -0,0 +1,129 @@
+package com.royal.CallData.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Сжатие файлов отчетов. Файл сжимается один раз при формировании отчета,
+ * а при скачивании отдается как есть с заголовком {@code Content-Encoding}, если клиент его принимает.
+ * Способ сжатия определяется по расширению файла, поэтому файлы, созданные до смены настройки, отдаются корректно.
+ */
+public enum ReportCompression {
+    /** Файл без сжатия. */
+    NONE("", null),
+    /** Файл в формате gzip. */
+    GZIP(".gz", "gzip");
+
+    private final String extension;
+    private final String contentEncoding;
+
+    ReportCompression(String extension, String contentEncoding) {
+        this.extension = extension;
+        this.contentEncoding = contentEncoding;
+    }
+
+    /**
+     * @return Расширение, добавляемое к имени файла отчета.
+     */
+    public String extension() {
+        return extension;
+    }
+
+    /**
+     * @return Значение заголовка {@code Content-Encoding} или {@code null} для файлов без сжатия.
+     */
+    public String contentEncoding() {
+        return contentEncoding;
+    }
+
+    /**
+     * Оборачивает поток записи файла отчета.
+     *
+     * @param out        Поток записи в файл.
+     * @param bufferSize Размер буфера сжатия.
+     * @return Поток, сжимающий данные, или исходный поток для {@link #NONE}.
+     * @throws IOException если не удалось записать заголовок сжатого файла.
+     */
+    public OutputStream compress(OutputStream out, int bufferSize) throws IOException {
+        return this == GZIP ? new GZIPOutputStream(out, bufferSize) : out;
+    }
+
+    /**
+     * Оборачивает поток чтения файла отчета для распаковки на лету.
+     *
+     * @param in         Поток чтения файла.
+     * @param bufferSize Размер буфера распаковки.
+     * @return Поток распакованных данных или исходный поток для {@link #NONE}.
+     * @throws IOException если заголовок сжатого файла поврежден.
+     */
+    public InputStream decompress(InputStream in, int bufferSize) throws IOException {
+        return this == GZIP ? new GZIPInputStream(in, bufferSize) : in;
+    }
+
+    /**
+     * Удаляет расширение сжатия из имени файла.
+     *
+     * @param fileName Имя файла отчета.
+     * @return Имя несжатого файла.
+     */
+    public String stripExtension(String fileName) {
+        return fileName.endsWith(extension) ? fileName.substring(0, fileName.length() - extension.length()) : fileName;
+    }
+
+    /**
+     * Определяет сжатие файла отчета по его расширению.
+     *
+     * @param fileName Имя файла отчета.
+     * @return Способ сжатия файла.
+     */
+    public static ReportCompression ofFileName(String fileName) {
+        return fileName.endsWith(GZIP.extension) ? GZIP : NONE;
+    }
+
+    /**
+     * Проверяет, принимает ли клиент это сжатие согласно заголовку {@code Accept-Encoding}.
+     * Кодировки с {@code q=0} считаются отклоненными, {@code *} принимает любую кодировку.
+     *
+     * @param acceptEncoding Значение заголовка {@code Accept-Encoding}, может быть {@code null}.
+     * @return {@code true}, если файл можно отдать сжатым.
+     */
+    public boolean isAcceptedBy(String acceptEncoding) {
+        if (contentEncoding == null) {
+            return true;
+        }
+        if (acceptEncoding == null) {
+            return false;
+        }
+        boolean wildcard = false;
+        for (String part : acceptEncoding.split(",")) {
+            String[] tokens = part.split(";");
+            String coding = tokens[0].trim().toLowerCase(Locale.ROOT);
+            boolean accepted = true;
+            for (int i = 1; i < tokens.length; i++) {
+                String parameter = tokens[i].trim();
+                if (parameter.startsWith("q=")) {
+                    accepted = parseQuality(parameter.substring(2)) > 0;
+                }
+            }
+            if (coding.equals(contentEncoding)) {
+                return accepted;
+            }
+            if (coding.equals("*")) {
+                wildcard = accepted;
+            }
+        }
+        return wildcard;
+    }
+
+    private static double parseQuality(String value) {
+        try {
+            return Double.parseDouble(value.trim());
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
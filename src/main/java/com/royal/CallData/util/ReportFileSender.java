@@ -0,0 +1,198 @@
+package com.royal.CallData.util;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Отправка файла отчета клиенту с поддержкой условных запросов и диапазонов байт.
+ * <ul>
+ *     <li>{@code ETag} строится по размеру и времени изменения файла; {@code If-None-Match}, {@code If-Modified-Since},
+ *     {@code If-Match} и {@code If-Unmodified-Since} обрабатываются через {@link ServletWebRequest#checkNotModified}.</li>
+ *     <li>{@code Range} отдается ответом 206: один диапазон — с {@code Content-Range}, несколько —
+ *     как {@code multipart/byteranges}. {@code If-Range} с устаревшим валидатором возвращает файл целиком.</li>
+ *     <li>Файл или один диапазон передается без копирования через пользовательское пространство:
+ *     если контейнер поддерживает sendfile (Tomcat NIO), передача поручается ему после выхода из обработчика,
+ *     иначе данные пишутся через {@link FileChannel#transferTo}.</li>
+ * </ul>
+ */
+public final class ReportFileSender {
+
+    static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private ReportFileSender() {
+    }
+
+    /**
+     * Отправляет файл или запрошенные диапазоны его байт.
+     * Заголовки, не зависящие от диапазона (например, {@code Content-Disposition}), задаются вызывающим кодом.
+     *
+     * @param file            Файл отчета.
+     * @param contentEncoding Значение {@code Content-Encoding} для сжатого файла, отдаваемого как есть, или {@code null}.
+     * @param request         HTTP-запрос.
+     * @param response        HTTP-ответ.
+     * @throws IOException если файл не удалось прочитать или передать.
+     */
+    public static void send(Path file, String contentEncoding, HttpServletRequest request,
+                            HttpServletResponse response) throws IOException {
+        long length = Files.size(file);
+        long lastModified = Files.getLastModifiedTime(file).toMillis();
+        String etag = "\"" + Long.toHexString(length) + "-" + Long.toHexString(lastModified) + "\"";
+
+        // 304 или 412 по валидаторам; заодно выставляет ETag и Last-Modified
+        if (new ServletWebRequest(request, response).checkNotModified(etag, lastModified)) {
+            return;
+        }
+
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        if (contentEncoding != null) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, contentEncoding);
+        }
+
+        List<HttpRange> ranges;
+        try {
+            ranges = requestedRanges(request, etag, lastModified, length);
+        } catch (IllegalArgumentException e) {
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+            response.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+            return;
+        }
+
+        boolean head = "HEAD".equals(request.getMethod());
+        if (ranges.isEmpty()) {
+            response.setContentType(MediaType.APPLICATION_OCTET_STREAM_VALUE);
+            response.setContentLengthLong(length);
+            if (!head) {
+                sendRegion(file, 0, length, request, response);
+            }
+            return;
+        }
+
+        response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+        if (ranges.size() == 1) {
+            long start = ranges.get(0).getRangeStart(length);
+            long end = ranges.get(0).getRangeEnd(length);
+            response.setContentType(MediaType.APPLICATION_OCTET_STREAM_VALUE);
+            response.setHeader(HttpHeaders.CONTENT_RANGE, contentRange(start, end, length));
+            response.setContentLengthLong(end - start + 1);
+            if (!head) {
+                sendRegion(file, start, end - start + 1, request, response);
+            }
+            return;
+        }
+
+        String boundary = MimeTypeUtils.generateMultipartBoundaryString();
+        response.setContentType("multipart/byteranges; boundary=" + boundary);
+        if (!head) {
+            sendMultipart(file, ranges, length, boundary, response);
+        }
+    }
+
+    /**
+     * Разбирает заголовок {@code Range}. Пустой список означает, что отдается весь файл: диапазон не запрошен
+     * или {@code If-Range} не совпадает с текущей версией файла.
+     *
+     * @throws IllegalArgumentException если диапазоны некорректны или не пересекаются с файлом.
+     */
+    private static List<HttpRange> requestedRanges(HttpServletRequest request, String etag, long lastModified, long length) {
+        String range = request.getHeader(HttpHeaders.RANGE);
+        if (range == null || !matchesIfRange(request, etag, lastModified)) {
+            return List.of();
+        }
+        List<HttpRange> ranges = HttpRange.parseRanges(range);
+        long total = 0;
+        for (HttpRange httpRange : ranges) {
+            if (httpRange.getRangeStart(length) >= length) {
+                throw new IllegalArgumentException("Диапазон за пределами файла: " + httpRange);
+            }
+            total += httpRange.getRangeEnd(length) - httpRange.getRangeStart(length) + 1;
+        }
+        // Перекрывающиеся диапазоны не должны превращать ответ в многократную выдачу файла
+        if (ranges.size() > 1 && total > length) {
+            throw new IllegalArgumentException("Суммарный размер диапазонов больше размера файла");
+        }
+        return ranges;
+    }
+
+    private static boolean matchesIfRange(HttpServletRequest request, String etag, long lastModified) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            return ifRange.equals(etag);
+        }
+        long date = request.getDateHeader(HttpHeaders.IF_RANGE);
+        return date >= 0 && date / 1000 == lastModified / 1000;
+    }
+
+    private static String contentRange(long start, long end, long length) {
+        return "bytes " + start + "-" + end + "/" + length;
+    }
+
+    private static void sendMultipart(Path file, List<HttpRange> ranges, long length, String boundary,
+                                      HttpServletResponse response) throws IOException {
+        OutputStream out = response.getOutputStream();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            WritableByteChannel target = Channels.newChannel(out);
+            for (HttpRange range : ranges) {
+                long start = range.getRangeStart(length);
+                long end = range.getRangeEnd(length);
+                out.write(("\r\n--" + boundary + "\r\n" +
+                        HttpHeaders.CONTENT_TYPE + ": " + MediaType.APPLICATION_OCTET_STREAM_VALUE + "\r\n" +
+                        HttpHeaders.CONTENT_RANGE + ": " + contentRange(start, end, length) + "\r\n\r\n")
+                        .getBytes(StandardCharsets.US_ASCII));
+                transfer(channel, start, end - start + 1, target);
+            }
+        }
+        out.write(("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * Передает участок файла: через sendfile контейнера, если он доступен, иначе через {@link FileChannel#transferTo}.
+     */
+    private static void sendRegion(Path file, long start, long count, HttpServletRequest request,
+                                   HttpServletResponse response) throws IOException {
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, file.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, start + count);
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            transfer(channel, start, count, Channels.newChannel(response.getOutputStream()));
+        }
+    }
+
+    private static void transfer(FileChannel channel, long start, long count, WritableByteChannel target) throws IOException {
+        long position = start;
+        long end = start + count;
+        while (position < end) {
+            long transferred = channel.transferTo(position, end - position, target);
+            if (transferred <= 0) {
+                throw new EOFException("Файл отчета короче ожидаемого: " + position + " из " + end + " байт");
+            }
+            position += transferred;
+        }
+    }
+}
@@ -1,7 +1,8 @@
 package com.royal.CallData.util;
 
 import java.time.LocalDateTime;
-import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.random.RandomGenerator;
 
 /**
  * Утилитарный сервис для генерации случайных значений.
@@ -10,18 +11,30 @@ import java.util.Random;
  */
 public class UtilService {
 
-    private static final Random random = new Random();
-
     /**
      * Генерирует случайную дату и время между двумя указанными датами.
      * Даты представлены объектами {@link LocalDateTime}, которые преобразуются в
      * количество секунд с начала эпохи (UTC), и из этого диапазона выбирается случайная дата.
+     * Использует генератор текущего потока, поэтому безопасен при параллельных вызовах.
      *
      * @param startDate Начальная дата (включительно).
      * @param endDate   Конечная дата (включительно).
      * @return Случайная дата и время, полученная между {@code startDate} и {@code endDate}.
      */
     public static LocalDateTime randomDateBetween(LocalDateTime startDate, LocalDateTime endDate) {
+        return randomDateBetween(startDate, endDate, ThreadLocalRandom.current());
+    }
+
+    /**
+     * Генерирует случайную дату и время между двумя указанными датами с использованием
+     * переданного генератора, что позволяет получать воспроизводимые последовательности.
+     *
+     * @param startDate Начальная дата (включительно).
+     * @param endDate   Конечная дата (исключительно).
+     * @param random    Генератор случайных чисел.
+     * @return Случайная дата и время, полученная между {@code startDate} и {@code endDate}.
+     */
+    public static LocalDateTime randomDateBetween(LocalDateTime startDate, LocalDateTime endDate, RandomGenerator random) {
         long startEpochSecond = startDate.toEpochSecond(java.time.ZoneOffset.UTC);
         long endEpochSecond = endDate.toEpochSecond(java.time.ZoneOffset.UTC);
         long randomEpochSecond = startEpochSecond +
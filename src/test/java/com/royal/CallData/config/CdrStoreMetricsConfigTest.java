@@ -0,0 +1,58 @@
+package com.royal.CallData.config;
+
+import com.royal.CallData.entity.CdrRecord;
+import com.royal.CallData.repository.LogCdrStore;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CdrStoreMetricsConfigTest {
+
+    private static final LocalDateTime BASE_TIME = LocalDateTime.of(2025, 3, 1, 10, 0);
+
+    @TempDir
+    Path directory;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void testPostProcessor_TimesStoreCallsAndStreamsUntilClosed() throws Exception {
+        try (LogCdrStore target = new LogCdrStore(directory.toString(), 16)) {
+            DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+            beanFactory.registerSingleton("meterRegistry", meterRegistry);
+            LogCdrStore store = (LogCdrStore) CdrStoreMetricsConfig
+                    .cdrStoreMetricsPostProcessor(beanFactory.getBeanProvider(MeterRegistry.class))
+                    .postProcessAfterInitialization(target, "cdrStore");
+
+            store.saveAll(List.of(new CdrRecord("01", "79001112233", "79004445566", BASE_TIME, BASE_TIME.plusMinutes(1))));
+            assertTrue(store.existsBySubscriber("79001112233"));
+            assertFalse(store.inDatabase());
+
+            Stream<CdrRecord> records = store.streamByDateRange(BASE_TIME, BASE_TIME.plusDays(1));
+            assertEquals(0, timerCount("streamByDateRange"));
+            assertEquals(1, records.count());
+            records.close();
+
+            assertEquals(1, timerCount("saveAll"));
+            assertEquals(1, timerCount("existsBySubscriber"));
+            assertEquals(1, timerCount("streamByDateRange"));
+            assertNull(meterRegistry.find("cdr.store.invocations").tag("method", "inDatabase").timer());
+            assertEquals("LogCdrStore", meterRegistry.get("cdr.store.invocations").tag("method", "saveAll").timer()
+                    .getId().getTag("store"));
+        }
+    }
+
+    private long timerCount(String method) {
+        var timer = meterRegistry.find("cdr.store.invocations").tag("method", method).tag("exception", "none").timer();
+        return timer != null ? timer.count() : 0;
+    }
+}
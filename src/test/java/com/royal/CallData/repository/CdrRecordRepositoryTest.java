@@ -0,0 +1,134 @@
+package com.royal.CallData.repository;
+
+import com.royal.CallData.entity.CdrRecord;
+import com.royal.CallData.util.PageTokenUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+public class CdrRecordRepositoryTest {
+
+    private static final String TEST_MSISDN = "79001234567";
+    private static final long TEST_NUMBER = 79001234567L;
+    private static final LocalDateTime BASE_TIME = LocalDateTime.of(2025, 3, 1, 10, 0);
+
+    @Autowired
+    private CdrRecordRepository cdrRecordRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        cdrRecordRepository.saveAll(List.of(
+                new CdrRecord("01", TEST_MSISDN, "79009876543", BASE_TIME.plusHours(3), BASE_TIME.plusHours(3).plusMinutes(1)),
+                new CdrRecord("02", "79009876543", TEST_MSISDN, BASE_TIME.plusHours(1), BASE_TIME.plusHours(1).plusMinutes(2)),
+                new CdrRecord("01", TEST_MSISDN, TEST_MSISDN, BASE_TIME.plusHours(2), BASE_TIME.plusHours(2).plusMinutes(3)),
+                new CdrRecord("01", "79009876543", "79001112233", BASE_TIME.plusHours(4), BASE_TIME.plusHours(4).plusMinutes(4)),
+                new CdrRecord("02", "79001112233", TEST_MSISDN, BASE_TIME.plusDays(10), BASE_TIME.plusDays(10).plusMinutes(5))
+        ));
+    }
+
+    @Test
+    void testFindAllBySubscriberMsisdn_MatchesCallerOrReceiverInTimeOrder() {
+        List<CdrRecord> records = cdrRecordRepository.findAllBySubscriberMsisdn(TEST_NUMBER);
+
+        assertEquals(List.of(BASE_TIME.plusHours(1), BASE_TIME.plusHours(2), BASE_TIME.plusHours(3), BASE_TIME.plusDays(10)),
+                records.stream().map(CdrRecord::getStartTime).toList());
+    }
+
+    @Test
+    void testFindBySubscriberAndDateRange_FiltersByPeriod() {
+        List<CdrRecord> records = cdrRecordRepository.findBySubscriberAndDateRange(
+                TEST_NUMBER, BASE_TIME, BASE_TIME.plusDays(1));
+
+        assertEquals(List.of(BASE_TIME.plusHours(1), BASE_TIME.plusHours(2), BASE_TIME.plusHours(3)),
+                records.stream().map(CdrRecord::getStartTime).toList());
+    }
+
+    @Test
+    void testStreamBySubscriberAndDateRange_SameResultAsList() {
+        List<CdrRecord> expected = cdrRecordRepository.findBySubscriberAndDateRange(
+                TEST_NUMBER, BASE_TIME, BASE_TIME.plusMonths(1));
+
+        try (Stream<CdrRecord> records = cdrRecordRepository.streamBySubscriberAndDateRange(
+                TEST_NUMBER, BASE_TIME, BASE_TIME.plusMonths(1))) {
+            assertEquals(expected.stream().map(CdrRecord::getId).toList(),
+                    records.map(CdrRecord::getId).toList());
+        }
+    }
+
+    @Test
+    void testStreamByDateRange_AllSubscribersInTimeOrder() {
+        try (Stream<CdrRecord> records = cdrRecordRepository.streamByDateRange(BASE_TIME, BASE_TIME.plusHours(4))) {
+            assertEquals(List.of(BASE_TIME.plusHours(1), BASE_TIME.plusHours(2), BASE_TIME.plusHours(3), BASE_TIME.plusHours(4)),
+                    records.map(CdrRecord::getStartTime).toList());
+        }
+    }
+
+    @Test
+    void testSubscriberDateRangeQuery_UsesCompositeIndexes() {
+        String plan = jdbcTemplate.queryForObject("EXPLAIN " + CdrRecordRepository.SUBSCRIBER_DATE_RANGE_QUERY
+                .replace(":msisdn", String.valueOf(TEST_NUMBER))
+                .replace(":startDate", "TIMESTAMP '2025-03-01 00:00:00'")
+                .replace(":endDate", "TIMESTAMP '2025-04-01 00:00:00'"), String.class);
+
+        assertNotNull(plan);
+        assertTrue(plan.toUpperCase().contains("IDX_CDR_CALLER_START"), plan);
+        assertTrue(plan.toUpperCase().contains("IDX_CDR_RECEIVER_START"), plan);
+    }
+
+    @Test
+    void testFindPageAfter_WalksAllRecordsInOrder() {
+        cdrRecordRepository.save(new CdrRecord("01", "79005556677", "79006667788", BASE_TIME.plusHours(3), BASE_TIME.plusHours(3).plusMinutes(6)));
+        List<Long> expected = cdrRecordRepository.findAll().stream()
+                .sorted((c1, c2) -> c1.getStartTime().equals(c2.getStartTime())
+                        ? c1.getId().compareTo(c2.getId()) : c1.getStartTime().compareTo(c2.getStartTime()))
+                .map(CdrRecord::getId).toList();
+
+        List<Long> walked = new ArrayList<>();
+        PageTokenUtil.Cursor cursor = PageTokenUtil.FIRST_PAGE;
+        List<CdrRecord> page;
+        do {
+            page = cdrRecordRepository.findPageAfter(cursor.startTime(), cursor.id(), Limit.of(2));
+            page.forEach(record -> walked.add(record.getId()));
+            if (!page.isEmpty()) {
+                CdrRecord last = page.get(page.size() - 1);
+                cursor = PageTokenUtil.decode(PageTokenUtil.encode(last.getStartTime(), last.getId()));
+            }
+        } while (page.size() == 2);
+
+        assertEquals(expected, walked);
+    }
+
+    @Test
+    void testFindSubscriberPageAfter_WalksSubscriberRecordsInOrder() {
+        List<Long> expected = cdrRecordRepository.findAllBySubscriberMsisdn(TEST_NUMBER).stream()
+                .map(CdrRecord::getId).toList();
+
+        List<Long> walked = new ArrayList<>();
+        PageTokenUtil.Cursor cursor = PageTokenUtil.FIRST_PAGE;
+        List<CdrRecord> page;
+        do {
+            page = cdrRecordRepository.findSubscriberPageAfter(TEST_NUMBER, cursor.startTime(), cursor.id(), 3);
+            page.forEach(record -> walked.add(record.getId()));
+            if (!page.isEmpty()) {
+                CdrRecord last = page.get(page.size() - 1);
+                cursor = new PageTokenUtil.Cursor(last.getStartTime(), last.getId());
+            }
+        } while (page.size() == 3);
+
+        assertEquals(expected, walked);
+    }
+}
@@ -0,0 +1,45 @@
+package com.royal.CallData.repository;
+
+import com.royal.CallData.entity.CdrRecord;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@Import(JpaCdrStore.class)
+public class JpaCdrStoreTest {
+
+    private static final String TEST_MSISDN = "79001234567";
+    private static final LocalDateTime BASE_TIME = LocalDateTime.of(2025, 3, 1, 10, 0);
+
+    @Autowired
+    private CdrStore cdrStore;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Test
+    void testStreams_ReturnDetachedRecords() {
+        cdrStore.saveAll(List.of(
+                new CdrRecord("01", TEST_MSISDN, "79009876543", BASE_TIME.plusHours(2), BASE_TIME.plusHours(3)),
+                new CdrRecord("02", "79009876543", TEST_MSISDN, BASE_TIME.plusHours(1), BASE_TIME.plusHours(2))));
+        entityManager.flush();
+        entityManager.clear();
+
+        try (Stream<CdrRecord> records = cdrStore.streamBySubscriberAndDateRange(TEST_MSISDN, BASE_TIME, BASE_TIME.plusDays(1))) {
+            List<CdrRecord> list = records.toList();
+            assertEquals(List.of(BASE_TIME.plusHours(1), BASE_TIME.plusHours(2)), list.stream().map(CdrRecord::getStartTime).toList());
+            list.forEach(record -> assertFalse(entityManager.contains(record)));
+        }
+        assertTrue(cdrStore.inDatabase());
+        assertTrue(cdrStore.existsBySubscriber("79009876543"));
+    }
+}
@@ -0,0 +1,124 @@
+package com.royal.CallData.repository;
+
+import com.royal.CallData.entity.CdrRecord;
+import com.royal.CallData.util.PageTokenUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LogCdrStoreTest {
+
+    private static final String TEST_MSISDN = "79001234567";
+    private static final LocalDateTime BASE_TIME = LocalDateTime.of(2025, 3, 1, 10, 0);
+    private static final int SEGMENT_RECORDS = 2;
+
+    @TempDir
+    Path directory;
+
+    private LogCdrStore store;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        store = new LogCdrStore(directory, SEGMENT_RECORDS);
+        store.saveAll(List.of(
+                new CdrRecord("01", TEST_MSISDN, "79009876543", BASE_TIME.plusHours(3), BASE_TIME.plusHours(3).plusMinutes(1)),
+                new CdrRecord("02", "79009876543", TEST_MSISDN, BASE_TIME.plusHours(1), BASE_TIME.plusHours(1).plusMinutes(2)),
+                new CdrRecord("01", TEST_MSISDN, TEST_MSISDN, BASE_TIME.plusHours(2), BASE_TIME.plusHours(2).plusMinutes(3)),
+                new CdrRecord("01", "79009876543", "79001112233", BASE_TIME.plusHours(4), BASE_TIME.plusHours(4).plusMinutes(4)),
+                new CdrRecord("02", "79001112233", TEST_MSISDN, BASE_TIME.plusDays(10), null)
+        ));
+    }
+
+    @Test
+    void testSaveAll_AssignsIdsAndRollsSegments() {
+        List<CdrRecord> records = List.of(new CdrRecord("01", "79001112233", TEST_MSISDN, BASE_TIME, BASE_TIME.plusSeconds(5)));
+
+        store.saveAll(records);
+
+        assertEquals(6L, records.get(0).getId());
+        assertEquals(6, store.size());
+        assertTrue(Files.exists(directory.resolve("cdr-00000002.seg")));
+    }
+
+    @Test
+    void testStreamBySubscriberAndDateRange_MatchesCallerOrReceiverInTimeOrder() {
+        try (Stream<CdrRecord> records = store.streamBySubscriberAndDateRange(TEST_MSISDN, BASE_TIME, BASE_TIME.plusDays(1))) {
+            assertEquals(List.of(BASE_TIME.plusHours(1), BASE_TIME.plusHours(2), BASE_TIME.plusHours(3)),
+                    records.map(CdrRecord::getStartTime).toList());
+        }
+        try (Stream<CdrRecord> records = store.streamAllBySubscriberMsisdn(TEST_MSISDN)) {
+            CdrRecord last = records.reduce((first, second) -> second).orElseThrow();
+            assertEquals("02", last.getCallType());
+            assertEquals("79001112233", last.getCallerMsisdn());
+            assertEquals(BASE_TIME.plusDays(10), last.getStartTime());
+            assertNull(last.getEndTime());
+            assertEquals(5L, last.getId());
+        }
+        assertTrue(store.existsBySubscriber("79001112233"));
+        assertFalse(store.existsBySubscriber("79000000000"));
+        assertFalse(store.existsBySubscriber("+79001112233"));
+    }
+
+    @Test
+    void testStreamByDateRange_AllSubscribersInTimeOrder() {
+        try (Stream<CdrRecord> records = store.streamByDateRange(BASE_TIME, BASE_TIME.plusHours(4))) {
+            assertEquals(List.of(BASE_TIME.plusHours(1), BASE_TIME.plusHours(2), BASE_TIME.plusHours(3), BASE_TIME.plusHours(4)),
+                    records.map(CdrRecord::getStartTime).toList());
+        }
+    }
+
+    @Test
+    void testFindPageAfter_WalksAllRecordsWithoutGapsOrDuplicates() {
+        store.saveAll(List.of(new CdrRecord("01", TEST_MSISDN, "79001112233", BASE_TIME.plusHours(1), BASE_TIME.plusHours(2))));
+        List<Long> ids = new ArrayList<>();
+        PageTokenUtil.Cursor cursor = PageTokenUtil.FIRST_PAGE;
+        List<CdrRecord> page;
+        while (!(page = store.findPageAfter(cursor.startTime(), cursor.id(), 2)).isEmpty()) {
+            page.forEach(record -> ids.add(record.getId()));
+            CdrRecord last = page.get(page.size() - 1);
+            cursor = new PageTokenUtil.Cursor(last.getStartTime(), last.getId());
+        }
+
+        assertEquals(List.of(2L, 6L, 3L, 1L, 4L, 5L), ids);
+        assertEquals(List.of(6L, 3L), store.findSubscriberPageAfter(TEST_MSISDN, BASE_TIME.plusHours(1), 2L, 2)
+                .stream().map(CdrRecord::getId).toList());
+    }
+
+    @Test
+    void testReopen_RecoversRecordsAndIndexes() throws IOException {
+        store.close();
+
+        LogCdrStore reopened = new LogCdrStore(directory, SEGMENT_RECORDS);
+        List<CdrRecord> records = List.of(new CdrRecord("01", TEST_MSISDN, "79001112233", BASE_TIME.plusHours(5), BASE_TIME.plusHours(6)));
+        reopened.saveAll(records);
+
+        assertEquals(6L, records.get(0).getId());
+        try (Stream<CdrRecord> stream = reopened.streamBySubscriberAndDateRange(TEST_MSISDN, BASE_TIME, BASE_TIME.plusDays(1))) {
+            assertEquals(List.of(2L, 3L, 1L, 6L), stream.map(CdrRecord::getId).toList());
+        }
+        assertThrows(IOException.class, () -> new LogCdrStore(directory, SEGMENT_RECORDS + 1));
+    }
+
+    @Test
+    void testSaveAll_RejectsRecordsThatCannotBeStoredWithoutWritingBatch() {
+        List<CdrRecord> records = List.of(
+                new CdrRecord("01", TEST_MSISDN, "79001112233", BASE_TIME, BASE_TIME.plusMinutes(1)),
+                new CdrRecord("X1", "79001112233", TEST_MSISDN, BASE_TIME, BASE_TIME.plusMinutes(1)));
+
+        assertThrows(IllegalArgumentException.class, () -> store.saveAll(records));
+        assertThrows(IllegalArgumentException.class, () -> store.saveAll(List.of(
+                new CdrRecord("01", TEST_MSISDN, "79001112233", null, null))));
+        assertEquals(5, store.size());
+        assertThrows(IllegalArgumentException.class, () -> new CdrRecord("01", "+79001112233", TEST_MSISDN, BASE_TIME, BASE_TIME));
+    }
+}
@@ -0,0 +1,125 @@
+package com.royal.CallData.repository;
+
+import com.royal.CallData.entity.CdrRecord;
+import com.royal.CallData.util.PageTokenUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Таблицы месяцев создаются и удаляются в собственных транзакциях, поэтому тесты выполняются без общей тестовой транзакции.
+ */
+@DataJpaTest(properties = "cdr.storage.engine=partitioned")
+@Import(PartitionedCdrStore.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class PartitionedCdrStoreTest {
+
+    private static final String TEST_MSISDN = "79001234567";
+    private static final String OTHER_MSISDN = "79009876543";
+    private static final LocalDateTime JANUARY = LocalDateTime.of(2025, 1, 31, 23, 0);
+    private static final LocalDateTime FEBRUARY = LocalDateTime.of(2025, 2, 10, 12, 0);
+    private static final LocalDateTime MARCH = LocalDateTime.of(2025, 3, 1, 0, 0);
+
+    @Autowired
+    private PartitionedCdrStore store;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void setUp() {
+        store.saveAll(List.of(
+                new CdrRecord("01", TEST_MSISDN, OTHER_MSISDN, MARCH, MARCH.plusMinutes(1)),
+                new CdrRecord("02", OTHER_MSISDN, TEST_MSISDN, JANUARY, JANUARY.plusMinutes(2)),
+                new CdrRecord("01", TEST_MSISDN, TEST_MSISDN, FEBRUARY, FEBRUARY.plusMinutes(3)),
+                new CdrRecord("01", OTHER_MSISDN, "79001112233", FEBRUARY.plusDays(1), null)));
+    }
+
+    @AfterEach
+    void tearDown() {
+        store.dropPartitionsBefore(YearMonth.of(10000, 1));
+    }
+
+    @Test
+    void testStreamBySubscriberAndDateRange_VisitsOnlyOverlappingMonthsInTimeOrder() {
+        assertEquals(List.of(YearMonth.of(2025, 2), YearMonth.of(2025, 3)),
+                store.partitionsFor(FEBRUARY.minusDays(1), MARCH.plusWeeks(1)));
+        assertEquals(List.of(YearMonth.of(2025, 3)), store.partitionsFor(MARCH, MARCH.plusWeeks(1)));
+        assertEquals(List.of(), store.partitionsFor(MARCH.plusMonths(1), MARCH.plusMonths(2)));
+
+        try (Stream<CdrRecord> records = store.streamBySubscriberAndDateRange(TEST_MSISDN, JANUARY, MARCH)) {
+            assertEquals(List.of(JANUARY, FEBRUARY, MARCH), records.map(CdrRecord::getStartTime).toList());
+        }
+        try (Stream<CdrRecord> records = store.streamBySubscriberAndDateRange(TEST_MSISDN, FEBRUARY.plusSeconds(1), MARCH)) {
+            assertEquals(List.of(MARCH), records.map(CdrRecord::getStartTime).toList());
+        }
+        try (Stream<CdrRecord> records = store.streamByDateRange(LocalDateTime.MIN, LocalDateTime.MAX)) {
+            List<CdrRecord> all = records.toList();
+            assertEquals(4, all.size());
+            assertNull(all.get(2).getEndTime());
+            assertEquals("79001112233", all.get(2).getReceiverMsisdn());
+        }
+    }
+
+    @Test
+    void testFindPageAfter_WalksMonthsWithoutGapsOrDuplicates() {
+        List<LocalDateTime> starts = new ArrayList<>();
+        PageTokenUtil.Cursor cursor = PageTokenUtil.FIRST_PAGE;
+        List<CdrRecord> page;
+        while (!(page = store.findPageAfter(cursor.startTime(), cursor.id(), 3)).isEmpty()) {
+            page.forEach(record -> starts.add(record.getStartTime()));
+            CdrRecord last = page.get(page.size() - 1);
+            cursor = new PageTokenUtil.Cursor(last.getStartTime(), last.getId());
+        }
+
+        assertEquals(List.of(JANUARY, FEBRUARY, FEBRUARY.plusDays(1), MARCH), starts);
+        List<CdrRecord> subscriberPage = store.findSubscriberPageAfter(TEST_MSISDN, JANUARY, Long.MAX_VALUE, 2);
+        assertEquals(List.of(FEBRUARY, MARCH), subscriberPage.stream().map(CdrRecord::getStartTime).toList());
+    }
+
+    @Test
+    void testDropPartitionsBefore_RemovesWholeMonths() {
+        assertTrue(store.existsBySubscriber("79001112233"));
+
+        assertEquals(2, store.dropPartitionsBefore(YearMonth.of(2025, 3)));
+
+        assertFalse(store.existsBySubscriber("79001112233"));
+        try (Stream<CdrRecord> records = store.streamAllBySubscriberMsisdn(TEST_MSISDN)) {
+            assertEquals(List.of(MARCH), records.map(CdrRecord::getStartTime).toList());
+        }
+        store.saveAll(List.of(new CdrRecord("01", TEST_MSISDN, OTHER_MSISDN, FEBRUARY, FEBRUARY.plusMinutes(1))));
+        assertEquals(List.of(YearMonth.of(2025, 2), YearMonth.of(2025, 3)),
+                store.partitionsFor(LocalDateTime.MIN, LocalDateTime.MAX));
+    }
+
+    @Test
+    void testReopen_FindsExistingMonthsAndKeepsIdsUnique() {
+        PartitionedCdrStore reopened = new PartitionedCdrStore(dataSource, transactionManager, 0);
+        List<CdrRecord> records = List.of(new CdrRecord("01", TEST_MSISDN, OTHER_MSISDN, MARCH.plusHours(1), MARCH.plusHours(2)));
+        reopened.saveAll(records);
+
+        assertEquals(3, reopened.partitionsFor(LocalDateTime.MIN, LocalDateTime.MAX).size());
+        try (Stream<CdrRecord> stream = reopened.streamAllBySubscriberMsisdn(TEST_MSISDN)) {
+            assertEquals(4, stream.map(CdrRecord::getId).distinct().count());
+        }
+        assertThrows(IllegalArgumentException.class, () -> reopened.saveAll(List.of(new CdrRecord("01", TEST_MSISDN, OTHER_MSISDN, null, null))));
+    }
+}
@@ -0,0 +1,208 @@
+package com.royal.CallData.service;
+
+import com.royal.CallData.dto.BatchReportRequest;
+import com.royal.CallData.dto.BatchReportResponse;
+import com.royal.CallData.entity.CdrRecord;
+import com.royal.CallData.repository.CdrStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class CdrBatchReportServiceImplTest {
+
+    @Mock
+    private CdrStore cdrStore;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private Executor reportExecutor;
+
+    @Mock
+    private SubscriberDirectory subscriberDirectory;
+
+    @TempDir
+    Path reportsDirectory;
+
+    private final Semaphore reportDbPermits = new Semaphore(1);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private ReportStatusRegistry reportStatusRegistry;
+    private CdrBatchReportServiceImpl batchReportService;
+
+    private static final LocalDateTime START = LocalDateTime.of(2025, 3, 1, 0, 0);
+    private static final LocalDateTime END = LocalDateTime.of(2025, 3, 31, 0, 0);
+
+    @BeforeEach
+    void setUp() {
+        reportStatusRegistry = new ReportStatusRegistry(reportsDirectory, 60_000, 100, 100, System::currentTimeMillis);
+        lenient().when(subscriberDirectory.contains(anyString())).thenReturn(true);
+        batchReportService = new CdrBatchReportServiceImpl(cdrStore, subscriberDirectory, transactionManager,
+                reportExecutor, reportDbPermits, reportStatusRegistry, new ReportMetrics(meterRegistry), 3600, 100);
+    }
+
+    @Test
+    void testGenerateBatchReport_ValidRequest() {
+        BatchReportResponse response = batchReportService.generateBatchReport(
+                new BatchReportRequest(List.of("79001112233", " 79001112233 ", "79004445566", ""), START, END));
+
+        assertEquals("success", response.getStatus());
+        assertNotNull(response.getBatchId());
+        assertEquals(2, response.getSubscriberCount());
+        verify(reportExecutor).execute(any(Runnable.class));
+        assertEquals("processing", batchReportService.getBatchStatus(response.getBatchId()).getStatus());
+    }
+
+    @Test
+    void testGenerateBatchReport_InvalidRequest() {
+        assertEquals("error", batchReportService.generateBatchReport(new BatchReportRequest(List.of(), START, END)).getStatus());
+        assertEquals("error", batchReportService.generateBatchReport(new BatchReportRequest(List.of("79001112233"), END, START)).getStatus());
+        assertEquals("error", batchReportService.generateBatchReport(new BatchReportRequest(List.of("79001112233"), null, END)).getStatus());
+
+        ReflectionTestUtils.setField(batchReportService, "maxSubscribers", 1);
+        assertEquals("error", batchReportService.generateBatchReport(
+                new BatchReportRequest(List.of("79001112233", "79004445566"), START, END)).getStatus());
+        verifyNoInteractions(reportExecutor);
+    }
+
+    @Test
+    void testGenerateBatchReport_UnknownSubscribersRejected() {
+        when(subscriberDirectory.contains("79990000000")).thenReturn(false);
+
+        BatchReportResponse response = batchReportService.generateBatchReport(
+                new BatchReportRequest(List.of("79001112233", "79990000000"), START, END));
+
+        assertEquals("error", response.getStatus());
+        assertTrue(response.getMessage().contains("79990000000"), response.getMessage());
+        verifyNoInteractions(reportExecutor, cdrStore);
+    }
+
+    @Test
+    void testGenerateBatchReport_QueueFull() {
+        doThrow(new RejectedExecutionException("queue full")).when(reportExecutor).execute(any(Runnable.class));
+
+        BatchReportResponse response = batchReportService.generateBatchReport(
+                new BatchReportRequest(List.of("79001112233"), START, END));
+
+        assertEquals("rejected", response.getStatus());
+        assertEquals("rejected", batchReportService.getBatchStatus(response.getBatchId()).getStatus());
+        assertEquals(1, meterRegistry.get("report.jobs").tag("outcome", "REJECTED").counter().count());
+        assertEquals(0, meterRegistry.get("report.jobs.queued").gauge().value());
+    }
+
+    @Test
+    void testGenerateBatch_SingleScanFansOutRowsPerSubscriber() throws Exception {
+        List<CdrRecord> records = List.of(
+                new CdrRecord("01", "79001112233", "79004445566", START.plusHours(1), START.plusHours(1).plusMinutes(1)),
+                new CdrRecord("02", "79007778899", "79001112233", START.plusHours(2), START.plusHours(2).plusMinutes(2)),
+                new CdrRecord("01", "79007778899", "79000000000", START.plusHours(3), START.plusHours(3).plusMinutes(3)),
+                new CdrRecord("01", "79004445566", "79004445566", START.plusHours(4), START.plusHours(4).plusMinutes(4)));
+        when(cdrStore.streamByDateRange(START, END)).thenReturn(records.stream());
+        // Маленький буфер абонента, чтобы строки дописывались в файл несколькими порциями
+        ReflectionTestUtils.setField(batchReportService, "subscriberBufferSize", 1);
+        Set<String> msisdns = new LinkedHashSet<>(List.of("79001112233", "79004445566", "79009999999"));
+        UUID batchId = startBatch(msisdns);
+
+        ReflectionTestUtils.invokeMethod(batchReportService, "generateBatch", batchId, msisdns, START, END);
+
+        BatchReportResponse status = batchReportService.getBatchStatus(batchId);
+        assertEquals("completed", status.getStatus());
+        assertEquals(3, status.getSubscriberCount());
+        assertEquals(2, status.getReportCount());
+        assertEquals(4, status.getRecordCount());
+        assertEquals(ReportStatus.Kind.BATCH, reportStatusRegistry.get(batchId).kind());
+
+        Path directory = Path.of(status.getDirectory());
+        assertEquals(List.of(records.get(0).toCdrString(), records.get(1).toCdrString()),
+                Files.readAllLines(directory.resolve("79001112233.csv")));
+        assertEquals(List.of(records.get(0).toCdrString(), records.get(3).toCdrString()),
+                Files.readAllLines(directory.resolve("79004445566.csv")));
+        assertFalse(Files.exists(directory.resolve("79009999999.csv")));
+        verify(cdrStore, times(1)).streamByDateRange(START, END);
+        assertEquals(1, reportDbPermits.availablePermits());
+        assertEquals(1, meterRegistry.get("report.jobs").tag("outcome", "COMPLETED").counter().count());
+        assertEquals(0, meterRegistry.get("report.jobs.queued").gauge().value());
+        assertEquals(0, meterRegistry.get("report.jobs.active").gauge().value());
+        assertEquals(1, meterRegistry.get("report.phase").tag("phase", "db_wait").timer().count());
+    }
+
+    @Test
+    void testGenerateBatch_FlushesAllBuffersWhenTotalLimitExceeded() throws Exception {
+        List<CdrRecord> records = List.of(
+                new CdrRecord("01", "79001112233", "79004445566", START.plusHours(1), START.plusHours(1).plusMinutes(1)),
+                new CdrRecord("02", "79004445566", "79001112233", START.plusHours(2), START.plusHours(2).plusMinutes(2)),
+                new CdrRecord("01", "79001112233", "79007778899", START.plusHours(3), START.plusHours(3).plusMinutes(3)));
+        when(cdrStore.streamByDateRange(START, END)).thenReturn(records.stream());
+        // Емкость одного буфера уже превышает общий лимит, поэтому буферы сбрасываются после каждой строки
+        ReflectionTestUtils.setField(batchReportService, "maxBufferedChars", 1L);
+        Set<String> msisdns = new LinkedHashSet<>(List.of("79001112233", "79004445566"));
+        UUID batchId = startBatch(msisdns);
+
+        ReflectionTestUtils.invokeMethod(batchReportService, "generateBatch", batchId, msisdns, START, END);
+
+        BatchReportResponse status = batchReportService.getBatchStatus(batchId);
+        assertEquals("completed", status.getStatus());
+        assertEquals(2, status.getReportCount());
+        Path directory = Path.of(status.getDirectory());
+        assertEquals(records.stream().map(CdrRecord::toCdrString).toList(),
+                Files.readAllLines(directory.resolve("79001112233.csv")));
+        assertEquals(List.of(records.get(0).toCdrString(), records.get(1).toCdrString()),
+                Files.readAllLines(directory.resolve("79004445566.csv")));
+    }
+
+    @Test
+    void testGenerateBatch_NoRecords() {
+        when(cdrStore.streamByDateRange(START, END)).thenReturn(Stream.empty());
+        Set<String> msisdns = Set.of("79001112233");
+        UUID batchId = startBatch(msisdns);
+
+        ReflectionTestUtils.invokeMethod(batchReportService, "generateBatch", batchId, msisdns, START, END);
+
+        BatchReportResponse status = batchReportService.getBatchStatus(batchId);
+        assertEquals("completed", status.getStatus());
+        assertEquals(0, status.getReportCount());
+        assertNull(status.getDirectory());
+        assertFalse(Files.exists(reportsDirectory.resolve("batch_" + batchId)));
+    }
+
+    @Test
+    void testGetBatchStatus_NotFound() {
+        assertEquals("error", batchReportService.getBatchStatus(UUID.randomUUID()).getStatus());
+    }
+
+    @Test
+    void testGetBatchStatus_SingleReportIdIsNotFound() {
+        UUID requestId = UUID.randomUUID();
+        reportStatusRegistry.put(requestId, ReportStatus.completedEmpty());
+
+        assertEquals("Пакет отчетов не найден", batchReportService.getBatchStatus(requestId).getMessage());
+    }
+
+    private UUID startBatch(Set<String> msisdns) {
+        return batchReportService.generateBatchReport(new BatchReportRequest(List.copyOf(msisdns), START, END)).getBatchId();
+    }
+}
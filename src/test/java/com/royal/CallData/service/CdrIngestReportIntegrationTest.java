@@ -0,0 +1,58 @@
+package com.royal.CallData.service;
+
+import com.royal.CallData.dto.CdrIngestResponse;
+import com.royal.CallData.dto.ReportGenerationRequest;
+import com.royal.CallData.dto.ReportGenerationResponse;
+import com.royal.CallData.entity.CdrRecord;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "report.output.directory=target/test-reports")
+public class CdrIngestReportIntegrationTest {
+
+    private static final String NEW_MSISDN = "79551234567";
+    private static final LocalDateTime BASE_TIME = LocalDateTime.of(2025, 3, 1, 10, 0);
+
+    @Autowired
+    private CdrIngestService cdrIngestService;
+
+    @Autowired
+    private CdrReportService cdrReportService;
+
+    @Autowired
+    private SubscriberDirectory subscriberDirectory;
+
+    @Test
+    void testReportForNumberFirstSeenInIngestedFile() throws Exception {
+        assertFalse(subscriberDirectory.contains(NEW_MSISDN));
+        String content = new CdrRecord("01", NEW_MSISDN, "79001112233", BASE_TIME, BASE_TIME.plusMinutes(2)).toCdrString() + "\n"
+                + new CdrRecord("02", "79001112233", NEW_MSISDN, BASE_TIME.plusHours(1), BASE_TIME.plusHours(1).plusMinutes(1)).toCdrString() + "\n";
+
+        CdrIngestResponse ingest = cdrIngestService.ingest("switch.csv",
+                new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)));
+        assertEquals("success", ingest.getStatus());
+        assertEquals(2, ingest.getImportedRows());
+
+        assertTrue(subscriberDirectory.contains(NEW_MSISDN));
+        assertTrue(cdrReportService.hasRecords(NEW_MSISDN));
+
+        ReportGenerationResponse response = cdrReportService.generateReport(
+                new ReportGenerationRequest(NEW_MSISDN, BASE_TIME.minusDays(1), BASE_TIME.plusDays(1)));
+        assertEquals("success", response.getStatus(), response.getMessage());
+
+        ReportGenerationResponse status = cdrReportService.getReportStatus(response.getRequestId());
+        for (int i = 0; i < 100 && "processing".equals(status.getStatus()); i++) {
+            Thread.sleep(50);
+            status = cdrReportService.getReportStatus(response.getRequestId());
+        }
+        assertEquals("completed", status.getStatus());
+        assertNotNull(status.getFilePath(), status.getMessage());
+    }
+}
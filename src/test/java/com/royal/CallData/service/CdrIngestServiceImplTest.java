@@ -0,0 +1,148 @@
+package com.royal.CallData.service;
+
+import com.royal.CallData.dto.CdrIngestResponse;
+import com.royal.CallData.entity.CdrRecord;
+import com.royal.CallData.repository.CdrStore;
+import com.royal.CallData.repository.SubscriberRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class CdrIngestServiceImplTest {
+
+    private static final LocalDateTime BASE_TIME = LocalDateTime.of(2025, 3, 1, 10, 0);
+
+    @Mock
+    private CdrStore cdrStore;
+
+    @Mock
+    private DailyUsageService dailyUsageService;
+
+    @Mock
+    private SubscriberRepository subscriberRepository;
+
+    @Mock
+    private SubscriberDirectory subscriberDirectory;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @InjectMocks
+    private CdrIngestServiceImpl cdrIngestService;
+
+    @Captor
+    private ArgumentCaptor<List<CdrRecord>> batchCaptor;
+
+    @TempDir
+    Path directory;
+
+    private static String rows(int count) {
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            LocalDateTime start = BASE_TIME.plusMinutes(i);
+            content.append(new CdrRecord(i % 2 == 0 ? "01" : "02", "79001234567", "79009876543",
+                    start, start.plusSeconds(30)).toCdrString()).append('\n');
+        }
+        return content.toString();
+    }
+
+    @Test
+    void testIngest_SavesValidRowsInParallelBatches() {
+        ReflectionTestUtils.setField(cdrIngestService, "batchSize", 10);
+        ReflectionTestUtils.setField(cdrIngestService, "parallelism", 3);
+        String content = rows(95) + "01,79001234567,bad,2025-03-01T10:00,2025-03-01T10:01\n";
+
+        CdrIngestResponse response = cdrIngestService.ingest("switch.csv",
+                new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals("success", response.getStatus());
+        assertEquals("switch.csv", response.getFileName());
+        assertEquals(96, response.getTotalRows());
+        assertEquals(95, response.getImportedRows());
+        assertEquals(1, response.getRejectedRows());
+        assertEquals(1, response.getErrors().size());
+        assertTrue(response.getErrors().get(0).startsWith("строка 96: "));
+
+        verify(cdrStore, times(10)).saveAll(batchCaptor.capture());
+        assertEquals(95, batchCaptor.getAllValues().stream().mapToInt(List::size).sum());
+        batchCaptor.getAllValues().forEach(batch -> assertTrue(batch.size() <= 10));
+        verify(dailyUsageService, times(10)).recordSaved(any());
+        verify(entityManager, times(10)).flush();
+        assertEquals(List.of(response), cdrIngestService.recentResults());
+    }
+
+    @Test
+    void testIngest_GzipFile() throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (OutputStream out = new GZIPOutputStream(compressed)) {
+            out.write(rows(3).getBytes(StandardCharsets.UTF_8));
+        }
+
+        CdrIngestResponse response = cdrIngestService.ingest("switch.csv.gz", new ByteArrayInputStream(compressed.toByteArray()));
+
+        assertEquals("success", response.getStatus());
+        assertEquals(3, response.getImportedRows());
+    }
+
+    @Test
+    void testIngest_StopsOnSaveFailure() {
+        ReflectionTestUtils.setField(cdrIngestService, "batchSize", 10);
+        ReflectionTestUtils.setField(cdrIngestService, "parallelism", 1);
+        doThrow(new IllegalStateException("нет места")).when(cdrStore).saveAll(any());
+
+        CdrIngestResponse response = cdrIngestService.ingest("switch.csv",
+                new ByteArrayInputStream(rows(1000).getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals("error", response.getStatus());
+        assertTrue(response.getMessage().contains("нет места"));
+        assertEquals(0, response.getImportedRows());
+        verify(cdrStore, atMost(3)).saveAll(any());
+    }
+
+    @Test
+    void testScanDirectory_IngestsSettledFilesAndMovesThem() throws IOException {
+        ReflectionTestUtils.setField(cdrIngestService, "watchDirectory", directory.toString());
+        Path settled = Files.writeString(directory.resolve("a.csv"), rows(2));
+        Files.setLastModifiedTime(settled, FileTime.fromMillis(System.currentTimeMillis() - 60_000));
+        Path fresh = Files.writeString(directory.resolve("b.csv"), rows(2));
+        Path other = Files.writeString(directory.resolve("c.txt"), rows(2));
+        Files.setLastModifiedTime(other, FileTime.fromMillis(System.currentTimeMillis() - 60_000));
+
+        cdrIngestService.scanDirectory();
+
+        assertTrue(Files.exists(directory.resolve(CdrIngestServiceImpl.PROCESSED_DIRECTORY).resolve("a.csv")));
+        assertFalse(Files.exists(settled));
+        assertTrue(Files.exists(fresh));
+        assertTrue(Files.exists(other));
+        verify(cdrStore).saveAll(any());
+        assertEquals("a.csv", cdrIngestService.recentResults().get(0).getFileName());
+    }
+}
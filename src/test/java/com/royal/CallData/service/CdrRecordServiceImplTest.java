@@ -1,9 +1,12 @@
 package com.royal.CallData.service;
 
+import com.royal.CallData.dto.CdrGenerationRequest;
+import com.royal.CallData.dto.CdrGenerationResponse;
 import com.royal.CallData.entity.CdrRecord;
 import com.royal.CallData.entity.Subscriber;
-import com.royal.CallData.repository.CdrRecordRepository;
+import com.royal.CallData.repository.CdrStore;
 import com.royal.CallData.repository.SubscriberRepository;
+import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -12,10 +15,14 @@ import org.mockito.Captor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -28,7 +35,19 @@ public class CdrRecordServiceImplTest {
     private SubscriberRepository subscriberRepository;
 
     @Mock
-    private CdrRecordRepository cdrRecordRepository;
+    private SubscriberDirectory subscriberDirectory;
+
+    @Mock
+    private CdrStore cdrStore;
+
+    @Mock
+    private DailyUsageService dailyUsageService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private EntityManager entityManager;
 
     @InjectMocks
     private CdrRecordServiceImpl cdrRecordService;
@@ -36,6 +55,9 @@ public class CdrRecordServiceImplTest {
     @Captor
     private ArgumentCaptor<List<CdrRecord>> cdrRecordsCaptor;
 
+    @Captor
+    private ArgumentCaptor<List<Subscriber>> subscribersCaptor;
+
     private List<Subscriber> mockSubscribers;
 
     @BeforeEach
@@ -47,18 +69,22 @@ public class CdrRecordServiceImplTest {
         mockSubscribers.add(new Subscriber("79003333333"));
     }
 
+    private static long[] numbers(List<Subscriber> subscribers) {
+        return subscribers.stream().mapToLong(Subscriber::number).toArray();
+    }
+
     @Test
     void testGenerateCdrRecordsForYear_WithSubscribers() {
-        when(subscriberRepository.findAll()).thenReturn(mockSubscribers);
-        when(cdrRecordRepository.saveAll(any())).thenReturn(null);
+        when(subscriberDirectory.numbers()).thenReturn(numbers(mockSubscribers));
 
 
         cdrRecordService.generateCdrRecordsForYear();
 
-        verify(subscriberRepository).findAll();
-        verify(cdrRecordRepository).saveAll(cdrRecordsCaptor.capture());
+        verify(subscriberDirectory).numbers();
+        verify(subscriberRepository, never()).findAll();
+        verify(cdrStore, atLeastOnce()).saveAll(cdrRecordsCaptor.capture());
 
-        List<CdrRecord> generatedRecords = cdrRecordsCaptor.getValue();
+        List<CdrRecord> generatedRecords = cdrRecordsCaptor.getAllValues().stream().flatMap(List::stream).toList();
         assertNotNull(generatedRecords);
         assertFalse(generatedRecords.isEmpty());
 
@@ -99,23 +125,22 @@ public class CdrRecordServiceImplTest {
 
     @Test
     void testGenerateCdrRecordsForYear_NoSubscribers() {
-        when(subscriberRepository.findAll()).thenReturn(new ArrayList<>());
+        when(subscriberDirectory.numbers()).thenReturn(new long[0]);
 
         cdrRecordService.generateCdrRecordsForYear();
 
-        verify(subscriberRepository).findAll();
-        verify(cdrRecordRepository, never()).saveAll(any());
+        verify(subscriberDirectory).numbers();
+        verify(cdrStore, never()).saveAll(any());
     }
 
     @Test
     void testGenerateCdrRecordsForYear_VerifyCallCount() {
-        when(subscriberRepository.findAll()).thenReturn(mockSubscribers);
-        when(cdrRecordRepository.saveAll(any())).thenReturn(null);
+        when(subscriberDirectory.numbers()).thenReturn(numbers(mockSubscribers));
 
         cdrRecordService.generateCdrRecordsForYear();
 
-        verify(cdrRecordRepository).saveAll(cdrRecordsCaptor.capture());
-        List<CdrRecord> generatedRecords = cdrRecordsCaptor.getValue();
+        verify(cdrStore, atLeastOnce()).saveAll(cdrRecordsCaptor.capture());
+        List<CdrRecord> generatedRecords = cdrRecordsCaptor.getAllValues().stream().flatMap(List::stream).toList();
 
         int minExpectedRecords = mockSubscribers.size() * 5 * 12;
         int maxExpectedRecords = mockSubscribers.size() * 15 * 12;
@@ -123,4 +148,82 @@ public class CdrRecordServiceImplTest {
         assertTrue(generatedRecords.size() >= minExpectedRecords);
         assertTrue(generatedRecords.size() <= maxExpectedRecords);
     }
-}
\ No newline at end of file
+
+    @Test
+    void testGenerateCdrRecordsForYear_SavesInBatches() {
+        ReflectionTestUtils.setField(cdrRecordService, "batchSize", 50);
+        when(subscriberDirectory.numbers()).thenReturn(numbers(mockSubscribers));
+
+        cdrRecordService.generateCdrRecordsForYear();
+
+        verify(cdrStore, atLeastOnce()).saveAll(cdrRecordsCaptor.capture());
+        List<List<CdrRecord>> batches = cdrRecordsCaptor.getAllValues();
+        int totalRecords = batches.stream().mapToInt(List::size).sum();
+
+        assertEquals((totalRecords + 49) / 50, batches.size());
+        batches.forEach(batch -> assertTrue(batch.size() <= 50));
+        verify(entityManager, times(batches.size())).flush();
+        verify(entityManager, times(batches.size())).clear();
+        verify(dailyUsageService, times(batches.size())).recordSaved(any());
+    }
+
+    @Test
+    void testGenerateCdrRecords_ReproducibleFromSeed() {
+        ReflectionTestUtils.setField(cdrRecordService, "chunkSubscribers", 1);
+        ReflectionTestUtils.setField(cdrRecordService, "parallelism", 3);
+        when(subscriberDirectory.numbers()).thenReturn(numbers(mockSubscribers));
+        LocalDateTime endDate = LocalDateTime.of(2025, 3, 23, 18, 0);
+        CdrGenerationRequest request = new CdrGenerationRequest(null, 5, 15, 6, endDate, 42L);
+
+        CdrGenerationResponse first = cdrRecordService.generateCdrRecords(request);
+        verify(cdrStore, atLeastOnce()).saveAll(cdrRecordsCaptor.capture());
+        List<String> firstRecords = cdrRecordsCaptor.getAllValues().stream()
+                .flatMap(List::stream).map(CdrRecord::toCdrString).sorted().toList();
+
+        clearInvocations(cdrStore);
+        ArgumentCaptor<List<CdrRecord>> secondCaptor = ArgumentCaptor.captor();
+        CdrGenerationResponse second = cdrRecordService.generateCdrRecords(request);
+        verify(cdrStore, atLeastOnce()).saveAll(secondCaptor.capture());
+        List<String> secondRecords = secondCaptor.getAllValues().stream()
+                .flatMap(List::stream).map(CdrRecord::toCdrString).sorted().toList();
+
+        assertEquals("success", first.getStatus());
+        assertEquals(42L, first.getSeed());
+        assertEquals(first.getGeneratedRecords(), second.getGeneratedRecords());
+        assertEquals(firstRecords.size(), first.getGeneratedRecords());
+        assertEquals(firstRecords, secondRecords);
+    }
+
+    @Test
+    void testGenerateCdrRecords_CreatesMissingSubscribers() {
+        when(subscriberDirectory.numbers()).thenReturn(numbers(mockSubscribers));
+        CdrGenerationRequest request = new CdrGenerationRequest(5, 1, 1, 1, null, 7L);
+
+        CdrGenerationResponse response = cdrRecordService.generateCdrRecords(request);
+
+        verify(subscriberRepository).saveAll(subscribersCaptor.capture());
+        List<Subscriber> created = subscribersCaptor.getValue();
+        assertEquals(2, created.size());
+        verify(subscriberDirectory).registerAfterCommit(created);
+
+        verify(cdrStore, atLeastOnce()).saveAll(cdrRecordsCaptor.capture());
+        Set<String> callers = cdrRecordsCaptor.getAllValues().stream().flatMap(List::stream)
+                .map(record -> record.getCallType().equals("01") ? record.getCallerMsisdn() : record.getReceiverMsisdn())
+                .collect(Collectors.toSet());
+
+        assertEquals(5, response.getSubscriberCount());
+        assertEquals(5, response.getGeneratedRecords());
+        assertEquals(5, callers.size());
+        assertTrue(callers.contains(created.get(0).getMsisdn()));
+    }
+
+    @Test
+    void testGenerateCdrRecords_InvalidCallsPerMonth() {
+        CdrGenerationRequest request = new CdrGenerationRequest(null, 10, 5, 12, null, null);
+
+        CdrGenerationResponse response = cdrRecordService.generateCdrRecords(request);
+
+        assertEquals("error", response.getStatus());
+        verify(cdrStore, never()).saveAll(any());
+    }
+}
@@ -4,26 +4,38 @@ import com.royal.CallData.dto.PeriodicReportRequest;
 import com.royal.CallData.dto.ReportGenerationRequest;
 import com.royal.CallData.dto.ReportGenerationResponse;
 import com.royal.CallData.entity.CdrRecord;
-import com.royal.CallData.repository.CdrRecordRepository;
+import com.royal.CallData.repository.CdrStore;
+import com.royal.CallData.util.ColumnarReportReader;
+import com.royal.CallData.util.ReportCompression;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
@@ -31,9 +43,34 @@ import static org.mockito.Mockito.*;
 public class CdrReportServiceImplTest {
 
     @Mock
-    private CdrRecordRepository cdrRecordRepository;
+    private CdrStore cdrStore;
+
+    @Mock
+    private SubscriberDirectory subscriberDirectory;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private Executor reportExecutor;
+
+    @Spy
+    private Semaphore reportDbPermits = new Semaphore(1);
+
+    @Spy
+    private Semaphore streamingDbPermits = new Semaphore(1);
+
+    @Spy
+    private ReportResultCache reportResultCache = new ReportResultCache(600, 100, 60);
+
+    @Spy
+    private ReportStatusRegistry reportStatusRegistry = new ReportStatusRegistry(TEST_REPORTS_DIR, 3600, 100, 100);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Spy
+    private ReportMetrics reportMetrics = new ReportMetrics(meterRegistry);
 
-    @InjectMocks
     private CdrReportServiceImpl cdrReportService;
 
     private static final String TEST_MSISDN = "79001234567";
@@ -42,20 +79,11 @@ public class CdrReportServiceImplTest {
 
     @BeforeEach
     void setUp() {
-        ReflectionTestUtils.setField(cdrReportService, "REPORTS_DIRECTORY", TEST_REPORTS_DIR);
-
-        Path reportDir = Path.of(TEST_REPORTS_DIR);
-        try {
-            if (!Files.exists(reportDir)) {
-                Files.createDirectories(reportDir);
-            }
-        } catch (Exception e) {
-            fail("Не удалось создать каталог отчетов для тестирования: " + e.getMessage());
-        }
-
-        ConcurrentHashMap<UUID, String> reportStatusMap = new ConcurrentHashMap<>();
-        reportStatusMap.put(testUuid, "PROCESSING");
-        ReflectionTestUtils.setField(cdrReportService, "reportStatusMap", reportStatusMap);
+        // Два семафора одного типа, поэтому сервис создается явно, а не через @InjectMocks
+        cdrReportService = new CdrReportServiceImpl(cdrStore, subscriberDirectory, transactionManager, reportExecutor,
+                reportDbPermits, streamingDbPermits, reportResultCache, reportStatusRegistry, reportMetrics);
+        reportStatusRegistry.put(testUuid, ReportStatus.processing());
+        lenient().when(subscriberDirectory.contains(anyString())).thenReturn(true);
     }
 
     @Test
@@ -73,6 +101,77 @@ public class CdrReportServiceImplTest {
         assertNull(response.getFilePath());
     }
 
+    @Test
+    void testGenerateReport_QueueFull() {
+        LocalDateTime startDate = LocalDateTime.now().minusDays(7);
+        LocalDateTime endDate = LocalDateTime.now();
+        ReportGenerationRequest request = new ReportGenerationRequest(TEST_MSISDN, startDate, endDate);
+        doThrow(new RejectedExecutionException("queue full")).when(reportExecutor).execute(any(Runnable.class));
+
+        ReportGenerationResponse response = cdrReportService.generateReport(request);
+
+        assertNotNull(response);
+        assertEquals("rejected", response.getStatus());
+        assertNotNull(response.getRequestId());
+        assertNull(response.getFilePath());
+
+        ReportGenerationResponse status = cdrReportService.getReportStatus(response.getRequestId());
+        assertEquals("rejected", status.getStatus());
+        assertEquals(response.getMessage(), status.getMessage());
+        assertEquals(1, meterRegistry.get("report.jobs").tag("outcome", "REJECTED").counter().count());
+        assertEquals(0, meterRegistry.get("report.jobs.queued").gauge().value());
+    }
+
+    @Test
+    void testGenerateReport_IdenticalRequestJoinsExistingReport() {
+        LocalDateTime startDate = LocalDateTime.of(2025, 3, 1, 0, 0);
+        LocalDateTime endDate = LocalDateTime.of(2025, 3, 31, 0, 0);
+
+        ReportGenerationResponse first = cdrReportService.generateReport(new ReportGenerationRequest(TEST_MSISDN, startDate, endDate));
+        ReportGenerationResponse second = cdrReportService.generateReport(new ReportGenerationRequest(TEST_MSISDN, startDate, endDate));
+        ReportGenerationResponse other = cdrReportService.generateReport(new ReportGenerationRequest(TEST_MSISDN, startDate, endDate.plusDays(1)));
+
+        assertEquals("success", second.getStatus());
+        assertEquals(first.getRequestId(), second.getRequestId());
+        assertNotEquals(first.getRequestId(), other.getRequestId());
+        verify(reportExecutor, times(2)).execute(any(Runnable.class));
+    }
+
+    @Test
+    void testGenerateReport_EmptyReportIsNotReusedAfterNewRecords() {
+        LocalDateTime startDate = LocalDateTime.of(2025, 3, 1, 0, 0);
+        LocalDateTime endDate = LocalDateTime.of(2025, 3, 31, 0, 0);
+        ReportGenerationRequest request = new ReportGenerationRequest(TEST_MSISDN, startDate, endDate);
+
+        ReportGenerationResponse first = cdrReportService.generateReport(request);
+        reportStatusRegistry.put(first.getRequestId(), ReportStatus.completedEmpty());
+        assertEquals(first.getRequestId(), cdrReportService.generateReport(request).getRequestId());
+
+        reportResultCache.dataChanged();
+        ReportGenerationResponse afterLoad = cdrReportService.generateReport(request);
+
+        assertNotEquals(first.getRequestId(), afterLoad.getRequestId());
+        assertEquals("processing", cdrReportService.getReportStatus(afterLoad.getRequestId()).getStatus());
+        assertEquals(afterLoad.getRequestId(), cdrReportService.generateReport(request).getRequestId());
+    }
+
+    @Test
+    void testGenerateReport_FailedReportIsNotReused() {
+        LocalDateTime startDate = LocalDateTime.of(2025, 3, 1, 0, 0);
+        LocalDateTime endDate = LocalDateTime.of(2025, 3, 31, 0, 0);
+        ReportGenerationRequest request = new ReportGenerationRequest(TEST_MSISDN, startDate, endDate);
+        when(cdrStore.streamBySubscriberAndDateRange(eq(TEST_MSISDN), any(), any()))
+                .thenThrow(new RuntimeException("Тестовая ошибка"));
+
+        ReportGenerationResponse first = cdrReportService.generateReport(request);
+        ReflectionTestUtils.invokeMethod(cdrReportService, "generateReportFile", request, first.getRequestId());
+        ReportGenerationResponse second = cdrReportService.generateReport(request);
+
+        assertEquals("error", cdrReportService.getReportStatus(first.getRequestId()).getStatus());
+        assertNotEquals(first.getRequestId(), second.getRequestId());
+        assertEquals("processing", cdrReportService.getReportStatus(second.getRequestId()).getStatus());
+    }
+
     @Test
     void testGenerateReport_EmptyMsisdn() {
         // Arrange
@@ -91,6 +190,31 @@ public class CdrReportServiceImplTest {
         assertNull(response.getFilePath());
     }
 
+    @Test
+    void testGenerateReport_UnsupportedFormat() {
+        LocalDateTime startDate = LocalDateTime.of(2025, 3, 1, 0, 0);
+        ReportGenerationRequest request = new ReportGenerationRequest(TEST_MSISDN, startDate, startDate.plusDays(1), "parquet");
+
+        ReportGenerationResponse response = cdrReportService.generateReport(request);
+
+        assertEquals("error", response.getStatus());
+        assertEquals("Неподдерживаемый формат отчета. Допустимые значения: csv, columnar", response.getMessage());
+        verify(reportExecutor, never()).execute(any(Runnable.class));
+    }
+
+    @Test
+    void testGenerateReport_FormatIsPartOfCacheKey() {
+        LocalDateTime startDate = LocalDateTime.of(2025, 3, 1, 0, 0);
+        LocalDateTime endDate = startDate.plusDays(1);
+
+        ReportGenerationResponse csv = cdrReportService.generateReport(new ReportGenerationRequest(TEST_MSISDN, startDate, endDate));
+        ReportGenerationResponse columnar = cdrReportService.generateReport(new ReportGenerationRequest(TEST_MSISDN, startDate, endDate, "COLUMNAR"));
+        ReportGenerationResponse explicitCsv = cdrReportService.generateReport(new ReportGenerationRequest(TEST_MSISDN, startDate, endDate, "csv"));
+
+        assertNotEquals(csv.getRequestId(), columnar.getRequestId());
+        assertEquals(csv.getRequestId(), explicitCsv.getRequestId());
+    }
+
     @Test
     void testGenerateReport_NullDates() {
         ReportGenerationRequest request = new ReportGenerationRequest(TEST_MSISDN, null, null);
@@ -132,6 +256,26 @@ public class CdrReportServiceImplTest {
         assertNull(response.getFilePath());
     }
 
+    @Test
+    void testGeneratePeriodicReport_NearbyRequestsShareReport() {
+        doReturn(LocalDateTime.of(2025, 3, 31, 12, 5)).when(reportResultCache).alignToPeriodicWindow(any());
+        PeriodicReportRequest request = new PeriodicReportRequest(TEST_MSISDN, "1month");
+
+        ReportGenerationResponse first = cdrReportService.generatePeriodicReport(request);
+        ReportGenerationResponse second = cdrReportService.generatePeriodicReport(request);
+
+        assertEquals(first.getRequestId(), second.getRequestId());
+        verify(reportExecutor, times(1)).execute(any(Runnable.class));
+    }
+
+    @Test
+    void testAlignToPeriodicWindow() {
+        assertEquals(LocalDateTime.of(2025, 3, 31, 12, 5),
+                reportResultCache.alignToPeriodicWindow(LocalDateTime.of(2025, 3, 31, 12, 5, 42, 123_000_000)));
+        assertEquals(LocalDateTime.of(2025, 3, 31, 12, 0),
+                new ReportResultCache(600, 100, 300).alignToPeriodicWindow(LocalDateTime.of(2025, 3, 31, 12, 4, 59)));
+    }
+
     @Test
     void testGeneratePeriodicReport_EmptyMsisdn() {
         PeriodicReportRequest request = new PeriodicReportRequest("", "1month");
@@ -185,9 +329,7 @@ public class CdrReportServiceImplTest {
     @Test
     void testGetReportStatus_Completed() {
         String filePath = TEST_REPORTS_DIR + File.separator + "test_report.csv";
-        ConcurrentHashMap<UUID, String> reportStatusMap = new ConcurrentHashMap<>();
-        reportStatusMap.put(testUuid, "COMPLETED:" + filePath);
-        ReflectionTestUtils.setField(cdrReportService, "reportStatusMap", reportStatusMap);
+        reportStatusRegistry.put(testUuid, ReportStatus.completed(Path.of(filePath)));
 
         ReportGenerationResponse response = cdrReportService.getReportStatus(testUuid);
 
@@ -200,9 +342,7 @@ public class CdrReportServiceImplTest {
 
     @Test
     void testGetReportStatus_CompletedEmpty() {
-        ConcurrentHashMap<UUID, String> reportStatusMap = new ConcurrentHashMap<>();
-        reportStatusMap.put(testUuid, "COMPLETED_EMPTY");
-        ReflectionTestUtils.setField(cdrReportService, "reportStatusMap", reportStatusMap);
+        reportStatusRegistry.put(testUuid, ReportStatus.completedEmpty());
 
         ReportGenerationResponse response = cdrReportService.getReportStatus(testUuid);
 
@@ -215,9 +355,7 @@ public class CdrReportServiceImplTest {
 
     @Test
     void testGetReportStatus_Error() {
-        ConcurrentHashMap<UUID, String> reportStatusMap = new ConcurrentHashMap<>();
-        reportStatusMap.put(testUuid, "ERROR:Что то пошло не так");
-        ReflectionTestUtils.setField(cdrReportService, "reportStatusMap", reportStatusMap);
+        reportStatusRegistry.put(testUuid, ReportStatus.error("Что то пошло не так"));
 
         ReportGenerationResponse response = cdrReportService.getReportStatus(testUuid);
 
@@ -239,6 +377,25 @@ public class CdrReportServiceImplTest {
         assertNull(response.getFilePath());
     }
 
+    @Test
+    void testGetReportStatus_BatchIdIsNotFound() throws Exception {
+        UUID batchId = UUID.randomUUID();
+        Path batchDirectory = Files.createDirectories(Path.of(TEST_REPORTS_DIR, "batch_" + batchId));
+        try {
+            reportStatusRegistry.put(batchId, ReportStatus.completed(batchDirectory).ofBatch());
+
+            ReportGenerationResponse response = cdrReportService.getReportStatus(batchId);
+
+            assertEquals("error", response.getStatus());
+            assertEquals("Отчет не найден", response.getMessage());
+            assertNull(response.getFilePath());
+            assertFalse(cdrReportService.reportExists(batchId));
+            assertTrue(cdrReportService.reportExists(testUuid));
+        } finally {
+            Files.deleteIfExists(batchDirectory);
+        }
+    }
+
     @Test
     void testGenerateReportFile() throws Exception {
         LocalDateTime startDate = LocalDateTime.now().minusDays(7);
@@ -250,18 +407,80 @@ public class CdrReportServiceImplTest {
         testRecords.add(new CdrRecord("01", TEST_MSISDN, "79009876543", startDate.plusHours(1), startDate.plusHours(1).plusMinutes(5)));
         testRecords.add(new CdrRecord("02", "79009876543", TEST_MSISDN, startDate.plusHours(2), startDate.plusHours(2).plusMinutes(3)));
 
-        when(cdrRecordRepository.findBySubscriberAndDateRange(eq(TEST_MSISDN), any(), any())).thenReturn(testRecords);
+        when(cdrStore.streamBySubscriberAndDateRange(eq(TEST_MSISDN), any(), any())).thenReturn(testRecords.stream());
 
         ReflectionTestUtils.invokeMethod(cdrReportService, "generateReportFile", request, requestId);
 
-        ConcurrentHashMap<UUID, String> reportStatusMap = (ConcurrentHashMap<UUID, String>)
-                ReflectionTestUtils.getField(cdrReportService, "reportStatusMap");
-        String status = reportStatusMap.get(requestId);
+        ReportStatus status = reportStatusRegistry.get(requestId);
 
         assertNotNull(status);
-        assertTrue(status.startsWith("COMPLETED:"));
+        assertEquals(ReportStatus.State.COMPLETED, status.state());
+
+        Path reportFile = status.filePath();
+        assertEquals(Path.of(TEST_REPORTS_DIR), reportFile.getParent());
+        List<String> lines = Files.readAllLines(reportFile);
+        long fileSize = Files.size(reportFile);
+        Files.deleteIfExists(reportFile);
+        assertEquals(List.of(testRecords.get(0).toCdrString(), testRecords.get(1).toCdrString()), lines);
+
+        verify(cdrStore).streamBySubscriberAndDateRange(eq(TEST_MSISDN), eq(startDate), eq(endDate));
+        assertEquals(1, reportDbPermits.availablePermits());
+
+        assertEquals(1, meterRegistry.get("report.jobs").tag("outcome", "COMPLETED").counter().count());
+        assertEquals(0, meterRegistry.get("report.jobs.active").gauge().value());
+        assertEquals(2, meterRegistry.get("report.rows.written").tag("target", "file").counter().count());
+        assertEquals(fileSize, meterRegistry.get("report.bytes.written").counter().count());
+        for (String phase : List.of("db_wait", "query", "write")) {
+            assertEquals(1, meterRegistry.get("report.phase").tag("phase", phase).timer().count());
+        }
+    }
+
+    @Test
+    void testGenerateReportFile_Gzip() throws Exception {
+        ReflectionTestUtils.setField(cdrReportService, "compression", ReportCompression.GZIP);
+        LocalDateTime startDate = LocalDateTime.of(2025, 3, 1, 10, 0);
+        ReportGenerationRequest request = new ReportGenerationRequest(TEST_MSISDN, startDate, startDate.plusDays(1));
+        UUID requestId = UUID.randomUUID();
+        List<CdrRecord> testRecords = List.of(
+                new CdrRecord("01", TEST_MSISDN, "79009876543", startDate, startDate.plusMinutes(5)),
+                new CdrRecord("02", "79009876543", TEST_MSISDN, startDate.plusHours(1), startDate.plusHours(1).plusMinutes(1)));
+        when(cdrStore.streamBySubscriberAndDateRange(eq(TEST_MSISDN), any(), any())).thenReturn(testRecords.stream());
 
-        verify(cdrRecordRepository).findBySubscriberAndDateRange(eq(TEST_MSISDN), eq(startDate), eq(endDate));
+        ReflectionTestUtils.invokeMethod(cdrReportService, "generateReportFile", request, requestId);
+
+        Path reportFile = reportStatusRegistry.get(requestId).filePath();
+        assertEquals(TEST_MSISDN + "_" + requestId + ".csv.gz", reportFile.getFileName().toString());
+        String content;
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(reportFile))) {
+            content = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } finally {
+            Files.deleteIfExists(reportFile);
+        }
+        assertEquals(testRecords.get(0).toCdrString() + "\n" + testRecords.get(1).toCdrString() + "\n", content);
+    }
+
+    @Test
+    void testGenerateReportFile_Columnar() throws Exception {
+        LocalDateTime startDate = LocalDateTime.of(2025, 3, 1, 10, 0);
+        ReportGenerationRequest request = new ReportGenerationRequest(TEST_MSISDN, startDate, startDate.plusDays(1), "columnar");
+        UUID requestId = UUID.randomUUID();
+        List<CdrRecord> testRecords = List.of(
+                new CdrRecord("01", TEST_MSISDN, "79009876543", startDate, startDate.plusMinutes(5)),
+                new CdrRecord("02", "79009876543", TEST_MSISDN, startDate.plusHours(1), startDate.plusHours(1).plusMinutes(1)));
+        when(cdrStore.streamBySubscriberAndDateRange(eq(TEST_MSISDN), any(), any())).thenReturn(testRecords.stream());
+
+        ReflectionTestUtils.invokeMethod(cdrReportService, "generateReportFile", request, requestId);
+
+        Path reportFile = reportStatusRegistry.get(requestId).filePath();
+        assertEquals(TEST_MSISDN + "_" + requestId + ".cdrc", reportFile.getFileName().toString());
+        List<CdrRecord> read;
+        try (ColumnarReportReader reader = ColumnarReportReader.open(reportFile)) {
+            read = reader.readRecords();
+        } finally {
+            Files.deleteIfExists(reportFile);
+        }
+        assertEquals(testRecords.stream().map(CdrRecord::toCdrString).toList(),
+                read.stream().map(CdrRecord::toCdrString).toList());
     }
 
     @Test
@@ -271,17 +490,17 @@ public class CdrReportServiceImplTest {
         ReportGenerationRequest request = new ReportGenerationRequest(TEST_MSISDN, startDate, endDate);
         UUID requestId = UUID.randomUUID();
 
-        when(cdrRecordRepository.findBySubscriberAndDateRange(eq(TEST_MSISDN), any(), any())).thenReturn(new ArrayList<>());
+        when(cdrStore.streamBySubscriberAndDateRange(eq(TEST_MSISDN), any(), any())).thenReturn(Stream.empty());
 
         ReflectionTestUtils.invokeMethod(cdrReportService, "generateReportFile", request, requestId);
 
-        ConcurrentHashMap<UUID, String> reportStatusMap = (ConcurrentHashMap<UUID, String>)
-                ReflectionTestUtils.getField(cdrReportService, "reportStatusMap");
-        String status = reportStatusMap.get(requestId);
+        ReportStatus status = reportStatusRegistry.get(requestId);
 
-        assertEquals("COMPLETED_EMPTY", status);
+        assertEquals(ReportStatus.completedEmpty(), status);
+        assertEquals(1, meterRegistry.get("report.jobs").tag("outcome", "COMPLETED_EMPTY").counter().count());
+        assertEquals(0, meterRegistry.get("report.phase").tag("phase", "write").timer().count());
 
-        verify(cdrRecordRepository).findBySubscriberAndDateRange(eq(TEST_MSISDN), eq(startDate), eq(endDate));
+        verify(cdrStore).streamBySubscriberAndDateRange(eq(TEST_MSISDN), eq(startDate), eq(endDate));
     }
 
     @Test
@@ -291,19 +510,59 @@ public class CdrReportServiceImplTest {
         ReportGenerationRequest request = new ReportGenerationRequest(TEST_MSISDN, startDate, endDate);
         UUID requestId = UUID.randomUUID();
 
-        when(cdrRecordRepository.findBySubscriberAndDateRange(eq(TEST_MSISDN), any(), any()))
+        when(cdrStore.streamBySubscriberAndDateRange(eq(TEST_MSISDN), any(), any()))
                 .thenThrow(new RuntimeException("Тестовая ошибка"));
 
         ReflectionTestUtils.invokeMethod(cdrReportService, "generateReportFile", request, requestId);
 
-        ConcurrentHashMap<UUID, String> reportStatusMap = (ConcurrentHashMap<UUID, String>)
-                ReflectionTestUtils.getField(cdrReportService, "reportStatusMap");
-        String status = reportStatusMap.get(requestId);
+        ReportStatus status = reportStatusRegistry.get(requestId);
 
         assertNotNull(status);
-        assertTrue(status.startsWith("ERROR:"));
-        assertTrue(status.contains("Тестовая ошибка"));
+        assertEquals(ReportStatus.State.ERROR, status.state());
+        assertEquals("Тестовая ошибка", status.message());
+        assertEquals(1, reportDbPermits.availablePermits());
+        assertEquals(1, meterRegistry.get("report.jobs").tag("outcome", "ERROR").counter().count());
+
+        verify(cdrStore).streamBySubscriberAndDateRange(eq(TEST_MSISDN), eq(startDate), eq(endDate));
+    }
 
-        verify(cdrRecordRepository).findBySubscriberAndDateRange(eq(TEST_MSISDN), eq(startDate), eq(endDate));
+    @Test
+    void testWriteSubscriberReport() throws Exception {
+        LocalDateTime startDate = LocalDateTime.of(2025, 3, 1, 10, 0);
+        List<CdrRecord> testRecords = List.of(
+                new CdrRecord("01", TEST_MSISDN, "79009876543", startDate, startDate.plusMinutes(5)),
+                new CdrRecord("02", "79009876543", TEST_MSISDN, startDate.plusHours(1), startDate.plusHours(1).plusSeconds(30)));
+        when(cdrStore.streamAllBySubscriberMsisdn(TEST_MSISDN)).thenReturn(testRecords.stream());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long written = cdrReportService.writeSubscriberReport(TEST_MSISDN, out);
+
+        assertEquals(2, written);
+        assertEquals(testRecords.get(0).toCdrString() + "\n" + testRecords.get(1).toCdrString() + "\n", out.toString());
+        verify(streamingDbPermits).acquire();
+        verify(streamingDbPermits).release();
+        verify(reportDbPermits, never()).acquire();
+        assertEquals(1, streamingDbPermits.availablePermits());
+    }
+
+    @Test
+    void testHasRecords() {
+        when(cdrStore.existsBySubscriber(TEST_MSISDN)).thenReturn(true);
+
+        assertTrue(cdrReportService.hasRecords(TEST_MSISDN));
+    }
+
+    @Test
+    void testGenerateReport_UnknownSubscriberRejectedWithoutDbAccess() {
+        when(subscriberDirectory.contains("79990000000")).thenReturn(false);
+        ReportGenerationRequest request = new ReportGenerationRequest("79990000000",
+                LocalDateTime.now().minusDays(7), LocalDateTime.now());
+
+        ReportGenerationResponse response = cdrReportService.generateReport(request);
+
+        assertEquals("error", response.getStatus());
+        assertNull(response.getRequestId());
+        assertFalse(cdrReportService.hasRecords("79990000000"));
+        verifyNoInteractions(cdrStore, reportExecutor);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,191 @@
+package com.royal.CallData.service;
+
+import com.royal.CallData.entity.CdrRecord;
+import com.royal.CallData.entity.DailyUsage;
+import com.royal.CallData.entity.DailyUsageId;
+import com.royal.CallData.repository.CdrRecordRepository;
+import com.royal.CallData.repository.JpaCdrStore;
+import com.royal.CallData.repository.DailyUsageRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Агрегаты обновляются в собственных транзакциях, поэтому тесты выполняются без общей тестовой транзакции.
+ */
+@DataJpaTest
+@Import({DailyUsageServiceImpl.class, JpaCdrStore.class, ReportResultCache.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class DailyUsageServiceImplTest {
+
+    private static final String CALLER = "79001112233";
+    private static final String RECEIVER = "79004445566";
+    private static final LocalDateTime DAY_START = LocalDateTime.of(2025, 3, 1, 0, 0);
+
+    @Autowired
+    private DailyUsageService dailyUsageService;
+
+    @Autowired
+    private DailyUsageRepository dailyUsageRepository;
+
+    @Autowired
+    private CdrRecordRepository cdrRecordRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ReportResultCache reportResultCache;
+
+    @AfterEach
+    void tearDown() {
+        cdrRecordRepository.deleteAll();
+        dailyUsageRepository.deleteAll();
+    }
+
+    @Test
+    void testRecordSaved_AccumulatesOutgoingAndIncomingPerDay() {
+        dailyUsageService.recordSaved(List.of(
+                call(CALLER, RECEIVER, DAY_START.plusHours(1), 60),
+                call(CALLER, RECEIVER, DAY_START.plusHours(2), 30)));
+        dailyUsageService.recordSaved(List.of(
+                call(RECEIVER, CALLER, DAY_START.plusHours(3), 10),
+                call(CALLER, RECEIVER, DAY_START.plusDays(1), 5)));
+
+        Map<DailyUsageId, DailyUsage> usage = usageById();
+        LocalDate day = DAY_START.toLocalDate();
+        assertUsage(usage, CALLER, day, "01", 2, 90);
+        assertUsage(usage, CALLER, day, "02", 1, 10);
+        assertUsage(usage, RECEIVER, day, "02", 2, 90);
+        assertUsage(usage, RECEIVER, day, "01", 1, 10);
+        assertUsage(usage, CALLER, day.plusDays(1), "01", 1, 5);
+        assertEquals(6, usage.size());
+    }
+
+    @Test
+    void testRecordSaved_AppliedOnlyAfterCommit() {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            dailyUsageService.recordSaved(List.of(call(CALLER, RECEIVER, DAY_START, 60)));
+            status.setRollbackOnly();
+        });
+        assertEquals(0, dailyUsageRepository.count());
+
+        transactionTemplate.executeWithoutResult(status -> {
+            dailyUsageService.recordSaved(List.of(call(CALLER, RECEIVER, DAY_START, 60)));
+            assertEquals(0, dailyUsageRepository.count());
+        });
+        assertEquals(2, dailyUsageRepository.count());
+    }
+
+    @Test
+    void testRecordSaved_InvalidatesCachedReportsAfterCommit() {
+        ReportResultCache.Key key = new ReportResultCache.Key(CALLER, DAY_START, DAY_START.plusDays(1), ReportFormat.CSV);
+        UUID cached = reportResultCache.getOrRegister(key, requestId -> true, UUID.randomUUID());
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            dailyUsageService.recordSaved(List.of(call(CALLER, RECEIVER, DAY_START, 60)));
+            assertEquals(cached, reportResultCache.getOrRegister(key, requestId -> true, UUID.randomUUID()));
+        });
+
+        assertNotEquals(cached, reportResultCache.getOrRegister(key, requestId -> true, UUID.randomUUID()));
+    }
+
+    @Test
+    void testRebuild_MatchesIncrementalRollups() {
+        List<CdrRecord> records = List.of(
+                call(CALLER, RECEIVER, DAY_START.plusHours(1), 60),
+                call(RECEIVER, CALLER, DAY_START.plusHours(23).plusMinutes(59), 120),
+                call(CALLER, CALLER, DAY_START.plusDays(2), 15),
+                call(RECEIVER, "79007778899", DAY_START.plusDays(2), 45));
+        cdrRecordRepository.saveAll(records);
+        dailyUsageService.recordSaved(records);
+        List<String> incremental = snapshot();
+
+        long rows = dailyUsageService.rebuild();
+
+        assertEquals(incremental.size(), rows);
+        assertEquals(incremental, snapshot());
+    }
+
+    @Test
+    void testRebuild_WaitsForBatchInProgressAndDoesNotCountItTwice() throws Exception {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        List<CdrRecord> committed = List.of(call(CALLER, RECEIVER, DAY_START, 60));
+        transactionTemplate.executeWithoutResult(status -> {
+            dailyUsageService.recordSaved(committed);
+            cdrRecordRepository.saveAll(committed);
+        });
+
+        CountDownLatch saved = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Void> batch = CompletableFuture.runAsync(() -> transactionTemplate.executeWithoutResult(status -> {
+            List<CdrRecord> records = List.of(call(CALLER, RECEIVER, DAY_START.plusHours(1), 30));
+            dailyUsageService.recordSaved(records);
+            cdrRecordRepository.saveAll(records);
+            saved.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+        assertTrue(saved.await(10, TimeUnit.SECONDS));
+
+        CompletableFuture<Long> rebuild = CompletableFuture.supplyAsync(dailyUsageService::rebuild);
+        Thread.sleep(200);
+        assertFalse(rebuild.isDone());
+        release.countDown();
+        batch.get(10, TimeUnit.SECONDS);
+        rebuild.get(10, TimeUnit.SECONDS);
+
+        Map<DailyUsageId, DailyUsage> usage = usageById();
+        assertUsage(usage, CALLER, DAY_START.toLocalDate(), "01", 2, 90);
+        assertUsage(usage, RECEIVER, DAY_START.toLocalDate(), "02", 2, 90);
+        assertEquals(2, usage.size());
+    }
+
+    private static CdrRecord call(String caller, String receiver, LocalDateTime start, long durationSeconds) {
+        return new CdrRecord("01", caller, receiver, start, start.plusSeconds(durationSeconds));
+    }
+
+    private Map<DailyUsageId, DailyUsage> usageById() {
+        return dailyUsageRepository.findAll().stream().collect(Collectors.toMap(DailyUsage::getId, Function.identity()));
+    }
+
+    private List<String> snapshot() {
+        return dailyUsageRepository.findAll().stream()
+                .map(DailyUsage::toString)
+                .sorted(Comparator.naturalOrder())
+                .toList();
+    }
+
+    private static void assertUsage(Map<DailyUsageId, DailyUsage> usage, String msisdn, LocalDate day, String callType,
+                                    long callCount, long totalDurationSeconds) {
+        DailyUsage row = usage.get(new DailyUsageId(msisdn, day, callType));
+        assertNotNull(row, msisdn + " " + day + " " + callType);
+        assertEquals(callCount, row.getCallCount());
+        assertEquals(totalDurationSeconds, row.getTotalDurationSeconds());
+    }
+}
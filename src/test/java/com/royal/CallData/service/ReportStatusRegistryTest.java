@@ -0,0 +1,86 @@
+package com.royal.CallData.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ReportStatusRegistryTest {
+
+    @TempDir
+    Path reportsDirectory;
+
+    @Test
+    void testSweep_DeletesFilesOfExpiredStatuses() throws Exception {
+        AtomicLong now = new AtomicLong(System.currentTimeMillis());
+        ReportStatusRegistry registry = new ReportStatusRegistry(reportsDirectory, 1000, 100, 100, now::get);
+        UUID expiredId = UUID.randomUUID();
+        UUID liveId = UUID.randomUUID();
+        Path expiredFile = Files.createFile(reportsDirectory.resolve("79001234567_" + expiredId + ".csv"));
+        Path liveFile = Files.createFile(reportsDirectory.resolve("79001234567_" + liveId + ".csv"));
+
+        registry.put(expiredId, ReportStatus.completed(expiredFile));
+        now.addAndGet(500);
+        registry.put(liveId, ReportStatus.completed(liveFile));
+        now.addAndGet(500);
+
+        assertEquals(1, registry.sweep());
+        assertFalse(Files.exists(expiredFile));
+        assertTrue(Files.exists(liveFile));
+        assertNull(registry.get(expiredId));
+        assertEquals(ReportStatus.State.COMPLETED, registry.get(liveId).state());
+    }
+
+    @Test
+    void testSweep_DeletesFilesOfEvictedStatusesInBatches() throws Exception {
+        ReportStatusRegistry registry = new ReportStatusRegistry(reportsDirectory, 60_000, 1, 2, System::currentTimeMillis);
+        for (int i = 0; i < 4; i++) {
+            UUID requestId = UUID.randomUUID();
+            registry.put(requestId, ReportStatus.completed(
+                    Files.createFile(reportsDirectory.resolve("79001234567_" + requestId + ".csv"))));
+        }
+
+        assertEquals(2, registry.sweep());
+        assertEquals(1, registry.sweep());
+        try (var files = Files.list(reportsDirectory)) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    @Test
+    void testSweep_DeletesOnlyStaleOrphanReportFiles() throws Exception {
+        long now = System.currentTimeMillis();
+        ReportStatusRegistry registry = new ReportStatusRegistry(reportsDirectory, 1000, 100, 100, () -> now);
+        Path staleOrphan = Files.createFile(reportsDirectory.resolve("79001234567_" + UUID.randomUUID() + ".csv"));
+        Path freshOrphan = Files.createFile(reportsDirectory.resolve("79001234567_" + UUID.randomUUID() + ".csv"));
+        Path foreignFile = Files.createFile(reportsDirectory.resolve("notes.txt"));
+        Files.setLastModifiedTime(staleOrphan, FileTime.fromMillis(now - 5000));
+        Files.setLastModifiedTime(foreignFile, FileTime.fromMillis(now - 5000));
+
+        assertEquals(1, registry.sweep());
+        assertFalse(Files.exists(staleOrphan));
+        assertTrue(Files.exists(freshOrphan));
+        assertTrue(Files.exists(foreignFile));
+    }
+
+    @Test
+    void testSweep_DeletesBatchDirectoryOfExpiredStatus() throws Exception {
+        AtomicLong now = new AtomicLong(System.currentTimeMillis());
+        ReportStatusRegistry registry = new ReportStatusRegistry(reportsDirectory, 1000, 100, 100, now::get);
+        UUID batchId = UUID.randomUUID();
+        Path batchDirectory = Files.createDirectory(reportsDirectory.resolve("batch_" + batchId));
+        Files.createFile(batchDirectory.resolve("79001234567.csv"));
+
+        registry.put(batchId, ReportStatus.completed(batchDirectory));
+        now.addAndGet(1000);
+
+        assertEquals(1, registry.sweep());
+        assertFalse(Files.exists(batchDirectory));
+    }
+}
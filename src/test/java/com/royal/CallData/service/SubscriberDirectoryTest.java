@@ -0,0 +1,86 @@
+package com.royal.CallData.service;
+
+import com.royal.CallData.entity.Subscriber;
+import com.royal.CallData.repository.SubscriberRepository;
+import com.royal.CallData.util.MsisdnCodec;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class SubscriberDirectoryTest {
+
+    @Mock
+    private SubscriberRepository subscriberRepository;
+
+    @Test
+    void testReload_LoadsSubscribersInOrder() {
+        when(subscriberRepository.findAll()).thenReturn(List.of(
+                new Subscriber("79002223344"), new Subscriber("79001112233"), new Subscriber("79002223344")));
+        SubscriberDirectory directory = new SubscriberDirectory(subscriberRepository);
+
+        directory.reload();
+
+        assertArrayEquals(new long[]{79002223344L, 79001112233L}, directory.numbers());
+        assertTrue(directory.contains("79001112233"));
+        assertFalse(directory.contains("79009999999"));
+        assertFalse(directory.contains("+79001112233"));
+        assertFalse(directory.contains(null));
+    }
+
+    @Test
+    void testRegister_AddsNewSubscribersWithoutDbAccess() {
+        when(subscriberRepository.findAll()).thenReturn(List.of(new Subscriber("79001112233")));
+        SubscriberDirectory directory = new SubscriberDirectory(subscriberRepository);
+        directory.reload();
+
+        directory.register(List.of(new Subscriber("79001112233"), new Subscriber("79100000000"), new Subscriber("79100000001")));
+
+        assertEquals(3, directory.size());
+        assertArrayEquals(new long[]{79001112233L, 79100000000L, 79100000001L}, directory.numbers());
+        assertTrue(directory.contains("79100000001"));
+        verify(subscriberRepository, times(1)).findAll();
+    }
+
+    @Test
+    void testReserveNew_RegistersOnlyAfterCommit() {
+        SubscriberDirectory directory = new SubscriberDirectory(subscriberRepository);
+        directory.reload();
+
+        List<Subscriber> rolledBack = inTransaction(TransactionSynchronization.STATUS_ROLLED_BACK, () -> {
+            List<Subscriber> created = directory.reserveNew(List.of(79550000001L, MsisdnCodec.NONE));
+            assertTrue(directory.reserveNew(List.of(79550000001L)).isEmpty());
+            assertFalse(directory.contains("79550000001"));
+            return created;
+        });
+        assertEquals(1, rolledBack.size());
+        assertFalse(directory.contains("79550000001"));
+
+        inTransaction(TransactionSynchronization.STATUS_COMMITTED,
+                () -> directory.reserveNew(List.of(79550000001L)));
+        assertTrue(directory.contains("79550000001"));
+        assertTrue(inTransaction(TransactionSynchronization.STATUS_COMMITTED,
+                () -> directory.reserveNew(List.of(79550000001L))).isEmpty());
+    }
+
+    private static List<Subscriber> inTransaction(int completionStatus, Supplier<List<Subscriber>> work) {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            List<Subscriber> result = work.get();
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(synchronization -> synchronization.afterCompletion(completionStatus));
+            return result;
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.royal.CallData.service;
+
+import com.royal.CallData.dto.UdrResponse;
+import com.royal.CallData.entity.DailyUsage;
+import com.royal.CallData.entity.DailyUsageId;
+import com.royal.CallData.entity.Subscriber;
+import com.royal.CallData.repository.DailyUsageRepository;
+import com.royal.CallData.repository.SubscriberRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@Import({UdrServiceImpl.class, SubscriberDirectory.class})
+public class UdrServiceImplTest {
+
+    private static final String FIRST = "79001112233";
+    private static final String SECOND = "79004445566";
+    private static final String SILENT = "79007778899";
+    private static final YearMonth MARCH = YearMonth.of(2025, 3);
+
+    @Autowired
+    private UdrService udrService;
+
+    @Autowired
+    private DailyUsageRepository dailyUsageRepository;
+
+    @Autowired
+    private SubscriberRepository subscriberRepository;
+
+    @Autowired
+    private SubscriberDirectory subscriberDirectory;
+
+    @BeforeEach
+    void setUp() {
+        subscriberRepository.saveAll(List.of(new Subscriber(FIRST), new Subscriber(SECOND), new Subscriber(SILENT)));
+        subscriberDirectory.reload();
+        dailyUsageRepository.saveAll(List.of(
+                usage(SECOND, LocalDate.of(2025, 3, 1), "01", 2, 90),
+                usage(SECOND, LocalDate.of(2025, 3, 31), "02", 1, 30),
+                usage(FIRST, LocalDate.of(2025, 3, 1), "02", 2, 90),
+                usage(FIRST, LocalDate.of(2025, 3, 15), "02", 3, 3600),
+                usage(FIRST, LocalDate.of(2025, 3, 15), "01", 1, 45),
+                usage(FIRST, LocalDate.of(2025, 2, 28), "01", 5, 500),
+                usage(FIRST, LocalDate.of(2025, 4, 1), "02", 5, 500)));
+    }
+
+    @Test
+    void testGetSubscriberUdr_SumsOnlyDaysOfMonth() {
+        UdrResponse udr = udrService.getSubscriberUdr(FIRST, MARCH);
+
+        assertEquals(FIRST, udr.getMsisdn());
+        assertEquals("2025-03", udr.getMonth());
+        assertEquals(5, udr.getIncomingCallCount());
+        assertEquals(3690, udr.getIncomingSeconds());
+        assertEquals("01:01:30", udr.getIncomingTotalTime());
+        assertEquals(1, udr.getOutgoingCallCount());
+        assertEquals(45, udr.getOutgoingSeconds());
+        assertEquals("00:00:45", udr.getOutgoingTotalTime());
+    }
+
+    @Test
+    void testGetSubscriberUdr_NoCallsGivesZeroTotals() {
+        UdrResponse udr = udrService.getSubscriberUdr(SILENT, MARCH);
+
+        assertEquals(SILENT, udr.getMsisdn());
+        assertEquals(0, udr.getIncomingCallCount());
+        assertEquals(0, udr.getOutgoingSeconds());
+        assertEquals("00:00:00", udr.getIncomingTotalTime());
+    }
+
+    @Test
+    void testGetSubscriberUdr_UnknownOrInvalidSubscriberIsRejected() {
+        assertTrue(udrService.hasSubscriber(SILENT));
+        assertFalse(udrService.hasSubscriber("79009999999"));
+        assertFalse(udrService.hasSubscriber("+79001112233"));
+
+        assertThrows(IllegalArgumentException.class, () -> udrService.getSubscriberUdr("79009999999", MARCH));
+        assertThrows(IllegalArgumentException.class, () -> udrService.getSubscriberUdr("+79001112233", MARCH));
+    }
+
+    @Test
+    void testGetAllUdr_OneRowPerSubscriberOrderedByMsisdn() {
+        List<UdrResponse> udrs = udrService.getAllUdr(MARCH);
+
+        assertEquals(List.of(FIRST, SECOND), udrs.stream().map(UdrResponse::getMsisdn).toList());
+        assertEquals(3690, udrs.get(0).getIncomingSeconds());
+        assertEquals(90, udrs.get(1).getOutgoingSeconds());
+        assertEquals(30, udrs.get(1).getIncomingSeconds());
+        assertTrue(udrService.getAllUdr(YearMonth.of(2025, 5)).isEmpty());
+    }
+
+    @Test
+    void testFormatDuration_HoursAreNotWrapped() {
+        assertEquals("100:00:01", UdrServiceImpl.formatDuration(360_001));
+    }
+
+    private static DailyUsage usage(String msisdn, LocalDate day, String callType, long callCount, long seconds) {
+        return new DailyUsage(new DailyUsageId(msisdn, day, callType), callCount, seconds);
+    }
+}
@@ -0,0 +1,33 @@
+package com.royal.CallData.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CallTypeCodecTest {
+
+    @Test
+    void testEncodeDecode_RoundTrip() {
+        assertEquals(1, CallTypeCodec.encode("01"));
+        assertEquals(2, CallTypeCodec.encode("02"));
+        assertEquals("01", CallTypeCodec.decode(CallTypeCodec.encode("01")));
+        assertEquals("02", CallTypeCodec.decode(CallTypeCodec.encode("2")));
+        assertEquals("127", CallTypeCodec.decode(CallTypeCodec.encode("127")));
+        assertSame(CallTypeCodec.decode((byte) 1), CallTypeCodec.decode((byte) 1));
+    }
+
+    @Test
+    void testNullIsNone() {
+        assertEquals(CallTypeCodec.NONE, CallTypeCodec.encode(null));
+        assertNull(CallTypeCodec.decode(CallTypeCodec.NONE));
+    }
+
+    @Test
+    void testEncode_RejectsOutOfRange() {
+        assertThrows(IllegalArgumentException.class, () -> CallTypeCodec.encode("00"));
+        assertThrows(IllegalArgumentException.class, () -> CallTypeCodec.encode("128"));
+        assertThrows(IllegalArgumentException.class, () -> CallTypeCodec.encode("-1"));
+        assertThrows(IllegalArgumentException.class, () -> CallTypeCodec.encode("ab"));
+        assertThrows(IllegalArgumentException.class, () -> CallTypeCodec.decode((byte) -1));
+    }
+}
@@ -0,0 +1,112 @@
+package com.royal.CallData.util;
+
+import com.royal.CallData.entity.CdrRecord;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CdrCsvReaderTest {
+
+    private static final LocalDateTime BASE_TIME = LocalDateTime.of(2025, 3, 1, 10, 0);
+
+    private final List<CdrRecord> accepted = new ArrayList<>();
+    private final List<String> rejected = new ArrayList<>();
+
+    private final CdrCsvReader.RowHandler handler = new CdrCsvReader.RowHandler() {
+        @Override
+        public void accept(CdrRecord record) {
+            accepted.add(record);
+        }
+
+        @Override
+        public void reject(long lineNumber, String reason) {
+            rejected.add(lineNumber + ": " + reason);
+        }
+    };
+
+    private long read(CdrCsvReader reader, String content) throws IOException {
+        return reader.read(new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)), handler);
+    }
+
+    @Test
+    void testRead_ParsesReportRows() throws IOException {
+        List<CdrRecord> records = List.of(
+                new CdrRecord("01", "79001234567", "79009876543", BASE_TIME, BASE_TIME.plusSeconds(59)),
+                new CdrRecord("02", "79009876543", "79001234567", BASE_TIME.plusNanos(5_000_000), BASE_TIME.plusSeconds(1)),
+                new CdrRecord("01", "1", "123456789012345", BASE_TIME.plusNanos(123_456_789), BASE_TIME.plusHours(1)));
+        CdrRowEncoder encoder = new CdrRowEncoder();
+        StringWriter writer = new StringWriter();
+        for (CdrRecord record : records) {
+            encoder.writeRow(record, writer);
+        }
+
+        // Маленький буфер: строки разрываются границами блоков
+        long rows = read(new CdrCsvReader(7), writer.toString());
+
+        assertEquals(3, rows);
+        assertTrue(rejected.isEmpty());
+        assertEquals(records.stream().map(CdrRecord::toCdrString).toList(),
+                accepted.stream().map(CdrRecord::toCdrString).toList());
+    }
+
+    @Test
+    void testRead_SkipsHeaderAndEmptyLinesWithCrLf() throws IOException {
+        String content = "callType,callerMsisdn,receiverMsisdn,startTime,endTime\r\n"
+                + "\r\n"
+                + "01,79001234567,79009876543,2025-03-01T10:00,2025-03-01T10:01:30\r\n"
+                + "\n"
+                + "02,79009876543,79001234567,2025-03-01T11:00:00.5,2025-03-01T11:00:01";
+
+        long rows = read(new CdrCsvReader(), content);
+
+        assertEquals(2, rows);
+        assertTrue(rejected.isEmpty());
+        assertEquals(LocalDateTime.of(2025, 3, 1, 10, 1, 30), accepted.get(0).getEndTime());
+        assertEquals(BASE_TIME.plusHours(1).plusNanos(500_000_000), accepted.get(1).getStartTime());
+    }
+
+    @Test
+    void testRead_RejectsInvalidRowsWithLineNumbers() throws IOException {
+        String content = String.join("\n",
+                "03,79001234567,79009876543,2025-03-01T10:00,2025-03-01T10:01",
+                "01,+79001234567,79009876543,2025-03-01T10:00,2025-03-01T10:01",
+                "01,1234567890123456,79009876543,2025-03-01T10:00,2025-03-01T10:01",
+                "01,79001234567,79009876543,2025-03-01 10:00,2025-03-01T10:01",
+                "01,79001234567,79009876543,2025-02-30T10:00,2025-03-01T10:01",
+                "01,79001234567,79009876543,2025-03-01T10:00,2025-03-01T09:59",
+                "01,79001234567,79009876543,2025-03-01T10:00",
+                "01,79001234567,79009876543,2025-03-01T10:00,2025-03-01T10:01,x",
+                "01,79001234567,79009876543,2025-03-01T10:00:00.1234567890,2025-03-01T10:01",
+                "01,79001234567,79009876543,2025-03-01T10:00,2025-03-01T10:01");
+
+        long rows = read(new CdrCsvReader(16), content);
+
+        assertEquals(10, rows);
+        assertEquals(1, accepted.size());
+        assertEquals(9, rejected.size());
+        for (int i = 0; i < rejected.size(); i++) {
+            assertTrue(rejected.get(i).startsWith((i + 1) + ": "), rejected.get(i));
+        }
+    }
+
+    @Test
+    void testRead_RejectsOverlongLineWithoutBufferingIt() throws IOException {
+        String valid = "01,79001234567,79009876543,2025-03-01T10:00,2025-03-01T10:01";
+        String content = valid + "\n" + "9".repeat(CdrCsvReader.MAX_LINE_LENGTH * 10) + "\n" + valid + "\n"
+                + "9".repeat(CdrCsvReader.MAX_LINE_LENGTH + 1);
+
+        long rows = read(new CdrCsvReader(100), content);
+
+        assertEquals(4, rows);
+        assertEquals(2, accepted.size());
+        assertEquals(List.of("2: строка длиннее 1024 байт", "4: строка длиннее 1024 байт"), rejected);
+    }
+}
@@ -0,0 +1,63 @@
+package com.royal.CallData.util;
+
+import com.royal.CallData.entity.CdrRecord;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringWriter;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CdrRowEncoderTest {
+
+    private static final LocalDateTime BASE_TIME = LocalDateTime.of(2025, 3, 1, 10, 0);
+
+    private static String referenceFormat(CdrRecord record) {
+        return String.format("%s,%s,%s,%s,%s",
+                record.getCallType(),
+                record.getCallerMsisdn(),
+                record.getReceiverMsisdn(),
+                record.getStartTime().toString(),
+                record.getEndTime().toString());
+    }
+
+    @Test
+    void testWriteRow_MatchesReferenceFormat() throws Exception {
+        List<CdrRecord> records = List.of(
+                new CdrRecord("01", "79001234567", "79009876543", BASE_TIME, BASE_TIME.plusSeconds(59)),
+                new CdrRecord("02", "79009876543", "79001234567", BASE_TIME.plusNanos(5_000_000), BASE_TIME.plusNanos(120_000)),
+                new CdrRecord("01", "79001234567", "79009876543", BASE_TIME.plusNanos(123_456_789), BASE_TIME.plusNanos(1)),
+                new CdrRecord("02", "79001234567", "79009876543", LocalDateTime.of(7, 1, 2, 3, 4, 5), LocalDateTime.of(999, 12, 31, 23, 59)),
+                new CdrRecord("01", "79001234567", "79009876543", LocalDateTime.of(12345, 6, 7, 8, 9), LocalDateTime.of(-5, 6, 7, 8, 9, 10)),
+                new CdrRecord(null, null, null, BASE_TIME, BASE_TIME)
+        );
+
+        CdrRowEncoder encoder = new CdrRowEncoder();
+        StringWriter writer = new StringWriter();
+        StringBuilder expected = new StringBuilder();
+        for (CdrRecord record : records) {
+            encoder.writeRow(record, writer);
+            expected.append(referenceFormat(record)).append('\n');
+        }
+
+        assertEquals(expected.toString(), writer.toString());
+    }
+
+    @Test
+    void testToCdrString_MatchesReferenceFormat() {
+        CdrRecord record = new CdrRecord("01", "79001234567", "79009876543", BASE_TIME.plusSeconds(7), BASE_TIME.plusHours(1));
+
+        assertEquals(referenceFormat(record), record.toCdrString());
+    }
+
+    @Test
+    void testWriteRow_GrowsBufferForLongValues() throws Exception {
+        CdrRecord record = new CdrRecord("0".repeat(300) + "1", "999999999999999999", "79001234567", BASE_TIME, BASE_TIME);
+        StringWriter writer = new StringWriter();
+
+        new CdrRowEncoder().writeRow(record, writer);
+
+        assertEquals(referenceFormat(record) + "\n", writer.toString());
+    }
+}
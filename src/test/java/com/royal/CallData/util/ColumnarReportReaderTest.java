@@ -0,0 +1,98 @@
+package com.royal.CallData.util;
+
+import com.royal.CallData.entity.CdrRecord;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ColumnarReportReaderTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2025, 3, 1, 10, 0);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testWriteAndRead_RoundTripAcrossBlocks() throws Exception {
+        List<CdrRecord> records = List.of(
+                new CdrRecord("01", "79001234567", "79009876543", START, START.plusMinutes(5)),
+                new CdrRecord("02", "79009876543", "79001234567", START.plusHours(1), START.plusHours(1).plusSeconds(30)),
+                new CdrRecord("01", "79001234567", "79005554433", START.plusHours(1), START.plusHours(2)),
+                new CdrRecord("02", "79005554433", "79001234567", START.plusDays(1), START.plusDays(1).plusSeconds(10)),
+                new CdrRecord("01", "79001234567", null, START.plusDays(2), null));
+        Path file = write(records, 2);
+
+        try (ColumnarReportReader reader = ColumnarReportReader.open(file)) {
+            assertEquals(3, reader.blockCount());
+            assertEquals(5, reader.rowCount());
+            assertEquals(List.of("79001234567", "79009876543", "79005554433"), reader.dictionary());
+
+            ColumnarReportReader.BlockInfo second = reader.blocks().get(1);
+            assertEquals(2, second.rowCount());
+            assertEquals(START.plusHours(1).toEpochSecond(ZoneOffset.UTC), second.minStartSecond());
+            assertEquals(START.plusDays(1).toEpochSecond(ZoneOffset.UTC), second.maxStartSecond());
+
+            ColumnarReportReader.Block block = reader.readBlock(0);
+            assertEquals(1, block.callType(0));
+            assertEquals("79009876543", block.msisdn(block.callerId(1)));
+            assertEquals(300, block.endEpochSecond(0) - block.startEpochSecond(0));
+
+            List<CdrRecord> read = reader.readRecords();
+            assertEquals(records.subList(0, 4).stream().map(CdrRecord::toCdrString).toList(),
+                    read.subList(0, 4).stream().map(CdrRecord::toCdrString).toList());
+            assertNull(read.get(4).getReceiverMsisdn());
+            assertNull(read.get(4).getEndTime());
+            assertEquals(START.plusDays(2), read.get(4).getStartTime());
+        }
+    }
+
+    @Test
+    void testWrite_SmallerThanCsv() throws Exception {
+        List<CdrRecord> records = IntStream.range(0, 1000)
+                .mapToObj(i -> new CdrRecord(i % 2 == 0 ? "01" : "02", "79001234567", "7900000" + (1000 + i % 50),
+                        START.plusMinutes(7L * i), START.plusMinutes(7L * i).plusSeconds(60 + i)))
+                .toList();
+        long csvSize = records.stream().mapToLong(record -> record.toCdrString().length() + 1).sum();
+
+        Path file = write(records, ColumnarReportWriter.DEFAULT_BLOCK_ROWS);
+
+        assertTrue(Files.size(file) * 5 < csvSize, Files.size(file) + " vs " + csvSize);
+        try (ColumnarReportReader reader = ColumnarReportReader.open(file)) {
+            assertEquals(records.get(999).toCdrString(), reader.readRecords().get(999).toCdrString());
+        }
+    }
+
+    @Test
+    void testOpen_RejectsOtherFiles() throws Exception {
+        Path csv = Files.writeString(directory.resolve("report.csv"), "01,79001234567,79009876543,2025-03-01T10:00,2025-03-01T10:05\n");
+
+        assertThrows(IOException.class, () -> ColumnarReportReader.open(csv));
+    }
+
+    @Test
+    void testWrite_RejectsNonNumericCallType() throws Exception {
+        try (ColumnarReportWriter writer = new ColumnarReportWriter(Files.newOutputStream(directory.resolve("bad.cdrc")))) {
+            assertThrows(IllegalArgumentException.class,
+                    () -> writer.write(new CdrRecord("XX", "79001234567", "79009876543", START, START.plusMinutes(1))));
+        }
+    }
+
+    private Path write(List<CdrRecord> records, int blockRows) throws IOException {
+        Path file = directory.resolve("report.cdrc");
+        try (ColumnarReportWriter writer = new ColumnarReportWriter(Files.newOutputStream(file), blockRows)) {
+            for (CdrRecord record : records) {
+                writer.write(record);
+            }
+        }
+        return file;
+    }
+}
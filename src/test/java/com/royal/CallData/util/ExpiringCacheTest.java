@@ -0,0 +1,92 @@
+package com.royal.CallData.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ExpiringCacheTest {
+
+    @Test
+    void testGet_ExpiredEntryIsNotReturned() {
+        AtomicLong now = new AtomicLong(1000);
+        ExpiringCache<String, Integer> cache = new ExpiringCache<>(100, 10, now::get);
+
+        cache.put("a", 1);
+        now.addAndGet(99);
+        assertEquals(1, cache.get("a"));
+
+        now.addAndGet(1);
+        assertNull(cache.get("a"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void testPut_LeastRecentlyUsedEntryIsEvicted() {
+        ExpiringCache<String, Integer> cache = new ExpiringCache<>(60_000, 2);
+
+        cache.put("a", 1);
+        cache.put("b", 2);
+        cache.get("a");
+        cache.put("c", 3);
+
+        assertEquals(1, cache.get("a"));
+        assertNull(cache.get("b"));
+        assertEquals(3, cache.get("c"));
+    }
+
+    @Test
+    void testContainsKey_DoesNotChangeEvictionOrderOrRemoveExpired() {
+        AtomicLong now = new AtomicLong(0);
+        ExpiringCache<String, Integer> cache = new ExpiringCache<>(100, 2, now::get);
+
+        cache.put("a", 1);
+        cache.put("b", 2);
+        assertTrue(cache.containsKey("a"));
+        cache.put("c", 3);
+
+        assertFalse(cache.containsKey("a"));
+        assertTrue(cache.containsKey("b"));
+
+        now.set(100);
+        assertFalse(cache.containsKey("b"));
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    void testComputeAndRemove() {
+        AtomicLong now = new AtomicLong(0);
+        ExpiringCache<String, Integer> cache = new ExpiringCache<>(100, 10, now::get);
+
+        assertEquals(1, cache.compute("a", (key, current) -> current == null ? 1 : current + 1));
+        assertEquals(2, cache.compute("a", (key, current) -> current == null ? 1 : current + 1));
+        assertFalse(cache.remove("a", 1));
+        assertTrue(cache.remove("a", 2));
+
+        cache.put("b", 1);
+        cache.put("c", 1);
+        now.set(100);
+        assertEquals(2, cache.evictExpired());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void testEvictionListener_ExpiredAndOverflowedEntries() {
+        AtomicLong now = new AtomicLong(0);
+        List<String> evicted = new ArrayList<>();
+        ExpiringCache<String, Integer> cache = new ExpiringCache<>(100, 2, now::get, (key, value) -> evicted.add(key));
+
+        cache.put("a", 1);
+        cache.put("b", 2);
+        cache.put("c", 3);
+        assertEquals(List.of("a"), evicted);
+
+        cache.remove("b", 2);
+        now.set(100);
+        cache.evictExpired();
+        assertEquals(List.of("a", "c"), evicted);
+    }
+}
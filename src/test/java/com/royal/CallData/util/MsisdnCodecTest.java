@@ -0,0 +1,60 @@
+package com.royal.CallData.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MsisdnCodecTest {
+
+    @Test
+    void testParse_DigitsWithoutLeadingZero() {
+        assertEquals(79001112233L, MsisdnCodec.parse("79001112233"));
+        assertEquals(1L, MsisdnCodec.parse("1"));
+    }
+
+    @Test
+    void testParse_NullIsNone() {
+        assertEquals(MsisdnCodec.NONE, MsisdnCodec.parse(null));
+    }
+
+    @Test
+    void testParse_NotRepresentableIsInvalid() {
+        assertEquals(MsisdnCodec.INVALID, MsisdnCodec.parse(""));
+        assertEquals(MsisdnCodec.INVALID, MsisdnCodec.parse("0"));
+        assertEquals(MsisdnCodec.INVALID, MsisdnCodec.parse("09001112233"));
+        assertEquals(MsisdnCodec.INVALID, MsisdnCodec.parse("+79001112233"));
+        assertEquals(MsisdnCodec.INVALID, MsisdnCodec.parse("7900111223a"));
+        assertEquals(MsisdnCodec.INVALID, MsisdnCodec.parse("7900 111 22 33"));
+        assertEquals(MsisdnCodec.INVALID, MsisdnCodec.parse("-79001112233"));
+    }
+
+    @Test
+    void testParse_MaxDigits() {
+        assertEquals(999_999_999_999_999_999L, MsisdnCodec.parse("9".repeat(MsisdnCodec.MAX_DIGITS)));
+        assertEquals(MsisdnCodec.INVALID, MsisdnCodec.parse("1".repeat(MsisdnCodec.MAX_DIGITS + 1)));
+        // 19 цифр уже могут переполнить long, поэтому отклоняются по длине, а не по значению
+        assertEquals(MsisdnCodec.INVALID, MsisdnCodec.parse("9223372036854775807"));
+    }
+
+    @Test
+    void testEncode_RejectsInvalidNumber() {
+        assertEquals(79001112233L, MsisdnCodec.encode("79001112233"));
+        assertEquals(MsisdnCodec.NONE, MsisdnCodec.encode(null));
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> MsisdnCodec.encode("+79001112233"));
+        assertTrue(e.getMessage().endsWith("+79001112233"));
+        assertThrows(IllegalArgumentException.class, () -> MsisdnCodec.encode(""));
+        assertThrows(IllegalArgumentException.class, () -> MsisdnCodec.encode("0123"));
+    }
+
+    @Test
+    void testFormat_RoundTrip() {
+        for (String msisdn : new String[]{"1", "79001112233", "9".repeat(MsisdnCodec.MAX_DIGITS)}) {
+            assertEquals(msisdn, MsisdnCodec.format(MsisdnCodec.encode(msisdn)));
+            assertEquals(msisdn, MsisdnCodec.format(Long.valueOf(MsisdnCodec.encode(msisdn))));
+        }
+        assertNull(MsisdnCodec.format(MsisdnCodec.NONE));
+        assertNull(MsisdnCodec.format((Long) null));
+        assertNull(MsisdnCodec.format(Long.valueOf(MsisdnCodec.NONE)));
+    }
+}
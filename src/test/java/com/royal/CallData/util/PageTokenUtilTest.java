@@ -0,0 +1,32 @@
+package com.royal.CallData.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PageTokenUtilTest {
+
+    @Test
+    void testEncodeDecode_RoundTrip() {
+        LocalDateTime startTime = LocalDateTime.of(2025, 3, 23, 14, 30, 15);
+
+        PageTokenUtil.Cursor cursor = PageTokenUtil.decode(PageTokenUtil.encode(startTime, 42L));
+
+        assertEquals(startTime, cursor.startTime());
+        assertEquals(42L, cursor.id());
+    }
+
+    @Test
+    void testDecode_EmptyTokenIsFirstPage() {
+        assertEquals(PageTokenUtil.FIRST_PAGE, PageTokenUtil.decode(null));
+        assertEquals(PageTokenUtil.FIRST_PAGE, PageTokenUtil.decode(""));
+    }
+
+    @Test
+    void testDecode_CorruptedToken() {
+        assertThrows(IllegalArgumentException.class, () -> PageTokenUtil.decode("not-a-token"));
+        assertThrows(IllegalArgumentException.class, () -> PageTokenUtil.decode("%%%"));
+    }
+}
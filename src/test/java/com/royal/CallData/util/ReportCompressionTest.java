@@ -0,0 +1,46 @@
+package com.royal.CallData.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ReportCompressionTest {
+
+    @Test
+    void testIsAcceptedBy_ParsesAcceptEncoding() {
+        assertTrue(ReportCompression.GZIP.isAcceptedBy("gzip, deflate, br"));
+        assertTrue(ReportCompression.GZIP.isAcceptedBy("br;q=1.0, GZIP;q=0.5"));
+        assertTrue(ReportCompression.GZIP.isAcceptedBy("*"));
+        assertFalse(ReportCompression.GZIP.isAcceptedBy("gzip;q=0, *"));
+        assertFalse(ReportCompression.GZIP.isAcceptedBy("deflate, br"));
+        assertFalse(ReportCompression.GZIP.isAcceptedBy(null));
+        assertTrue(ReportCompression.NONE.isAcceptedBy(null));
+    }
+
+    @Test
+    void testFileNames() {
+        assertEquals(ReportCompression.GZIP, ReportCompression.ofFileName("79001234567_id.csv.gz"));
+        assertEquals(ReportCompression.NONE, ReportCompression.ofFileName("79001234567_id.csv"));
+        assertEquals("79001234567_id.csv", ReportCompression.GZIP.stripExtension("79001234567_id.csv.gz"));
+    }
+
+    @Test
+    void testCompressAndDecompress_RoundTrip() throws Exception {
+        String content = "01,79001234567,79009876543,2025-03-01T10:00:00,2025-03-01T10:05:00\n".repeat(100);
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (OutputStream out = ReportCompression.GZIP.compress(compressed, 512)) {
+            out.write(content.getBytes(StandardCharsets.UTF_8));
+        }
+
+        assertTrue(compressed.size() < content.length());
+        try (InputStream in = ReportCompression.GZIP.decompress(new ByteArrayInputStream(compressed.toByteArray()), 512)) {
+            assertEquals(content, new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+}
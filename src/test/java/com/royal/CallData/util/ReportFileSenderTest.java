@@ -0,0 +1,121 @@
+package com.royal.CallData.util;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ReportFileSenderTest {
+
+    private static final String CONTENT = "0123456789abcdefghij";
+
+    @TempDir
+    Path directory;
+
+    private Path file;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        file = Files.writeString(directory.resolve("79001234567_report.csv"), CONTENT);
+    }
+
+    @Test
+    void testSend_WholeFileWithValidators() throws Exception {
+        MockHttpServletResponse response = send(request());
+
+        assertEquals(200, response.getStatus());
+        assertEquals(CONTENT, response.getContentAsString());
+        assertEquals(CONTENT.length(), response.getContentLengthLong());
+        assertEquals("bytes", response.getHeader(HttpHeaders.ACCEPT_RANGES));
+        assertNotNull(response.getHeader(HttpHeaders.ETAG));
+        assertNotNull(response.getHeader(HttpHeaders.LAST_MODIFIED));
+    }
+
+    @Test
+    void testSend_IfNoneMatchGivesNotModified() throws Exception {
+        String etag = send(request()).getHeader(HttpHeaders.ETAG);
+        MockHttpServletRequest request = request();
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, etag);
+
+        MockHttpServletResponse response = send(request);
+
+        assertEquals(304, response.getStatus());
+        assertEquals(0, response.getContentAsByteArray().length);
+    }
+
+    @Test
+    void testSend_SingleRange() throws Exception {
+        MockHttpServletRequest request = request();
+        request.addHeader(HttpHeaders.RANGE, "bytes=10-");
+
+        MockHttpServletResponse response = send(request);
+
+        assertEquals(206, response.getStatus());
+        assertEquals("bytes 10-19/20", response.getHeader(HttpHeaders.CONTENT_RANGE));
+        assertEquals("abcdefghij", response.getContentAsString());
+        assertEquals(10, response.getContentLengthLong());
+    }
+
+    @Test
+    void testSend_MultipleRanges() throws Exception {
+        MockHttpServletRequest request = request();
+        request.addHeader(HttpHeaders.RANGE, "bytes=0-1,-2");
+
+        MockHttpServletResponse response = send(request);
+
+        assertEquals(206, response.getStatus());
+        assertTrue(response.getContentType().startsWith("multipart/byteranges; boundary="));
+        String body = response.getContentAsString(StandardCharsets.US_ASCII);
+        assertTrue(body.contains("Content-Range: bytes 0-1/20\r\n\r\n01\r\n"));
+        assertTrue(body.contains("Content-Range: bytes 18-19/20\r\n\r\nij\r\n"));
+    }
+
+    @Test
+    void testSend_UnsatisfiableRangeAndStaleIfRange() throws Exception {
+        MockHttpServletRequest outside = request();
+        outside.addHeader(HttpHeaders.RANGE, "bytes=20-30");
+        MockHttpServletResponse unsatisfiable = send(outside);
+        assertEquals(416, unsatisfiable.getStatus());
+        assertEquals("bytes */20", unsatisfiable.getHeader(HttpHeaders.CONTENT_RANGE));
+
+        MockHttpServletRequest stale = request();
+        stale.addHeader(HttpHeaders.RANGE, "bytes=0-1");
+        stale.addHeader(HttpHeaders.IF_RANGE, "\"stale\"");
+        MockHttpServletResponse whole = send(stale);
+        assertEquals(200, whole.getStatus());
+        assertEquals(CONTENT, whole.getContentAsString());
+    }
+
+    @Test
+    void testSend_DelegatesToContainerSendfile() throws Exception {
+        MockHttpServletRequest request = request();
+        request.setAttribute(ReportFileSender.SENDFILE_SUPPORT, Boolean.TRUE);
+        request.addHeader(HttpHeaders.RANGE, "bytes=5-9");
+
+        MockHttpServletResponse response = send(request);
+
+        assertEquals(206, response.getStatus());
+        assertEquals(0, response.getContentAsByteArray().length);
+        assertEquals(file.toAbsolutePath().toString(), request.getAttribute(ReportFileSender.SENDFILE_FILENAME));
+        assertEquals(5L, request.getAttribute(ReportFileSender.SENDFILE_START));
+        assertEquals(10L, request.getAttribute(ReportFileSender.SENDFILE_END));
+    }
+
+    private static MockHttpServletRequest request() {
+        return new MockHttpServletRequest("GET", "/api/reports/download/id");
+    }
+
+    private MockHttpServletResponse send(MockHttpServletRequest request) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        ReportFileSender.send(file, null, request, response);
+        return response;
+    }
+}